@@ -0,0 +1,96 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.enterprise.inject.se.SeContainer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares a complete Weld SE container boot and shutdown of a
+ * {@linkplain SyntheticDeployment synthetic deployment} of 100 and
+ * 1,000 root resource classes, as many provider classes, and either
+ * no or 5,000 plain classes, when the deployment is scanned as a bean
+ * archive and when its resource and provider classes are instead
+ * found through a {@linkplain
+ * JaxRsExtension#BUILD_TIME_INDEX_PROPERTY_NAME build-time index}.
+ * Scanning makes every plain class a bean too; the index does not.
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g" })
+@Measurement(iterations = 10)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+public class BuildTimeIndexBenchmark {
+
+  @Param({ "100", "1000" })
+  public int size;
+
+  @Param({ "0", "5000" })
+  public int plainSize;
+
+  private SyntheticDeployment deployment;
+
+  public BuildTimeIndexBenchmark() {
+    super();
+  }
+
+  @Setup(Level.Trial)
+  public void setUp() throws ReflectiveOperationException {
+    this.deployment = SyntheticDeployment.of(this.size, this.plainSize);
+  }
+
+  @Benchmark
+  public boolean bootByScanning() {
+    try (final SeContainer container = this.deployment.bootByScanning()) {
+      return container.isRunning();
+    }
+  }
+
+  @Benchmark
+  public boolean bootFromIndex() {
+    try (final SeContainer container = this.deployment.bootFromIndex(Anchor.class)) {
+      return container.isRunning();
+    }
+  }
+
+  public static class Anchor {
+
+    public Anchor() {
+      super();
+    }
+
+  }
+
+}
@@ -0,0 +1,156 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.util.Collections;
+import java.util.Set;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.enterprise.context.spi.CreationalContext;
+
+import javax.enterprise.inject.Instance;
+
+import javax.enterprise.inject.se.SeContainer;
+import javax.enterprise.inject.se.SeContainerInitializer;
+
+import javax.enterprise.inject.spi.Bean;
+import javax.enterprise.inject.spi.BeanManager;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+
+import javax.ws.rs.core.Application;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the creation and destruction of a {@code Dependent}-scoped
+ * resource class returned by {@link Application#getClasses()}, with
+ * and without {@linkplain
+ * JaxRsExtension#DIRECT_INSTANTIATION_PROPERTY_NAME direct
+ * instantiation}, both through an {@link Instance} and through its
+ * {@link Bean}, as a runtime using {@link ResolvedBeans} would.
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+public class DirectInstantiationBenchmark {
+
+  @Param({ "false", "true" })
+  public boolean directInstantiation;
+
+  private SeContainer container;
+
+  private Instance<Items> instance;
+
+  private Bean<Items> bean;
+
+  private BeanManager beanManager;
+
+  public DirectInstantiationBenchmark() {
+    super();
+  }
+
+  @Setup
+  public void setUp() {
+    System.setProperty(JaxRsExtension.DIRECT_INSTANTIATION_PROPERTY_NAME, String.valueOf(this.directInstantiation));
+    try {
+      final SeContainerInitializer initializer = SeContainerInitializer.newInstance();
+      initializer.disableDiscovery();
+      initializer.addExtensions(new JaxRsExtension());
+      initializer.addBeanClasses(ItemsApplication.class);
+      this.container = initializer.initialize();
+    } finally {
+      System.clearProperty(JaxRsExtension.DIRECT_INSTANTIATION_PROPERTY_NAME);
+    }
+    this.instance = this.container.select(Items.class, JaxRsExtension.ResourceClass.Literal.INSTANCE);
+    this.beanManager = this.container.getBeanManager();
+    @SuppressWarnings("unchecked")
+    final Bean<Items> bean =
+      (Bean<Items>)this.beanManager.resolve(this.beanManager.getBeans(Items.class,
+                                                                      JaxRsExtension.ResourceClass.Literal.INSTANCE));
+    this.bean = bean;
+  }
+
+  @TearDown
+  public void tearDown() {
+    if (this.container != null) {
+      this.container.close();
+    }
+  }
+
+  @Benchmark
+  public Items createAndDestroy() {
+    final Items items = this.instance.get();
+    this.instance.destroy(items);
+    return items;
+  }
+
+  @Benchmark
+  public Items createAndDestroyBean() {
+    final CreationalContext<Items> cc = this.beanManager.createCreationalContext(this.bean);
+    final Items items = this.bean.create(cc);
+    this.bean.destroy(items, cc);
+    return items;
+  }
+
+  public static class ItemsApplication extends Application {
+
+    public ItemsApplication() {
+      super();
+    }
+
+    @Override
+    public Set<Class<?>> getClasses() {
+      return Collections.singleton(Items.class);
+    }
+
+  }
+
+  @Path("items")
+  public static class Items {
+
+    public Items() {
+      super();
+    }
+
+    @GET
+    public String list() {
+      return "all";
+    }
+
+  }
+
+}
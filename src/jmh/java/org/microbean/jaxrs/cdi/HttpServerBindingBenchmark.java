@@ -0,0 +1,140 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+
+import java.util.Collections;
+import java.util.Set;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.enterprise.inject.se.SeContainer;
+import javax.enterprise.inject.se.SeContainerInitializer;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+
+import javax.ws.rs.core.Application;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a complete, in-process HTTP round trip to a resource
+ * method served by an {@link HttpServerBinding} over the loopback
+ * interface.
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(value = 1, jvmArgsAppend = { "-Dsun.net.httpserver.nodelay=true" })
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+public class HttpServerBindingBenchmark {
+
+  private SeContainer container;
+
+  private URL url;
+
+  public HttpServerBindingBenchmark() {
+    super();
+  }
+
+  @Setup
+  public void setUp() throws IOException {
+    System.setProperty(JaxRsExtension.HTTP_SERVER_PORT_PROPERTY_NAME, "0");
+    try {
+      final SeContainerInitializer initializer = SeContainerInitializer.newInstance();
+      initializer.disableDiscovery();
+      initializer.addExtensions(new JaxRsExtension());
+      initializer.addBeanClasses(ItemsApplication.class);
+      this.container = initializer.initialize();
+    } finally {
+      System.clearProperty(JaxRsExtension.HTTP_SERVER_PORT_PROPERTY_NAME);
+    }
+    final InetSocketAddress address =
+      this.container.getBeanManager().getExtension(JaxRsExtension.class).getHttpServerBinding().getAddress();
+    this.url = new URL("http", address.getHostString(), address.getPort(), "/items/1234");
+  }
+
+  @TearDown
+  public void tearDown() {
+    if (this.container != null) {
+      this.container.close();
+    }
+  }
+
+  @Benchmark
+  public int get() throws IOException {
+    final HttpURLConnection connection = (HttpURLConnection)this.url.openConnection();
+    int count = 0;
+    try (final InputStream inputStream = connection.getInputStream()) {
+      while (inputStream.read() >= 0) {
+        ++count;
+      }
+    }
+    return count;
+  }
+
+  public static class ItemsApplication extends Application {
+
+    public ItemsApplication() {
+      super();
+    }
+
+    @Override
+    public Set<Class<?>> getClasses() {
+      return Collections.singleton(Items.class);
+    }
+
+  }
+
+  @Path("items")
+  public static class Items {
+
+    public Items() {
+      super();
+    }
+
+    @GET
+    @Path("{id}")
+    public String get(@PathParam("id") final String id) {
+      return id;
+    }
+
+  }
+
+}
@@ -0,0 +1,430 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.enterprise.inject.se.SeContainer;
+import javax.enterprise.inject.se.SeContainerInitializer;
+
+import javax.enterprise.inject.spi.Annotated;
+import javax.enterprise.inject.spi.AnnotatedType;
+import javax.enterprise.inject.spi.Bean;
+import javax.enterprise.inject.spi.BeanAttributes;
+import javax.enterprise.inject.spi.BeanManager;
+import javax.enterprise.inject.spi.ProcessAnnotatedType;
+import javax.enterprise.inject.spi.ProcessBeanAttributes;
+
+import javax.enterprise.inject.spi.configurator.AnnotatedTypeConfigurator;
+import javax.enterprise.inject.spi.configurator.BeanAttributesConfigurator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the {@link JaxRsExtension} against {@linkplain
+ * SyntheticDeployment synthetic deployments} of 10, 1,000 and 10,000
+ * root resource classes and as many provider classes.
+ *
+ * <ul>
+ *
+ * <li>{@link #boot(Deployment)} measures a complete Weld SE container
+ * boot and shutdown.</li>
+ *
+ * <li>{@link #forAllBeanAttributes(Discovery)} measures the {@code
+ * ProcessBeanAttributes} observer over every bean in the deployment;
+ * divide by the number of beans for a per-bean cost.  {@link
+ * #forAllBeanAttributesOfPlainBeans(PlainBeanDiscovery)} does the
+ * same for 10,000 beans that are not Jakarta RESTful Web Services
+ * classes at all.</li>
+ *
+ * <li>{@link #syntheticApplication(Deployment)} measures building a
+ * {@link JaxRsExtension.SyntheticApplication} out of every class in
+ * the deployment.</li>
+ *
+ * <li>{@link #getAllResourceBeans(BootedContainer)} and {@link
+ * #resolveResourceBean(BootedContainer)} measure {@link
+ * BeanManager} lookups using the {@link
+ * JaxRsExtension.ResourceClass} qualifier.  {@link
+ * #resolvedBean(BootedContainer)} measures the equivalent {@link
+ * ResolvedBeans} lookup.</li>
+ *
+ * </ul>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ */
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g" })
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+public class JaxRsExtensionBenchmark {
+
+  public JaxRsExtensionBenchmark() {
+    super();
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Measurement(iterations = 10)
+  @Warmup(iterations = 5)
+  public boolean boot(final Deployment deployment) {
+    try (final SeContainer container = deployment.deployment.boot()) {
+      return container.isRunning();
+    }
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  public JaxRsExtension forAllBeanAttributes(final Discovery discovery) throws ReflectiveOperationException {
+    return discovery.processBeanAttributes();
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  public JaxRsExtension forAllBeanAttributesOfPlainBeans(final PlainBeanDiscovery discovery)
+    throws ReflectiveOperationException {
+    return discovery.processBeanAttributes();
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  public JaxRsExtension.SyntheticApplication syntheticApplication(final Deployment deployment) {
+    return new JaxRsExtension.SyntheticApplication(new HashSet<>(deployment.deployment.getAllClasses()));
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  public Set<Bean<?>> getAllResourceBeans(final BootedContainer container) {
+    return container.beanManager.getBeans(Object.class, JaxRsExtension.ResourceClass.Literal.INSTANCE);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public Bean<?> resolveResourceBean(final BootedContainer container) {
+    final BeanManager beanManager = container.beanManager;
+    return beanManager.resolve(beanManager.getBeans(container.resourceClass,
+                                                    JaxRsExtension.ResourceClass.Literal.INSTANCE));
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public Bean<?> resolvedBean(final BootedContainer container) {
+    return container.resolvedBeans.getBean(container.resourceClass);
+  }
+
+  @State(Scope.Benchmark)
+  public static class Deployment {
+
+    @Param({ "10", "1000", "10000" })
+    public int size;
+
+    private SyntheticDeployment deployment;
+
+    public Deployment() {
+      super();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws ReflectiveOperationException {
+      this.deployment = SyntheticDeployment.of(this.size, 0);
+    }
+
+  }
+
+  @State(Scope.Benchmark)
+  public static class BootedContainer {
+
+    private SeContainer container;
+
+    private BeanManager beanManager;
+
+    private Class<?> resourceClass;
+
+    private ResolvedBeans resolvedBeans;
+
+    public BootedContainer() {
+      super();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp(final Deployment deployment) {
+      System.setProperty(JaxRsExtension.RESOLVED_BEANS_PROPERTY_NAME, "true");
+      try {
+        this.container = deployment.deployment.boot();
+      } finally {
+        System.clearProperty(JaxRsExtension.RESOLVED_BEANS_PROPERTY_NAME);
+      }
+      this.beanManager = this.container.getBeanManager();
+      this.resolvedBeans = this.container.select(ResolvedBeans.class).get();
+      final List<Class<?>> resourceClasses = deployment.deployment.getResourceClasses();
+      this.resourceClass = resourceClasses.get(resourceClasses.size() / 2);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+      if (this.container != null) {
+        this.container.close();
+      }
+    }
+
+  }
+
+  /**
+   * Replays the container lifecycle events the {@link
+   * JaxRsExtension} observes, up to and including {@code
+   * ProcessBeanAttributes}, outside of any container.
+   */
+  public abstract static class AbstractDiscovery {
+
+    private static final Method discoverResourceClasses;
+
+    private static final Method discoverProviderClasses;
+
+    private static final Method forAllBeanAttributes;
+
+    static {
+      try {
+        discoverResourceClasses = JaxRsExtension.class.getDeclaredMethod("discoverResourceClasses", ProcessAnnotatedType.class);
+        discoverResourceClasses.setAccessible(true);
+        discoverProviderClasses = JaxRsExtension.class.getDeclaredMethod("discoverProviderClasses", ProcessAnnotatedType.class);
+        discoverProviderClasses.setAccessible(true);
+        forAllBeanAttributes = JaxRsExtension.class.getDeclaredMethod("forAllBeanAttributes", ProcessBeanAttributes.class);
+        forAllBeanAttributes.setAccessible(true);
+      } catch (final NoSuchMethodException noSuchMethodException) {
+        throw new ExceptionInInitializerError(noSuchMethodException);
+      }
+    }
+
+    private SeContainer container;
+
+    private List<ProcessAnnotatedType<?>> resourceEvents;
+
+    private List<ProcessAnnotatedType<?>> providerEvents;
+
+    private List<ProcessBeanAttributes<?>> processBeanAttributesEvents;
+
+    private JaxRsExtension extension;
+
+    protected AbstractDiscovery() {
+      super();
+    }
+
+    final void prepare(final SyntheticDeployment deployment, final List<Class<?>> beanClasses) {
+      // A (nearly) empty container supplies a BeanManager that can
+      // create AnnotatedTypes and BeanAttributes for the deployment's
+      // classes.  Weld SE refuses to start with no bean classes at
+      // all.
+      final SeContainerInitializer initializer = SeContainerInitializer.newInstance();
+      initializer.disableDiscovery();
+      initializer.setClassLoader(deployment.getClassLoader());
+      initializer.addBeanClasses(Discovery.class);
+      this.container = initializer.initialize();
+      final BeanManager beanManager = this.container.getBeanManager();
+      this.resourceEvents = new ArrayList<>();
+      this.providerEvents = new ArrayList<>();
+      this.processBeanAttributesEvents = new ArrayList<>();
+      for (final Class<?> c : deployment.getResourceClasses()) {
+        this.resourceEvents.add(new PAT<>(beanManager.createAnnotatedType(c)));
+      }
+      for (final Class<?> c : deployment.getProviderClasses()) {
+        this.providerEvents.add(new PAT<>(beanManager.createAnnotatedType(c)));
+      }
+      for (final Class<?> c : beanClasses) {
+        final AnnotatedType<?> annotatedType = beanManager.createAnnotatedType(c);
+        this.processBeanAttributesEvents.add(new PBA<>(annotatedType, beanManager.createBeanAttributes(annotatedType)));
+      }
+    }
+
+    @Setup(Level.Invocation)
+    public void discover() throws ReflectiveOperationException {
+      this.extension = new JaxRsExtension();
+      for (final ProcessAnnotatedType<?> event : this.resourceEvents) {
+        discoverResourceClasses.invoke(this.extension, event);
+      }
+      for (final ProcessAnnotatedType<?> event : this.providerEvents) {
+        discoverProviderClasses.invoke(this.extension, event);
+      }
+    }
+
+    final JaxRsExtension processBeanAttributes() throws ReflectiveOperationException {
+      final JaxRsExtension extension = this.extension;
+      for (final ProcessBeanAttributes<?> event : this.processBeanAttributesEvents) {
+        forAllBeanAttributes.invoke(extension, event);
+      }
+      return extension;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+      if (this.container != null) {
+        this.container.close();
+      }
+    }
+
+  }
+
+  /**
+   * Replays discovery for every bean in a {@link Deployment}.
+   */
+  @State(Scope.Thread)
+  public static class Discovery extends AbstractDiscovery {
+
+    public Discovery() {
+      super();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp(final Deployment deployment) {
+      this.prepare(deployment.deployment, deployment.deployment.getAllClasses());
+    }
+
+  }
+
+  /**
+   * Replays discovery for a deployment of 10 root resource classes
+   * and 10 provider classes, but fires {@code ProcessBeanAttributes}
+   * only for its {@link #plainSize} beans that have nothing to do
+   * with Jakarta RESTful Web Services.
+   */
+  @State(Scope.Thread)
+  public static class PlainBeanDiscovery extends AbstractDiscovery {
+
+    @Param({ "10000" })
+    public int plainSize;
+
+    public PlainBeanDiscovery() {
+      super();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws ReflectiveOperationException {
+      final SyntheticDeployment deployment = SyntheticDeployment.of(10, this.plainSize);
+      this.prepare(deployment, deployment.getPlainClasses());
+    }
+
+  }
+
+  private static final class PAT<X> implements ProcessAnnotatedType<X> {
+
+    private final AnnotatedType<X> annotatedType;
+
+    private PAT(final AnnotatedType<X> annotatedType) {
+      super();
+      this.annotatedType = annotatedType;
+    }
+
+    @Override
+    public final AnnotatedType<X> getAnnotatedType() {
+      return this.annotatedType;
+    }
+
+    @Override
+    public final void setAnnotatedType(final AnnotatedType<X> type) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public final AnnotatedTypeConfigurator<X> configureAnnotatedType() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public final void veto() {
+      throw new UnsupportedOperationException();
+    }
+
+  }
+
+  private static final class PBA<T> implements ProcessBeanAttributes<T> {
+
+    private static final BeanAttributesConfigurator<?> configurator =
+      (BeanAttributesConfigurator<?>)Proxy.newProxyInstance(BeanAttributesConfigurator.class.getClassLoader(),
+                                                            new Class<?>[] { BeanAttributesConfigurator.class },
+                                                            (proxy, method, arguments) -> proxy);
+
+    private final Annotated annotated;
+
+    private final BeanAttributes<T> beanAttributes;
+
+    private PBA(final Annotated annotated, final BeanAttributes<T> beanAttributes) {
+      super();
+      this.annotated = annotated;
+      this.beanAttributes = beanAttributes;
+    }
+
+    @Override
+    public final Annotated getAnnotated() {
+      return this.annotated;
+    }
+
+    @Override
+    public final BeanAttributes<T> getBeanAttributes() {
+      return this.beanAttributes;
+    }
+
+    @Override
+    public final void setBeanAttributes(final BeanAttributes<T> beanAttributes) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public final BeanAttributesConfigurator<T> configureBeanAttributes() {
+      return (BeanAttributesConfigurator<T>)configurator;
+    }
+
+    @Override
+    public final void addDefinitionError(final Throwable throwable) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public final void veto() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public final void ignoreFinalMethods() {
+      throw new UnsupportedOperationException();
+    }
+
+  }
+
+}
@@ -0,0 +1,162 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.RequestScoped;
+
+import javax.enterprise.context.control.ActivateRequestContext;
+import javax.enterprise.context.control.RequestContextController;
+
+import javax.enterprise.inject.Instance;
+
+import javax.enterprise.inject.se.SeContainer;
+import javax.enterprise.inject.se.SeContainerInitializer;
+
+import javax.inject.Inject;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a request that touches one {@link RequestScoped} bean,
+ * with the request context activated by the container's {@link
+ * ActivateRequestContext} interceptor, by a {@link
+ * RequestContextController} acquired and destroyed per request, and
+ * by a {@link RequestContextActivator}.
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+public class RequestContextActivatorBenchmark {
+
+  private SeContainer container;
+
+  private Handler handler;
+
+  private Counter counter;
+
+  private Instance<RequestContextController> requestContextControllers;
+
+  private RequestContextActivator requestContextActivator;
+
+  public RequestContextActivatorBenchmark() {
+    super();
+  }
+
+  @Setup
+  public void setUp() {
+    final SeContainerInitializer initializer = SeContainerInitializer.newInstance();
+    initializer.disableDiscovery();
+    initializer.addExtensions(new JaxRsExtension());
+    initializer.addBeanClasses(Handler.class, Counter.class);
+    this.container = initializer.initialize();
+    this.handler = this.container.select(Handler.class).get();
+    this.counter = this.container.select(Counter.class).get();
+    this.requestContextControllers = this.container.select(RequestContextController.class);
+    this.requestContextActivator = new RequestContextActivator(this.container.getBeanManager());
+  }
+
+  @TearDown
+  public void tearDown() {
+    if (this.container != null) {
+      this.container.close();
+    }
+  }
+
+  @Benchmark
+  public int activateRequestContextInterceptor() {
+    return this.handler.handle();
+  }
+
+  @Benchmark
+  public int requestContextController() {
+    final RequestContextController requestContextController = this.requestContextControllers.get();
+    final boolean activated = requestContextController.activate();
+    try {
+      return this.counter.increment();
+    } finally {
+      try {
+        if (activated) {
+          requestContextController.deactivate();
+        }
+      } finally {
+        this.requestContextControllers.destroy(requestContextController);
+      }
+    }
+  }
+
+  @Benchmark
+  public int requestContextActivator() {
+    final RequestContextActivator.Activation activation = this.requestContextActivator.activate();
+    try {
+      return this.counter.increment();
+    } finally {
+      activation.close();
+    }
+  }
+
+  @ApplicationScoped
+  public static class Handler {
+
+    @Inject
+    private Counter counter;
+
+    public Handler() {
+      super();
+    }
+
+    @ActivateRequestContext
+    public int handle() {
+      return this.counter.increment();
+    }
+
+  }
+
+  @RequestScoped
+  public static class Counter {
+
+    private int count;
+
+    public Counter() {
+      super();
+    }
+
+    public int increment() {
+      return ++this.count;
+    }
+
+  }
+
+}
@@ -0,0 +1,106 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.lang.reflect.Method;
+
+import java.util.Collections;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares {@link ResourceMethodInvoker#invoke(Object, Object...)}
+ * with {@link Method#invoke(Object, Object...)} and with a direct
+ * call, for a resource method that takes a single path parameter.
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+public class ResourceMethodInvokerBenchmark {
+
+  private Items resource;
+
+  private Object[] arguments;
+
+  private Method method;
+
+  private ResourceMethodInvoker invoker;
+
+  public ResourceMethodInvokerBenchmark() {
+    super();
+  }
+
+  @Setup
+  public void setUp() throws ReflectiveOperationException {
+    this.resource = new Items();
+    this.arguments = new Object[] { "42" };
+    this.method = Items.class.getMethod("get", String.class);
+    this.invoker = ResourceMethodInvokers.of(Collections.singleton(Items.class)).getInvoker(Items.class, this.method);
+  }
+
+  @Benchmark
+  public Object direct() {
+    return this.resource.get((String)this.arguments[0]);
+  }
+
+  @Benchmark
+  public Object reflection() throws ReflectiveOperationException {
+    return this.method.invoke(this.resource, this.arguments);
+  }
+
+  @Benchmark
+  public Object resourceMethodInvoker() throws Throwable {
+    return this.invoker.invoke(this.resource, this.arguments);
+  }
+
+  @Path("items")
+  public static class Items {
+
+    public Items() {
+      super();
+    }
+
+    @GET
+    @Path("{id}")
+    public String get(@PathParam("id") final String id) {
+      return id;
+    }
+
+  }
+
+}
@@ -0,0 +1,113 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.lang.reflect.Method;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import java.util.concurrent.TimeUnit;
+
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares {@link RouteTable#match(CharSequence, String)} with a
+ * linear scan over one compiled regular expression per template, as
+ * a straightforward implementation of the specification's matching
+ * algorithm would do, over {@value #TEMPLATES_PER_SERVICE} &times;
+ * {@value #SERVICES} templates.
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+public class RouteTableBenchmark {
+
+  private static final int SERVICES = 100;
+
+  private static final int TEMPLATES_PER_SERVICE = 6;
+
+  @Param({ "service0/status", "service50/items/1234", "service99/items/1234/owners/5678", "service99/nothing" })
+  public String path;
+
+  private RouteTable routeTable;
+
+  private Pattern[] patterns;
+
+  private RouteTable.Route[] patternRoutes;
+
+  public RouteTableBenchmark() {
+    super();
+  }
+
+  @Setup
+  public void setUp() throws ReflectiveOperationException {
+    final Method method = Object.class.getMethod("toString");
+    final List<RouteTable.Route> routes = new ArrayList<>();
+    for (int i = 0; i < SERVICES; i++) {
+      final String prefix = "/service" + i;
+      routes.add(new RouteTable.Route(Object.class, method, "GET", prefix + "/items"));
+      routes.add(new RouteTable.Route(Object.class, method, "GET", prefix + "/items/{id}"));
+      routes.add(new RouteTable.Route(Object.class, method, "GET", prefix + "/items/{id}/details"));
+      routes.add(new RouteTable.Route(Object.class, method, "GET", prefix + "/items/{id}/owners/{owner}"));
+      routes.add(new RouteTable.Route(Object.class, method, "GET", prefix + "/status"));
+      routes.add(new RouteTable.Route(Object.class, method, "GET", prefix + "/search"));
+    }
+    assert routes.size() == SERVICES * TEMPLATES_PER_SERVICE;
+    this.routeTable = new RouteTable(routes);
+    this.patterns = new Pattern[routes.size()];
+    this.patternRoutes = routes.toArray(new RouteTable.Route[routes.size()]);
+    for (int i = 0; i < this.patterns.length; i++) {
+      final String template = this.patternRoutes[i].getTemplate().substring(1);
+      this.patterns[i] = Pattern.compile(template.replaceAll("\\{[^}]+\\}", "([^/]+)") + "(/)?");
+    }
+  }
+
+  @Benchmark
+  public RouteTable.Route routeTable() {
+    return this.routeTable.match(this.path, "GET");
+  }
+
+  @Benchmark
+  public RouteTable.Route linearRegularExpressionScan() {
+    for (int i = 0; i < this.patterns.length; i++) {
+      if (this.patterns[i].matcher(this.path).matches() && "GET".equals(this.patternRoutes[i].getHttpMethod())) {
+        return this.patternRoutes[i];
+      }
+    }
+    return null;
+  }
+
+}
@@ -0,0 +1,294 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import java.nio.charset.StandardCharsets;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.enterprise.inject.se.SeContainer;
+import javax.enterprise.inject.se.SeContainerInitializer;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+/**
+ * A synthetic deployment of generated root resource classes, provider
+ * classes and plain beans, compiled once per size and cached on disk
+ * under {@code java.io.tmpdir} so that benchmark forks do not have to
+ * compile it again.
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ */
+final class SyntheticDeployment {
+
+  private static final String PACKAGE_NAME = "org.microbean.jaxrs.cdi.synthetic";
+
+  private final Path classesDirectory;
+
+  private final ClassLoader classLoader;
+
+  private final List<Class<?>> resourceClasses;
+
+  private final List<Class<?>> providerClasses;
+
+  private final List<Class<?>> plainClasses;
+
+  private SyntheticDeployment(final Path classesDirectory,
+                              final ClassLoader classLoader,
+                              final List<Class<?>> resourceClasses,
+                              final List<Class<?>> providerClasses,
+                              final List<Class<?>> plainClasses) {
+    super();
+    this.classesDirectory = classesDirectory;
+    this.classLoader = classLoader;
+    this.resourceClasses = Collections.unmodifiableList(resourceClasses);
+    this.providerClasses = Collections.unmodifiableList(providerClasses);
+    this.plainClasses = Collections.unmodifiableList(plainClasses);
+  }
+
+  final ClassLoader getClassLoader() {
+    return this.classLoader;
+  }
+
+  final List<Class<?>> getResourceClasses() {
+    return this.resourceClasses;
+  }
+
+  final List<Class<?>> getProviderClasses() {
+    return this.providerClasses;
+  }
+
+  final List<Class<?>> getPlainClasses() {
+    return this.plainClasses;
+  }
+
+  final List<Class<?>> getAllClasses() {
+    final List<Class<?>> returnValue =
+      new ArrayList<>(this.resourceClasses.size() + this.providerClasses.size() + this.plainClasses.size());
+    returnValue.addAll(this.resourceClasses);
+    returnValue.addAll(this.providerClasses);
+    returnValue.addAll(this.plainClasses);
+    return returnValue;
+  }
+
+  /**
+   * Starts and returns a new Weld SE container, with a {@link
+   * JaxRsExtension}, whose bean classes are {@linkplain
+   * #getAllClasses() all the classes in this deployment}.
+   *
+   * @return a new, initialized {@link SeContainer}; never {@code
+   * null}
+   */
+  final SeContainer boot() {
+    final SeContainerInitializer initializer = SeContainerInitializer.newInstance();
+    initializer.disableDiscovery();
+    initializer.setClassLoader(this.classLoader);
+    initializer.addExtensions(new JaxRsExtension());
+    initializer.addBeanClasses(this.getAllClasses().toArray(new Class<?>[0]));
+    return initializer.initialize();
+  }
+
+  /**
+   * Starts and returns a new Weld SE container, with a {@link
+   * JaxRsExtension}, that finds the classes in this deployment by
+   * scanning it as a bean archive whose {@code beans.xml} has a
+   * {@code bean-discovery-mode} of {@code all}.
+   *
+   * @return a new, initialized {@link SeContainer}; never {@code
+   * null}
+   */
+  final SeContainer bootByScanning() {
+    this.writeMetadata();
+    final SeContainerInitializer initializer = SeContainerInitializer.newInstance();
+    initializer.setClassLoader(this.classLoader);
+    initializer.addExtensions(new JaxRsExtension());
+    return initializer.initialize();
+  }
+
+  /**
+   * Starts and returns a new Weld SE container, with a {@link
+   * JaxRsExtension}, that does not scan for bean archives at all and
+   * instead finds the resource and provider classes in this
+   * deployment in a {@linkplain
+   * JaxRsExtension#BUILD_TIME_INDEX_PROPERTY_NAME build-time index}.
+   *
+   * @param anchorClass a bean class to add explicitly, since Weld SE
+   * refuses to start without one when discovery is disabled; must
+   * not be {@code null}
+   *
+   * @return a new, initialized {@link SeContainer}; never {@code
+   * null}
+   */
+  final SeContainer bootFromIndex(final Class<?> anchorClass) {
+    this.writeMetadata();
+    final Thread currentThread = Thread.currentThread();
+    final ClassLoader old = currentThread.getContextClassLoader();
+    currentThread.setContextClassLoader(this.classLoader);
+    System.setProperty(JaxRsExtension.BUILD_TIME_INDEX_PROPERTY_NAME, "true");
+    try {
+      final SeContainerInitializer initializer = SeContainerInitializer.newInstance();
+      initializer.disableDiscovery();
+      initializer.setClassLoader(this.classLoader);
+      initializer.addExtensions(new JaxRsExtension());
+      initializer.addBeanClasses(anchorClass);
+      return initializer.initialize();
+    } finally {
+      System.clearProperty(JaxRsExtension.BUILD_TIME_INDEX_PROPERTY_NAME);
+      currentThread.setContextClassLoader(old);
+    }
+  }
+
+  private final void writeMetadata() {
+    final Path beansXml = this.classesDirectory.resolve("META-INF/beans.xml");
+    final Path index = this.classesDirectory.resolve(JaxRsIndex.RESOURCE_NAME);
+    if (Files.isRegularFile(beansXml) && Files.isRegularFile(index)) {
+      return;
+    }
+    final StringBuilder sb = new StringBuilder();
+    for (final Class<?> c : this.resourceClasses) {
+      sb.append(JaxRsIndex.RESOURCE_CLASS_KIND).append(' ').append(c.getName()).append('\n');
+    }
+    for (final Class<?> c : this.providerClasses) {
+      sb.append(JaxRsIndex.PROVIDER_CLASS_KIND).append(' ').append(c.getName()).append('\n');
+    }
+    try {
+      Files.createDirectories(beansXml.getParent());
+      Files.write(beansXml,
+                  ("<beans xmlns=\"http://xmlns.jcp.org/xml/ns/javaee\" version=\"2.0\" " +
+                   "bean-discovery-mode=\"all\"/>\n").getBytes(StandardCharsets.UTF_8));
+      Files.write(index, sb.toString().getBytes(StandardCharsets.UTF_8));
+    } catch (final IOException ioException) {
+      throw new UncheckedIOException(ioException.getMessage(), ioException);
+    }
+  }
+
+  /**
+   * Returns a {@link SyntheticDeployment} with the given number of
+   * root resource classes, the same number of provider classes, and
+   * the given number of plain (non-JAX-RS) bean classes.
+   *
+   * @param size the number of root resource classes and of provider
+   * classes
+   *
+   * @param plainSize the number of plain bean classes
+   *
+   * @return a non-{@code null} {@link SyntheticDeployment}
+   *
+   * @exception ReflectiveOperationException if a generated class
+   * could not be loaded
+   */
+  static final SyntheticDeployment of(final int size, final int plainSize) throws ReflectiveOperationException {
+    final Path directory = Paths.get(System.getProperty("java.io.tmpdir"),
+                                     "microbean-jaxrs-cdi-benchmarks",
+                                     size + "-" + plainSize);
+    try {
+      if (!Files.isRegularFile(directory.resolve("COMPLETE"))) {
+        compile(directory, size, plainSize);
+      }
+      final URLClassLoader classLoader =
+        new URLClassLoader(new URL[] { directory.resolve("classes").toUri().toURL() },
+                           SyntheticDeployment.class.getClassLoader());
+      final List<Class<?>> resourceClasses = new ArrayList<>(size);
+      final List<Class<?>> providerClasses = new ArrayList<>(size);
+      final List<Class<?>> plainClasses = new ArrayList<>(plainSize);
+      for (int i = 0; i < size; i++) {
+        resourceClasses.add(classLoader.loadClass(PACKAGE_NAME + ".Resource" + i));
+        providerClasses.add(classLoader.loadClass(PACKAGE_NAME + ".Provider" + i));
+      }
+      for (int i = 0; i < plainSize; i++) {
+        plainClasses.add(classLoader.loadClass(PACKAGE_NAME + ".Plain" + i));
+      }
+      return new SyntheticDeployment(directory.resolve("classes"), classLoader, resourceClasses, providerClasses, plainClasses);
+    } catch (final IOException ioException) {
+      throw new UncheckedIOException(ioException.getMessage(), ioException);
+    }
+  }
+
+  private static final void compile(final Path directory, final int size, final int plainSize) throws IOException {
+    final Path sources = directory.resolve("sources");
+    final Path packageDirectory = sources.resolve(PACKAGE_NAME.replace('.', File.separatorChar));
+    final Path classes = directory.resolve("classes");
+    Files.createDirectories(packageDirectory);
+    Files.createDirectories(classes);
+    final List<String> arguments = new ArrayList<>();
+    arguments.addAll(Arrays.asList("-proc:none",
+                                   "-nowarn",
+                                   "-d", classes.toString(),
+                                   "-classpath", classpathOf(javax.ws.rs.Path.class)));
+    for (int i = 0; i < size; i++) {
+      arguments.add(write(packageDirectory, "Resource" + i,
+                          "@javax.ws.rs.Path(\"resource" + i + "\")\n" +
+                          "public class Resource" + i + " {\n" +
+                          "  @javax.ws.rs.GET public String get() { return \"" + i + "\"; }\n" +
+                          "  @javax.ws.rs.GET @javax.ws.rs.Path(\"{id}\")\n" +
+                          "  public String get(@javax.ws.rs.PathParam(\"id\") final String id) { return id; }\n" +
+                          "}\n"));
+      arguments.add(write(packageDirectory, "Provider" + i,
+                          "@javax.ws.rs.ext.Provider\n" +
+                          "public class Provider" + i + " implements javax.ws.rs.ext.ContextResolver<String> {\n" +
+                          "  @Override public String getContext(final Class<?> type) { return \"" + i + "\"; }\n" +
+                          "}\n"));
+    }
+    for (int i = 0; i < plainSize; i++) {
+      arguments.add(write(packageDirectory, "Plain" + i,
+                          "public class Plain" + i + " {\n" +
+                          "  public String get() { return \"" + i + "\"; }\n" +
+                          "}\n"));
+    }
+    final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    if (compiler == null) {
+      throw new IllegalStateException("No system Java compiler is available");
+    }
+    if (compiler.run(null, null, null, arguments.toArray(new String[arguments.size()])) != 0) {
+      throw new IllegalStateException("Compilation of " + directory + " failed");
+    }
+    Files.createFile(directory.resolve("COMPLETE"));
+  }
+
+  private static final String write(final Path packageDirectory, final String simpleName, final String body)
+    throws IOException {
+    final Path file = packageDirectory.resolve(simpleName + ".java");
+    Files.write(file, ("package " + PACKAGE_NAME + ";\n" + body).getBytes(StandardCharsets.UTF_8));
+    return file.toString();
+  }
+
+  private static final String classpathOf(final Class<?> c) {
+    try {
+      return new File(c.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+    } catch (final URISyntaxException uriSyntaxException) {
+      throw new IllegalStateException(uriSyntaxException.getMessage(), uriSyntaxException);
+    }
+  }
+
+}
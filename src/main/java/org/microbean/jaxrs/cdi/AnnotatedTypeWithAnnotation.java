@@ -0,0 +1,132 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.lang.annotation.Annotation;
+
+import java.lang.reflect.Type;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+
+import javax.enterprise.inject.spi.AnnotatedConstructor;
+import javax.enterprise.inject.spi.AnnotatedField;
+import javax.enterprise.inject.spi.AnnotatedMethod;
+import javax.enterprise.inject.spi.AnnotatedType;
+
+/**
+ * An {@link AnnotatedType} that is another {@link AnnotatedType}
+ * with one more type-level annotation.
+ *
+ * <p>This is used to add interceptor bindings to resource classes
+ * that are not beans, whose {@link AnnotatedType}s are created, not
+ * {@linkplain javax.enterprise.inject.spi.ProcessAnnotatedType
+ * processed}, and so cannot be configured.</p>
+ *
+ * @param <X> the type of the {@link AnnotatedType}
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ */
+final class AnnotatedTypeWithAnnotation<X> implements AnnotatedType<X> {
+
+  private final AnnotatedType<X> delegate;
+
+  private final Annotation annotation;
+
+  private final Set<Annotation> annotations;
+
+  /**
+   * Creates a new {@link AnnotatedTypeWithAnnotation}.
+   *
+   * @param delegate the {@link AnnotatedType} to add an annotation
+   * to; must not be {@code null}
+   *
+   * @param annotation the annotation to add; must not be {@code
+   * null}
+   *
+   * @exception NullPointerException if either parameter is {@code
+   * null}
+   */
+  AnnotatedTypeWithAnnotation(final AnnotatedType<X> delegate, final Annotation annotation) {
+    super();
+    this.delegate = Objects.requireNonNull(delegate);
+    this.annotation = Objects.requireNonNull(annotation);
+    final Set<Annotation> annotations = new HashSet<>(delegate.getAnnotations());
+    annotations.add(annotation);
+    this.annotations = Collections.unmodifiableSet(annotations);
+  }
+
+  @Override
+  public final Class<X> getJavaClass() {
+    return this.delegate.getJavaClass();
+  }
+
+  @Override
+  public final Set<AnnotatedConstructor<X>> getConstructors() {
+    return this.delegate.getConstructors();
+  }
+
+  @Override
+  public final Set<AnnotatedMethod<? super X>> getMethods() {
+    return this.delegate.getMethods();
+  }
+
+  @Override
+  public final Set<AnnotatedField<? super X>> getFields() {
+    return this.delegate.getFields();
+  }
+
+  @Override
+  public final Type getBaseType() {
+    return this.delegate.getBaseType();
+  }
+
+  @Override
+  public final Set<Type> getTypeClosure() {
+    return this.delegate.getTypeClosure();
+  }
+
+  @Override
+  public final <T extends Annotation> T getAnnotation(final Class<T> annotationType) {
+    if (this.annotation.annotationType().equals(annotationType)) {
+      return annotationType.cast(this.annotation);
+    }
+    return this.delegate.getAnnotation(annotationType);
+  }
+
+  @Override
+  public final <T extends Annotation> Set<T> getAnnotations(final Class<T> annotationType) {
+    if (this.annotation.annotationType().equals(annotationType)) {
+      return Collections.singleton(annotationType.cast(this.annotation));
+    }
+    return this.delegate.getAnnotations(annotationType);
+  }
+
+  @Override
+  public final Set<Annotation> getAnnotations() {
+    return this.annotations;
+  }
+
+  @Override
+  public final boolean isAnnotationPresent(final Class<? extends Annotation> annotationType) {
+    return this.annotation.annotationType().equals(annotationType) || this.delegate.isAnnotationPresent(annotationType);
+  }
+
+}
@@ -0,0 +1,170 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import javax.ws.rs.ApplicationPath;
+
+import javax.ws.rs.core.Application;
+
+/**
+ * An immutable {@link Application} that captures the {@linkplain
+ * Application#getClasses() classes}, {@linkplain
+ * Application#getSingletons() singletons} and {@linkplain
+ * Application#getProperties() properties} of another {@link
+ * Application} exactly once, at container startup time.
+ *
+ * <p>When {@linkplain JaxRsExtension#SNAPSHOT_APPLICATIONS_PROPERTY_NAME
+ * enabled}, the {@link JaxRsExtension} adds a {@link
+ * javax.inject.Singleton}-scoped bean of this type, bearing the same
+ * qualifiers as the {@link Application} bean it was captured from,
+ * for every {@link Application} bean it finds.  Runtimes may use
+ * instances of this class in place of the original {@link
+ * Application} so that the latter's constructor does not need to be
+ * run a second time.</p>
+ *
+ * <p>Beans of this type do not have {@link Application} as one of
+ * their bean types, so they never introduce ambiguity with the
+ * {@link Application} beans they were captured from.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see JaxRsExtension#SNAPSHOT_APPLICATIONS_PROPERTY_NAME
+ */
+public final class ApplicationSnapshot extends Application {
+
+  private final Class<? extends Application> applicationClass;
+
+  private final ApplicationPath applicationPath;
+
+  private final Set<Class<?>> classes;
+
+  private final Set<Object> singletons;
+
+  private final Map<String, Object> properties;
+
+  /**
+   * Creates a new {@link ApplicationSnapshot}.
+   *
+   * @param application the {@link Application} to capture; must not
+   * be {@code null}
+   *
+   * @exception NullPointerException if {@code application} is {@code
+   * null}
+   */
+  ApplicationSnapshot(final Application application) {
+    super();
+    Objects.requireNonNull(application);
+    this.applicationClass = application.getClass();
+    this.applicationPath = this.applicationClass.getAnnotation(ApplicationPath.class);
+    this.classes = ImmutableArraySet.of(application.getClasses());
+    final Set<Object> singletons = application.getSingletons();
+    if (singletons == null || singletons.isEmpty()) {
+      this.singletons = Collections.emptySet();
+    } else {
+      this.singletons = Collections.unmodifiableSet(new HashSet<>(singletons));
+    }
+    final Map<String, Object> properties = application.getProperties();
+    if (properties == null || properties.isEmpty()) {
+      this.properties = Collections.emptyMap();
+    } else {
+      this.properties = Collections.unmodifiableMap(new HashMap<>(properties));
+    }
+  }
+
+  /**
+   * Returns the {@link Class} of the {@link Application} this {@link
+   * ApplicationSnapshot} was captured from.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return the non-{@code null} {@link Class} of the captured {@link
+   * Application}
+   */
+  public final Class<? extends Application> getApplicationClass() {
+    return this.applicationClass;
+  }
+
+  /**
+   * Returns the {@link ApplicationPath} annotating the {@linkplain
+   * #getApplicationClass() captured <code>Application</code> class},
+   * or {@code null} if there is no such annotation.
+   *
+   * @return the {@link ApplicationPath} annotating the captured
+   * {@link Application} class, or {@code null}
+   */
+  public final ApplicationPath getApplicationPath() {
+    return this.applicationPath;
+  }
+
+  /**
+   * Returns an unmodifiable {@link Set} of the resource and provider
+   * classes returned by the captured {@link Application}'s {@link
+   * Application#getClasses()} method.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return a non-{@code null}, unmodifiable {@link Set} of resource
+   * and provider classes
+   */
+  @Override
+  public final Set<Class<?>> getClasses() {
+    return this.classes;
+  }
+
+  /**
+   * Returns an {@linkplain Collections#unmodifiableSet(Set)
+   * unmodifiable <code>Set</code>} of the resource and provider
+   * instances returned by the captured {@link Application}'s {@link
+   * Application#getSingletons()} method.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return a non-{@code null}, {@linkplain
+   * Collections#unmodifiableSet(Set) unmodifiable <code>Set</code>}
+   * of resource and provider instances
+   */
+  @Override
+  public final Set<Object> getSingletons() {
+    return this.singletons;
+  }
+
+  /**
+   * Returns an {@linkplain Collections#unmodifiableMap(Map)
+   * unmodifiable <code>Map</code>} of the properties returned by the
+   * captured {@link Application}'s {@link
+   * Application#getProperties()} method.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return a non-{@code null}, {@linkplain
+   * Collections#unmodifiableMap(Map) unmodifiable <code>Map</code>}
+   * of properties
+   */
+  @Override
+  public final Map<String, Object> getProperties() {
+    return this.properties;
+  }
+
+}
@@ -0,0 +1,211 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.time.Duration;
+
+import java.util.Set;
+
+import javax.inject.Singleton;
+
+import javax.ws.rs.core.Application;
+
+/**
+ * An immutable record of how long each {@linkplain Phase phase} of
+ * the work done by a {@link JaxRsExtension} at container startup
+ * took, of how many classes it dealt with, and of any provider
+ * classes it could not assign to an {@link Application}.
+ *
+ * <p>A {@link JaxRsExtension} makes exactly one {@link BootReport}
+ * available as a {@link Singleton}-scoped bean.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see JaxRsExtension
+ */
+public final class BootReport {
+
+  private final long[] classCounts;
+
+  private final long[] nanos;
+
+  private final Set<Class<?>> orphanedProviderClasses;
+
+  BootReport(final long[] classCounts, final long[] nanos, final Set<Class<?>> orphanedProviderClasses) {
+    super();
+    final int length = Phase.values().length;
+    if (classCounts.length != length) {
+      throw new IllegalArgumentException("classCounts.length != " + length + ": " + classCounts.length);
+    }
+    if (nanos.length != length) {
+      throw new IllegalArgumentException("nanos.length != " + length + ": " + nanos.length);
+    }
+    this.classCounts = classCounts.clone();
+    this.nanos = nanos.clone();
+    this.orphanedProviderClasses = ImmutableArraySet.of(orphanedProviderClasses);
+  }
+
+  /**
+   * Returns the number of classes dealt with during the supplied
+   * {@link Phase}.
+   *
+   * @param phase the {@link Phase} in question; must not be {@code
+   * null}
+   *
+   * @return the number of classes dealt with during the supplied
+   * {@link Phase}; never negative
+   *
+   * @exception NullPointerException if {@code phase} is {@code null}
+   *
+   * @see Phase
+   */
+  public final long getClassCount(final Phase phase) {
+    return this.classCounts[phase.ordinal()];
+  }
+
+  /**
+   * Returns the time taken by the supplied {@link Phase}.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @param phase the {@link Phase} in question; must not be {@code
+   * null}
+   *
+   * @return a non-{@code null}, non-negative {@link Duration}
+   *
+   * @exception NullPointerException if {@code phase} is {@code null}
+   */
+  public final Duration getDuration(final Phase phase) {
+    return Duration.ofNanos(this.nanos[phase.ordinal()]);
+  }
+
+  /**
+   * Returns the sum of the {@linkplain #getDuration(Phase) durations}
+   * of all {@linkplain Phase phases}.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return a non-{@code null}, non-negative {@link Duration}
+   */
+  public final Duration getTotalDuration() {
+    long sum = 0L;
+    for (final long nanos : this.nanos) {
+      sum += nanos;
+    }
+    return Duration.ofNanos(sum);
+  }
+
+  /**
+   * Returns an immutable {@link Set} of provider classes that were
+   * found to be beans but that were assigned to no {@link
+   * Application}, synthetic or otherwise.
+   *
+   * <p>A provider class ends up here when no {@link
+   * Application#getClasses()} method returned it and no unclaimed
+   * resource class bean bears exactly the same qualifiers as its
+   * bean.  Such providers will never be used, which is usually a
+   * mistake.</p>
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return a non-{@code null}, immutable {@link Set} of orphaned
+   * provider classes
+   */
+  public final Set<Class<?>> getOrphanedProviderClasses() {
+    return this.orphanedProviderClasses;
+  }
+
+  /**
+   * Returns a non-{@code null} {@link String} representation of this
+   * {@link BootReport}, one {@linkplain Phase phase} per line,
+   * followed by any {@linkplain #getOrphanedProviderClasses()
+   * orphaned provider classes}.
+   *
+   * @return a non-{@code null} {@link String}
+   */
+  @Override
+  public final String toString() {
+    final StringBuilder sb = new StringBuilder();
+    for (final Phase phase : Phase.values()) {
+      if (sb.length() > 0) {
+        sb.append(System.lineSeparator());
+      }
+      sb.append(phase)
+        .append(": ")
+        .append(this.getClassCount(phase))
+        .append(" classes in ")
+        .append(this.getDuration(phase));
+    }
+    if (!this.orphanedProviderClasses.isEmpty()) {
+      sb.append(System.lineSeparator())
+        .append("Orphaned provider classes: ")
+        .append(this.orphanedProviderClasses);
+    }
+    return sb.toString();
+  }
+
+  /**
+   * A phase of the startup work of a {@link JaxRsExtension}.
+   *
+   * @author <a href="https://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   */
+  public enum Phase {
+
+    /**
+     * The container's type discovery, during which resource classes,
+     * provider classes and {@link Application} classes are found.
+     *
+     * <p>Its duration runs from {@code BeforeBeanDiscovery} to {@code
+     * AfterTypeDiscovery}, and its class count is the number of such
+     * classes found.</p>
+     */
+    TYPE_DISCOVERY,
+
+    /**
+     * The container's bean discovery, during which beans are matched
+     * up with the classes found during {@link #TYPE_DISCOVERY}.
+     *
+     * <p>Its duration runs from {@code AfterTypeDiscovery} to {@code
+     * AfterBeanDiscovery}, and its class count is the number of
+     * resource and provider classes that turned out to be beans.</p>
+     */
+    BEAN_ATTRIBUTES,
+
+    /**
+     * The creation of each {@link Application} bean, and the
+     * processing of the classes it returns.
+     *
+     * <p>Its class count is the number of classes returned by all
+     * {@link Application#getClasses()} methods.</p>
+     */
+    APPLICATION_INSTANTIATION,
+
+    /**
+     * The construction of {@link JaxRsExtension.SyntheticApplication}
+     * beans for resource classes no {@link Application} claimed.
+     *
+     * <p>Its class count is the number of classes, resource and
+     * provider, assigned to such {@link
+     * JaxRsExtension.SyntheticApplication}s.</p>
+     */
+    SYNTHETIC_APPLICATIONS;
+
+  }
+
+}
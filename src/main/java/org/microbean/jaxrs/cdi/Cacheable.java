@@ -0,0 +1,129 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import javax.enterprise.util.AnnotationLiteral;
+import javax.enterprise.util.Nonbinding;
+
+import javax.interceptor.InterceptorBinding;
+
+/**
+ * An {@link InterceptorBinding} indicating that the results of the
+ * {@link javax.ws.rs.GET} resource methods of a bean, or of a single
+ * such method, may be served from the {@link ResponseCache} for
+ * {@linkplain #maxAge() a time}.
+ *
+ * <p>Results are cached per resource method and per combination of
+ * its (already converted) arguments, so a resource method whose
+ * result depends on a request header, such as {@code Accept}, must
+ * declare it as a {@link javax.ws.rs.HeaderParam} parameter.
+ * Resource methods that can reach other per-request state, such as
+ * through a {@link javax.ws.rs.core.Context} parameter, are never
+ * cached; see {@link ResponseCache} for the rules.</p>
+ *
+ * <p>Cached results are shared by every caller, so they must be
+ * immutable, or at least never modified.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see ResponseCacheInterceptor
+ *
+ * @see JaxRsExtension#RESPONSE_CACHE_PROPERTY_NAME
+ */
+@Documented
+@Inherited
+@InterceptorBinding
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.METHOD, ElementType.TYPE })
+public @interface Cacheable {
+
+  /**
+   * The number of seconds for which a result may be served from the
+   * {@link ResponseCache}.
+   *
+   * <p>An annotation on a method takes precedence over one on the
+   * bean class, which may be a subclass of the class that declares
+   * the method.</p>
+   *
+   * @return the number of seconds for which a result may be cached;
+   * values less than {@code 1} disable caching
+   */
+  @Nonbinding
+  long maxAge() default 60L;
+
+  /**
+   * A {@link Cacheable} implementation.
+   *
+   * @author <a href="https://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   *
+   * @see #INSTANCE
+   */
+  public static final class Literal extends AnnotationLiteral<Cacheable> implements Cacheable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * A {@link Cacheable} whose {@link #maxAge()} is {@code 60}.
+     *
+     * <p>This field is never {@code null}.</p>
+     */
+    public static final Cacheable INSTANCE = new Literal(60L);
+
+    private final long maxAge;
+
+    private Literal(final long maxAge) {
+      super();
+      this.maxAge = maxAge;
+    }
+
+    /**
+     * Returns the number of seconds for which a result may be served
+     * from the {@link ResponseCache}.
+     *
+     * @return the number of seconds for which a result may be cached
+     */
+    @Override
+    public final long maxAge() {
+      return this.maxAge;
+    }
+
+    /**
+     * Returns a {@link Cacheable} with the supplied {@link #maxAge()}.
+     *
+     * <p>This method never returns {@code null}.</p>
+     *
+     * @param maxAge the number of seconds for which a result may be
+     * cached
+     *
+     * @return a non-{@code null} {@link Cacheable}
+     */
+    public static final Cacheable of(final long maxAge) {
+      return maxAge == 60L ? INSTANCE : new Literal(maxAge);
+    }
+
+  }
+
+}
@@ -0,0 +1,195 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.lang.annotation.Annotation;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import java.util.Map;
+import java.util.Objects;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.enterprise.context.RequestScoped;
+
+import javax.enterprise.inject.Any;
+
+import javax.enterprise.inject.spi.Bean;
+import javax.enterprise.inject.spi.BeanManager;
+
+/**
+ * A {@linkplain RequestScoped request context} whose bean instances
+ * can be detached from the thread that created them and destroyed
+ * later on another thread.
+ *
+ * <p>The CDI specification binds a request context to the thread
+ * that activates it, and offers no portable way to move it.  Weld's
+ * {@code org.jboss.weld.context.bound.BoundRequestContext} keeps its
+ * bean instances in caller-supplied storage that can be associated
+ * with one thread and then another, so this class uses it, reached
+ * reflectively so that Weld is not required, when the container
+ * provides it.  {@link #of(BeanManager)} returns {@code null}
+ * otherwise.</p>
+ *
+ * <p>Instances of this class are safe for concurrent use by multiple
+ * threads.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see DispatchInterceptor
+ */
+final class DetachableRequestContext {
+
+  private static final String BOUND_REQUEST_CONTEXT_CLASS_NAME = "org.jboss.weld.context.bound.BoundRequestContext";
+
+  private static final String BOUND_CLASS_NAME = "org.jboss.weld.context.bound.Bound";
+
+  private final Object context;
+
+  private final Method associate;
+
+  private final Method dissociate;
+
+  private final Method activate;
+
+  private final Method deactivate;
+
+  private final Method invalidate;
+
+  private DetachableRequestContext(final Object context, final Class<?> contextClass) throws NoSuchMethodException {
+    super();
+    this.context = Objects.requireNonNull(context);
+    this.associate = contextClass.getMethod("associate", Object.class);
+    this.dissociate = contextClass.getMethod("dissociate", Object.class);
+    this.activate = contextClass.getMethod("activate");
+    this.deactivate = contextClass.getMethod("deactivate");
+    this.invalidate = contextClass.getMethod("invalidate");
+  }
+
+  /**
+   * Activates a new request context on the current thread and returns
+   * the storage that holds its bean instances.
+   *
+   * <p>The request context must be either {@linkplain #detach(Map)
+   * detached} or {@linkplain #destroy(Map, boolean) destroyed} on the
+   * current thread.</p>
+   *
+   * @return the storage of the new request context; never {@code
+   * null}
+   */
+  final Map<String, Object> activate() {
+    final Map<String, Object> storage = new ConcurrentHashMap<>();
+    this.invoke(this.associate, storage);
+    try {
+      this.invoke(this.activate);
+    } catch (final RuntimeException | Error throwable) {
+      this.invoke(this.dissociate, storage);
+      throw throwable;
+    }
+    return storage;
+  }
+
+  /**
+   * Deactivates the request context with the supplied storage on the
+   * current thread without destroying its bean instances.
+   *
+   * @param storage storage returned by {@link #activate()}; must not
+   * be {@code null}
+   */
+  final void detach(final Map<String, Object> storage) {
+    try {
+      this.invoke(this.deactivate);
+    } finally {
+      this.invoke(this.dissociate, storage);
+    }
+  }
+
+  /**
+   * Destroys the bean instances of the request context with the
+   * supplied storage on the current thread.
+   *
+   * @param storage storage returned by {@link #activate()}; must not
+   * be {@code null}
+   *
+   * @param attached whether the request context is still active on
+   * the current thread, i.e. whether it has not been {@linkplain
+   * #detach(Map) detached}
+   */
+  final void destroy(final Map<String, Object> storage, final boolean attached) {
+    if (!attached) {
+      this.invoke(this.associate, storage);
+      this.invoke(this.activate);
+    }
+    try {
+      this.invoke(this.invalidate);
+    } finally {
+      this.detach(storage);
+    }
+  }
+
+  private final Object invoke(final Method method, final Object... arguments) {
+    try {
+      return method.invoke(this.context, arguments);
+    } catch (final IllegalAccessException illegalAccessException) {
+      throw new IllegalStateException(illegalAccessException.getMessage(), illegalAccessException);
+    } catch (final InvocationTargetException invocationTargetException) {
+      final Throwable cause = invocationTargetException.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException)cause;
+      } else if (cause instanceof Error) {
+        throw (Error)cause;
+      }
+      throw new IllegalStateException(cause.getMessage(), cause);
+    }
+  }
+
+  /**
+   * Returns a {@link DetachableRequestContext} backed by the supplied
+   * {@link BeanManager}'s container, or {@code null} if the container
+   * does not provide a request context that can be detached.
+   *
+   * @param beanManager the {@link BeanManager}; must not be {@code
+   * null}
+   *
+   * @return a {@link DetachableRequestContext}, or {@code null}
+   */
+  static final DetachableRequestContext of(final BeanManager beanManager) {
+    final Class<?> contextClass;
+    try {
+      contextClass = Class.forName(BOUND_REQUEST_CONTEXT_CLASS_NAME, false, beanManager.getClass().getClassLoader());
+    } catch (final ClassNotFoundException | LinkageError classNotFoundException) {
+      return null;
+    }
+    for (final Bean<?> bean : beanManager.getBeans(contextClass, Any.Literal.INSTANCE)) {
+      for (final Annotation qualifier : bean.getQualifiers()) {
+        if (qualifier.annotationType().getName().equals(BOUND_CLASS_NAME)) {
+          final Object context = beanManager.getReference(bean, contextClass, beanManager.createCreationalContext(bean));
+          try {
+            return new DetachableRequestContext(context, contextClass);
+          } catch (final NoSuchMethodException noSuchMethodException) {
+            return null;
+          }
+        }
+      }
+    }
+    return null;
+  }
+
+}
@@ -0,0 +1,240 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.lang.annotation.Annotation;
+
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.annotation.Resources;
+
+import javax.enterprise.inject.CreationException;
+
+import javax.enterprise.inject.spi.Annotated;
+import javax.enterprise.inject.spi.AnnotatedConstructor;
+import javax.enterprise.inject.spi.AnnotatedField;
+import javax.enterprise.inject.spi.AnnotatedMethod;
+import javax.enterprise.inject.spi.AnnotatedType;
+import javax.enterprise.inject.spi.BeanManager;
+
+import javax.inject.Inject;
+
+import javax.interceptor.AroundConstruct;
+import javax.interceptor.AroundInvoke;
+import javax.interceptor.AroundTimeout;
+import javax.interceptor.Interceptors;
+
+/**
+ * A utility class that builds {@link Supplier}s that create
+ * instances of classes that CDI would otherwise create reflectively,
+ * for those classes where doing so directly makes no observable
+ * difference.
+ *
+ * <p>A class qualifies if it is a concrete, top-level or static
+ * nested class with a zero-argument constructor that declares no
+ * checked exceptions, and if it has no injection points, no {@link
+ * PostConstruct} or {@link PreDestroy} methods, no interceptor
+ * bindings, {@link Interceptors} or stereotypes, no {@link
+ * AroundInvoke}, {@link AroundConstruct} or {@link AroundTimeout}
+ * methods of its own, no Jakarta EE resource injection annotations
+ * such as {@link Resource} or {@code PersistenceContext}, and no
+ * decorators.</p>
+ *
+ * <p>Zero-argument constructors of public classes that are visible to
+ * the class loader that loaded this class are invoked through a class
+ * spun by the {@link LambdaMetafactory}.  Others are invoked through
+ * a {@link MethodHandle}.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see JaxRsExtension#DIRECT_INSTANTIATION_PROPERTY_NAME
+ */
+final class DirectInstantiation {
+
+  // Jakarta EE resource injection annotations, which a container may
+  // honor for CDI beans.  Named rather than referenced, since most of
+  // them are not on the class path.
+  private static final Set<String> resourceInjectionAnnotationTypeNames =
+    Collections.unmodifiableSet(new HashSet<>(Arrays.asList(Resource.class.getName(),
+                                                            Resources.class.getName(),
+                                                            "javax.ejb.EJB",
+                                                            "javax.ejb.EJBs",
+                                                            "javax.persistence.PersistenceContext",
+                                                            "javax.persistence.PersistenceContexts",
+                                                            "javax.persistence.PersistenceUnit",
+                                                            "javax.persistence.PersistenceUnits",
+                                                            "javax.xml.ws.WebServiceRef",
+                                                            "javax.xml.ws.WebServiceRefs")));
+
+  private DirectInstantiation() {
+    super();
+  }
+
+  /**
+   * Returns a {@link Supplier} that creates a new instance of the
+   * {@linkplain AnnotatedType#getJavaClass() class} of the supplied
+   * {@link AnnotatedType} each time it is invoked, or {@code null}
+   * if that class does not qualify.
+   *
+   * <p>This method must only be called during or after {@code
+   * AfterBeanDiscovery}.</p>
+   *
+   * @param <T> the type of the {@link AnnotatedType}
+   *
+   * @param annotatedType the {@link AnnotatedType}; must not be
+   * {@code null}
+   *
+   * @param beanManager the {@link BeanManager} to use; must not be
+   * {@code null}
+   *
+   * @param qualifiers the qualifiers the bean will have; must not be
+   * {@code null}
+   *
+   * @return a {@link Supplier}, or {@code null}
+   *
+   * @exception NullPointerException if any parameter is {@code null}
+   */
+  static final <T> Supplier<T> supplierFor(final AnnotatedType<T> annotatedType,
+                                           final BeanManager beanManager,
+                                           final Annotation... qualifiers) {
+    final Class<T> c = annotatedType.getJavaClass();
+    if (c.isInterface() ||
+        Modifier.isAbstract(c.getModifiers()) ||
+        c.isAnonymousClass() ||
+        c.isLocalClass() ||
+        (c.isMemberClass() && !Modifier.isStatic(c.getModifiers())) ||
+        hasCdiAnnotations(annotatedType, beanManager)) {
+      return null;
+    }
+    for (final AnnotatedConstructor<T> constructor : annotatedType.getConstructors()) {
+      if (hasCdiAnnotations(constructor, beanManager)) {
+        return null;
+      }
+    }
+    for (final AnnotatedField<? super T> field : annotatedType.getFields()) {
+      if (hasCdiAnnotations(field, beanManager)) {
+        return null;
+      }
+    }
+    for (final AnnotatedMethod<? super T> method : annotatedType.getMethods()) {
+      if (hasCdiAnnotations(method, beanManager)) {
+        return null;
+      }
+    }
+    if (!beanManager.resolveDecorators(annotatedType.getTypeClosure(), qualifiers).isEmpty()) {
+      return null;
+    }
+    final Constructor<T> constructor;
+    try {
+      constructor = c.getDeclaredConstructor();
+    } catch (final NoSuchMethodException noZeroArgumentConstructor) {
+      return null;
+    }
+    for (final Class<?> exceptionType : constructor.getExceptionTypes()) {
+      if (!RuntimeException.class.isAssignableFrom(exceptionType) && !Error.class.isAssignableFrom(exceptionType)) {
+        return null;
+      }
+    }
+    final MethodHandle methodHandle;
+    final boolean publiclyAccessible = Modifier.isPublic(c.getModifiers()) && Modifier.isPublic(constructor.getModifiers());
+    try {
+      if (publiclyAccessible) {
+        methodHandle = MethodHandles.publicLookup().unreflectConstructor(constructor);
+      } else {
+        constructor.setAccessible(true);
+        methodHandle = MethodHandles.lookup().unreflectConstructor(constructor);
+      }
+    } catch (final IllegalAccessException | RuntimeException inaccessible) {
+      return null;
+    }
+    if (publiclyAccessible && isVisible(c)) {
+      try {
+        @SuppressWarnings("unchecked")
+        final Supplier<T> supplier =
+          (Supplier<T>)LambdaMetafactory.metafactory(MethodHandles.lookup(),
+                                                     "get",
+                                                     MethodType.methodType(Supplier.class),
+                                                     MethodType.methodType(Object.class),
+                                                     methodHandle,
+                                                     methodHandle.type())
+          .getTarget()
+          .invoke();
+        return supplier;
+      } catch (final Throwable notSpinnable) {
+        // Fall back to a MethodHandle.
+      }
+    }
+    final MethodHandle genericMethodHandle = methodHandle.asType(MethodType.methodType(Object.class));
+    return () -> {
+      try {
+        return c.cast((Object)genericMethodHandle.invokeExact());
+      } catch (final RuntimeException | Error unchecked) {
+        throw unchecked;
+      } catch (final Throwable throwable) {
+        throw new CreationException(throwable.getMessage(), throwable);
+      }
+    };
+  }
+
+  private static final boolean hasCdiAnnotations(final Annotated annotated, final BeanManager beanManager) {
+    final Set<Annotation> annotations = annotated.getAnnotations();
+    for (final Annotation annotation : annotations) {
+      final Class<? extends Annotation> annotationType = annotation.annotationType();
+      if (annotationType == Inject.class ||
+          annotationType == PostConstruct.class ||
+          annotationType == PreDestroy.class ||
+          annotationType == AroundInvoke.class ||
+          annotationType == AroundConstruct.class ||
+          annotationType == AroundTimeout.class ||
+          annotationType == Interceptors.class ||
+          resourceInjectionAnnotationTypeNames.contains(annotationType.getName()) ||
+          beanManager.isInterceptorBinding(annotationType) ||
+          beanManager.isStereotype(annotationType)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static final boolean isVisible(final Class<?> c) {
+    // A class spun by the LambdaMetafactory links against the classes
+    // it uses as if it were this class.
+    try {
+      return Class.forName(c.getName(), false, DirectInstantiation.class.getClassLoader()) == c;
+    } catch (final ClassNotFoundException notVisible) {
+      return false;
+    }
+  }
+
+}
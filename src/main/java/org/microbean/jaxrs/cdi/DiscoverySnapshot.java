@@ -0,0 +1,341 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.lang.annotation.Annotation;
+
+import java.nio.charset.StandardCharsets;
+
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+
+import java.util.zip.CRC32;
+
+/**
+ * An immutable record of the classes a {@link JaxRsExtension}
+ * assigned to each {@link javax.ws.rs.core.Application}, together
+ * with a hash of each such class's class file, that can be written
+ * to a file at the end of one container startup and read back at the
+ * beginning of the next.
+ *
+ * <p>Each snapshot file is a UTF-8 text file with one entry per
+ * line.  An entry of the form {@code H} <em>hash</em>
+ * <em>className</em> records the hash of a class file.  An entry of
+ * the form {@code M} <em>className</em> <em>applicationKey</em>
+ * records that a class belongs to an {@link
+ * javax.ws.rs.core.Application}.  Blank lines and lines beginning
+ * with {@code #} are ignored.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see JaxRsExtension#DISCOVERY_SNAPSHOT_PROPERTY_NAME
+ *
+ * @see RedeployReport
+ */
+final class DiscoverySnapshot {
+
+  /**
+   * An empty {@link DiscoverySnapshot}.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  static final DiscoverySnapshot EMPTY = new DiscoverySnapshot(Collections.emptyMap(), Collections.emptyMap());
+
+  private static final char HASH_KIND = 'H';
+
+  private static final char MEMBER_KIND = 'M';
+
+  private final Map<String, String> hashes;
+
+  private final Map<String, Set<String>> applications;
+
+  private DiscoverySnapshot(final Map<String, String> hashes, final Map<String, Set<String>> applications) {
+    super();
+    this.hashes = Collections.unmodifiableMap(hashes);
+    this.applications = Collections.unmodifiableMap(applications);
+  }
+
+  /**
+   * Returns an unmodifiable {@link Map} of class file hashes indexed
+   * by class name.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return a non-{@code null}, unmodifiable {@link Map}
+   */
+  final Map<String, String> getHashes() {
+    return this.hashes;
+  }
+
+  /**
+   * Returns an unmodifiable {@link Map} of the names of the classes
+   * belonging to each {@link javax.ws.rs.core.Application}, indexed
+   * by {@linkplain #getApplicationKey(Set, boolean) application key}.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return a non-{@code null}, unmodifiable {@link Map}
+   */
+  final Map<String, Set<String>> getApplications() {
+    return this.applications;
+  }
+
+  /**
+   * Returns {@code true} if any member of the {@link
+   * javax.ws.rs.core.Application} identified by the supplied {@code
+   * applicationKey} differs between this {@link DiscoverySnapshot}
+   * and the supplied one, or if the {@link
+   * javax.ws.rs.core.Application} is present in only one of them.
+   *
+   * @param previous the {@link DiscoverySnapshot} to compare with;
+   * must not be {@code null}
+   *
+   * @param applicationKey the application key; must not be {@code
+   * null}
+   *
+   * @return {@code true} if the {@link javax.ws.rs.core.Application}
+   * was added, removed or changed
+   *
+   * @exception NullPointerException if {@code previous} is {@code
+   * null}
+   */
+  final boolean isAffected(final DiscoverySnapshot previous, final String applicationKey) {
+    final Set<String> classNames = this.applications.get(applicationKey);
+    if (classNames == null || !classNames.equals(previous.applications.get(applicationKey))) {
+      return true;
+    }
+    for (final String className : classNames) {
+      final String hash = this.hashes.get(className);
+      // A class file that could not be read may have changed.
+      if ("?".equals(hash) || !hash.equals(previous.hashes.get(className))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Writes this {@link DiscoverySnapshot} to the supplied {@link
+   * Path}, replacing any file already there.
+   *
+   * @param path the {@link Path} to write to; must not be {@code
+   * null}
+   *
+   * @exception IOException if the file could not be written
+   *
+   * @exception NullPointerException if {@code path} is {@code null}
+   */
+  final void write(final Path path) throws IOException {
+    final Path parent = path.toAbsolutePath().getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+    // Write to a sibling and then move it into place so that a
+    // concurrent or interrupted startup never reads half a snapshot.
+    final Path temporaryPath = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+    try {
+      try (final BufferedWriter writer = Files.newBufferedWriter(temporaryPath, StandardCharsets.UTF_8)) {
+        writer.write("# microbean-jaxrs-cdi discovery snapshot");
+        writer.newLine();
+        for (final Entry<String, String> entry : new TreeMap<>(this.hashes).entrySet()) {
+          writer.write(HASH_KIND + " " + entry.getValue() + " " + entry.getKey());
+          writer.newLine();
+        }
+        for (final Entry<String, Set<String>> entry : new TreeMap<>(this.applications).entrySet()) {
+          final List<String> classNames = new ArrayList<>(entry.getValue());
+          Collections.sort(classNames);
+          for (final String className : classNames) {
+            writer.write(MEMBER_KIND + " " + className + " " + entry.getKey());
+            writer.newLine();
+          }
+        }
+      }
+      try {
+        Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } catch (final AtomicMoveNotSupportedException atomicMoveNotSupportedException) {
+        Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(temporaryPath);
+    }
+  }
+
+  /**
+   * Reads a {@link DiscoverySnapshot} from the supplied {@link Path}
+   * and returns it.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @param path the {@link Path} to read from; must not be {@code
+   * null}
+   *
+   * @return a non-{@code null} {@link DiscoverySnapshot}; {@link
+   * #EMPTY} if there is no file at {@code path}
+   *
+   * @exception IOException if the file could not be read
+   *
+   * @exception IllegalArgumentException if the file is malformed
+   *
+   * @exception NullPointerException if {@code path} is {@code null}
+   */
+  static final DiscoverySnapshot read(final Path path) throws IOException {
+    final Map<String, String> hashes = new HashMap<>();
+    final Map<String, Set<String>> applications = new HashMap<>();
+    try (final BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        line = line.trim();
+        if (line.isEmpty() || line.charAt(0) == '#') {
+          continue;
+        }
+        final String[] parts = line.split(" ", 3);
+        if (parts.length != 3 || parts[0].length() != 1) {
+          throw new IllegalArgumentException(path + ": malformed entry: " + line);
+        }
+        switch (parts[0].charAt(0)) {
+        case HASH_KIND:
+          hashes.put(parts[2], parts[1]);
+          break;
+        case MEMBER_KIND:
+          applications.computeIfAbsent(parts[2], k -> new HashSet<>()).add(parts[1]);
+          break;
+        default:
+          throw new IllegalArgumentException(path + ": malformed entry: " + line);
+        }
+      }
+    } catch (final NoSuchFileException noSuchFileException) {
+      return EMPTY;
+    }
+    for (final Set<String> classNames : applications.values()) {
+      if (!hashes.keySet().containsAll(classNames)) {
+        throw new IllegalArgumentException(path + ": missing hashes for some of " + classNames);
+      }
+    }
+    return new DiscoverySnapshot(hashes, applications);
+  }
+
+  /**
+   * Creates a new {@link DiscoverySnapshot} of the supplied {@link
+   * Map} of {@link javax.ws.rs.core.Application} members, hashing
+   * each member's class file, and returns it.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @param applications a {@link Map} of classes indexed by
+   * {@linkplain #getApplicationKey(Set, boolean) application key};
+   * must not be {@code null}
+   *
+   * @return a new, non-{@code null} {@link DiscoverySnapshot}
+   *
+   * @exception NullPointerException if {@code applications} is
+   * {@code null}
+   */
+  static final DiscoverySnapshot of(final Map<String, ? extends Collection<? extends Class<?>>> applications) {
+    final Map<String, String> hashes = new HashMap<>();
+    final Map<String, Set<String>> classNamesByApplicationKey = new HashMap<>();
+    for (final Entry<String, ? extends Collection<? extends Class<?>>> entry : applications.entrySet()) {
+      final Set<String> classNames = new HashSet<>();
+      for (final Class<?> c : entry.getValue()) {
+        final String className = c.getName();
+        classNames.add(className);
+        hashes.computeIfAbsent(className, ignored -> hash(c));
+      }
+      classNamesByApplicationKey.put(entry.getKey(), classNames);
+    }
+    return new DiscoverySnapshot(hashes, classNamesByApplicationKey);
+  }
+
+  /**
+   * Returns a {@link String} identifying an {@link
+   * javax.ws.rs.core.Application} by its qualifiers that is stable
+   * from one container startup to the next.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @param qualifiers the {@link javax.ws.rs.core.Application}'s
+   * qualifiers; must not be {@code null}
+   *
+   * @param synthetic whether the {@link javax.ws.rs.core.Application}
+   * is a {@link JaxRsExtension.SyntheticApplication}
+   *
+   * @return a non-{@code null} application key
+   *
+   * @exception NullPointerException if {@code qualifiers} is {@code
+   * null}
+   */
+  static final String getApplicationKey(final Set<? extends Annotation> qualifiers, final boolean synthetic) {
+    final List<String> strings = new ArrayList<>(qualifiers.size());
+    for (final Annotation qualifier : qualifiers) {
+      strings.add(qualifier.toString());
+    }
+    Collections.sort(strings);
+    return (synthetic ? "synthetic" : "application") + strings;
+  }
+
+  /**
+   * Returns the hexadecimal CRC-32 checksum of the class file of the
+   * supplied {@link Class}, or {@code ?} if it cannot be read.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @param c the {@link Class} whose class file should be hashed;
+   * must not be {@code null}
+   *
+   * @return a non-{@code null} hash
+   *
+   * @exception NullPointerException if {@code c} is {@code null}
+   */
+  static final String hash(final Class<?> c) {
+    final String name = c.getName();
+    final String resourceName = name.substring(name.lastIndexOf('.') + 1) + ".class";
+    final CRC32 crc32 = new CRC32();
+    try (final InputStream inputStream = c.getResourceAsStream(resourceName)) {
+      if (inputStream == null) {
+        return "?";
+      }
+      final byte[] buffer = new byte[8192];
+      int read;
+      while ((read = inputStream.read(buffer)) >= 0) {
+        crc32.update(buffer, 0, read);
+      }
+    } catch (final IOException ioException) {
+      return "?";
+    }
+    return Long.toHexString(crc32.getValue());
+  }
+
+}
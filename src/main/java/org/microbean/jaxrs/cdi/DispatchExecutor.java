@@ -0,0 +1,73 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import java.util.concurrent.Executor;
+
+import javax.enterprise.util.AnnotationLiteral;
+
+import javax.inject.Qualifier;
+
+/**
+ * A {@link Qualifier} identifying the {@link Executor} on which
+ * {@link Dispatched} resource methods run.
+ *
+ * <p>On Java 21 and later, a producer method qualified with this
+ * annotation that returns {@code
+ * Executors.newVirtualThreadPerTaskExecutor()} will cause each {@link
+ * Dispatched} resource method invocation to run on its own virtual
+ * thread.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see DispatchInterceptor
+ */
+@Documented
+@Qualifier
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.FIELD, ElementType.METHOD, ElementType.PARAMETER, ElementType.TYPE })
+public @interface DispatchExecutor {
+
+  /**
+   * A {@link DispatchExecutor} implementation.
+   *
+   * @author <a href="https://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   *
+   * @see #INSTANCE
+   */
+  public static final class Literal extends AnnotationLiteral<DispatchExecutor> implements DispatchExecutor {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The sole instance of this class.
+     *
+     * <p>This field is never {@code null}.</p>
+     */
+    public static final DispatchExecutor INSTANCE = new Literal();
+
+  }
+
+}
@@ -0,0 +1,239 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.lang.reflect.Method;
+
+import java.util.Map;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Priority;
+
+import javax.enterprise.inject.Instance;
+
+import javax.enterprise.inject.spi.BeanManager;
+
+import javax.inject.Inject;
+
+import javax.interceptor.AroundInvoke;
+import javax.interceptor.Interceptor;
+import javax.interceptor.InvocationContext;
+
+/**
+ * An {@link Interceptor} that runs {@link Dispatched} methods that
+ * return a {@link CompletionStage} on an {@link Executor}, with a
+ * request context active until the {@link CompletionStage} they
+ * return completes.
+ *
+ * <p>The {@link Executor} is the bean of type {@link Executor}
+ * qualified with {@link DispatchExecutor}, if there is one, or a pool
+ * of daemon threads owned by the {@link JaxRsExtension} and shut down
+ * with the container otherwise.</p>
+ *
+ * <p>Request-scoped beans used by the method are those of a request
+ * context activated on the {@link Executor}'s thread, not those of
+ * the thread that invoked the method.  The CDI specification provides
+ * no portable way to share the latter across threads, which is why
+ * methods are only dispatched if they are explicitly {@link
+ * Dispatched}.</p>
+ *
+ * <p>The {@link Executor}'s thread is released as soon as the method
+ * returns.  If the {@link CompletionStage} it returns has not yet
+ * completed, the request context is {@linkplain
+ * DetachableRequestContext#detach(java.util.Map) detached} from that
+ * thread, and its request-scoped bean instances are destroyed by a
+ * {@link CompletionStage#whenComplete(java.util.function.BiConsumer)}
+ * callback once it has.  Containers that cannot detach a request
+ * context from its thread (see {@link DetachableRequestContext}) are
+ * the exception: there, request-scoped bean instances are destroyed
+ * when the method returns.</p>
+ *
+ * <p>Methods that do not return a {@link CompletionStage} or a {@link
+ * CompletableFuture} are invoked normally.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see Dispatched
+ *
+ * @see DispatchExecutor
+ */
+@Dispatched
+@Interceptor
+@Priority(Interceptor.Priority.LIBRARY_BEFORE)
+public class DispatchInterceptor {
+
+  private static final int ATTACHED = 0;
+
+  private static final int DETACHED = 1;
+
+  private static final int COMPLETED = 2;
+
+  private final Instance<Executor> executors;
+
+  private final JaxRsExtension extension;
+
+  private final BeanManager beanManager;
+
+  /**
+   * Creates a new {@link DispatchInterceptor}.
+   *
+   * @param executors an {@link Instance} of {@link Executor}s
+   * qualified with {@link DispatchExecutor}; must not be {@code null}
+   *
+   * @param beanManager the {@link BeanManager} whose {@link
+   * JaxRsExtension} supplies the default {@link Executor}, and whose
+   * container supplies request contexts; must not be {@code null}
+   */
+  @Inject
+  public DispatchInterceptor(@DispatchExecutor final Instance<Executor> executors,
+                             final BeanManager beanManager) {
+    super();
+    this.executors = executors;
+    this.extension = beanManager.getExtension(JaxRsExtension.class);
+    this.beanManager = beanManager;
+  }
+
+  /**
+   * Runs the intercepted method on an {@link Executor} and returns a
+   * {@link CompletableFuture} that completes with the result of the
+   * {@link CompletionStage} it returns, if the intercepted method
+   * returns a {@link CompletionStage} or a {@link CompletableFuture},
+   * or simply {@linkplain InvocationContext#proceed() proceeds}
+   * otherwise.
+   *
+   * @param invocationContext the {@link InvocationContext}; must not
+   * be {@code null}
+   *
+   * @return the result of the invocation, which may be {@code null}
+   *
+   * @exception Exception if the intercepted method is invoked
+   * normally and throws an {@link Exception}
+   */
+  @AroundInvoke
+  public Object dispatch(final InvocationContext invocationContext) throws Exception {
+    final Method method = invocationContext.getMethod();
+    if (method == null || !isDispatchable(method.getReturnType())) {
+      return invocationContext.proceed();
+    }
+    final Executor executor = this.executors.isResolvable() ? this.executors.get() : this.extension.getDispatchExecutor();
+    final DetachableRequestContext requestContext = this.extension.getDetachableRequestContext(this.beanManager);
+    final CompletableFuture<Object> returnValue = new CompletableFuture<>();
+    if (requestContext == null) {
+      final RequestContextActivator requestContextActivator = new RequestContextActivator(this.beanManager);
+      executor.execute(() -> {
+          try {
+            final RequestContextActivator.Activation activation = requestContextActivator.activate();
+            try {
+              complete(invocationContext.proceed(), returnValue);
+            } finally {
+              activation.close();
+            }
+          } catch (final Throwable throwable) {
+            returnValue.completeExceptionally(throwable);
+          }
+        });
+    } else {
+      executor.execute(() -> dispatch(invocationContext, requestContext, executor, returnValue));
+    }
+    return returnValue;
+  }
+
+  private static final void dispatch(final InvocationContext invocationContext,
+                                     final DetachableRequestContext requestContext,
+                                     final Executor executor,
+                                     final CompletableFuture<Object> returnValue) {
+    final Map<String, Object> storage;
+    try {
+      storage = requestContext.activate();
+    } catch (final Throwable throwable) {
+      returnValue.completeExceptionally(throwable);
+      return;
+    }
+    Object result = null;
+    try {
+      result = invocationContext.proceed();
+    } catch (final Throwable throwable) {
+      returnValue.completeExceptionally(throwable);
+    }
+    if (result == null) {
+      returnValue.complete(null);
+      requestContext.destroy(storage, true);
+      return;
+    }
+    // Whichever of this thread and the thread completing the stage
+    // gets there second destroys the request context, which only
+    // happens here if it is still attached to this thread.
+    final AtomicInteger state = new AtomicInteger(ATTACHED);
+    ((CompletionStage<?>)result).whenComplete((value, throwable) -> {
+        try {
+          complete(value, throwable, returnValue);
+        } finally {
+          if (!state.compareAndSet(ATTACHED, COMPLETED)) {
+            destroyLater(requestContext, storage, executor);
+          }
+        }
+      });
+    if (state.get() == COMPLETED) {
+      requestContext.destroy(storage, true);
+    } else {
+      requestContext.detach(storage);
+      if (!state.compareAndSet(ATTACHED, DETACHED)) {
+        destroyLater(requestContext, storage, executor);
+      }
+    }
+  }
+
+  private static final void destroyLater(final DetachableRequestContext requestContext,
+                                         final Map<String, Object> storage,
+                                         final Executor executor) {
+    // The completing thread may have a request context of its own,
+    // so destroy this one on a thread of the Executor.
+    try {
+      executor.execute(() -> requestContext.destroy(storage, false));
+    } catch (final RejectedExecutionException rejectedExecutionException) {
+      requestContext.destroy(storage, false);
+    }
+  }
+
+  private static final void complete(final Object result, final CompletableFuture<Object> returnValue) {
+    if (result == null) {
+      returnValue.complete(null);
+    } else {
+      ((CompletionStage<?>)result).whenComplete((value, throwable) -> complete(value, throwable, returnValue));
+    }
+  }
+
+  private static final void complete(final Object value, final Throwable throwable, final CompletableFuture<Object> returnValue) {
+    if (throwable == null) {
+      returnValue.complete(value);
+    } else {
+      returnValue.completeExceptionally(throwable);
+    }
+  }
+
+  static final boolean isDispatchable(final Class<?> returnType) {
+    return returnType == CompletionStage.class || returnType == CompletableFuture.class;
+  }
+
+}
@@ -0,0 +1,77 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+
+import javax.enterprise.util.AnnotationLiteral;
+
+import javax.interceptor.InterceptorBinding;
+
+/**
+ * An {@link InterceptorBinding} indicating that a resource method
+ * that returns a {@link CompletionStage} should run on an {@link
+ * Executor} rather than on the thread that invokes it.
+ *
+ * <p>The {@link Executor} used is the bean of type {@link Executor}
+ * qualified with {@link DispatchExecutor}, if there is one.</p>
+ *
+ * <p>Because a dispatched method sees a different request context
+ * from its caller, this binding is never added implicitly.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see DispatchInterceptor
+ */
+@Documented
+@Inherited
+@InterceptorBinding
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.METHOD, ElementType.TYPE })
+public @interface Dispatched {
+
+  /**
+   * A {@link Dispatched} implementation.
+   *
+   * @author <a href="https://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   *
+   * @see #INSTANCE
+   */
+  public static final class Literal extends AnnotationLiteral<Dispatched> implements Dispatched {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The sole instance of this class.
+     *
+     * <p>This field is never {@code null}.</p>
+     */
+    public static final Dispatched INSTANCE = new Literal();
+
+  }
+
+}
@@ -0,0 +1,1223 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+
+import java.lang.annotation.Annotation;
+
+import java.lang.invoke.MethodType;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.enterprise.context.spi.CreationalContext;
+
+import javax.enterprise.inject.Any;
+
+import javax.enterprise.inject.spi.Bean;
+import javax.enterprise.inject.spi.BeanManager;
+
+import javax.ws.rs.ApplicationPath;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.WebApplicationException;
+
+import javax.ws.rs.core.Application;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+
+import javax.ws.rs.ext.ExceptionMapper;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.ParamConverter;
+import javax.ws.rs.ext.ParamConverterProvider;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A minimal binding of the {@link Application}s that a {@link
+ * JaxRsExtension} has found or synthesized to the JDK's {@link
+ * HttpServer}, mounting each at its {@link ApplicationPath}, for
+ * in-process end-to-end tests and benchmarks.
+ *
+ * <p>Requests are matched with a {@link RouteTable} of each {@link
+ * Application}'s classes.  Resource instances come from the {@link
+ * Bean}s a {@link ResolvedBeans} resolves for them, or from the
+ * {@link Application}'s {@linkplain Application#getSingletons()
+ * singletons}, and resource methods are invoked with a {@link
+ * ResourceMethodInvokers}, inside an activated request context, on
+ * the {@link Executor} supplied to the {@link #start(BeanManager,
+ * InetSocketAddress, Executor)} method.</p>
+ *
+ * <p>This is not a Jakarta RESTful Web Services implementation.  It
+ * supports:</p>
+ *
+ * <ul>
+ *
+ * <li>{@link PathParam}, {@link QueryParam} and {@link HeaderParam}
+ * parameters of a single value, honoring {@link DefaultValue}, and
+ * converted by one of the {@link Application}'s {@link
+ * ParamConverterProvider}s or by a {@code valueOf(String)}, {@code
+ * fromString(String)} or one-{@link String}-argument constructor</li>
+ *
+ * <li>one unannotated entity parameter, read as a {@link String},
+ * {@code byte[]} or {@link InputStream}, or by one of the {@link
+ * Application}'s {@link MessageBodyReader}s</li>
+ *
+ * <li>return values of type {@link Response}, {@link CharSequence},
+ * {@code byte[]}, {@link StreamingOutput}, {@link InputStream} or
+ * any type one of the {@link Application}'s {@link
+ * MessageBodyWriter}s can write, or a {@link CompletionStage} of
+ * one</li>
+ *
+ * <li>exceptions for which the {@link Application} has an {@link
+ * ExceptionMapper}, and {@link WebApplicationException}s</li>
+ *
+ * </ul>
+ *
+ * <p>Other parameters, such as those annotated with {@link
+ * javax.ws.rs.core.Context}, receive {@code null} or, if primitive,
+ * their default value.  Sub-resource locators and routes a {@link
+ * RouteTable} {@linkplain RouteTable#getUnindexedRoutes() cannot
+ * index} are not served.  The response media type is the first one
+ * named by the resource method's (or class's) {@link Produces}
+ * annotation, if any; there is no other content negotiation.</p>
+ *
+ * <p>Response entities are written through a small, fixed-size
+ * buffer.  An entity that fits in it is sent with a {@code
+ * Content-Length}; a larger one, or one that {@linkplain
+ * OutputStream#flush() flushes}, is streamed with chunked transfer
+ * encoding as it is written, so it is never held in memory in its
+ * entirety, and a slow client blocks the writing thread rather than
+ * letting output pile up.  The request context stays active, and
+ * any {@link javax.enterprise.context.Dependent}-scoped resource
+ * instance stays undestroyed, until the entity has been
+ * written.</p>
+ *
+ * <p>A {@link CompletionStage} that has not completed by the time the
+ * resource method returns is not waited for.  The request context of
+ * the thread that invoked the method is deactivated when it returns,
+ * since it is bound to that thread, and the response is written on
+ * the {@link Executor}, in a request context of its own, once the
+ * {@link CompletionStage} completes.  Any {@link
+ * javax.enterprise.context.Dependent}-scoped resource instance is
+ * destroyed after that.</p>
+ *
+ * <p>The JDK's {@link HttpServer} writes response headers and bodies
+ * separately, so unless the {@code sun.net.httpserver.nodelay} system
+ * property is set to {@code true} before the first {@link HttpServer}
+ * in the JVM is created, small responses may wait on the client's
+ * delayed acknowledgements.  This class does not set it.</p>
+ *
+ * <p>This class lives in the same artifact as the {@link
+ * JaxRsExtension} rather than in a module of its own because it
+ * depends on nothing but the JDK: nothing starts it unless the {@link
+ * JaxRsExtension#HTTP_SERVER_PORT_PROPERTY_NAME} system property is
+ * set or {@link #start(BeanManager, InetSocketAddress, Executor)} is
+ * called.</p>
+ *
+ * <p>An {@link Application} whose derived state the {@link
+ * JaxRsExtension} {@linkplain
+ * JaxRsExtension#LAZY_APPLICATIONS_PROPERTY_NAME deferred} is mounted
+ * at its application path right away, but is not obtained or
+ * analyzed until its first request arrives.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see JaxRsExtension#HTTP_SERVER_PORT_PROPERTY_NAME
+ */
+public final class HttpServerBinding implements AutoCloseable {
+
+  private static final Logger logger = Logger.getLogger(HttpServerBinding.class.getName());
+
+  private static final MediaType APPLICATION_OCTET_STREAM_TYPE = new MediaType("application", "octet-stream");
+
+  private static final MediaType TEXT_PLAIN_TYPE = new MediaType("text", "plain", StandardCharsets.UTF_8.name());
+
+  private static final int RESPONSE_BUFFER_SIZE = 8192;
+
+  private final HttpServer server;
+
+  private final Set<String> contextPaths;
+
+  private final Queue<CreationalContext<?>> creationalContexts;
+
+  private HttpServerBinding(final HttpServer server,
+                            final Set<String> contextPaths,
+                            final Queue<CreationalContext<?>> creationalContexts) {
+    super();
+    this.server = server;
+    this.contextPaths = contextPaths;
+    this.creationalContexts = creationalContexts;
+  }
+
+  /**
+   * Returns the address the underlying {@link HttpServer} is bound
+   * to.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return the non-{@code null} bound {@link InetSocketAddress}
+   */
+  public final InetSocketAddress getAddress() {
+    return this.server.getAddress();
+  }
+
+  /**
+   * Returns an unmodifiable {@link Set} of the context paths at which
+   * {@link Application}s are mounted, such as {@code /} or {@code
+   * /api}.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return a non-{@code null}, unmodifiable {@link Set} of context
+   * paths
+   */
+  public final Set<String> getContextPaths() {
+    return this.contextPaths;
+  }
+
+  /**
+   * Stops the underlying {@link HttpServer} immediately and releases
+   * the {@link Application}s and providers this {@link
+   * HttpServerBinding} obtained.
+   *
+   * <p>The {@link Executor} supplied to the {@link #start(BeanManager,
+   * InetSocketAddress, Executor)} method is not shut down.</p>
+   */
+  @Override
+  public final void close() {
+    this.server.stop(0);
+    CreationalContext<?> creationalContext;
+    while ((creationalContext = this.creationalContexts.poll()) != null) {
+      creationalContext.release();
+    }
+  }
+
+  /**
+   * Mounts every {@link Application} known to the {@link
+   * JaxRsExtension} of the supplied {@link BeanManager} on a new
+   * {@link HttpServer} bound to the supplied address, starts it and
+   * returns a {@link HttpServerBinding} that can stop it.
+   *
+   * <p>This method must be called after the container has started.
+   * It never returns {@code null}.</p>
+   *
+   * @param beanManager the {@link BeanManager} of a started
+   * container; must not be {@code null}
+   *
+   * @param address the address to bind to; must not be {@code null};
+   * a port of {@code 0} picks an ephemeral port
+   *
+   * @param executor the {@link Executor} on which requests are
+   * handled; may be {@code null} in which case the {@link
+   * HttpServer}'s own single dispatching thread is used
+   *
+   * @return a new, non-{@code null} {@link HttpServerBinding}
+   *
+   * @exception NullPointerException if {@code beanManager} or {@code
+   * address} is {@code null}
+   *
+   * @exception IllegalStateException if two {@link Application}s share
+   * an application path
+   *
+   * @exception IOException if the {@link HttpServer} could not be
+   * created
+   */
+  public static final HttpServerBinding start(final BeanManager beanManager,
+                                              final InetSocketAddress address,
+                                              final Executor executor)
+    throws IOException {
+    Objects.requireNonNull(beanManager);
+    Objects.requireNonNull(address);
+    final JaxRsExtension extension = beanManager.getExtension(JaxRsExtension.class);
+    final Queue<CreationalContext<?>> creationalContexts = new ConcurrentLinkedQueue<>();
+    final RequestContextActivator requestContextActivator = new RequestContextActivator(beanManager);
+    final Map<String, HttpHandler> handlers = new LinkedHashMap<>();
+    try {
+      // Mount each Application bean itself: an Application and a
+      // SyntheticApplication may share all but one qualifier, so
+      // resolving them by qualifiers could be ambiguous.
+      for (final Bean<?> applicationBean : extension.getApplicationBeans()) {
+        final Set<Annotation> qualifiers = applicationBean.getQualifiers();
+        final String contextPath = getContextPath(beanManager, qualifiers);
+        final Function<JaxRsExtension.DerivedState, ApplicationHandler> handlerFactory = derivedState -> {
+          // Prefer the snapshot, if there is one, so the
+          // Application's constructor is not run a second time.
+          final Bean<?> snapshotBean = getBean(beanManager, ApplicationSnapshot.class, qualifiers);
+          final Application application;
+          if (snapshotBean == null) {
+            final CreationalContext<?> cc = beanManager.createCreationalContext(applicationBean);
+            creationalContexts.add(cc);
+            application = (Application)beanManager.getReference(applicationBean, Application.class, cc);
+          } else {
+            application = (Application)beanManager.getReference(snapshotBean, ApplicationSnapshot.class, beanManager.createCreationalContext(snapshotBean));
+          }
+          return new ApplicationHandler(beanManager,
+                                        executor,
+                                        requestContextActivator,
+                                        creationalContexts,
+                                        contextPath,
+                                        application,
+                                        qualifiers,
+                                        derivedState);
+        };
+        final HttpHandler handler;
+        if (extension.isLazy(qualifiers)) {
+          // Build the handler from exactly what activation derived.
+          handler = new DeferredHandler(() -> handlerFactory.apply(extension.activate(beanManager, qualifiers)));
+        } else {
+          handler = handlerFactory.apply(null);
+        }
+        if (handlers.put(contextPath, handler) != null) {
+          throw new IllegalStateException("More than one Application has the application path " + contextPath);
+        }
+      }
+    } catch (final RuntimeException runtimeException) {
+      creationalContexts.forEach(CreationalContext::release);
+      throw runtimeException;
+    }
+    final HttpServer server = HttpServer.create(address, 0);
+    server.setExecutor(executor);
+    for (final Entry<String, HttpHandler> entry : handlers.entrySet()) {
+      server.createContext(entry.getKey(), entry.getValue());
+    }
+    server.start();
+    return new HttpServerBinding(server, Collections.unmodifiableSet(handlers.keySet()), creationalContexts);
+  }
+
+  private static final Bean<?> getBean(final BeanManager beanManager, final Class<?> type, final Set<Annotation> qualifiers) {
+    final Set<Bean<?>> beans = new HashSet<>();
+    for (final Bean<?> bean : beanManager.getBeans(type, qualifiers.toArray(new Annotation[qualifiers.size()]))) {
+      if (hasQualifiers(bean, qualifiers)) {
+        beans.add(bean);
+      }
+    }
+    return beans.isEmpty() ? null : beanManager.resolve(beans);
+  }
+
+  private static final <T> T getInstance(final BeanManager beanManager, final Class<T> type, final Set<Annotation> qualifiers) {
+    final Bean<?> bean = getBean(beanManager, type, qualifiers);
+    return bean == null ? null : type.cast(beanManager.getReference(bean, type, beanManager.createCreationalContext(bean)));
+  }
+
+  private static final boolean hasQualifiers(final Bean<?> bean, final Set<Annotation> qualifiers) {
+    // @Any is implied, so whether either set spells it out does not
+    // matter.
+    final Set<Annotation> beanQualifiers = new HashSet<>(bean.getQualifiers());
+    beanQualifiers.remove(Any.Literal.INSTANCE);
+    final Set<Annotation> requiredQualifiers = new HashSet<>(qualifiers);
+    requiredQualifiers.remove(Any.Literal.INSTANCE);
+    return beanQualifiers.equals(requiredQualifiers);
+  }
+
+  private static final String getContextPath(final BeanManager beanManager, final Set<Annotation> qualifiers) {
+    final Bean<?> bean = getBean(beanManager, ApplicationPath.class, qualifiers);
+    String path = "";
+    if (bean != null) {
+      path = ((ApplicationPath)beanManager.getReference(bean, ApplicationPath.class, beanManager.createCreationalContext(bean))).value();
+      if (path.endsWith("/*")) {
+        path = path.substring(0, path.length() - 2);
+      }
+      int end = path.length();
+      while (end > 0 && path.charAt(end - 1) == '/') {
+        --end;
+      }
+      path = path.substring(0, end);
+    }
+    return path.startsWith("/") ? path : "/" + path;
+  }
+
+  private static final String toString(final MediaType mediaType) {
+    // MediaType#toString() needs a RuntimeDelegate.
+    final StringBuilder sb = new StringBuilder(mediaType.getType()).append('/').append(mediaType.getSubtype());
+    for (final Entry<String, String> parameter : mediaType.getParameters().entrySet()) {
+      sb.append(';').append(parameter.getKey()).append('=').append(parameter.getValue());
+    }
+    return sb.toString();
+  }
+
+  private static final Charset getCharset(final String contentType) {
+    if (contentType != null) {
+      final int index = contentType.toLowerCase().indexOf("charset=");
+      if (index >= 0) {
+        String charset = contentType.substring(index + "charset=".length());
+        final int semicolonIndex = charset.indexOf(';');
+        if (semicolonIndex >= 0) {
+          charset = charset.substring(0, semicolonIndex);
+        }
+        charset = charset.trim();
+        if (charset.length() > 1 && charset.charAt(0) == '"' && charset.charAt(charset.length() - 1) == '"') {
+          charset = charset.substring(1, charset.length() - 1);
+        }
+        try {
+          return Charset.forName(charset);
+        } catch (final IllegalArgumentException illegalArgumentException) {
+          // Fall through to the default.
+        }
+      }
+    }
+    return StandardCharsets.UTF_8;
+  }
+
+  private static final byte[] readAllBytes(final InputStream inputStream) throws IOException {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    final byte[] buffer = new byte[4096];
+    int read;
+    while ((read = inputStream.read(buffer)) >= 0) {
+      bytes.write(buffer, 0, read);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static final String decode(final String value, final boolean plusIsSpace) {
+    try {
+      return URLDecoder.decode(plusIsSpace ? value : value.replace("+", "%2B"), StandardCharsets.UTF_8.name());
+    } catch (final UnsupportedEncodingException unsupportedEncodingException) {
+      throw new AssertionError(unsupportedEncodingException.getMessage(), unsupportedEncodingException);
+    }
+  }
+
+  private static final boolean isJaxRsAnnotation(final Annotation annotation) {
+    final String packageName = annotation.annotationType().getPackage().getName();
+    return packageName.equals("javax.ws.rs") || packageName.startsWith("javax.ws.rs.");
+  }
+
+  private static final <T> T getAnnotation(final Annotation[] annotations, final Class<T> annotationType) {
+    for (final Annotation annotation : annotations) {
+      if (annotationType.isInstance(annotation)) {
+        return annotationType.cast(annotation);
+      }
+    }
+    return null;
+  }
+
+  private static final class DeferredHandler implements HttpHandler {
+
+    private final Supplier<? extends HttpHandler> handlerSupplier;
+
+    private volatile HttpHandler handler;
+
+    private DeferredHandler(final Supplier<? extends HttpHandler> handlerSupplier) {
+      super();
+      this.handlerSupplier = handlerSupplier;
+    }
+
+    @Override
+    public final void handle(final HttpExchange exchange) throws IOException {
+      HttpHandler handler = this.handler;
+      if (handler == null) {
+        try {
+          synchronized (this) {
+            handler = this.handler;
+            if (handler == null) {
+              handler = this.handlerSupplier.get();
+              this.handler = handler;
+            }
+          }
+        } catch (final RuntimeException runtimeException) {
+          // The next request will try again.
+          if (logger.isLoggable(Level.WARNING)) {
+            logger.logp(Level.WARNING, HttpServerBinding.class.getName(), "handle", runtimeException.getMessage(), runtimeException);
+          }
+          try {
+            exchange.sendResponseHeaders(500, -1L);
+          } finally {
+            exchange.close();
+          }
+          return;
+        }
+      }
+      handler.handle(exchange);
+    }
+
+  }
+
+  private static final class ApplicationHandler implements HttpHandler {
+
+    private final BeanManager beanManager;
+
+    private final Executor executor;
+
+    private final RequestContextActivator requestContextActivator;
+
+    private final Queue<CreationalContext<?>> creationalContexts;
+
+    private final String contextPath;
+
+    private final RouteTable routeTable;
+
+    private final ProviderTable providerTable;
+
+    private final ResolvedBeans resolvedBeans;
+
+    private final Map<Class<?>, Object> singletons;
+
+    private final Map<Class<?>, Object> providers;
+
+    private final Map<RouteTable.Route, Endpoint> endpoints;
+
+    private ApplicationHandler(final BeanManager beanManager,
+                               final Executor executor,
+                               final RequestContextActivator requestContextActivator,
+                               final Queue<CreationalContext<?>> creationalContexts,
+                               final String contextPath,
+                               final Application application,
+                               final Set<Annotation> applicationQualifiers,
+                               final JaxRsExtension.DerivedState derivedState) {
+      super();
+      this.beanManager = beanManager;
+      // Without an Executor, asynchronous responses are written on
+      // whatever thread completes their CompletionStage.
+      this.executor = executor == null ? Runnable::run : executor;
+      this.requestContextActivator = requestContextActivator;
+      this.creationalContexts = creationalContexts;
+      this.contextPath = contextPath;
+      final Set<Class<?>> classes = new HashSet<>();
+      final Set<Class<?>> applicationClasses = application.getClasses();
+      if (applicationClasses != null) {
+        classes.addAll(applicationClasses);
+      }
+      final Map<Class<?>, Object> singletons = new HashMap<>();
+      final Set<Object> applicationSingletons = application.getSingletons();
+      if (applicationSingletons != null) {
+        for (final Object singleton : applicationSingletons) {
+          if (singleton != null) {
+            singletons.put(singleton.getClass(), singleton);
+            classes.add(singleton.getClass());
+          }
+        }
+      }
+      this.singletons = singletons;
+      this.providers = new ConcurrentHashMap<>(singletons);
+      // Use what the JaxRsExtension has already derived for this
+      // Application, either as supplied or as beans; each exists only
+      // if it was enabled.
+      RouteTable routeTable = derivedState == null ? null : derivedState.getRouteTable();
+      if (routeTable == null) {
+        routeTable = getInstance(beanManager, RouteTable.class, applicationQualifiers);
+      }
+      this.routeTable = routeTable == null ? RouteTable.of(classes) : routeTable;
+      ProviderTable providerTable = derivedState == null ? null : derivedState.getProviderTable();
+      if (providerTable == null) {
+        providerTable = getInstance(beanManager, ProviderTable.class, applicationQualifiers);
+      }
+      this.providerTable = providerTable == null ? ProviderTable.of(classes) : providerTable;
+      final ResolvedBeans resolvedBeans = getInstance(beanManager, ResolvedBeans.class, applicationQualifiers);
+      if (resolvedBeans == null) {
+        this.resolvedBeans = new ResolvedBeans();
+        this.resolvedBeans.resolve(beanManager,
+                                   classes,
+                                   JaxRsExtension.getResourceQualifiers(applicationQualifiers),
+                                   beanManager.getExtension(JaxRsExtension.class).getClaimedQualifiers(applicationQualifiers));
+      } else {
+        this.resolvedBeans = resolvedBeans;
+      }
+      ResourceMethodInvokers resourceMethodInvokers = derivedState == null ? null : derivedState.getResourceMethodInvokers();
+      if (resourceMethodInvokers == null) {
+        resourceMethodInvokers = getInstance(beanManager, ResourceMethodInvokers.class, applicationQualifiers);
+      }
+      final ResourceMethodInvokers invokers =
+        resourceMethodInvokers == null ? ResourceMethodInvokers.of(classes) : resourceMethodInvokers;
+      final Map<RouteTable.Route, Endpoint> endpoints = new IdentityHashMap<>();
+      for (final RouteTable.Route route : this.routeTable.getRoutes()) {
+        if (!route.isSubResourceLocator()) {
+          final ResourceMethodInvoker invoker = invokers.getInvoker(route.getResourceClass(), route.getMethod());
+          if (invoker != null) {
+            endpoints.put(route, new Endpoint(route, invoker, this));
+          }
+        }
+      }
+      this.endpoints = endpoints;
+    }
+
+    @Override
+    public final void handle(final HttpExchange exchange) throws IOException {
+      boolean close = true;
+      try {
+        close = this.handleExchange(exchange);
+      } catch (final IOException | RuntimeException exception) {
+        fail(exchange, exception);
+      } finally {
+        if (close) {
+          exchange.close();
+        }
+      }
+    }
+
+    private final boolean handleExchange(final HttpExchange exchange) throws IOException {
+      final String rawPath = exchange.getRequestURI().getRawPath();
+      final int contextPathLength = this.contextPath.length() == 1 ? 0 : this.contextPath.length();
+      final RouteTable.Route route;
+      final String path;
+      if (rawPath.length() > contextPathLength && rawPath.charAt(contextPathLength) != '/') {
+        // e.g. /apiary under /api
+        route = null;
+        path = null;
+      } else {
+        path = rawPath.substring(contextPathLength);
+        route = this.routeTable.match(path, exchange.getRequestMethod());
+      }
+      final Endpoint endpoint = route == null ? null : this.endpoints.get(route);
+      if (endpoint == null) {
+        exchange.sendResponseHeaders(404, -1L);
+        return true;
+      }
+      final Request request = new Request(exchange, path);
+      boolean release = true;
+      final RequestContextActivator.Activation activation = this.requestContextActivator.activate();
+      try {
+        Object result = null;
+        Throwable throwable = null;
+        try {
+          result = this.invoke(endpoint, request);
+        } catch (final Throwable t) {
+          throwable = t;
+        }
+        if (result instanceof CompletionStage) {
+          final CompletableFuture<Object> future = new CompletableFuture<>();
+          ((CompletionStage<?>)result).whenComplete((value, t) -> {
+              if (t == null) {
+                future.complete(value);
+              } else {
+                future.completeExceptionally(t);
+              }
+            });
+          if (!future.isDone()) {
+            // Don't hold this thread; respond, release the resource
+            // and close the exchange once the stage completes.
+            release = false;
+            future.whenComplete((value, t) -> this.respondLater(exchange, endpoint, request, value, t));
+            return false;
+          }
+          try {
+            result = future.getNow(null);
+          } catch (final CompletionException completionException) {
+            result = null;
+            throwable = completionException.getCause();
+          }
+        }
+        // The entity may still be using the resource and the request
+        // context while it streams.
+        this.respond(exchange, endpoint, result, throwable);
+      } finally {
+        try {
+          if (release) {
+            request.release();
+          }
+        } finally {
+          activation.close();
+        }
+      }
+      return true;
+    }
+
+    private final void respondLater(final HttpExchange exchange,
+                                    final Endpoint endpoint,
+                                    final Request request,
+                                    final Object result,
+                                    final Throwable throwable) {
+      final Runnable response = () -> {
+        try {
+          final RequestContextActivator.Activation activation = this.requestContextActivator.activate();
+          try {
+            this.respond(exchange, endpoint, result, throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable);
+          } finally {
+            try {
+              request.release();
+            } finally {
+              activation.close();
+            }
+          }
+        } catch (final IOException | RuntimeException exception) {
+          try {
+            fail(exchange, exception);
+          } catch (final IOException ioException) {
+            exception.addSuppressed(ioException);
+          }
+        } finally {
+          exchange.close();
+        }
+      };
+      try {
+        this.executor.execute(response);
+      } catch (final RejectedExecutionException rejectedExecutionException) {
+        // The server is shutting down.
+        try {
+          request.release();
+        } finally {
+          exchange.close();
+        }
+      }
+    }
+
+    private final void respond(final HttpExchange exchange,
+                               final Endpoint endpoint,
+                               final Object result,
+                               final Throwable throwable)
+      throws IOException {
+      if (throwable == null) {
+        this.respond(exchange, endpoint, result);
+      } else if (throwable instanceof StatusException) {
+        exchange.sendResponseHeaders(((StatusException)throwable).status, -1L);
+      } else {
+        final Response response = this.map(throwable);
+        if (response != null) {
+          this.respond(exchange, endpoint, response);
+        } else if (throwable instanceof Error) {
+          throw (Error)throwable;
+        } else {
+          if (logger.isLoggable(Level.WARNING)) {
+            logger.logp(Level.WARNING, HttpServerBinding.class.getName(), "handle", throwable.getMessage(), throwable);
+          }
+          exchange.sendResponseHeaders(500, -1L);
+        }
+      }
+    }
+
+    private static final void fail(final HttpExchange exchange, final Exception exception) throws IOException {
+      if (logger.isLoggable(Level.WARNING)) {
+        logger.logp(Level.WARNING, HttpServerBinding.class.getName(), "handle", exception.getMessage(), exception);
+      }
+      if (exchange.getResponseCode() < 0) {
+        exchange.sendResponseHeaders(500, -1L);
+      }
+    }
+
+    private final Object invoke(final Endpoint endpoint, final Request request) throws Throwable {
+      final Class<?> resourceClass = endpoint.route.getResourceClass();
+      Object resource = this.singletons.get(resourceClass);
+      if (resource == null) {
+        final Bean<?> bean = this.resolvedBeans.getBean(resourceClass);
+        if (bean == null) {
+          throw new IllegalStateException("No bean resolved for " + resourceClass.getName());
+        }
+        request.creationalContext = this.beanManager.createCreationalContext(bean);
+        resource = this.beanManager.getReference(bean, resourceClass, request.creationalContext);
+      }
+      final Object[] arguments = new Object[endpoint.binders.length];
+      for (int i = 0; i < arguments.length; i++) {
+        arguments[i] = endpoint.binders[i].bind(request);
+      }
+      return endpoint.invoker.invoke(resource, arguments);
+    }
+
+    private final Response map(final Throwable throwable) {
+      for (final ProviderTable.Entry entry : this.providerTable.getExceptionMappers(throwable.getClass())) {
+        @SuppressWarnings("unchecked")
+        final ExceptionMapper<Throwable> exceptionMapper = (ExceptionMapper<Throwable>)this.getProvider(entry.getProviderClass());
+        final Response response = exceptionMapper.toResponse(throwable);
+        if (response != null) {
+          return response;
+        }
+      }
+      return throwable instanceof WebApplicationException ? ((WebApplicationException)throwable).getResponse() : null;
+    }
+
+    private final void respond(final HttpExchange exchange, final Endpoint endpoint, final Object result) throws IOException {
+      final MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+      final int status;
+      final Object entity;
+      final Type genericType;
+      MediaType mediaType = endpoint.produces;
+      if (result instanceof Response) {
+        final Response response = (Response)result;
+        status = response.getStatus();
+        headers.putAll(response.getHeaders());
+        entity = response.getEntity();
+        genericType = entity == null ? null : entity.getClass();
+        final Object contentType = headers.getFirst("Content-Type");
+        if (contentType instanceof MediaType) {
+          mediaType = (MediaType)contentType;
+        } else if (contentType != null) {
+          mediaType = ProviderTable.mediaTypes(new String[] { contentType.toString() }).get(0);
+        }
+      } else {
+        status = result == null ? 204 : 200;
+        entity = result;
+        genericType = endpoint.entityGenericType == null && entity != null ? entity.getClass() : endpoint.entityGenericType;
+      }
+      final ResponseOutputStream outputStream = new ResponseOutputStream(exchange, status, headers);
+      if (entity != null) {
+        this.write(entity, genericType, endpoint.annotations, mediaType, headers, outputStream);
+      }
+      outputStream.close();
+    }
+
+    private final void write(final Object entity,
+                             final Type genericType,
+                             final Annotation[] annotations,
+                             final MediaType mediaType,
+                             final MultivaluedMap<String, Object> headers,
+                             final OutputStream outputStream)
+      throws IOException {
+      final Class<?> type = entity.getClass();
+      for (final ProviderTable.Entry entry : this.providerTable.getMessageBodyWriters(type)) {
+        if (entry.isCompatible(mediaType)) {
+          final MediaType candidate = mediaType == null ? getConcreteMediaType(entry.getMediaTypes()) : mediaType;
+          @SuppressWarnings("unchecked")
+          final MessageBodyWriter<Object> writer = (MessageBodyWriter<Object>)this.getProvider(entry.getProviderClass());
+          if (writer.isWriteable(type, genericType, annotations, candidate)) {
+            headers.putIfAbsent("Content-Type", Collections.singletonList(candidate));
+            writer.writeTo(entity, type, genericType, annotations, candidate, headers, outputStream);
+            return;
+          }
+        }
+      }
+      if (entity instanceof CharSequence) {
+        final MediaType contentType = mediaType == null ? TEXT_PLAIN_TYPE : mediaType;
+        headers.putIfAbsent("Content-Type", Collections.singletonList(contentType));
+        outputStream.write(entity.toString().getBytes(getCharset(HttpServerBinding.toString(contentType))));
+        return;
+      }
+      headers.putIfAbsent("Content-Type", Collections.singletonList(mediaType == null ? APPLICATION_OCTET_STREAM_TYPE : mediaType));
+      if (entity instanceof byte[]) {
+        outputStream.write((byte[])entity);
+      } else if (entity instanceof StreamingOutput) {
+        ((StreamingOutput)entity).write(outputStream);
+      } else if (entity instanceof InputStream) {
+        try (final InputStream inputStream = (InputStream)entity) {
+          final byte[] buffer = new byte[4096];
+          int read;
+          while ((read = inputStream.read(buffer)) >= 0) {
+            outputStream.write(buffer, 0, read);
+          }
+        }
+      } else {
+        throw new IllegalStateException("No MessageBodyWriter for " + type.getName());
+      }
+    }
+
+    private static final MediaType getConcreteMediaType(final List<MediaType> mediaTypes) {
+      for (final MediaType mediaType : mediaTypes) {
+        if (!mediaType.isWildcardType() && !mediaType.isWildcardSubtype()) {
+          return mediaType;
+        }
+      }
+      return APPLICATION_OCTET_STREAM_TYPE;
+    }
+
+    private final Object getProvider(final Class<?> providerClass) {
+      return this.providers.computeIfAbsent(providerClass, c -> {
+          final Bean<?> bean = this.resolvedBeans.getBean(c);
+          if (bean == null) {
+            throw new IllegalStateException("No bean resolved for " + c.getName());
+          }
+          final CreationalContext<?> cc = this.beanManager.createCreationalContext(bean);
+          this.creationalContexts.add(cc);
+          return this.beanManager.getReference(bean, c, cc);
+        });
+    }
+
+    private final Binder getEntityBinder(final Class<?> type, final Type genericType, final Annotation[] annotations) {
+      if (type == InputStream.class) {
+        return request -> request.exchange.getRequestBody();
+      } else if (type == byte[].class) {
+        return request -> readAllBytes(request.exchange.getRequestBody());
+      } else if (type == String.class) {
+        return request ->
+          new String(readAllBytes(request.exchange.getRequestBody()),
+                     getCharset(request.exchange.getRequestHeaders().getFirst("Content-Type")));
+      }
+      return request -> {
+        final String contentTypeHeader = request.exchange.getRequestHeaders().getFirst("Content-Type");
+        final MediaType contentType =
+          contentTypeHeader == null ? APPLICATION_OCTET_STREAM_TYPE : ProviderTable.mediaTypes(new String[] { contentTypeHeader }).get(0);
+        for (final ProviderTable.Entry entry : this.providerTable.getMessageBodyReaders(type)) {
+          if (entry.isCompatible(contentType)) {
+            @SuppressWarnings("unchecked")
+            final MessageBodyReader<Object> reader = (MessageBodyReader<Object>)this.getProvider(entry.getProviderClass());
+            if (reader.isReadable(type, genericType, annotations, contentType)) {
+              final MultivaluedMap<String, String> headers = new MultivaluedHashMap<>();
+              for (final Entry<String, List<String>> header : request.exchange.getRequestHeaders().entrySet()) {
+                headers.addAll(header.getKey(), header.getValue());
+              }
+              @SuppressWarnings("unchecked")
+              final Class<Object> objectType = (Class<Object>)type;
+              return reader.readFrom(objectType, genericType, annotations, contentType, headers, request.exchange.getRequestBody());
+            }
+          }
+        }
+        throw new StatusException(415);
+      };
+    }
+
+    private final Function<String, ?> getConverter(final Class<?> type, final Type genericType, final Annotation[] annotations) {
+      if (type == String.class || type == Object.class) {
+        return Function.identity();
+      }
+      final Class<?> boxedType = MethodType.methodType(type).wrap().returnType();
+      for (final ProviderTable.Entry entry : this.providerTable.getParamConverterProviders()) {
+        final ParamConverter<?> paramConverter =
+          ((ParamConverterProvider)this.getProvider(entry.getProviderClass())).getConverter(type, genericType, annotations);
+        if (paramConverter != null) {
+          return paramConverter::fromString;
+        }
+      }
+      if (boxedType == Character.class) {
+        return s -> {
+          if (s.length() != 1) {
+            throw new IllegalArgumentException(s);
+          }
+          return Character.valueOf(s.charAt(0));
+        };
+      }
+      for (final String methodName : new String[] { "valueOf", "fromString" }) {
+        try {
+          final Method method = boxedType.getMethod(methodName, String.class);
+          if (Modifier.isStatic(method.getModifiers()) && boxedType.isAssignableFrom(method.getReturnType())) {
+            return s -> {
+              try {
+                return method.invoke(null, s);
+              } catch (final IllegalAccessException | InvocationTargetException reflectiveOperationException) {
+                throw new IllegalArgumentException(s, reflectiveOperationException);
+              }
+            };
+          }
+        } catch (final NoSuchMethodException noSuchMethodException) {
+          // Try the next option.
+        }
+      }
+      try {
+        final Constructor<?> constructor = boxedType.getConstructor(String.class);
+        return s -> {
+          try {
+            return constructor.newInstance(s);
+          } catch (final ReflectiveOperationException reflectiveOperationException) {
+            throw new IllegalArgumentException(s, reflectiveOperationException);
+          }
+        };
+      } catch (final NoSuchMethodException noSuchMethodException) {
+        return null;
+      }
+    }
+
+  }
+
+  private static final class Endpoint {
+
+    private final RouteTable.Route route;
+
+    private final ResourceMethodInvoker invoker;
+
+    private final Binder[] binders;
+
+    private final Annotation[] annotations;
+
+    private final MediaType produces;
+
+    private final Type entityGenericType;
+
+    private Endpoint(final RouteTable.Route route, final ResourceMethodInvoker invoker, final ApplicationHandler handler) {
+      super();
+      this.route = route;
+      this.invoker = invoker;
+      final Method method = route.getMethod();
+      this.annotations = method.getAnnotations();
+      Produces produces = method.getAnnotation(Produces.class);
+      if (produces == null) {
+        produces = route.getResourceClass().getAnnotation(Produces.class);
+      }
+      final MediaType mediaType = produces == null ? null : ProviderTable.mediaTypes(produces.value()).get(0);
+      this.produces = mediaType == null || mediaType.isWildcardType() || mediaType.isWildcardSubtype() ? null : mediaType;
+      final Class<?> returnType = method.getReturnType();
+      this.entityGenericType =
+        Response.class.isAssignableFrom(returnType) || CompletionStage.class.isAssignableFrom(returnType) ? null : method.getGenericReturnType();
+
+      final Map<String, Integer> pathParameterIndices = new HashMap<>();
+      int segmentIndex = 0;
+      for (final String segment : route.getTemplate().split("/")) {
+        if (!segment.isEmpty()) {
+          if (segment.charAt(0) == '{') {
+            pathParameterIndices.put(segment.substring(1, segment.length() - 1).trim(), segmentIndex);
+          }
+          ++segmentIndex;
+        }
+      }
+
+      final Class<?>[] parameterTypes = method.getParameterTypes();
+      final Type[] genericParameterTypes = method.getGenericParameterTypes();
+      final Annotation[][] parameterAnnotations = method.getParameterAnnotations();
+      this.binders = new Binder[parameterTypes.length];
+      for (int i = 0; i < parameterTypes.length; i++) {
+        final Class<?> type = parameterTypes[i];
+        final Annotation[] annotations = parameterAnnotations[i];
+        final Object defaultValue = type.isPrimitive() ? Array.get(Array.newInstance(type, 1), 0) : null;
+        boolean jaxRsAnnotated = false;
+        for (final Annotation annotation : annotations) {
+          jaxRsAnnotated = jaxRsAnnotated || isJaxRsAnnotation(annotation);
+        }
+        if (!jaxRsAnnotated) {
+          this.binders[i] = handler.getEntityBinder(type, genericParameterTypes[i], annotations);
+          continue;
+        }
+        final Function<String, ?> converter = handler.getConverter(type, genericParameterTypes[i], annotations);
+        final DefaultValue defaultValueAnnotation = getAnnotation(annotations, DefaultValue.class);
+        final String defaultString = defaultValueAnnotation == null ? null : defaultValueAnnotation.value();
+        final PathParam pathParam = getAnnotation(annotations, PathParam.class);
+        final QueryParam queryParam = getAnnotation(annotations, QueryParam.class);
+        final HeaderParam headerParam = getAnnotation(annotations, HeaderParam.class);
+        final Function<Request, String> source;
+        final int failureStatus;
+        if (pathParam != null && pathParameterIndices.containsKey(pathParam.value())) {
+          final int index = pathParameterIndices.get(pathParam.value());
+          source = request -> request.getPathSegment(index);
+          failureStatus = 404;
+        } else if (queryParam != null) {
+          final String name = queryParam.value();
+          source = request -> request.getQueryParameter(name);
+          failureStatus = 404;
+        } else if (headerParam != null) {
+          final String name = headerParam.value();
+          source = request -> request.exchange.getRequestHeaders().getFirst(name);
+          failureStatus = 400;
+        } else {
+          source = null;
+          failureStatus = 500;
+        }
+        if (source == null || converter == null) {
+          this.binders[i] = request -> defaultValue;
+        } else {
+          this.binders[i] = request -> {
+            String value = source.apply(request);
+            if (value == null) {
+              value = defaultString;
+            }
+            if (value == null) {
+              return defaultValue;
+            }
+            try {
+              return converter.apply(value);
+            } catch (final RuntimeException runtimeException) {
+              throw new StatusException(failureStatus);
+            }
+          };
+        }
+      }
+    }
+
+  }
+
+  @FunctionalInterface
+  private static interface Binder {
+
+    Object bind(final Request request) throws IOException;
+
+  }
+
+  private static final class ResponseOutputStream extends OutputStream {
+
+    private final HttpExchange exchange;
+
+    private final int status;
+
+    private final MultivaluedMap<String, Object> headers;
+
+    private byte[] buffer;
+
+    private int count;
+
+    private OutputStream body;
+
+    private ResponseOutputStream(final HttpExchange exchange, final int status, final MultivaluedMap<String, Object> headers) {
+      super();
+      this.exchange = exchange;
+      this.status = status;
+      this.headers = headers;
+      this.buffer = new byte[RESPONSE_BUFFER_SIZE];
+    }
+
+    @Override
+    public final void write(final int b) throws IOException {
+      if (this.body == null && this.count < this.buffer.length) {
+        this.buffer[this.count++] = (byte)b;
+      } else {
+        this.commit(0L).write(b);
+      }
+    }
+
+    @Override
+    public final void write(final byte[] bytes, final int offset, final int length) throws IOException {
+      if (this.body == null && length <= this.buffer.length - this.count) {
+        System.arraycopy(bytes, offset, this.buffer, this.count, length);
+        this.count += length;
+      } else {
+        this.commit(0L).write(bytes, offset, length);
+      }
+    }
+
+    @Override
+    public final void flush() throws IOException {
+      // An explicit flush means the entity wants what it has written
+      // so far on the wire, so stop buffering.
+      this.commit(0L).flush();
+    }
+
+    @Override
+    public final void close() throws IOException {
+      if (this.body == null) {
+        // Everything fit in the buffer, so the length is known.
+        this.commit(this.count == 0 ? -1L : this.count);
+      }
+      this.body.close();
+    }
+
+    private final OutputStream commit(final long length) throws IOException {
+      if (this.body == null) {
+        // Headers may change until the first byte goes out.
+        for (final Entry<String, List<Object>> header : this.headers.entrySet()) {
+          for (final Object value : header.getValue()) {
+            this.exchange.getResponseHeaders().add(header.getKey(),
+                                                   value instanceof MediaType ? HttpServerBinding.toString((MediaType)value) : String.valueOf(value));
+          }
+        }
+        // A length of 0 means chunked transfer encoding.
+        this.exchange.sendResponseHeaders(this.status, length);
+        this.body = this.exchange.getResponseBody();
+        if (this.count > 0) {
+          this.body.write(this.buffer, 0, this.count);
+        }
+        this.buffer = null;
+      }
+      return this.body;
+    }
+
+  }
+
+  private static final class Request {
+
+    private final HttpExchange exchange;
+
+    private final String path;
+
+    private List<String> pathSegments;
+
+    private Map<String, String> queryParameters;
+
+    private CreationalContext<?> creationalContext;
+
+    private Request(final HttpExchange exchange, final String path) {
+      super();
+      this.exchange = exchange;
+      this.path = path;
+    }
+
+    private final String getPathSegment(final int index) {
+      if (this.pathSegments == null) {
+        final List<String> pathSegments = new ArrayList<>();
+        for (final String segment : this.path.split("/")) {
+          if (!segment.isEmpty()) {
+            pathSegments.add(segment);
+          }
+        }
+        this.pathSegments = pathSegments;
+      }
+      return index < this.pathSegments.size() ? decode(this.pathSegments.get(index), false) : null;
+    }
+
+    private final String getQueryParameter(final String name) {
+      if (this.queryParameters == null) {
+        final Map<String, String> queryParameters = new HashMap<>();
+        final String rawQuery = this.exchange.getRequestURI().getRawQuery();
+        if (rawQuery != null) {
+          for (final String pair : rawQuery.split("&")) {
+            if (!pair.isEmpty()) {
+              final int equalsIndex = pair.indexOf('=');
+              final String key = decode(equalsIndex < 0 ? pair : pair.substring(0, equalsIndex), true);
+              queryParameters.putIfAbsent(key, equalsIndex < 0 ? "" : decode(pair.substring(equalsIndex + 1), true));
+            }
+          }
+        }
+        this.queryParameters = queryParameters;
+      }
+      return this.queryParameters.get(name);
+    }
+
+    private final void release() {
+      if (this.creationalContext != null) {
+        this.creationalContext.release();
+        this.creationalContext = null;
+      }
+    }
+
+  }
+
+  private static final class StatusException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int status;
+
+    private StatusException(final int status) {
+      super(null, null, false, false);
+      this.status = status;
+    }
+
+  }
+
+}
@@ -0,0 +1,179 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * An immutable {@link Set} backed by a single array of its elements
+ * and, for larger sets, an open-addressed array of indices into it.
+ *
+ * <p>An {@link ImmutableArraySet} iterates in the order of the
+ * {@link Collection} it was created from, does not permit {@code
+ * null} elements, and occupies a small fraction of the heap that an
+ * equivalent {@link java.util.HashSet} does.</p>
+ *
+ * @param <E> the type of element
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ */
+final class ImmutableArraySet<E> extends AbstractSet<E> {
+
+  private static final ImmutableArraySet<?> EMPTY = new ImmutableArraySet<>(new Object[0]);
+
+  // At or below this size a linear scan is as fast as hashing.
+  private static final int LINEAR_SCAN_THRESHOLD = 8;
+
+  private final Object[] elements;
+
+  private final int[] table;
+
+  private final int hashCode;
+
+  private ImmutableArraySet(final Object[] elements) {
+    super();
+    this.elements = elements;
+    int hashCode = 0;
+    for (final Object element : elements) {
+      hashCode += element.hashCode();
+    }
+    this.hashCode = hashCode;
+    if (elements.length <= LINEAR_SCAN_THRESHOLD) {
+      this.table = null;
+    } else {
+      final int[] table = new int[Integer.highestOneBit(elements.length * 2 - 1) << 1];
+      final int mask = table.length - 1;
+      for (int i = 0; i < elements.length; i++) {
+        int slot = hash(elements[i]) & mask;
+        while (table[slot] != 0) {
+          slot = (slot + 1) & mask;
+        }
+        table[slot] = i + 1;
+      }
+      this.table = table;
+    }
+  }
+
+  /**
+   * Returns an {@link ImmutableArraySet} containing the distinct
+   * elements of the supplied {@link Collection}, in its iteration
+   * order.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @param <E> the type of element
+   *
+   * @param collection the {@link Collection} to copy; may be {@code
+   * null} in which case an empty {@link ImmutableArraySet} will be
+   * returned
+   *
+   * @return a non-{@code null} {@link ImmutableArraySet}; {@code
+   * collection} itself if it is already an {@link ImmutableArraySet}
+   *
+   * @exception NullPointerException if {@code collection} contains a
+   * {@code null} element
+   */
+  @SuppressWarnings("unchecked")
+  static final <E> ImmutableArraySet<E> of(final Collection<? extends E> collection) {
+    if (collection instanceof ImmutableArraySet) {
+      return (ImmutableArraySet<E>)collection;
+    } else if (collection == null || collection.isEmpty()) {
+      return (ImmutableArraySet<E>)EMPTY;
+    }
+    final Object[] elements =
+      collection instanceof Set ? collection.toArray() : new LinkedHashSet<>(collection).toArray();
+    for (final Object element : elements) {
+      Objects.requireNonNull(element);
+    }
+    return new ImmutableArraySet<>(elements);
+  }
+
+  @Override
+  public final int size() {
+    return this.elements.length;
+  }
+
+  @Override
+  public final boolean contains(final Object object) {
+    if (object != null) {
+      final Object[] elements = this.elements;
+      final int[] table = this.table;
+      if (table == null) {
+        for (final Object element : elements) {
+          if (element.equals(object)) {
+            return true;
+          }
+        }
+      } else {
+        final int mask = table.length - 1;
+        int slot = hash(object) & mask;
+        int index;
+        while ((index = table[slot]) != 0) {
+          if (elements[index - 1].equals(object)) {
+            return true;
+          }
+          slot = (slot + 1) & mask;
+        }
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public final Iterator<E> iterator() {
+    return new Iterator<E>() {
+      private int index;
+
+      @Override
+      public final boolean hasNext() {
+        return this.index < elements.length;
+      }
+
+      @Override
+      @SuppressWarnings("unchecked")
+      public final E next() {
+        if (this.index >= elements.length) {
+          throw new NoSuchElementException();
+        }
+        return (E)elements[this.index++];
+      }
+    };
+  }
+
+  @Override
+  public final Object[] toArray() {
+    return this.elements.clone();
+  }
+
+  @Override
+  public final int hashCode() {
+    return this.hashCode;
+  }
+
+  private static final int hash(final Object object) {
+    final int h = object.hashCode();
+    return h ^ (h >>> 16);
+  }
+
+}
@@ -16,6 +16,9 @@
  */
 package org.microbean.jaxrs.cdi;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
 import java.lang.annotation.Annotation;
 import java.lang.annotation.Documented;
 import java.lang.annotation.ElementType;
@@ -24,21 +27,52 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
+import java.lang.management.ManagementFactory;
+
+import java.lang.ref.Reference;
+import java.lang.ref.SoftReference;
+
+import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+
+import java.nio.file.Paths;
+
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import java.util.stream.Collectors;
+
+import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.context.ContextNotActiveException;
 import javax.enterprise.context.Dependent;
+import javax.enterprise.context.Initialized;
 
 import javax.enterprise.context.spi.AlterableContext;
 import javax.enterprise.context.spi.Context;
@@ -50,12 +84,19 @@ import javax.enterprise.event.Observes;
 import javax.enterprise.inject.Any;
 
 import javax.enterprise.inject.spi.AfterBeanDiscovery;
+import javax.enterprise.inject.spi.AfterDeploymentValidation;
+import javax.enterprise.inject.spi.AfterTypeDiscovery;
+import javax.enterprise.inject.spi.Annotated;
 import javax.enterprise.inject.spi.AnnotatedMethod;
 import javax.enterprise.inject.spi.AnnotatedType;
 import javax.enterprise.inject.spi.Bean;
 import javax.enterprise.inject.spi.BeanAttributes;
 import javax.enterprise.inject.spi.BeanManager;
+import javax.enterprise.inject.spi.BeforeBeanDiscovery;
+import javax.enterprise.inject.spi.BeforeShutdown;
 import javax.enterprise.inject.spi.Extension;
+import javax.enterprise.inject.spi.InjectionPoint;
+import javax.enterprise.inject.spi.Prioritized;
 import javax.enterprise.inject.spi.ProcessAnnotatedType;
 import javax.enterprise.inject.spi.ProcessBeanAttributes;
 import javax.enterprise.inject.spi.WithAnnotations;
@@ -67,6 +108,11 @@ import javax.enterprise.util.AnnotationLiteral;
 import javax.inject.Qualifier;
 import javax.inject.Singleton;
 
+import javax.interceptor.Interceptor;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
 import javax.ws.rs.HttpMethod;
 import javax.ws.rs.Path;
 
@@ -77,42 +123,606 @@ import javax.ws.rs.ApplicationPath;
  * An {@link Extension} that makes {@link Application}s and resource
  * classes available as CDI beans.
  *
+ * <p>Once startup is complete, a {@link Singleton}-scoped {@link
+ * BootReport} bean records how long this {@link JaxRsExtension}'s
+ * work took.  The same information is {@linkplain Logger logged} at
+ * {@link Level#FINE} under this class' name.</p>
+ *
  * @author <a href="https://about.me/lairdnelson"
  * target="_parent">Laird Nelson</a>
  */
 public class JaxRsExtension implements Extension {
 
-  private final Set<Class<?>> potentialResourceClasses;
+  private static final Logger logger = Logger.getLogger(JaxRsExtension.class.getName());
+
+  /**
+   * The name of the {@linkplain System#getProperty(String) system
+   * property} that, if set to {@code true}, causes this {@link
+   * JaxRsExtension} to capture each {@link Application} it finds
+   * exactly once, as an {@link ApplicationSnapshot}, and to turn the
+   * return value of each such {@link Application}'s {@link
+   * Application#getSingletons()} method into {@link
+   * Singleton}-scoped beans.
+   *
+   * <p>This field is never {@code null}.</p>
+   *
+   * @see ApplicationSnapshot
+   */
+  public static final String SNAPSHOT_APPLICATIONS_PROPERTY_NAME = "org.microbean.jaxrs.cdi.snapshotApplications";
+
+  /**
+   * The name of the {@linkplain System#getProperty(String) system
+   * property} that, if set to {@code true}, causes this {@link
+   * JaxRsExtension} to add a {@link Singleton}-scoped {@link
+   * RouteTable} bean for each {@link Application}, bearing that
+   * {@link Application}'s qualifiers.
+   *
+   * <p>This field is never {@code null}.</p>
+   *
+   * @see RouteTable
+   */
+  public static final String ROUTE_TABLES_PROPERTY_NAME = "org.microbean.jaxrs.cdi.routeTables";
+
+  /**
+   * The name of the {@linkplain System#getProperty(String) system
+   * property} that, if set to {@code true}, causes this {@link
+   * JaxRsExtension} to add a {@link Singleton}-scoped {@link
+   * ProviderTable} bean for each {@link Application}, bearing that
+   * {@link Application}'s qualifiers.
+   *
+   * <p>This field is never {@code null}.</p>
+   *
+   * @see ProviderTable
+   */
+  public static final String PROVIDER_TABLES_PROPERTY_NAME = "org.microbean.jaxrs.cdi.providerTables";
+
+  /**
+   * The name of the {@linkplain System#getProperty(String) system
+   * property} that, if set to {@code true}, causes this {@link
+   * JaxRsExtension} to add a {@link Singleton}-scoped {@link
+   * ResourceMethodInvokers} bean for each {@link Application},
+   * bearing that {@link Application}'s qualifiers.
+   *
+   * <p>This field is never {@code null}.</p>
+   *
+   * @see ResourceMethodInvokers
+   */
+  public static final String RESOURCE_METHOD_INVOKERS_PROPERTY_NAME =
+    "org.microbean.jaxrs.cdi.resourceMethodInvokers";
+
+  /**
+   * The name of the {@linkplain System#getProperty(String) system
+   * property} that, if set to {@code true}, causes this {@link
+   * JaxRsExtension} to add a {@link Singleton}-scoped {@link
+   * ResolvedBeans} bean for each {@link Application}, bearing that
+   * {@link Application}'s qualifiers, and to populate it once the
+   * deployment has been validated.
+   *
+   * <p>This field is never {@code null}.</p>
+   *
+   * @see ResolvedBeans
+   */
+  public static final String RESOLVED_BEANS_PROPERTY_NAME = "org.microbean.jaxrs.cdi.resolvedBeans";
+
+  /**
+   * The name of the {@linkplain System#getProperty(String) system
+   * property} that, if set to {@code true}, causes this {@link
+   * JaxRsExtension} to give {@link Singleton} scope, instead of
+   * {@link Dependent} scope, to those resource classes returned by
+   * {@link Application#getClasses()} that are not otherwise beans,
+   * bear no scope annotation, and are stateless, and to add a {@link
+   * Singleton}-scoped {@link SingletonPromotionReport} bean
+   * describing which resource classes were promoted and which were
+   * not.
+   *
+   * <p>A resource class is stateless if all of its instance fields
+   * are {@code final} or injected, it has no per-request parameter
+   * fields, and all of its injection points resolve to normal-scoped
+   * or {@link Singleton}-scoped beans.</p>
+   *
+   * <p>This field is never {@code null}.</p>
+   *
+   * @see SingletonPromotionReport
+   */
+  public static final String PROMOTE_STATELESS_RESOURCES_PROPERTY_NAME =
+    "org.microbean.jaxrs.cdi.promoteStatelessResources";
+
+  /**
+   * The name of the {@linkplain System#getProperty(String) system
+   * property} that, if set to {@code true}, causes this {@link
+   * JaxRsExtension} to instantiate and analyze {@link Application}
+   * beans in parallel, using the {@linkplain
+   * java.util.concurrent.ForkJoinPool#commonPool() common
+   * <code>ForkJoinPool</code>}, when there is more than one of them.
+   *
+   * <p>{@link Application} constructors and {@link
+   * Application#getClasses()} implementations must be safe to run
+   * concurrently with those of other {@link Application}s for this to
+   * be enabled.</p>
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  public static final String PARALLEL_APPLICATION_ANALYSIS_PROPERTY_NAME =
+    "org.microbean.jaxrs.cdi.parallelApplicationAnalysis";
+
+  /**
+   * The name of the {@linkplain System#getProperty(String) system
+   * property} that, if set to {@code true}, causes this {@link
+   * JaxRsExtension} to add the {@link Metered} interceptor binding to
+   * every resource class, and to add a {@link Singleton}-scoped
+   * {@link ResourceMethodMetrics} bean in which the {@link
+   * MetricsInterceptor} records each resource method invocation.
+   *
+   * <p>This field is never {@code null}.</p>
+   *
+   * @see ResourceMethodMetrics
+   *
+   * @see #RESOURCE_METHOD_METRICS_JMX_PROPERTY_NAME
+   */
+  public static final String RESOURCE_METHOD_METRICS_PROPERTY_NAME =
+    "org.microbean.jaxrs.cdi.resourceMethodMetrics";
+
+  /**
+   * The name of the {@linkplain System#getProperty(String) system
+   * property} that, if set to {@code true} along with the {@link
+   * #RESOURCE_METHOD_METRICS_PROPERTY_NAME} system property, causes
+   * this {@link JaxRsExtension} to register the {@link
+   * ResourceMethodMetrics} bean with the {@linkplain
+   * java.lang.management.ManagementFactory#getPlatformMBeanServer()
+   * platform <code>MBeanServer</code>} as an MXBean named {@code
+   * org.microbean.jaxrs.cdi:type=ResourceMethodMetrics} for as long as
+   * the container is running.
+   *
+   * <p>This field is never {@code null}.</p>
+   *
+   * @see ResourceMethodMetricsMXBean
+   */
+  public static final String RESOURCE_METHOD_METRICS_JMX_PROPERTY_NAME =
+    "org.microbean.jaxrs.cdi.resourceMethodMetrics.jmx";
+
+  /**
+   * The name of the {@linkplain System#getProperty(String) system
+   * property} that, if set to {@code true}, causes this {@link
+   * JaxRsExtension} to eagerly create every resource and provider
+   * bean that is not {@link Dependent}-scoped when the application
+   * context is {@linkplain javax.enterprise.context.Initialized
+   * initialized}, and to add a {@link Singleton}-scoped {@link
+   * WarmUpReport} bean describing how long that took.
+   *
+   * <p>A request context is active while this happens.</p>
+   *
+   * <p>This field is never {@code null}.</p>
+   *
+   * @see WarmUpReport
+   *
+   * @see #WARM_UP_ITERATIONS_PROPERTY_NAME
+   */
+  public static final String WARM_UP_PROPERTY_NAME = "org.microbean.jaxrs.cdi.warmUp";
+
+  /**
+   * The name of the {@linkplain System#getProperty(String) system
+   * property} whose {@linkplain Integer#getInteger(String, int)
+   * integer value} is the number of times that the {@link
+   * Object#toString()} method of the contextual reference of each
+   * bean created because of the {@link #WARM_UP_PROPERTY_NAME} system
+   * property is invoked, so that the just-in-time compiler starts
+   * work on the container's client proxy and context lookup code.
+   *
+   * <p>If unset, no such invocations are made.</p>
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  public static final String WARM_UP_ITERATIONS_PROPERTY_NAME = "org.microbean.jaxrs.cdi.warmUp.iterations";
+
+  /**
+   * The name of the {@linkplain System#getProperty(String) system
+   * property} that, if set to {@code true}, causes this {@link
+   * JaxRsExtension} to create instances of those classes returned by
+   * {@link Application#getClasses()} that are not otherwise beans by
+   * invoking their zero-argument constructors directly, rather than
+   * leaving the container to do so reflectively, provided that they
+   * have no injection points (including Jakarta EE resource
+   * injection), lifecycle callbacks, interceptors of any kind,
+   * stereotypes or decorators.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  public static final String DIRECT_INSTANTIATION_PROPERTY_NAME = "org.microbean.jaxrs.cdi.directInstantiation";
+
+  /**
+   * The name of the {@linkplain System#getProperty(String) system
+   * property} that, if set to {@code true}, causes this {@link
+   * JaxRsExtension} to add a {@link Singleton}-scoped {@link
+   * ResponseCache} bean and to enable the {@link
+   * ResponseCacheInterceptor}, so that the results of {@link
+   * Cacheable} {@link javax.ws.rs.GET} resource methods are cached.
+   *
+   * <p>Without it, {@link Cacheable} has no effect.</p>
+   *
+   * <p>This field is never {@code null}.</p>
+   *
+   * @see ResponseCache
+   *
+   * @see #RESPONSE_CACHE_MAXIMUM_WEIGHT_PROPERTY_NAME
+   */
+  public static final String RESPONSE_CACHE_PROPERTY_NAME = "org.microbean.jaxrs.cdi.responseCache";
+
+  /**
+   * The name of the {@linkplain System#getProperty(String) system
+   * property} whose {@linkplain Long#getLong(String, long) long
+   * value} is the {@linkplain ResponseCache#getMaximumWeight()
+   * maximum weight}, in bytes, of the {@link ResponseCache} added
+   * because of the {@link #RESPONSE_CACHE_PROPERTY_NAME} system
+   * property.
+   *
+   * <p>If unset, the maximum weight is 64 MiB.</p>
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  public static final String RESPONSE_CACHE_MAXIMUM_WEIGHT_PROPERTY_NAME =
+    "org.microbean.jaxrs.cdi.responseCache.maximumWeight";
+
+  /**
+   * The name of the {@linkplain System#getProperty(String) system
+   * property} whose {@linkplain Integer#getInteger(String) integer
+   * value}, if set, is the loopback port on which this {@link
+   * JaxRsExtension} {@linkplain HttpServerBinding#start(BeanManager,
+   * java.net.InetSocketAddress, java.util.concurrent.Executor)
+   * starts} an {@link HttpServerBinding} when the application context
+   * is {@linkplain javax.enterprise.context.Initialized initialized}.
+   *
+   * <p>A value of {@code 0} picks an ephemeral port; {@link
+   * #getHttpServerBinding()} reports the one chosen.  The binding is
+   * closed when the container shuts down.</p>
+   *
+   * <p>This field is never {@code null}.</p>
+   *
+   * @see HttpServerBinding
+   *
+   * @see #HTTP_SERVER_THREADS_PROPERTY_NAME
+   */
+  public static final String HTTP_SERVER_PORT_PROPERTY_NAME = "org.microbean.jaxrs.cdi.httpServer.port";
+
+  /**
+   * The name of the {@linkplain System#getProperty(String) system
+   * property} whose {@linkplain Integer#getInteger(String, int)
+   * integer value}, if positive, is the fixed number of threads that
+   * handle requests for the {@link HttpServerBinding} started because
+   * of the {@link #HTTP_SERVER_PORT_PROPERTY_NAME} system property.
+   *
+   * <p>If unset, threads are created on demand and reused.</p>
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  public static final String HTTP_SERVER_THREADS_PROPERTY_NAME = "org.microbean.jaxrs.cdi.httpServer.threads";
+
+  /**
+   * The name of the {@linkplain System#getProperty(String) system
+   * property} whose value, if set, is the path of a file in which
+   * this {@link JaxRsExtension} records, at the end of each container
+   * startup, the classes of every {@link Application} and a hash of
+   * each of their class files.
+   *
+   * <p>At the next startup the file is compared with what was found
+   * and the differences are described by a {@link Singleton}-scoped
+   * {@link RedeployReport} bean.  In addition, when a container is
+   * started again in the same virtual machine, the {@link
+   * RouteTable}, {@link ProviderTable} and {@link
+   * ResourceMethodInvokers} of each {@link Application} whose classes
+   * are unchanged are reused rather than recomputed.  This is
+   * intended for development-time redeploys.</p>
+   *
+   * <p>This field is never {@code null}.</p>
+   *
+   * @see RedeployReport
+   */
+  public static final String DISCOVERY_SNAPSHOT_PROPERTY_NAME = "org.microbean.jaxrs.cdi.discoverySnapshot";
+
+  /**
+   * The name of the {@linkplain System#getProperty(String) system
+   * property} that, if set to {@code true}, causes this {@link
+   * JaxRsExtension} to defer computing the {@link RouteTable}, {@link
+   * ProviderTable}, {@link ResourceMethodInvokers} and {@link
+   * ResolvedBeans} of each {@link Application} until one of them is
+   * first looked up or, for an {@link Application} served by an
+   * {@link HttpServerBinding}, until its first request arrives, and
+   * to add a {@link Singleton}-scoped {@link LazyApplicationReport}
+   * bean describing what was deferred.
+   *
+   * <p>The beans themselves, including resource and provider class
+   * beans, are still added at startup, because a portable extension
+   * cannot add beans later.  Derived state is not reused across
+   * {@linkplain #DISCOVERY_SNAPSHOT_PROPERTY_NAME redeploys} in this
+   * mode.</p>
+   *
+   * <p>This field is never {@code null}.</p>
+   *
+   * @see LazyApplicationReport
+   */
+  public static final String LAZY_APPLICATIONS_PROPERTY_NAME = "org.microbean.jaxrs.cdi.lazyApplications";
+
+  /**
+   * The name of the {@linkplain System#getProperty(String) system
+   * property} that, if set to {@code true}, causes this {@link
+   * JaxRsExtension} to read every build-time index written by the
+   * {@link JaxRsIndexProcessor} that is visible to the thread context
+   * classloader, and to add each indexed root resource class,
+   * provider class and {@link ApplicationPath}-annotated {@link
+   * Application} class that type discovery did not find as an {@link
+   * AnnotatedType}.
+   *
+   * <p>This lets a deployment whose classes are all indexed disable
+   * bean archive scanning, or use {@code annotated} bean discovery
+   * mode, without losing its Jakarta RESTful Web Services classes.
+   * An indexed class is only added if it still bears the annotation
+   * it was indexed for; stale entries are skipped.  Indexed classes
+   * are classified by their {@link AnnotatedType}s, like any other,
+   * so other portable extensions may still configure or veto
+   * them.</p>
+   *
+   * <p>This field is never {@code null}.</p>
+   *
+   * @see JaxRsIndexProcessor
+   */
+  public static final String BUILD_TIME_INDEX_PROPERTY_NAME = "org.microbean.jaxrs.cdi.buildTimeIndex";
+
+  // The derived state of each Application computed by the most
+  // recent container startup in this virtual machine that recorded
+  // a discovery snapshot, indexed by the Application's classes.  Only
+  // one generation is ever kept, and only softly, so that it survives
+  // an immediate redeployment but never keeps the classes (and class
+  // loaders) of an undeployed application from being reclaimed when
+  // memory is needed.  Because the classes are the keys, classes that
+  // have been reloaded never match.
+  private static final AtomicReference<Reference<Map<Set<Class<?>>, DerivedState>>> previousDerivedStates =
+    new AtomicReference<>(new SoftReference<>(Collections.emptyMap()));
+
+  private final boolean snapshotApplications;
+
+  private final boolean routeTables;
+
+  private final boolean providerTables;
+
+  private final boolean resourceMethodInvokers;
+
+  private final boolean resolvedBeans;
+
+  private final boolean promoteStatelessResources;
+
+  private final boolean parallelApplicationAnalysis;
+
+  private final boolean directInstantiation;
+
+  private final ResourceMethodMetrics resourceMethodMetrics;
 
-  private final Set<Class<?>> potentialProviderClasses;
+  private final boolean resourceMethodMetricsJmx;
 
-  private final Map<Class<?>, BeanAttributes<?>> resourceBeans;
+  private volatile ObjectName resourceMethodMetricsObjectName;
 
-  private final Map<Class<?>, BeanAttributes<?>> providerBeans;
+  private final WarmUpReport warmUpReport;
 
-  private final Set<Set<Annotation>> qualifiers;
+  private final int warmUpIterations;
+
+  private Set<Class<?>> warmUpClasses;
+
+  private final ResponseCache responseCache;
+
+  private final Integer httpServerPort;
+
+  private final int httpServerThreads;
+
+  private volatile Set<Bean<?>> applicationBeans;
+
+  private volatile HttpServerBinding httpServerBinding;
+
+  private volatile ExecutorService httpServerExecutor;
+
+  private volatile ExecutorService dispatchExecutor;
+
+  private volatile boolean dispatchExecutorShutDown;
+
+  private volatile DetachableRequestContext detachableRequestContext;
+
+  private volatile boolean detachableRequestContextResolved;
+
+  private final java.nio.file.Path discoverySnapshotPath;
+
+  private final LazyApplicationReport lazyApplicationReport;
+
+  private volatile Map<Set<Annotation>, LazyApplication> lazyApplications;
+
+  // The following working state is only needed while the container
+  // is starting and is released once the deployment is validated.
+
+  private Set<Class<?>> potentialResourceClasses;
+
+  private Set<Class<?>> potentialProviderClasses;
+
+  private Set<Class<?>> potentialSubResourceClasses;
+
+  private Set<Class<?>> potentialApplicationClasses;
+
+  private volatile boolean abstractCandidatesDiscovered;
+
+  private Map<Class<?>, BeanAttributes<?>> resourceBeans;
+
+  private Map<Class<?>, BeanAttributes<?>> providerBeans;
+
+  private Map<Set<Annotation>, QualifierGroup> qualifierGroups;
+
+  private Map<Set<Annotation>, Set<Annotation>> internedQualifiers;
+
+  private Map<String, Set<Class<?>>> discoveredApplications;
+
+  private Map<Set<Class<?>>, DerivedState> derivedStates;
+
+  private AtomicInteger reusedDerivedStateCount;
+
+  private final boolean buildTimeIndex;
+
+  private volatile JaxRsIndex index;
+
+  private volatile ClassLoader indexClassLoader;
+
+  private volatile Set<String> discoveredClassNames;
+
+  private List<Consumer<BeanManager>> unresolvedBeans;
+
+  private volatile Set<Set<Annotation>> qualifiers;
+
+  private final Map<Set<Annotation>, Map<Class<?>, Set<Annotation>>> claimedQualifiers;
+
+  private final long[] classCounts;
+
+  private final long[] nanos;
+
+  private long phaseStart;
 
   /**
    * Creates a new {@link JaxRsExtension}.
    */
   public JaxRsExtension() {
     super();
-    this.potentialResourceClasses = new HashSet<>();
-    this.potentialProviderClasses = new HashSet<>();
-    this.resourceBeans = new HashMap<>();
-    this.providerBeans = new HashMap<>();
-    this.qualifiers = new HashSet<>();
+    this.snapshotApplications = Boolean.getBoolean(SNAPSHOT_APPLICATIONS_PROPERTY_NAME);
+    this.routeTables = Boolean.getBoolean(ROUTE_TABLES_PROPERTY_NAME);
+    this.providerTables = Boolean.getBoolean(PROVIDER_TABLES_PROPERTY_NAME);
+    this.resourceMethodInvokers = Boolean.getBoolean(RESOURCE_METHOD_INVOKERS_PROPERTY_NAME);
+    this.resolvedBeans = Boolean.getBoolean(RESOLVED_BEANS_PROPERTY_NAME);
+    this.promoteStatelessResources = Boolean.getBoolean(PROMOTE_STATELESS_RESOURCES_PROPERTY_NAME);
+    this.parallelApplicationAnalysis = Boolean.getBoolean(PARALLEL_APPLICATION_ANALYSIS_PROPERTY_NAME);
+    this.directInstantiation = Boolean.getBoolean(DIRECT_INSTANTIATION_PROPERTY_NAME);
+    if (Boolean.getBoolean(RESOURCE_METHOD_METRICS_PROPERTY_NAME)) {
+      this.resourceMethodMetrics = new ResourceMethodMetrics();
+      this.resourceMethodMetricsJmx = Boolean.getBoolean(RESOURCE_METHOD_METRICS_JMX_PROPERTY_NAME);
+    } else {
+      this.resourceMethodMetrics = null;
+      this.resourceMethodMetricsJmx = false;
+    }
+    if (Boolean.getBoolean(WARM_UP_PROPERTY_NAME)) {
+      this.warmUpReport = new WarmUpReport();
+      this.warmUpIterations = Math.max(0, Integer.getInteger(WARM_UP_ITERATIONS_PROPERTY_NAME, 0));
+      this.warmUpClasses = new HashSet<>();
+    } else {
+      this.warmUpReport = null;
+      this.warmUpIterations = 0;
+      this.warmUpClasses = null;
+    }
+    this.responseCache =
+      Boolean.getBoolean(RESPONSE_CACHE_PROPERTY_NAME) ?
+      new ResponseCache(Long.getLong(RESPONSE_CACHE_MAXIMUM_WEIGHT_PROPERTY_NAME, 64L * 1024L * 1024L)) :
+      null;
+    this.httpServerPort = Integer.getInteger(HTTP_SERVER_PORT_PROPERTY_NAME);
+    this.httpServerThreads = Integer.getInteger(HTTP_SERVER_THREADS_PROPERTY_NAME, 0);
+    final String discoverySnapshotPath = System.getProperty(DISCOVERY_SNAPSHOT_PROPERTY_NAME);
+    if (discoverySnapshotPath == null || discoverySnapshotPath.trim().isEmpty()) {
+      this.discoverySnapshotPath = null;
+    } else {
+      this.discoverySnapshotPath = Paths.get(discoverySnapshotPath.trim());
+      this.discoveredApplications = new ConcurrentHashMap<>();
+      this.derivedStates = new ConcurrentHashMap<>();
+      this.reusedDerivedStateCount = new AtomicInteger();
+    }
+    this.buildTimeIndex = Boolean.getBoolean(BUILD_TIME_INDEX_PROPERTY_NAME);
+    if (Boolean.getBoolean(LAZY_APPLICATIONS_PROPERTY_NAME)) {
+      this.lazyApplicationReport = new LazyApplicationReport();
+      this.lazyApplications = new HashMap<>();
+    } else {
+      this.lazyApplicationReport = null;
+      this.lazyApplications = null;
+    }
+    // Weld may fire ProcessAnnotatedType and ProcessBeanAttributes
+    // events on several threads at once when concurrent deployment is
+    // enabled, so everything that their observers touch must be
+    // thread-safe.
+    this.potentialResourceClasses = ConcurrentHashMap.newKeySet();
+    this.potentialProviderClasses = ConcurrentHashMap.newKeySet();
+    this.potentialSubResourceClasses = ConcurrentHashMap.newKeySet();
+    this.potentialApplicationClasses = ConcurrentHashMap.newKeySet();
+    this.resourceBeans = new ConcurrentHashMap<>();
+    this.providerBeans = new ConcurrentHashMap<>();
+    this.qualifierGroups = new ConcurrentHashMap<>();
+    this.internedQualifiers = new ConcurrentHashMap<>();
+    this.qualifiers = ConcurrentHashMap.newKeySet();
+    this.claimedQualifiers = new ConcurrentHashMap<>();
+    this.unresolvedBeans = new ArrayList<>();
+    this.index = JaxRsIndex.EMPTY;
+    this.classCounts = new long[BootReport.Phase.values().length];
+    this.nanos = new long[BootReport.Phase.values().length];
+  }
+
+  private final void readIndex(@Observes
+                               final BeforeBeanDiscovery event) {
+    Objects.requireNonNull(event);
+    this.phaseStart = System.nanoTime();
+    if (!this.buildTimeIndex) {
+      return;
+    }
+    ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+    if (classLoader == null) {
+      classLoader = JaxRsExtension.class.getClassLoader();
+    }
+    final JaxRsIndex index;
+    try {
+      index = JaxRsIndex.load(classLoader);
+    } catch (final IOException ioException) {
+      throw new UncheckedIOException(ioException.getMessage(), ioException);
+    }
+    if (!index.isEmpty()) {
+      this.indexClassLoader = classLoader;
+      this.discoveredClassNames = ConcurrentHashMap.newKeySet();
+      this.index = index;
+    }
   }
 
-  private final <T> void discoverRootResourceClasses(@Observes
-                                                     @WithAnnotations({ Path.class })
-                                                     final ProcessAnnotatedType<T> event) {
+  private final void addInterceptors(@Observes
+                                     final BeforeBeanDiscovery event) {
+    Objects.requireNonNull(event);
+    event.addAnnotatedType(DispatchInterceptor.class, DispatchInterceptor.class.getName());
+    if (this.resourceMethodMetrics != null) {
+      event.addAnnotatedType(MetricsInterceptor.class, MetricsInterceptor.class.getName());
+    }
+    if (this.responseCache != null) {
+      event.addAnnotatedType(ResponseCacheInterceptor.class, ResponseCacheInterceptor.class.getName());
+    }
+  }
+
+  private final <T> void discoverResourceClasses(@Observes
+                                                 @WithAnnotations({ HttpMethod.class, Path.class })
+                                                 final ProcessAnnotatedType<T> event) {
     Objects.requireNonNull(event);
     final AnnotatedType<T> annotatedType = event.getAnnotatedType();
-    if (annotatedType != null && isRootResourceClass(annotatedType)) {
+    if (annotatedType != null) {
       final Class<T> javaClass = annotatedType.getJavaClass();
       if (javaClass != null) {
-        this.potentialResourceClasses.add(javaClass);
+        this.discovered(javaClass);
+        if (isRootResourceClass(annotatedType)) {
+          this.potentialResourceClasses.add(javaClass);
+          if (isAbstract(javaClass)) {
+            this.abstractCandidatesDiscovered = true;
+          }
+        } else if (isResourceClass(annotatedType)) {
+          // A resource class that is not a root resource class,
+          // i.e. one that is (presumably) returned by a sub-resource
+          // locator.  It is not part of any Application.
+          this.potentialSubResourceClasses.add(javaClass);
+        } else {
+          return;
+        }
+        if (logger.isLoggable(Level.WARNING)) {
+          // Dispatching changes which request context a method sees,
+          // so it is never applied implicitly; catch @Dispatched
+          // where it can have no effect.
+          for (final AnnotatedMethod<? super T> method : annotatedType.getMethods()) {
+            if (method.isAnnotationPresent(Dispatched.class) && !isAsynchronousResourceMethod(method)) {
+              logger.logp(Level.WARNING, JaxRsExtension.class.getName(), "discoverResourceClasses",
+                          method.getJavaMember() + " is annotated with @Dispatched but is not a resource method" +
+                          " that returns a CompletionStage; it will be invoked normally");
+            }
+          }
+        }
+        if (this.resourceMethodMetrics != null) {
+          event.configureAnnotatedType().add(Metered.Literal.INSTANCE);
+        }
       }
     }
   }
@@ -125,9 +735,86 @@ public class JaxRsExtension implements Extension {
     if (annotatedType != null) {
       final Class<T> javaClass = annotatedType.getJavaClass();
       if (javaClass != null) {
+        this.discovered(javaClass);
         this.potentialProviderClasses.add(javaClass);
+        if (isAbstract(javaClass)) {
+          this.abstractCandidatesDiscovered = true;
+        }
+      }
+    }
+  }
+
+  private final <T extends Application> void discoverApplicationClasses(@Observes
+                                                                        final ProcessAnnotatedType<T> event) {
+    Objects.requireNonNull(event);
+    final AnnotatedType<T> annotatedType = event.getAnnotatedType();
+    if (annotatedType != null) {
+      final Class<T> javaClass = annotatedType.getJavaClass();
+      if (javaClass != null) {
+        this.discovered(javaClass);
+        this.potentialApplicationClasses.add(javaClass);
+      }
+    }
+  }
+
+  private final void discovered(final Class<?> c) {
+    final Set<String> discoveredClassNames = this.discoveredClassNames;
+    if (discoveredClassNames != null) {
+      discoveredClassNames.add(c.getName());
+    }
+  }
+
+  private final void afterTypeDiscovery(@Observes
+                                        final AfterTypeDiscovery event) {
+    Objects.requireNonNull(event);
+    this.addIndexedClasses(event);
+    final long now = System.nanoTime();
+    this.nanos[BootReport.Phase.TYPE_DISCOVERY.ordinal()] = now - this.phaseStart;
+    this.classCounts[BootReport.Phase.TYPE_DISCOVERY.ordinal()] =
+      this.potentialResourceClasses.size() +
+      this.potentialSubResourceClasses.size() +
+      this.potentialProviderClasses.size() +
+      this.potentialApplicationClasses.size();
+    this.phaseStart = now;
+  }
+
+  private final void addIndexedClasses(final AfterTypeDiscovery event) {
+    final Set<String> discoveredClassNames = this.discoveredClassNames;
+    if (discoveredClassNames == null) {
+      return;
+    }
+    this.discoveredClassNames = null;
+    final JaxRsIndex index = this.index;
+    final Set<String> classNames = new HashSet<>(index.getResourceClassNames());
+    classNames.addAll(index.getProviderClassNames());
+    classNames.addAll(index.getApplicationClassNames());
+    classNames.removeAll(discoveredClassNames);
+    int count = 0;
+    for (final String className : classNames) {
+      Class<?> c;
+      try {
+        c = Class.forName(className, false, this.indexClassLoader);
+      } catch (final ClassNotFoundException | LinkageError notLoadable) {
+        c = null;
+      }
+      // Only add a class if it is still what it was indexed as.  Types
+      // added here are processed, and classified, like any other.
+      if (c != null &&
+          !isAbstract(c) &&
+          ((index.getResourceClassNames().contains(className) && c.isAnnotationPresent(Path.class)) ||
+           (index.getProviderClassNames().contains(className) && c.isAnnotationPresent(javax.ws.rs.ext.Provider.class)) ||
+           (index.getApplicationClassNames().contains(className) && Application.class.isAssignableFrom(c)))) {
+        event.addAnnotatedType(c, JaxRsIndex.class.getName() + ":" + className);
+        count++;
+      } else if (logger.isLoggable(Level.FINE)) {
+        logger.logp(Level.FINE, JaxRsExtension.class.getName(), "addIndexedClasses",
+                    "Skipping stale index entry " + className);
       }
     }
+    if (logger.isLoggable(Level.FINE)) {
+      logger.logp(Level.FINE, JaxRsExtension.class.getName(), "addIndexedClasses",
+                  "Added " + count + " indexed classes that type discovery did not find");
+    }
   }
 
   private final <T> void forAllBeanAttributes(@Observes
@@ -135,41 +822,43 @@ public class JaxRsExtension implements Extension {
     Objects.requireNonNull(event);
     final BeanAttributes<T> beanAttributes = event.getBeanAttributes();
     if (beanAttributes != null) {
-      final Set<Type> beanTypes = beanAttributes.getTypes();
-      if (beanTypes != null && !beanTypes.isEmpty()) {
-        for (final Type beanType : beanTypes) {
-          final Class<?> beanTypeClass;
-          if (beanType instanceof Class) {
-            beanTypeClass = (Class<?>)beanType;
-          } else if (beanType instanceof ParameterizedType) {
-            final Object rawBeanType = ((ParameterizedType)beanType).getRawType();
-            if (rawBeanType instanceof Class) {
-              beanTypeClass = (Class<?>) rawBeanType;
+      final Annotated annotated = event.getAnnotated();
+      if (annotated instanceof AnnotatedType && !this.abstractCandidatesDiscovered) {
+        // Fast path for managed beans.  Every candidate class was
+        // seen as an AnnotatedType earlier and is concrete, so it
+        // can only be claimed by the bean whose bean class it is.
+        // There is no need to examine any of this bean's other types.
+        final Class<?> beanClass = ((AnnotatedType<?>)annotated).getJavaClass();
+        if (beanClass != null) {
+          if (this.potentialApplicationClasses.contains(beanClass)) {
+            this.qualifiers.add(this.intern(beanAttributes.getQualifiers())); // yes, add the set as an element, not the set's elements
+          }
+          this.claim(event, beanAttributes, beanClass);
+        }
+      } else {
+        // Producers, and managed beans that might claim an abstract
+        // candidate class by way of one of their supertypes.
+        final Set<Type> beanTypes = beanAttributes.getTypes();
+        if (beanTypes != null && !beanTypes.isEmpty()) {
+          for (final Type beanType : beanTypes) {
+            final Class<?> beanTypeClass;
+            if (beanType instanceof Class) {
+              beanTypeClass = (Class<?>)beanType;
+            } else if (beanType instanceof ParameterizedType) {
+              final Object rawBeanType = ((ParameterizedType)beanType).getRawType();
+              if (rawBeanType instanceof Class) {
+                beanTypeClass = (Class<?>) rawBeanType;
+              } else {
+                beanTypeClass = null;
+              }
             } else {
               beanTypeClass = null;
             }
-          } else {
-            beanTypeClass = null;
-          }
-          if (beanTypeClass != null) {
-            if (Application.class.isAssignableFrom(beanTypeClass)) {
-              this.qualifiers.add(beanAttributes.getQualifiers()); // yes, add the set as an element, not the set's elements
-            }
-            
-            // Edge case: it could be an application whose methods are
-            // annotated with @Path, so it could still be a resource
-            // class.  That's why this isn't an else if.
-            if (this.potentialResourceClasses.remove(beanTypeClass)) {
-              // This bean has a beanType that we previously
-              // identified as a JAX-RS resource.
-              event.configureBeanAttributes().addQualifiers(ResourceClass.Literal.INSTANCE);
-              this.resourceBeans.put(beanTypeClass, beanAttributes);
-            }
-            
-            if (this.potentialProviderClasses.remove(beanTypeClass)) {
-              // This bean has a beanType that we previously
-              // identified as a Provider class.
-              this.providerBeans.put(beanTypeClass, beanAttributes);
+            if (beanTypeClass != null) {
+              if (Application.class.isAssignableFrom(beanTypeClass)) {
+                this.qualifiers.add(this.intern(beanAttributes.getQualifiers())); // yes, add the set as an element, not the set's elements
+              }
+              this.claim(event, beanAttributes, beanTypeClass);
             }
           }
         }
@@ -177,6 +866,48 @@ public class JaxRsExtension implements Extension {
     }
   }
 
+  private final <T> void claim(final ProcessBeanAttributes<T> event,
+                               final BeanAttributes<T> beanAttributes,
+                               final Class<?> beanTypeClass) {
+    // Edge case: it could be an application whose methods are
+    // annotated with @Path, so it could still be a resource
+    // class.  That's why the caller doesn't use else if.
+    if (this.potentialResourceClasses.remove(beanTypeClass)) {
+      // This bean has a beanType that we previously
+      // identified as a JAX-RS resource.
+      event.configureBeanAttributes().addQualifiers(ResourceClass.Literal.INSTANCE);
+      this.resourceBeans.put(beanTypeClass, beanAttributes);
+      this.getQualifierGroup(beanAttributes).resourceClasses.add(beanTypeClass);
+    }
+
+    if (this.potentialSubResourceClasses.remove(beanTypeClass)) {
+      // This bean has a beanType that we previously
+      // identified as a JAX-RS resource class that is not a
+      // root resource class.  Qualify it so it can be found,
+      // but don't hand it to any Application.
+      event.configureBeanAttributes().addQualifiers(ResourceClass.Literal.INSTANCE);
+    }
+
+    if (this.potentialProviderClasses.remove(beanTypeClass)) {
+      // This bean has a beanType that we previously
+      // identified as a Provider class.
+      this.providerBeans.put(beanTypeClass, beanAttributes);
+      this.getQualifierGroup(beanAttributes).providerClasses.add(beanTypeClass);
+    }
+  }
+
+  private final QualifierGroup getQualifierGroup(final BeanAttributes<?> beanAttributes) {
+    // Take a copy of the qualifiers as declared; any
+    // configureBeanAttributes() changes (such as the addition of
+    // ResourceClass) are applied later, in place.
+    final Set<Annotation> qualifiers = this.intern(beanAttributes.getQualifiers());
+    QualifierGroup qualifierGroup = this.qualifierGroups.get(qualifiers);
+    if (qualifierGroup == null) {
+      qualifierGroup = this.qualifierGroups.computeIfAbsent(qualifiers, ignored -> new QualifierGroup());
+    }
+    return qualifierGroup;
+  }
+
   /**
    * Returns an {@linkplain Collections#unmodifiableSet(Set)
    * unmodifiable <code>Set</code>} of {@link Set}s of {@linkplain
@@ -199,75 +930,128 @@ public class JaxRsExtension implements Extension {
                                                       final BeanManager beanManager) {
     Objects.requireNonNull(event);
     Objects.requireNonNull(beanManager);
+    long now = System.nanoTime();
+    this.nanos[BootReport.Phase.BEAN_ATTRIBUTES.ordinal()] = now - this.phaseStart;
+    this.classCounts[BootReport.Phase.BEAN_ATTRIBUTES.ordinal()] = this.resourceBeans.size() + this.providerBeans.size();
+    this.phaseStart = now;
+
+    final Set<Class<?>> promotedClasses = this.promoteStatelessResources ? new HashSet<>() : null;
+    final Map<Class<?>, String> rejectedClasses = this.promoteStatelessResources ? new HashMap<>() : null;
     final Set<Bean<?>> applicationBeans = beanManager.getBeans(Application.class, Any.Literal.INSTANCE);
     if (applicationBeans != null && !applicationBeans.isEmpty()) {
-      for (final Bean<?> bean : applicationBeans) {
-        @SuppressWarnings("unchecked")
-        final Bean<Application> applicationBean = (Bean<Application>)bean;
-        final CreationalContext<Application> cc = beanManager.createCreationalContext(applicationBean);
-        final Class<? extends Annotation> applicationScope = applicationBean.getScope();
-        assert applicationScope != null;
-        final Context context = beanManager.getContext(applicationScope);        
-        assert context != null;
-        final AlterableContext alterableContext = context instanceof AlterableContext ? (AlterableContext)context : null;
-        Application application = null;                
-        try {
-          if (alterableContext == null) {
-            application = applicationBean.create(cc);
-          } else {
-            try {
-              application = alterableContext.get(applicationBean, cc);
-            } catch (final ContextNotActiveException ok) {
-              application = applicationBean.create(cc);
-            }
+      // Instantiating and analyzing each Application is independent
+      // of the others and so may happen in parallel.  Beans are only
+      // ever added to the AfterBeanDiscovery event on this thread.
+      for (final ApplicationAnalysis analysis : this.analyze(applicationBeans, beanManager)) {
+        final Set<Annotation> applicationQualifiers = analysis.applicationQualifiers;
+        final ApplicationPath applicationPath = analysis.applicationPath;
+        if (applicationPath != null) {
+          event.addBean()
+            .types(ApplicationPath.class)
+            .scope(Singleton.class)
+            .qualifiers(applicationQualifiers)
+            .createWith(ignored -> applicationPath);
+        }
+        final Set<Class<?>> classes = analysis.classes;
+        if (this.discoveredApplications != null) {
+          this.discoveredApplications.put(DiscoverySnapshot.getApplicationKey(applicationQualifiers, false), classes);
+        }
+        if (!classes.isEmpty()) {
+          this.classCounts[BootReport.Phase.APPLICATION_INSTANTIATION.ordinal()] += classes.size();
+          if (this.warmUpClasses != null) {
+            this.warmUpClasses.addAll(classes);
           }
-          if (application != null) {
-            final Set<Annotation> applicationQualifiers = applicationBean.getQualifiers();
-            final ApplicationPath applicationPath = application.getClass().getAnnotation(ApplicationPath.class);
-            if (applicationPath != null) {
-              event.addBean()
-                .types(ApplicationPath.class)
-                .scope(Singleton.class)
-                .qualifiers(applicationQualifiers)
-                .createWith(ignored -> applicationPath);
+          // The qualifiers of the beans that already existed and
+          // that this Application claimed; the beans added for its
+          // other classes bear its own qualifiers.
+          final Map<Class<?>, Set<Annotation>> claimedQualifiers = new HashMap<>();
+          for (final Class<?> cls : classes) {
+            if (analysis.singletonClasses.contains(cls)) {
+              // Handled below, together with the instance itself.
+              claimedQualifiers.put(cls, applicationQualifiers);
+              continue;
             }
-            final Set<Class<?>> classes = application.getClasses();
-            if (classes != null && !classes.isEmpty()) {
-              for (final Class<?> cls : classes) {
-                final Object resourceBean = this.resourceBeans.remove(cls);
-                final Object providerBean = this.providerBeans.remove(cls);
-                if (resourceBean == null && providerBean == null) {
-                  final BeanConfigurator<?> bc = event.addBean()
-                    .scope(Dependent.class) // by default; possibly overridden by read()
-                    .read(beanManager.createAnnotatedType(cls))
-                    .addQualifiers(applicationQualifiers)
-                    .addQualifiers(ResourceClass.Literal.INSTANCE);
+            final BeanAttributes<?> resourceBean = this.resourceBeans.remove(cls);
+            final BeanAttributes<?> providerBean = this.providerBeans.remove(cls);
+            if (resourceBean != null) {
+              claimedQualifiers.put(cls, resourceBean.getQualifiers());
+            } else if (providerBean != null) {
+              claimedQualifiers.put(cls, providerBean.getQualifiers());
+            } else {
+              final AnnotatedType<?> annotatedType = this.meter(beanManager.createAnnotatedType(cls));
+              final BeanConfigurator<?> bc = event.addBean()
+                .scope(Dependent.class) // by default; possibly overridden by read()
+                .read(annotatedType)
+                .addQualifiers(applicationQualifiers)
+                .addQualifiers(ResourceClass.Literal.INSTANCE);
+              if (this.directInstantiation) {
+                createDirectly(bc, annotatedType, beanManager, applicationQualifiers);
+              }
+              if (promotedClasses != null &&
+                  isResourceClass(annotatedType) &&
+                  beanManager.createBeanAttributes(annotatedType).getScope() == Dependent.class) {
+                final String reason = StatelessResourceAnalysis.getRejectionReason(annotatedType, beanManager);
+                if (reason == null) {
+                  bc.scope(Singleton.class);
+                  promotedClasses.add(cls);
+                } else {
+                  rejectedClasses.put(cls, reason);
                 }
               }
             }
-            // Deliberately don't try to deal with getSingletons().
           }
-        } finally {
-          try {
-            if (application != null) {
-              if (alterableContext == null) {
-                applicationBean.destroy(application, cc);
-              } else {
-                try {
-                  alterableContext.destroy(applicationBean);
-                } catch (final UnsupportedOperationException ok) {
-                    
-                }
-              }
+          this.claimedQualifiers.put(withoutAny(applicationQualifiers), this.copyQualifiers(claimedQualifiers));
+          if (this.lazyApplications != null) {
+            this.addLazyApplication(event, beanManager, classes, applicationQualifiers, claimedQualifiers);
+          } else {
+            if (analysis.routeTable != null) {
+              addSingleton(event, RouteTable.class, analysis.routeTable, applicationQualifiers);
+            }
+            if (analysis.providerTable != null) {
+              addSingleton(event, ProviderTable.class, analysis.providerTable, applicationQualifiers);
+            }
+            if (analysis.resourceMethodInvokers != null) {
+              addSingleton(event, ResourceMethodInvokers.class, analysis.resourceMethodInvokers, applicationQualifiers);
+            }
+            if (this.resolvedBeans) {
+              this.addResolvedBeans(event, classes, applicationQualifiers, claimedQualifiers);
             }
-          } finally {
-            cc.release();
           }
         }
+        final ApplicationSnapshot snapshot = analysis.snapshot;
+        if (snapshot != null) {
+          final Set<Object> singletons = snapshot.getSingletons();
+          assert singletons != null;
+          for (final Object singleton : singletons) {
+            final Class<?> cls = singleton.getClass();
+            this.resourceBeans.remove(cls);
+            this.providerBeans.remove(cls);
+            // The instance is owned by the Application, so it is
+            // never injected or destroyed by CDI.  The class may
+            // also have been discovered as an ordinary bean; the
+            // instance is therefore an enabled alternative so that
+            // it, and not a second, CDI-created instance, is what
+            // gets resolved.
+            event.addBean(new SingletonBean(beanManager.createBeanAttributes(beanManager.createAnnotatedType(cls)),
+                                            applicationQualifiers,
+                                            singleton));
+          }
+          event.addBean()
+            .types(ApplicationSnapshot.class, Object.class)
+            .scope(Singleton.class)
+            .qualifiers(applicationQualifiers)
+            .createWith(ignored -> snapshot);
+        }
+        // Unless we're taking snapshots, deliberately don't try
+        // to deal with getSingletons().
       }
     }
-      
-    // Any potentialResourceClasses left over here are annotated
+
+    now = System.nanoTime();
+    this.nanos[BootReport.Phase.APPLICATION_INSTANTIATION.ordinal()] = now - this.phaseStart;
+    this.phaseStart = now;
+
+    // Any potentialResourceClasses left over here are annotated
     // types we discovered, but for whatever reason were not made
     // into beans.  Maybe they were vetoed.
     this.potentialResourceClasses.clear();
@@ -276,92 +1060,782 @@ public class JaxRsExtension implements Extension {
     // types we discovered, but for whatever reason were not made
     // into beans.  Maybe they were vetoed.
     this.potentialProviderClasses.clear();
+    this.potentialSubResourceClasses.clear();
+    this.potentialApplicationClasses.clear();
+
+    // We're done with the build-time index, if there was one.
+    this.index = JaxRsIndex.EMPTY;
+    this.indexClassLoader = null;
       
     // OK, when we get here, if there are any resource beans left
     // lying around they went "unclaimed".  Build a synthetic
     // Application for them.
     if (!this.resourceBeans.isEmpty()) {
-      final Set<Entry<Class<?>, BeanAttributes<?>>> resourceBeansEntrySet = this.resourceBeans.entrySet();
-      assert resourceBeansEntrySet != null;
-      assert !resourceBeansEntrySet.isEmpty();
-      final Map<Set<Annotation>, Set<Class<?>>> resourceClassesByQualifiers = new HashMap<>();
-      for (final Entry<Class<?>, BeanAttributes<?>> entry : resourceBeansEntrySet) {
-        assert entry != null;
-        final Set<Annotation> qualifiers = entry.getValue().getQualifiers();
-        Set<Class<?>> resourceClasses = resourceClassesByQualifiers.get(qualifiers);
-        if (resourceClasses == null) {
-          resourceClasses = new HashSet<>();
-          resourceClassesByQualifiers.put(qualifiers, resourceClasses);
-        }
-        resourceClasses.add(entry.getKey());
-      }
-
-      final Set<Entry<Set<Annotation>, Set<Class<?>>>> entrySet = resourceClassesByQualifiers.entrySet();
-      assert entrySet != null;
-      assert !entrySet.isEmpty();
-      for (final Entry<Set<Annotation>, Set<Class<?>>> entry : entrySet) {
-        assert entry != null;
-        final Set<Annotation> resourceBeanQualifiers = entry.getKey();
-        final Set<Class<?>> resourceClasses = entry.getValue();
-        assert resourceClasses != null;
-        assert !resourceClasses.isEmpty();
-        final Set<Class<?>> allClasses;
-        if (this.providerBeans.isEmpty()) {
-          allClasses = resourceClasses;
-        } else {
-          allClasses = new HashSet<>(resourceClasses);
-          final Set<Entry<Class<?>, BeanAttributes<?>>> providerBeansEntrySet = this.providerBeans.entrySet();
-          assert providerBeansEntrySet != null;
-          assert !providerBeansEntrySet.isEmpty();
-          final Iterator<Entry<Class<?>, BeanAttributes<?>>> providerBeansIterator = providerBeansEntrySet.iterator();
-          assert providerBeansIterator != null;
-          while (providerBeansIterator.hasNext()) {
-            final Entry<Class<?>, BeanAttributes<?>> providerBeansEntry = providerBeansIterator.next();
-            assert providerBeansEntry != null;
-            final Set<Annotation> providerBeanQualifiers = providerBeansEntry.getValue().getQualifiers();
-            boolean match = false;
-            if (resourceBeanQualifiers == null) {
-              if (providerBeanQualifiers == null) {
-                match = true;
-              }
-            } else if (resourceBeanQualifiers.equals(providerBeanQualifiers)) {
-              match = true;
-            }
-            if (match) {
-              allClasses.add(providerBeansEntry.getKey());
-              providerBeansIterator.remove();
-            }              
+      // Resource and provider beans were grouped by their declared,
+      // interned qualifiers as they were claimed, so each group need
+      // only be visited once.  Skip classes that an Application has
+      // since claimed.
+      final Set<Class<?>> assignedProviderClasses = new HashSet<>();
+      for (final Entry<Set<Annotation>, QualifierGroup> entry : this.qualifierGroups.entrySet()) {
+        final Set<Annotation> resourceQualifiers = entry.getKey();
+        assert resourceQualifiers != null;
+        assert !resourceQualifiers.isEmpty();
+        final QualifierGroup qualifierGroup = entry.getValue();
+        final Set<Class<?>> allClasses = new HashSet<>();
+        for (final Class<?> resourceClass : qualifierGroup.resourceClasses) {
+          if (this.resourceBeans.containsKey(resourceClass)) {
+            allClasses.add(resourceClass);
+          }
+        }
+        if (allClasses.isEmpty()) {
+          continue;
+        }
+        for (final Class<?> providerClass : qualifierGroup.providerClasses) {
+          if (this.providerBeans.containsKey(providerClass)) {
+            assignedProviderClasses.add(providerClass);
+            allClasses.add(providerClass);
           }
         }
-        assert resourceBeanQualifiers != null;
-        assert !resourceBeanQualifiers.isEmpty();
-        final Set<Annotation> syntheticApplicationQualifiers = new HashSet<>(resourceBeanQualifiers);
-        syntheticApplicationQualifiers.remove(ResourceClass.Literal.INSTANCE);
+        final Set<Class<?>> syntheticApplicationClasses = ImmutableArraySet.of(allClasses);
+        // Every class of a synthetic Application is a claimed bean
+        // with the same declared qualifiers.
+        final Map<Class<?>, Set<Annotation>> claimedQualifiers = new HashMap<>();
+        for (final Class<?> c : syntheticApplicationClasses) {
+          claimedQualifiers.put(c, resourceQualifiers);
+        }
+        // An Application may already bear the same qualifiers as the
+        // resources it did not claim, so the synthetic Application
+        // and the beans derived from it are told apart by @Synthetic.
+        final Set<Annotation> qualifiers = new HashSet<>(resourceQualifiers);
+        qualifiers.add(Synthetic.Literal.INSTANCE);
+        final Set<Annotation> syntheticApplicationQualifiers = this.intern(qualifiers);
 
+        this.classCounts[BootReport.Phase.SYNTHETIC_APPLICATIONS.ordinal()] += allClasses.size();
+        if (this.warmUpClasses != null) {
+          this.warmUpClasses.addAll(allClasses);
+        }
         event.addBean()
           .addTransitiveTypeClosure(SyntheticApplication.class)
           .scope(Singleton.class)
           .addQualifiers(syntheticApplicationQualifiers)
-          .createWith(cc -> new SyntheticApplication(allClasses));
+          .createWith(cc -> new SyntheticApplication(syntheticApplicationClasses));
+        if (this.discoveredApplications != null) {
+          this.discoveredApplications.put(DiscoverySnapshot.getApplicationKey(resourceQualifiers, true),
+                                          syntheticApplicationClasses);
+        }
+        this.claimedQualifiers.put(withoutAny(syntheticApplicationQualifiers), this.copyQualifiers(claimedQualifiers));
+        if (this.lazyApplications != null) {
+          this.addLazyApplication(event, beanManager, syntheticApplicationClasses, syntheticApplicationQualifiers, claimedQualifiers);
+        } else {
+          final DerivedState derivedState = this.derive(syntheticApplicationClasses);
+          if (derivedState.routeTable != null) {
+            addSingleton(event, RouteTable.class, derivedState.routeTable, syntheticApplicationQualifiers);
+          }
+          if (derivedState.providerTable != null) {
+            addSingleton(event, ProviderTable.class, derivedState.providerTable, syntheticApplicationQualifiers);
+          }
+          if (derivedState.resourceMethodInvokers != null) {
+            addSingleton(event, ResourceMethodInvokers.class, derivedState.resourceMethodInvokers, syntheticApplicationQualifiers);
+          }
+          if (this.resolvedBeans) {
+            this.addResolvedBeans(event, syntheticApplicationClasses, syntheticApplicationQualifiers, claimedQualifiers);
+          }
+        }
         this.qualifiers.add(syntheticApplicationQualifiers);
       }
+      this.providerBeans.keySet().removeAll(assignedProviderClasses);
       this.resourceBeans.clear();
     }
 
-    if (!this.providerBeans.isEmpty()) {
-      // TODO: we found some provider class beans but never associated
-      // them with any application.  This would only happen if they
-      // were not qualified with qualifiers that also qualified
-      // unclaimed resource beans.  That would be odd.  Either we
-      // should throw a deployment error or just ignore them.
+    // Any provider beans left over here belong to no Application:
+    // no Application returned them, and no unclaimed resource bean
+    // shares their qualifiers.  They are not an error, but they are
+    // probably not what was intended, so report them.
+    final Set<Class<?>> orphanedProviderClasses = ImmutableArraySet.of(this.providerBeans.keySet());
+    if (!orphanedProviderClasses.isEmpty() && logger.isLoggable(Level.INFO)) {
+      logger.logp(Level.INFO, JaxRsExtension.class.getName(), "afterNonSyntheticBeansAreEnabled",
+                  "Provider classes not assigned to any Application: " + orphanedProviderClasses);
     }
     this.providerBeans.clear();
+    this.qualifierGroups.clear();
+
+    this.nanos[BootReport.Phase.SYNTHETIC_APPLICATIONS.ordinal()] = System.nanoTime() - this.phaseStart;
+    final BootReport bootReport = new BootReport(this.classCounts, this.nanos, orphanedProviderClasses);
+    if (logger.isLoggable(Level.FINE)) {
+      logger.logp(Level.FINE, JaxRsExtension.class.getName(), "afterNonSyntheticBeansAreEnabled", bootReport.toString());
+    }
+    event.addBean()
+      .types(BootReport.class, Object.class)
+      .scope(Singleton.class)
+      .createWith(ignored -> bootReport);
+
+    if (this.discoverySnapshotPath != null) {
+      final RedeployReport redeployReport = this.recordDiscoverySnapshot();
+      event.addBean()
+        .types(RedeployReport.class, Object.class)
+        .scope(Singleton.class)
+        .createWith(ignored -> redeployReport);
+    }
+
+    final LazyApplicationReport lazyApplicationReport = this.lazyApplicationReport;
+    if (lazyApplicationReport != null) {
+      event.addBean()
+        .types(LazyApplicationReport.class, Object.class)
+        .scope(Singleton.class)
+        .createWith(ignored -> lazyApplicationReport);
+    }
+
+    final WarmUpReport warmUpReport = this.warmUpReport;
+    if (warmUpReport != null) {
+      event.addBean()
+        .types(WarmUpReport.class, Object.class)
+        .scope(Singleton.class)
+        .createWith(ignored -> warmUpReport);
+    }
+
+    final ResourceMethodMetrics resourceMethodMetrics = this.resourceMethodMetrics;
+    if (resourceMethodMetrics != null) {
+      event.addBean()
+        .types(ResourceMethodMetrics.class, Object.class)
+        .scope(Singleton.class)
+        .createWith(ignored -> resourceMethodMetrics);
+    }
+
+    final ResponseCache responseCache = this.responseCache;
+    if (responseCache != null) {
+      event.addBean()
+        .types(ResponseCache.class, Object.class)
+        .scope(Singleton.class)
+        .createWith(ignored -> responseCache);
+    }
+
+    if (promotedClasses != null) {
+      final SingletonPromotionReport singletonPromotionReport =
+        new SingletonPromotionReport(promotedClasses, rejectedClasses);
+      if (logger.isLoggable(Level.FINE)) {
+        logger.logp(Level.FINE, JaxRsExtension.class.getName(), "afterNonSyntheticBeansAreEnabled",
+                    singletonPromotionReport.toString());
+      }
+      event.addBean()
+        .types(SingletonPromotionReport.class, Object.class)
+        .scope(Singleton.class)
+        .createWith(ignored -> singletonPromotionReport);
+    }
+  }
+
+  private final DerivedState derive(final Set<Class<?>> classes) {
+    final DerivedState previous;
+    if (this.derivedStates == null) {
+      previous = null;
+    } else {
+      final Map<Set<Class<?>>, DerivedState> previousDerivedStates = JaxRsExtension.previousDerivedStates.get().get();
+      previous = previousDerivedStates == null ? null : previousDerivedStates.get(classes);
+    }
+    final DerivedState derivedState = new DerivedState(this, previous, classes);
+    if (this.derivedStates != null) {
+      if (previous != null && (this.routeTables || this.providerTables || this.resourceMethodInvokers)) {
+        this.reusedDerivedStateCount.incrementAndGet();
+      }
+      this.derivedStates.put(classes, derivedState);
+    }
+    return derivedState;
+  }
+
+  private final RedeployReport recordDiscoverySnapshot() {
+    DiscoverySnapshot previous;
+    try {
+      previous = DiscoverySnapshot.read(this.discoverySnapshotPath);
+    } catch (final IOException | IllegalArgumentException exception) {
+      if (logger.isLoggable(Level.WARNING)) {
+        logger.logp(Level.WARNING, JaxRsExtension.class.getName(), "recordDiscoverySnapshot",
+                    "Could not read " + this.discoverySnapshotPath, exception);
+      }
+      previous = DiscoverySnapshot.EMPTY;
+    }
+    final DiscoverySnapshot current = DiscoverySnapshot.of(this.discoveredApplications);
+    try {
+      current.write(this.discoverySnapshotPath);
+    } catch (final IOException ioException) {
+      if (logger.isLoggable(Level.WARNING)) {
+        logger.logp(Level.WARNING, JaxRsExtension.class.getName(), "recordDiscoverySnapshot",
+                    "Could not write " + this.discoverySnapshotPath, ioException);
+      }
+    }
+    previousDerivedStates.set(new SoftReference<>(this.derivedStates));
+    final RedeployReport redeployReport = new RedeployReport(previous, current, this.reusedDerivedStateCount.get());
+    if (logger.isLoggable(Level.FINE)) {
+      logger.logp(Level.FINE, JaxRsExtension.class.getName(), "recordDiscoverySnapshot", redeployReport.toString());
+    }
+    this.discoveredApplications = null;
+    this.derivedStates = null;
+    this.reusedDerivedStateCount = null;
+    return redeployReport;
+  }
+
+  private final List<ApplicationAnalysis> analyze(final Collection<? extends Bean<?>> applicationBeans,
+                                                  final BeanManager beanManager) {
+    if (!this.parallelApplicationAnalysis || applicationBeans.size() < 2) {
+      final List<ApplicationAnalysis> returnValue = new ArrayList<>(applicationBeans.size());
+      for (final Bean<?> applicationBean : applicationBeans) {
+        final ApplicationAnalysis analysis = this.analyze(applicationBean, beanManager);
+        if (analysis != null) {
+          returnValue.add(analysis);
+        }
+      }
+      return returnValue;
+    }
+    // Application constructors may reasonably expect to run with
+    // the same context classloader as the container.
+    final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+    return applicationBeans.parallelStream()
+      .map(applicationBean -> {
+          final Thread currentThread = Thread.currentThread();
+          final ClassLoader old = currentThread.getContextClassLoader();
+          currentThread.setContextClassLoader(contextClassLoader);
+          try {
+            return this.analyze(applicationBean, beanManager);
+          } finally {
+            currentThread.setContextClassLoader(old);
+          }
+        })
+      .filter(Objects::nonNull)
+      .collect(Collectors.toList());
+  }
+
+  private final ApplicationAnalysis analyze(final Bean<?> bean, final BeanManager beanManager) {
+    @SuppressWarnings("unchecked")
+    final Bean<Application> applicationBean = (Bean<Application>)bean;
+    final CreationalContext<Application> cc = beanManager.createCreationalContext(applicationBean);
+    final Class<? extends Annotation> applicationScope = applicationBean.getScope();
+    assert applicationScope != null;
+    final Context context = beanManager.getContext(applicationScope);
+    assert context != null;
+    final AlterableContext alterableContext = context instanceof AlterableContext ? (AlterableContext)context : null;
+    Application application = null;
+    try {
+      if (alterableContext == null) {
+        application = applicationBean.create(cc);
+      } else {
+        try {
+          application = alterableContext.get(applicationBean, cc);
+        } catch (final ContextNotActiveException ok) {
+          application = applicationBean.create(cc);
+        }
+      }
+      return application == null ? null : new ApplicationAnalysis(applicationBean.getQualifiers(), application);
+    } finally {
+      try {
+        if (application != null) {
+          if (alterableContext == null) {
+            applicationBean.destroy(application, cc);
+          } else {
+            try {
+              alterableContext.destroy(applicationBean);
+            } catch (final UnsupportedOperationException ok) {
+
+            }
+          }
+        }
+      } finally {
+        cc.release();
+      }
+    }
+  }
+
+  private static final <T> void createDirectly(final BeanConfigurator<?> beanConfigurator,
+                                              final AnnotatedType<T> annotatedType,
+                                              final BeanManager beanManager,
+                                              final Set<Annotation> applicationQualifiers) {
+    final Set<Annotation> qualifiers = new HashSet<>(applicationQualifiers);
+    qualifiers.add(ResourceClass.Literal.INSTANCE);
+    qualifiers.add(Any.Literal.INSTANCE);
+    final Supplier<T> supplier =
+      DirectInstantiation.supplierFor(annotatedType, beanManager, qualifiers.toArray(new Annotation[qualifiers.size()]));
+    if (supplier != null) {
+      // read(annotatedType) configured this BeanConfigurator for T.
+      @SuppressWarnings("unchecked")
+      final BeanConfigurator<T> bc = (BeanConfigurator<T>)beanConfigurator;
+      bc.createWith(ignored -> supplier.get());
+    }
+  }
+
+  private static final <T> void addSingleton(final AfterBeanDiscovery event,
+                                             final Class<T> type,
+                                             final T instance,
+                                             final Set<Annotation> qualifiers) {
+    event.addBean()
+      .types(type)
+      .scope(Singleton.class)
+      .qualifiers(qualifiers)
+      .createWith(ignored -> instance);
+  }
+
+  private final void addResolvedBeans(final AfterBeanDiscovery event,
+                                      final Set<Class<?>> classes,
+                                      final Set<Annotation> applicationQualifiers,
+                                      final Map<Class<?>, Set<Annotation>> claimedQualifiers) {
+    final ResolvedBeans resolvedBeans = new ResolvedBeans();
+    // Beans can only be resolved reliably once all of them, including
+    // the synthetic ones we are adding now, are known.
+    final Set<Class<?>> classesCopy = ImmutableArraySet.of(classes);
+    final Set<Annotation> qualifiersCopy = this.intern(getResourceQualifiers(applicationQualifiers));
+    final Map<Class<?>, Set<Annotation>> claimedQualifiersCopy = this.copyQualifiers(claimedQualifiers);
+    this.unresolvedBeans.add(beanManager -> resolvedBeans.resolve(beanManager, classesCopy, qualifiersCopy, claimedQualifiersCopy));
+    event.addBean()
+      .types(ResolvedBeans.class)
+      .scope(Singleton.class)
+      .qualifiers(applicationQualifiers)
+      .createWith(ignored -> resolvedBeans);
+  }
+
+  private final Map<Class<?>, Set<Annotation>> copyQualifiers(final Map<Class<?>, Set<Annotation>> qualifiers) {
+    final Map<Class<?>, Set<Annotation>> returnValue = new HashMap<>();
+    for (final Entry<Class<?>, Set<Annotation>> entry : qualifiers.entrySet()) {
+      returnValue.put(entry.getKey(), this.intern(entry.getValue()));
+    }
+    return Collections.unmodifiableMap(returnValue);
+  }
+
+  private final void addLazyApplication(final AfterBeanDiscovery event,
+                                        final BeanManager beanManager,
+                                        final Set<Class<?>> classes,
+                                        final Set<Annotation> applicationQualifiers,
+                                        final Map<Class<?>, Set<Annotation>> claimedQualifiers) {
+    final LazyApplication lazyApplication =
+      new LazyApplication(classes, this.intern(applicationQualifiers), this.resolvedBeans ? this.copyQualifiers(claimedQualifiers) : null);
+    this.lazyApplications.put(lazyApplication.qualifiers, lazyApplication);
+    this.lazyApplicationReport.deferred(classes.size());
+    // Each of these beans is a placeholder until it is first looked
+    // up, at which point the whole Application is activated.
+    if (this.routeTables) {
+      event.addBean()
+        .types(RouteTable.class)
+        .scope(Singleton.class)
+        .qualifiers(applicationQualifiers)
+        .createWith(ignored -> lazyApplication.activate(beanManager).routeTable);
+    }
+    if (this.providerTables) {
+      event.addBean()
+        .types(ProviderTable.class)
+        .scope(Singleton.class)
+        .qualifiers(applicationQualifiers)
+        .createWith(ignored -> lazyApplication.activate(beanManager).providerTable);
+    }
+    if (this.resourceMethodInvokers) {
+      event.addBean()
+        .types(ResourceMethodInvokers.class)
+        .scope(Singleton.class)
+        .qualifiers(applicationQualifiers)
+        .createWith(ignored -> lazyApplication.activate(beanManager).resourceMethodInvokers);
+    }
+    if (this.resolvedBeans) {
+      event.addBean()
+        .types(ResolvedBeans.class)
+        .scope(Singleton.class)
+        .qualifiers(applicationQualifiers)
+        .createWith(ignored -> {
+            lazyApplication.activate(beanManager);
+            return lazyApplication.resolvedBeans;
+          });
+    }
+  }
+
+  /**
+   * Activates the {@link Application} with the supplied qualifiers
+   * if its derived state was {@linkplain
+   * #LAZY_APPLICATIONS_PROPERTY_NAME deferred} and it has not been
+   * activated yet.
+   *
+   * @param beanManager the {@link BeanManager} of the started
+   * container; must not be {@code null}
+   *
+   * @param applicationQualifiers the {@link Application}'s
+   * qualifiers; must not be {@code null}
+   *
+   * @return the {@link Application}'s {@link DerivedState}, whether
+   * or not this call activated it, or {@code null} if its derived
+   * state was not deferred
+   *
+   * @see #LAZY_APPLICATIONS_PROPERTY_NAME
+   */
+  final DerivedState activate(final BeanManager beanManager, final Set<Annotation> applicationQualifiers) {
+    final Map<Set<Annotation>, LazyApplication> lazyApplications = this.lazyApplications;
+    final LazyApplication lazyApplication = lazyApplications == null ? null : lazyApplications.get(applicationQualifiers);
+    return lazyApplication == null ? null : lazyApplication.activate(beanManager);
+  }
+
+  /**
+   * Returns {@code true} if the derived state of the {@link
+   * Application} with the supplied qualifiers was {@linkplain
+   * #LAZY_APPLICATIONS_PROPERTY_NAME deferred}.
+   *
+   * @param applicationQualifiers the {@link Application}'s
+   * qualifiers; must not be {@code null}
+   *
+   * @return {@code true} if the {@link Application}'s derived state
+   * was deferred
+   */
+  final boolean isLazy(final Set<Annotation> applicationQualifiers) {
+    final Map<Set<Annotation>, LazyApplication> lazyApplications = this.lazyApplications;
+    return lazyApplications != null && lazyApplications.containsKey(applicationQualifiers);
+  }
+
+  /**
+   * Returns the declared qualifiers of the beans that already existed
+   * when the {@link Application} with the supplied qualifiers claimed
+   * them, indexed by class.
+   *
+   * <p>The beans added for the {@link Application}'s other classes
+   * bear the {@link Application}'s own qualifiers instead.</p>
+   *
+   * @param applicationQualifiers the qualifiers of an {@link
+   * Application}; must not be {@code null}
+   *
+   * @return an unmodifiable {@link Map}; never {@code null}
+   *
+   * @see ResolvedBeans
+   */
+  final Map<Class<?>, Set<Annotation>> getClaimedQualifiers(final Set<Annotation> applicationQualifiers) {
+    final Map<Class<?>, Set<Annotation>> claimedQualifiers = this.claimedQualifiers.get(withoutAny(applicationQualifiers));
+    return claimedQualifiers == null ? Collections.emptyMap() : claimedQualifiers;
+  }
+
+  private static final Set<Annotation> withoutAny(final Set<Annotation> qualifiers) {
+    final Set<Annotation> returnValue = new HashSet<>(qualifiers);
+    returnValue.remove(Any.Literal.INSTANCE);
+    return returnValue;
+  }
+
+  /**
+   * Returns an immutable {@link Set} of the {@link Application} beans,
+   * including any {@link SyntheticApplication} beans, that this
+   * {@link JaxRsExtension} has processed.
+   *
+   * <p>This method never returns {@code null}.  It returns an empty
+   * {@link Set} until the container has been validated.</p>
+   *
+   * @return a non-{@code null}, immutable {@link Set} of {@link
+   * Application} beans
+   */
+  final Set<Bean<?>> getApplicationBeans() {
+    final Set<Bean<?>> applicationBeans = this.applicationBeans;
+    return applicationBeans == null ? Collections.emptySet() : applicationBeans;
+  }
+
+  private final void afterDeploymentIsValidated(@Observes
+                                                final AfterDeploymentValidation event,
+                                                final BeanManager beanManager) {
+    Objects.requireNonNull(event);
+    Objects.requireNonNull(beanManager);
+    for (final Consumer<BeanManager> unresolvedBeans : this.unresolvedBeans) {
+      unresolvedBeans.accept(beanManager);
+    }
+
+    // Every Application bean, including the synthetic ones, is known
+    // by now.
+    this.applicationBeans = ImmutableArraySet.of(beanManager.getBeans(Application.class, Any.Literal.INSTANCE));
+
+    // This extension lives as long as the container does, so drop
+    // everything but the qualifiers, and compact those.
+    this.qualifiers = ImmutableArraySet.of(this.qualifiers);
+    if (this.lazyApplications != null) {
+      this.lazyApplications = Collections.unmodifiableMap(this.lazyApplications);
+    }
+    this.potentialResourceClasses = null;
+    this.potentialProviderClasses = null;
+    this.potentialSubResourceClasses = null;
+    this.potentialApplicationClasses = null;
+    this.resourceBeans = null;
+    this.providerBeans = null;
+    this.qualifierGroups = null;
+    this.internedQualifiers = null;
+    this.unresolvedBeans = null;
+
+    if (this.resourceMethodMetricsJmx) {
+      try {
+        final ObjectName objectName = new ObjectName("org.microbean.jaxrs.cdi:type=ResourceMethodMetrics");
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this.resourceMethodMetrics, objectName);
+        this.resourceMethodMetricsObjectName = objectName;
+      } catch (final JMException jmException) {
+        // Most likely another container in this JVM got there first.
+        // Metrics remain available from the bean.
+        if (logger.isLoggable(Level.WARNING)) {
+          logger.logp(Level.WARNING, JaxRsExtension.class.getName(), "afterDeploymentIsValidated",
+                      jmException.getMessage(), jmException);
+        }
+      }
+    }
+  }
+
+  private final void warmUp(@Observes
+                            @Initialized(ApplicationScoped.class)
+                            final Object event,
+                            final BeanManager beanManager) {
+    Objects.requireNonNull(beanManager);
+    final Set<Class<?>> warmUpClasses = this.warmUpClasses;
+    if (warmUpClasses == null) {
+      return;
+    }
+    this.warmUpClasses = null;
+    final long start = System.nanoTime();
+    int beanCount = 0;
+    int failureCount = 0;
+    long invocationCount = 0L;
+    final Set<Bean<?>> beans = new HashSet<>();
+    for (final Class<?> warmUpClass : warmUpClasses) {
+      for (final Bean<?> bean : beanManager.getBeans(warmUpClass, Any.Literal.INSTANCE)) {
+        if (bean.getScope() != Dependent.class) {
+          beans.add(bean);
+        }
+      }
+    }
+    if (!beans.isEmpty()) {
+      final RequestContextActivator.Activation activation = new RequestContextActivator(beanManager).activate();
+      try {
+        for (final Bean<?> bean : beans) {
+          try {
+            // For normal-scoped beans this generates the client proxy
+            // class; calling toString() then creates the contextual
+            // instance behind it.
+            final Object reference = beanManager.getReference(bean, Object.class, beanManager.createCreationalContext(bean));
+            reference.toString();
+            for (int i = 0; i < this.warmUpIterations; i++) {
+              reference.toString();
+            }
+            invocationCount += this.warmUpIterations;
+            beanCount++;
+          } catch (final RuntimeException runtimeException) {
+            // The same failure will happen, and be reported, on first
+            // use; warm-up is only ever an optimization.
+            failureCount++;
+            if (logger.isLoggable(Level.WARNING)) {
+              logger.logp(Level.WARNING, JaxRsExtension.class.getName(), "warmUp",
+                          "Could not warm up " + bean, runtimeException);
+            }
+          }
+        }
+      } finally {
+        activation.close();
+      }
+    }
+    this.warmUpReport.complete(beanCount, failureCount, invocationCount, System.nanoTime() - start);
+    if (logger.isLoggable(Level.FINE)) {
+      logger.logp(Level.FINE, JaxRsExtension.class.getName(), "warmUp", this.warmUpReport.toString());
+    }
+  }
+
+  private final void startHttpServer(@Observes
+                                     @Initialized(ApplicationScoped.class)
+                                     final Object event,
+                                     final BeanManager beanManager) {
+    Objects.requireNonNull(beanManager);
+    if (this.httpServerPort == null) {
+      return;
+    }
+    final ThreadFactory threadFactory = new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public final Thread newThread(final Runnable runnable) {
+          final Thread thread = new Thread(runnable, "jaxrs-cdi-http-" + this.count.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        }
+      };
+    final ExecutorService executor =
+      this.httpServerThreads > 0 ? Executors.newFixedThreadPool(this.httpServerThreads, threadFactory) : Executors.newCachedThreadPool(threadFactory);
+    try {
+      this.httpServerBinding =
+        HttpServerBinding.start(beanManager, new InetSocketAddress(InetAddress.getLoopbackAddress(), this.httpServerPort), executor);
+    } catch (final IOException ioException) {
+      executor.shutdownNow();
+      throw new UncheckedIOException(ioException.getMessage(), ioException);
+    } catch (final RuntimeException runtimeException) {
+      executor.shutdownNow();
+      throw runtimeException;
+    }
+    this.httpServerExecutor = executor;
+    if (logger.isLoggable(Level.INFO)) {
+      logger.logp(Level.INFO, JaxRsExtension.class.getName(), "startHttpServer",
+                  "Serving " + this.httpServerBinding.getContextPaths() + " at " + this.httpServerBinding.getAddress());
+    }
+  }
+
+  /**
+   * Returns the {@link HttpServerBinding} started because of the
+   * {@link #HTTP_SERVER_PORT_PROPERTY_NAME} system property, or
+   * {@code null} if there is none.
+   *
+   * @return an {@link HttpServerBinding}, or {@code null}
+   *
+   * @see #HTTP_SERVER_PORT_PROPERTY_NAME
+   */
+  public final HttpServerBinding getHttpServerBinding() {
+    return this.httpServerBinding;
+  }
+
+  /**
+   * Returns the {@link ExecutorService} on which {@link Dispatched}
+   * methods run when there is no {@link DispatchExecutor}-qualified
+   * {@link java.util.concurrent.Executor} bean, creating it if
+   * necessary.
+   *
+   * <p>The {@link ExecutorService} is shut down when the container
+   * shuts down.</p>
+   *
+   * @return an {@link ExecutorService}; never {@code null}
+   *
+   * @exception IllegalStateException if the container has shut down
+   *
+   * @see DispatchInterceptor
+   */
+  final ExecutorService getDispatchExecutor() {
+    ExecutorService executor = this.dispatchExecutor;
+    if (executor == null) {
+      synchronized (this) {
+        if (this.dispatchExecutorShutDown) {
+          throw new IllegalStateException("shut down");
+        }
+        executor = this.dispatchExecutor;
+        if (executor == null) {
+          executor = Executors.newCachedThreadPool(new ThreadFactory() {
+              private final AtomicInteger count = new AtomicInteger();
+
+              @Override
+              public final Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(runnable, "jaxrs-cdi-dispatch-" + this.count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+              }
+            });
+          this.dispatchExecutor = executor;
+        }
+      }
+    }
+    return executor;
+  }
+
+  /**
+   * Returns the {@link DetachableRequestContext} of the container
+   * managed by the supplied {@link BeanManager}, or {@code null} if
+   * it does not provide one.
+   *
+   * @param beanManager the {@link BeanManager}; must not be {@code
+   * null}
+   *
+   * @return a {@link DetachableRequestContext}, or {@code null}
+   *
+   * @see DispatchInterceptor
+   */
+  final DetachableRequestContext getDetachableRequestContext(final BeanManager beanManager) {
+    if (!this.detachableRequestContextResolved) {
+      synchronized (this) {
+        if (!this.detachableRequestContextResolved) {
+          final DetachableRequestContext detachableRequestContext = DetachableRequestContext.of(beanManager);
+          if (detachableRequestContext == null && logger.isLoggable(Level.WARNING)) {
+            logger.logp(Level.WARNING, JaxRsExtension.class.getName(), "getDetachableRequestContext",
+                        "The container provides no request context that can outlive the thread that activated it; " +
+                        "request-scoped beans used by @Dispatched methods will be destroyed when those methods return");
+          }
+          this.detachableRequestContext = detachableRequestContext;
+          this.detachableRequestContextResolved = true;
+        }
+      }
+    }
+    return this.detachableRequestContext;
+  }
+
+  private final void beforeShutdown(@Observes
+                                    final BeforeShutdown event) {
+    Objects.requireNonNull(event);
+    final ExecutorService dispatchExecutor;
+    synchronized (this) {
+      this.dispatchExecutorShutDown = true;
+      dispatchExecutor = this.dispatchExecutor;
+      this.dispatchExecutor = null;
+    }
+    if (dispatchExecutor != null) {
+      dispatchExecutor.shutdown();
+    }
+    final HttpServerBinding httpServerBinding = this.httpServerBinding;
+    if (httpServerBinding != null) {
+      this.httpServerBinding = null;
+      httpServerBinding.close();
+    }
+    final ExecutorService httpServerExecutor = this.httpServerExecutor;
+    if (httpServerExecutor != null) {
+      this.httpServerExecutor = null;
+      httpServerExecutor.shutdownNow();
+    }
+    final ObjectName objectName = this.resourceMethodMetricsObjectName;
+    if (objectName != null) {
+      this.resourceMethodMetricsObjectName = null;
+      try {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+      } catch (final JMException jmException) {
+        if (logger.isLoggable(Level.WARNING)) {
+          logger.logp(Level.WARNING, JaxRsExtension.class.getName(), "beforeShutdown",
+                      jmException.getMessage(), jmException);
+        }
+      }
+    }
+  }
+
+  private final <T> AnnotatedType<T> meter(final AnnotatedType<T> annotatedType) {
+    if (this.resourceMethodMetrics == null || !isResourceClass(annotatedType)) {
+      return annotatedType;
+    }
+    return new AnnotatedTypeWithAnnotation<>(annotatedType, Metered.Literal.INSTANCE);
+  }
+
+  /**
+   * Returns the qualifiers borne by the resource and provider beans
+   * of the {@link Application} with the supplied qualifiers.
+   *
+   * <p>These are the {@link Application}'s own qualifiers, less any
+   * {@link Synthetic} qualifier.</p>
+   *
+   * @param applicationQualifiers the {@link Application}'s
+   * qualifiers; must not be {@code null}
+   *
+   * @return a non-{@code null} {@link Set} of qualifiers
+   */
+  static final Set<Annotation> getResourceQualifiers(final Set<Annotation> applicationQualifiers) {
+    if (!applicationQualifiers.contains(Synthetic.Literal.INSTANCE)) {
+      return applicationQualifiers;
+    }
+    final Set<Annotation> resourceQualifiers = new HashSet<>(applicationQualifiers);
+    resourceQualifiers.remove(Synthetic.Literal.INSTANCE);
+    return resourceQualifiers;
+  }
+
+  private final Set<Annotation> intern(final Set<Annotation> qualifiers) {
+    // Many beans share the same qualifiers; keep only one compact,
+    // immutable copy of each distinct set of them.
+    final Set<Annotation> compactQualifiers = ImmutableArraySet.of(qualifiers);
+    final Set<Annotation> prior = this.internedQualifiers.putIfAbsent(compactQualifiers, compactQualifiers);
+    return prior == null ? compactQualifiers : prior;
+  }
+
+  private static final boolean isAbstract(final Class<?> c) {
+    return c.isInterface() || Modifier.isAbstract(c.getModifiers());
   }
 
   private static final <T> boolean isRootResourceClass(final AnnotatedType<T> type) {
     return type != null && type.isAnnotationPresent(Path.class);
   }
 
+  private static final boolean isAsynchronousResourceMethod(final AnnotatedMethod<?> method) {
+    final Method javaMethod = method.getJavaMember();
+    if (!DispatchInterceptor.isDispatchable(javaMethod.getReturnType())) {
+      return false;
+    }
+    // The request method designator may be inherited from an
+    // overridden or implemented method.
+    final ResourceClassDescriptor.ResourceMethod resourceMethod = ResourceClassDescriptor.getResourceMethod(javaMethod);
+    return resourceMethod != null && !resourceMethod.isSubResourceLocator();
+  }
+
   private static final <T> boolean isResourceClass(final AnnotatedType<T> type) {
     // Section 3.1: "Resource classes are POJOs that have at least one
     // method annotated with @Path or a request method designator."
@@ -379,23 +1853,14 @@ public class JaxRsExtension implements Extension {
             if (annotations != null && !annotations.isEmpty()) {
               for (final Annotation annotation : annotations) {
                 if (annotation != null) {
-                  final Class<?> annotationType = annotation.annotationType();
-                  if (Path.class.isAssignableFrom(annotationType)) {
+                  final Class<? extends Annotation> annotationType = annotation.annotationType();
+                  // Whether an annotation type is meta-annotated with
+                  // @HttpMethod is cached per annotation type, so
+                  // this is cheap after the first time.
+                  if (Path.class.equals(annotationType) ||
+                      ResourceClassDescriptor.isRequestMethodDesignator(annotationType)) {
                     returnValue = true;
                     break METHOD_LOOP;
-                  } else {
-                    final Annotation[] metaAnnotations = annotationType.getAnnotations();
-                    if (metaAnnotations != null && metaAnnotations.length > 0) {
-                      for (final Annotation metaAnnotation : metaAnnotations) {
-                        if (metaAnnotation != null) {
-                          final Class<?> metaAnnotationType = metaAnnotation.annotationType();
-                          if (HttpMethod.class.isAssignableFrom(metaAnnotationType)) {
-                            returnValue = true;
-                            break METHOD_LOOP;
-                          }
-                        }
-                      }
-                    }
                   }
                 }
               }
@@ -407,6 +1872,314 @@ public class JaxRsExtension implements Extension {
     return returnValue;
   }
 
+  /**
+   * The resource and provider classes whose beans share a given
+   * (interned) set of qualifiers.
+   */
+  private static final class QualifierGroup {
+
+    private final Set<Class<?>> resourceClasses;
+
+    private final Set<Class<?>> providerClasses;
+
+    private QualifierGroup() {
+      super();
+      this.resourceClasses = ConcurrentHashMap.newKeySet();
+      this.providerClasses = ConcurrentHashMap.newKeySet();
+    }
+
+  }
+
+  /**
+   * A {@link Singleton}-scoped {@link Bean} whose instance is one of
+   * the {@linkplain Application#getSingletons() singletons} of an
+   * {@link Application}.
+   *
+   * <p>It is an alternative enabled by way of {@link Prioritized} so
+   * that it wins over any bean that was discovered for the same
+   * class.</p>
+   */
+  private static final class SingletonBean implements Bean<Object>, Prioritized {
+
+    private final BeanAttributes<?> beanAttributes;
+
+    private final Set<Annotation> qualifiers;
+
+    private final Object singleton;
+
+    private SingletonBean(final BeanAttributes<?> beanAttributes,
+                          final Set<Annotation> applicationQualifiers,
+                          final Object singleton) {
+      super();
+      this.beanAttributes = beanAttributes;
+      final Set<Annotation> qualifiers = new HashSet<>(applicationQualifiers);
+      qualifiers.add(Any.Literal.INSTANCE);
+      qualifiers.add(ResourceClass.Literal.INSTANCE);
+      this.qualifiers = Collections.unmodifiableSet(qualifiers);
+      this.singleton = singleton;
+    }
+
+    @Override
+    public final Class<?> getBeanClass() {
+      return this.singleton.getClass();
+    }
+
+    @Override
+    public final Set<InjectionPoint> getInjectionPoints() {
+      return Collections.emptySet();
+    }
+
+    @Override
+    public final boolean isNullable() {
+      return false;
+    }
+
+    @Override
+    public final Object create(final CreationalContext<Object> cc) {
+      return this.singleton;
+    }
+
+    @Override
+    public final void destroy(final Object instance, final CreationalContext<Object> cc) {
+      // The instance is owned by the Application.
+    }
+
+    @Override
+    public final Set<Type> getTypes() {
+      return this.beanAttributes.getTypes();
+    }
+
+    @Override
+    public final Set<Annotation> getQualifiers() {
+      return this.qualifiers;
+    }
+
+    @Override
+    public final Class<? extends Annotation> getScope() {
+      return Singleton.class;
+    }
+
+    @Override
+    public final String getName() {
+      return this.beanAttributes.getName();
+    }
+
+    @Override
+    public final Set<Class<? extends Annotation>> getStereotypes() {
+      return this.beanAttributes.getStereotypes();
+    }
+
+    @Override
+    public final boolean isAlternative() {
+      return true;
+    }
+
+    @Override
+    public final int getPriority() {
+      return Interceptor.Priority.LIBRARY_BEFORE;
+    }
+
+  }
+
+  /**
+   * The {@link RouteTable}, {@link ProviderTable} and {@link
+   * ResourceMethodInvokers} of an {@link Application}, each of which
+   * is {@code null} if it is not enabled.
+   *
+   * <p>Instances may outlive the {@link JaxRsExtension} that created
+   * them, so they do not refer to it.</p>
+   */
+  static final class DerivedState {
+
+    private final RouteTable routeTable;
+
+    private final ProviderTable providerTable;
+
+    private final ResourceMethodInvokers resourceMethodInvokers;
+
+    private DerivedState(final JaxRsExtension extension, final DerivedState previous, final Set<Class<?>> classes) {
+      super();
+      if (!extension.routeTables) {
+        this.routeTable = null;
+      } else if (previous == null || previous.routeTable == null) {
+        this.routeTable = RouteTable.of(classes);
+      } else {
+        this.routeTable = previous.routeTable;
+      }
+      if (!extension.providerTables) {
+        this.providerTable = null;
+      } else if (previous == null || previous.providerTable == null) {
+        this.providerTable = ProviderTable.of(classes);
+      } else {
+        this.providerTable = previous.providerTable;
+      }
+      if (!extension.resourceMethodInvokers) {
+        this.resourceMethodInvokers = null;
+      } else if (previous == null || previous.resourceMethodInvokers == null) {
+        this.resourceMethodInvokers = ResourceMethodInvokers.of(classes);
+      } else {
+        this.resourceMethodInvokers = previous.resourceMethodInvokers;
+      }
+    }
+
+    /**
+     * Returns the {@link RouteTable}, or {@code null} if route tables
+     * are not enabled.
+     *
+     * @return the {@link RouteTable}, or {@code null}
+     */
+    final RouteTable getRouteTable() {
+      return this.routeTable;
+    }
+
+    /**
+     * Returns the {@link ProviderTable}, or {@code null} if provider
+     * tables are not enabled.
+     *
+     * @return the {@link ProviderTable}, or {@code null}
+     */
+    final ProviderTable getProviderTable() {
+      return this.providerTable;
+    }
+
+    /**
+     * Returns the {@link ResourceMethodInvokers}, or {@code null} if
+     * resource method invokers are not enabled.
+     *
+     * @return the {@link ResourceMethodInvokers}, or {@code null}
+     */
+    final ResourceMethodInvokers getResourceMethodInvokers() {
+      return this.resourceMethodInvokers;
+    }
+
+  }
+
+  /**
+   * An {@link Application} whose {@link DerivedState} and {@link
+   * ResolvedBeans} are computed the first time they are needed.
+   */
+  private final class LazyApplication {
+
+    private final Set<Class<?>> classes;
+
+    private final Set<Annotation> qualifiers;
+
+    private volatile DerivedState derivedState;
+
+    private final Map<Class<?>, Set<Annotation>> claimedQualifiers;
+
+    private ResolvedBeans resolvedBeans;
+
+    private LazyApplication(final Set<Class<?>> classes,
+                            final Set<Annotation> qualifiers,
+                            final Map<Class<?>, Set<Annotation>> claimedQualifiers) {
+      super();
+      this.classes = ImmutableArraySet.of(classes);
+      this.qualifiers = qualifiers;
+      this.claimedQualifiers = claimedQualifiers;
+    }
+
+    private final DerivedState activate(final BeanManager beanManager) {
+      DerivedState derivedState = this.derivedState;
+      if (derivedState == null) {
+        synchronized (this) {
+          derivedState = this.derivedState;
+          if (derivedState == null) {
+            final long start = System.nanoTime();
+            derivedState = new DerivedState(JaxRsExtension.this, null, this.classes);
+            if (JaxRsExtension.this.resolvedBeans) {
+              final ResolvedBeans resolvedBeans = new ResolvedBeans();
+              resolvedBeans.resolve(beanManager, this.classes, getResourceQualifiers(this.qualifiers), this.claimedQualifiers);
+              this.resolvedBeans = resolvedBeans;
+            }
+            // Publishes resolvedBeans too.
+            this.derivedState = derivedState;
+            lazyApplicationReport.activated(this.classes.size(), System.nanoTime() - start);
+            if (logger.isLoggable(Level.FINE)) {
+              logger.logp(Level.FINE, JaxRsExtension.class.getName(), "activate",
+                          "Activated the Application qualified with " + this.qualifiers + ": " + lazyApplicationReport);
+            }
+          }
+        }
+      }
+      return derivedState;
+    }
+
+  }
+
+  private final class ApplicationAnalysis {
+
+    private final Set<Annotation> applicationQualifiers;
+
+    private final ApplicationPath applicationPath;
+
+    private final ApplicationSnapshot snapshot;
+
+    private final Set<Class<?>> classes;
+
+    private final Set<Class<?>> singletonClasses;
+
+    private final RouteTable routeTable;
+
+    private final ProviderTable providerTable;
+
+    private final ResourceMethodInvokers resourceMethodInvokers;
+
+    private ApplicationAnalysis(final Set<Annotation> applicationQualifiers, final Application application) {
+      super();
+      this.applicationQualifiers = intern(applicationQualifiers);
+      this.applicationPath = application.getClass().getAnnotation(ApplicationPath.class);
+      this.snapshot = JaxRsExtension.this.snapshotApplications ? new ApplicationSnapshot(application) : null;
+      Set<Class<?>> classes;
+      if (this.snapshot == null) {
+        classes = application.getClasses();
+        this.singletonClasses = Collections.emptySet();
+      } else {
+        classes = this.snapshot.getClasses();
+        final Set<Object> singletons = this.snapshot.getSingletons();
+        if (singletons.isEmpty()) {
+          this.singletonClasses = Collections.emptySet();
+        } else {
+          // Instances returned by getSingletons() are just as much a
+          // part of the Application as the classes returned by
+          // getClasses(), so their classes take part in routing,
+          // provider selection and so on.
+          final Set<Class<?>> singletonClasses = new HashSet<>();
+          for (final Object singleton : singletons) {
+            singletonClasses.add(singleton.getClass());
+          }
+          this.singletonClasses = ImmutableArraySet.of(singletonClasses);
+          if (classes == null || classes.isEmpty()) {
+            classes = this.singletonClasses;
+          } else {
+            final Set<Class<?>> union = new HashSet<>(classes);
+            union.addAll(this.singletonClasses);
+            classes = union;
+          }
+        }
+      }
+      if (classes == null || classes.isEmpty()) {
+        this.classes = Collections.emptySet();
+        this.routeTable = null;
+        this.providerTable = null;
+        this.resourceMethodInvokers = null;
+      } else {
+        this.classes = ImmutableArraySet.of(classes);
+        if (JaxRsExtension.this.lazyApplications == null) {
+          final DerivedState derivedState = derive(this.classes);
+          this.routeTable = derivedState.routeTable;
+          this.providerTable = derivedState.providerTable;
+          this.resourceMethodInvokers = derivedState.resourceMethodInvokers;
+        } else {
+          this.routeTable = null;
+          this.providerTable = null;
+          this.resourceMethodInvokers = null;
+        }
+      }
+    }
+
+  }
+
   /**
    * An {@link Application} that has been synthesized out of resource
    * classes found on the classpath that have not otherwise been
@@ -424,23 +2197,17 @@ public class JaxRsExtension implements Extension {
     
     SyntheticApplication(final Set<Class<?>> classes) {
       super();
-      if (classes == null || classes.isEmpty()) {
-        this.classes = Collections.emptySet();
-      } else {
-        this.classes = Collections.unmodifiableSet(classes);
-      }
+      this.classes = ImmutableArraySet.of(classes);
     }
 
     /**
-     * Returns an {@linkplain Collections#unmodifiableSet(Set)
-     * unmodifiable <code>Set</code>} of resource and provider
+     * Returns an unmodifiable {@link Set} of resource and provider
      * classes.
      *
      * <p>This method never returns {@code null}.</p>
      *
-     * @return a non-{@code null}, {@linkplain
-     * Collections#unmodifiableSet(Set) unmodifiable <code>Set</code>}
-     * of resource and provider classes.
+     * @return a non-{@code null}, unmodifiable {@link Set} of
+     * resource and provider classes.
      */
     @Override
     public final Set<Class<?>> getClasses() {
@@ -489,5 +2256,52 @@ public class JaxRsExtension implements Extension {
     }
     
   }
+
+  /**
+   * A {@link Qualifier} annotation borne, in addition to the
+   * qualifiers of the resource classes it is made from, by each
+   * {@link SyntheticApplication} bean and by the beans derived from
+   * it.
+   *
+   * <p>It distinguishes a {@link SyntheticApplication} from an
+   * {@link Application} that happens to share its other
+   * qualifiers.</p>
+   *
+   * <p>This annotation cannot be applied manually to any Java element
+   * but can be used as an input to the {@link
+   * BeanManager#getBeans(Type, Annotation...)} method.</p>
+   *
+   * @author <a href="https://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   */
+  @Documented
+  @Inherited
+  @Qualifier
+  @Retention(RetentionPolicy.RUNTIME)
+  @Target({ })
+  public @interface Synthetic {
+
+    /**
+     * A {@link Synthetic} implementation.
+     *
+     * @author <a href="https://about.me/lairdnelson"
+     * target="_parent">Laird Nelson</a>
+     *
+     * @see #INSTANCE
+     */
+    public static final class Literal extends AnnotationLiteral<Synthetic> implements Synthetic {
+
+      private static final long serialVersionUID = 1L;
+
+      /**
+       * The sole instance of this class.
+       *
+       * <p>This field is never {@code null}.</p>
+       */
+      public static final Synthetic INSTANCE = new Literal();
+
+    }
+
+  }
   
 }
@@ -0,0 +1,216 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+
+import java.net.URL;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * An immutable index of the names of root resource classes, provider
+ * classes and {@link javax.ws.rs.ApplicationPath}-annotated {@link
+ * javax.ws.rs.core.Application} classes, as written at build time by
+ * the {@link JaxRsIndexProcessor}.
+ *
+ * <p>Each index resource is a UTF-8 text file with one entry per
+ * line.  Each entry consists of a single-character kind ({@value
+ * #RESOURCE_CLASS_KIND}, {@value #PROVIDER_CLASS_KIND} or {@value
+ * #APPLICATION_CLASS_KIND}), a space, and a {@linkplain
+ * Class#getName() binary class name}.  Blank lines and lines
+ * beginning with {@code #} are ignored.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see JaxRsIndexProcessor
+ */
+final class JaxRsIndex {
+
+  /**
+   * The name of the classpath resource that holds an index.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  static final String RESOURCE_NAME = "META-INF/microbean-jaxrs-cdi.idx";
+
+  /**
+   * The kind designating a root resource class.
+   */
+  static final char RESOURCE_CLASS_KIND = 'R';
+
+  /**
+   * The kind designating a provider class.
+   */
+  static final char PROVIDER_CLASS_KIND = 'P';
+
+  /**
+   * The kind designating an {@link javax.ws.rs.ApplicationPath}-annotated
+   * {@link javax.ws.rs.core.Application} class.
+   */
+  static final char APPLICATION_CLASS_KIND = 'A';
+
+  /**
+   * An empty {@link JaxRsIndex}.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  static final JaxRsIndex EMPTY = new JaxRsIndex(Collections.emptySet(), Collections.emptySet(), Collections.emptySet());
+
+  private final Set<String> resourceClassNames;
+
+  private final Set<String> providerClassNames;
+
+  private final Set<String> applicationClassNames;
+
+  private JaxRsIndex(final Set<String> resourceClassNames,
+                     final Set<String> providerClassNames,
+                     final Set<String> applicationClassNames) {
+    super();
+    this.resourceClassNames = Collections.unmodifiableSet(resourceClassNames);
+    this.providerClassNames = Collections.unmodifiableSet(providerClassNames);
+    this.applicationClassNames = Collections.unmodifiableSet(applicationClassNames);
+  }
+
+  /**
+   * Returns {@code true} if this {@link JaxRsIndex} contains no
+   * entries at all.
+   *
+   * @return {@code true} if this {@link JaxRsIndex} is empty
+   */
+  final boolean isEmpty() {
+    return
+      this.resourceClassNames.isEmpty() &&
+      this.providerClassNames.isEmpty() &&
+      this.applicationClassNames.isEmpty();
+  }
+
+  /**
+   * Returns an unmodifiable {@link Set} of the names of indexed root
+   * resource classes.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return a non-{@code null}, unmodifiable {@link Set} of class
+   * names
+   */
+  final Set<String> getResourceClassNames() {
+    return this.resourceClassNames;
+  }
+
+  /**
+   * Returns an unmodifiable {@link Set} of the names of indexed
+   * provider classes.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return a non-{@code null}, unmodifiable {@link Set} of class
+   * names
+   */
+  final Set<String> getProviderClassNames() {
+    return this.providerClassNames;
+  }
+
+  /**
+   * Returns an unmodifiable {@link Set} of the names of indexed
+   * {@link javax.ws.rs.ApplicationPath}-annotated {@link
+   * javax.ws.rs.core.Application} classes.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return a non-{@code null}, unmodifiable {@link Set} of class
+   * names
+   */
+  final Set<String> getApplicationClassNames() {
+    return this.applicationClassNames;
+  }
+
+  /**
+   * Loads and merges all index resources visible to the supplied
+   * {@link ClassLoader} and returns the result.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @param classLoader the {@link ClassLoader} to use to locate
+   * index resources; if {@code null} then the system classloader
+   * will be used
+   *
+   * @return a non-{@code null} {@link JaxRsIndex}; {@linkplain
+   * #isEmpty() empty} if no index resources could be found
+   *
+   * @exception IOException if an index resource could not be read
+   *
+   * @exception IllegalArgumentException if an index resource is
+   * malformed
+   */
+  static final JaxRsIndex load(final ClassLoader classLoader) throws IOException {
+    final Enumeration<URL> urls;
+    if (classLoader == null) {
+      urls = ClassLoader.getSystemResources(RESOURCE_NAME);
+    } else {
+      urls = classLoader.getResources(RESOURCE_NAME);
+    }
+    if (urls == null || !urls.hasMoreElements()) {
+      return EMPTY;
+    }
+    final Set<String> resourceClassNames = new HashSet<>();
+    final Set<String> providerClassNames = new HashSet<>();
+    final Set<String> applicationClassNames = new HashSet<>();
+    while (urls.hasMoreElements()) {
+      final URL url = urls.nextElement();
+      assert url != null;
+      try (final InputStream inputStream = url.openStream();
+           final BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          line = line.trim();
+          if (line.isEmpty() || line.charAt(0) == '#') {
+            continue;
+          }
+          if (line.length() < 3 || line.charAt(1) != ' ') {
+            throw new IllegalArgumentException(url + ": malformed entry: " + line);
+          }
+          final String className = line.substring(2).trim();
+          switch (line.charAt(0)) {
+          case RESOURCE_CLASS_KIND:
+            resourceClassNames.add(className);
+            break;
+          case PROVIDER_CLASS_KIND:
+            providerClassNames.add(className);
+            break;
+          case APPLICATION_CLASS_KIND:
+            applicationClassNames.add(className);
+            break;
+          default:
+            throw new IllegalArgumentException(url + ": unknown kind: " + line);
+          }
+        }
+      }
+    }
+    return new JaxRsIndex(resourceClassNames, providerClassNames, applicationClassNames);
+  }
+
+}
@@ -0,0 +1,292 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import java.nio.file.NoSuchFileException;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+
+import javax.lang.model.SourceVersion;
+
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+
+import javax.lang.model.util.Elements;
+
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * An {@link AbstractProcessor} that writes an index of root resource
+ * classes, provider classes and {@link
+ * javax.ws.rs.ApplicationPath}-annotated {@link
+ * javax.ws.rs.core.Application} classes at build time so that the
+ * {@link JaxRsExtension} does not have to introspect their
+ * annotations again at startup time.
+ *
+ * <p>If the {@value #NATIVE_IMAGE_OPTION} processor option is set to
+ * {@code true}, for example with {@code
+ * -Aorg.microbean.jaxrs.cdi.nativeImage=true}, this processor also
+ * writes a GraalVM {@code native-image} {@code reflect-config.json}
+ * file that registers every class in the index for reflection, so
+ * that the container can find, create and inject them in a native
+ * image.</p>
+ *
+ * <p>An incremental compilation only presents this processor with
+ * the classes being recompiled, so entries already in an index in the
+ * class output directory are carried over, as long as their classes
+ * still exist and still bear the annotation that put them there.</p>
+ *
+ * <p>This processor is not registered automatically.  To use it,
+ * name it explicitly, for example with the {@code -processor}
+ * option of {@code javac}, or with the {@code annotationProcessors}
+ * or {@code annotationProcessorPaths} configuration elements of the
+ * {@code maven-compiler-plugin}.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see JaxRsExtension
+ */
+@SupportedAnnotationTypes({
+    "javax.ws.rs.ApplicationPath",
+    "javax.ws.rs.Path",
+    "javax.ws.rs.ext.Provider"
+  })
+@SupportedOptions(JaxRsIndexProcessor.NATIVE_IMAGE_OPTION)
+public class JaxRsIndexProcessor extends AbstractProcessor {
+
+  /**
+   * The name of the processor option that, if set to {@code true},
+   * causes a {@link JaxRsIndexProcessor} to write a GraalVM {@code
+   * native-image} {@code reflect-config.json} file as well as an
+   * index.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  public static final String NATIVE_IMAGE_OPTION = "org.microbean.jaxrs.cdi.nativeImage";
+
+  /**
+   * The name of the classpath resource to which the {@code
+   * reflect-config.json} file is written.
+   *
+   * <p>{@code native-image} reads all such files found beneath {@code
+   * META-INF/native-image} automatically.</p>
+   */
+  static final String REFLECT_CONFIG_RESOURCE_NAME = "META-INF/native-image/jaxrs-cdi/reflect-config.json";
+
+  private final SortedSet<String> entries;
+
+  /**
+   * Creates a new {@link JaxRsIndexProcessor}.
+   */
+  public JaxRsIndexProcessor() {
+    super();
+    this.entries = new TreeSet<>();
+  }
+
+  /**
+   * Returns {@link SourceVersion#latestSupported()} when invoked.
+   *
+   * @return {@link SourceVersion#latestSupported()}
+   */
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  /**
+   * Records root resource classes, provider classes and {@link
+   * javax.ws.rs.ApplicationPath}-annotated classes found in the
+   * current round, and writes the index once processing is over.
+   *
+   * @param annotations the annotation types requested to be
+   * processed; may be {@code null}
+   *
+   * @param roundEnvironment the {@link RoundEnvironment} for the
+   * current round; must not be {@code null}
+   *
+   * @return {@code false} in all cases, so that other processors may
+   * also process the annotations in question
+   *
+   * @exception NullPointerException if {@code roundEnvironment} is
+   * {@code null}
+   */
+  @Override
+  public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnvironment) {
+    Objects.requireNonNull(roundEnvironment);
+    if (roundEnvironment.processingOver()) {
+      final boolean existingIndex = this.mergeExistingIndex();
+      if (existingIndex || !this.entries.isEmpty()) {
+        this.writeIndex();
+        if (Boolean.parseBoolean(this.processingEnv.getOptions().get(NATIVE_IMAGE_OPTION))) {
+          this.writeReflectConfig();
+        }
+      }
+    } else if (annotations != null && !annotations.isEmpty()) {
+      final Elements elements = this.processingEnv.getElementUtils();
+      for (final TypeElement annotation : annotations) {
+        final char kind = getKind(annotation.getQualifiedName().toString());
+        if (kind == '\0') {
+          continue;
+        }
+        final Set<? extends Element> annotatedElements = roundEnvironment.getElementsAnnotatedWith(annotation);
+        if (annotatedElements != null && !annotatedElements.isEmpty()) {
+          for (final Element element : annotatedElements) {
+            // Only types count here; @Path on a method does not make
+            // a root resource class.
+            if (element instanceof TypeElement) {
+              this.entries.add(kind + " " + elements.getBinaryName((TypeElement)element));
+            }
+          }
+        }
+      }
+    }
+    return false;
+  }
+
+  private final boolean mergeExistingIndex() {
+    final FileObject index;
+    try {
+      index = this.processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", JaxRsIndex.RESOURCE_NAME);
+    } catch (final IOException | IllegalArgumentException notThere) {
+      return false;
+    }
+    final Elements elements = this.processingEnv.getElementUtils();
+    try (final BufferedReader reader =
+         new BufferedReader(new InputStreamReader(index.openInputStream(), StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (line.length() < 3 || line.charAt(0) == '#' || line.charAt(1) != ' ') {
+          continue;
+        }
+        // Binary names of nested classes use '$'; getTypeElement()
+        // wants canonical names.
+        final TypeElement type = elements.getTypeElement(line.substring(2).replace('$', '.'));
+        if (type != null && bears(type, line.charAt(0))) {
+          this.entries.add(line);
+        }
+      }
+    } catch (final FileNotFoundException | NoSuchFileException notThere) {
+      return false;
+    } catch (final IOException ioException) {
+      this.processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                                                    "Could not read " + JaxRsIndex.RESOURCE_NAME + ": " + ioException);
+      return false;
+    }
+    return true;
+  }
+
+  private static final boolean bears(final TypeElement type, final char kind) {
+    for (final AnnotationMirror annotation : type.getAnnotationMirrors()) {
+      final Element annotationType = annotation.getAnnotationType().asElement();
+      if (annotationType instanceof TypeElement &&
+          getKind(((TypeElement)annotationType).getQualifiedName().toString()) == kind) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static final char getKind(final String annotationName) {
+    switch (annotationName) {
+    case "javax.ws.rs.Path":
+      return JaxRsIndex.RESOURCE_CLASS_KIND;
+    case "javax.ws.rs.ext.Provider":
+      return JaxRsIndex.PROVIDER_CLASS_KIND;
+    case "javax.ws.rs.ApplicationPath":
+      return JaxRsIndex.APPLICATION_CLASS_KIND;
+    default:
+      return '\0';
+    }
+  }
+
+  private final void writeIndex() {
+    final Filer filer = this.processingEnv.getFiler();
+    try {
+      final FileObject index = filer.createResource(StandardLocation.CLASS_OUTPUT, "", JaxRsIndex.RESOURCE_NAME);
+      try (final Writer writer = new OutputStreamWriter(index.openOutputStream(), StandardCharsets.UTF_8)) {
+        writer.write("# Generated by " + this.getClass().getName() + "; do not edit.\n");
+        for (final String entry : this.entries) {
+          writer.write(entry);
+          writer.write('\n');
+        }
+      }
+    } catch (final IOException ioException) {
+      this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                                                    "Could not write " + JaxRsIndex.RESOURCE_NAME + ": " + ioException);
+    }
+  }
+
+  private final void writeReflectConfig() {
+    // The same class may be in the index under more than one kind.
+    final SortedSet<String> classNames = new TreeSet<>();
+    for (final String entry : this.entries) {
+      classNames.add(entry.substring(2));
+    }
+    final Filer filer = this.processingEnv.getFiler();
+    try {
+      final FileObject reflectConfig =
+        filer.createResource(StandardLocation.CLASS_OUTPUT, "", REFLECT_CONFIG_RESOURCE_NAME);
+      try (final Writer writer = new OutputStreamWriter(reflectConfig.openOutputStream(), StandardCharsets.UTF_8)) {
+        writer.write("[");
+        boolean first = true;
+        for (final String className : classNames) {
+          writer.write(first ? "\n" : ",\n");
+          first = false;
+          // Binary names cannot contain characters that need escaping
+          // in JSON.
+          writer.write("  {\n" +
+                       "    \"name\": \"" + className + "\",\n" +
+                       "    \"allDeclaredConstructors\": true,\n" +
+                       "    \"allPublicConstructors\": true,\n" +
+                       "    \"allDeclaredMethods\": true,\n" +
+                       "    \"allPublicMethods\": true,\n" +
+                       "    \"allDeclaredFields\": true,\n" +
+                       "    \"allPublicFields\": true\n" +
+                       "  }");
+        }
+        writer.write("\n]\n");
+      }
+    } catch (final IOException ioException) {
+      this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                                                    "Could not write " + REFLECT_CONFIG_RESOURCE_NAME + ": " +
+                                                    ioException);
+    }
+  }
+
+}
@@ -0,0 +1,138 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.time.Duration;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Singleton;
+
+import javax.ws.rs.core.Application;
+
+/**
+ * A record of the {@link Application}s whose {@link RouteTable},
+ * {@link ProviderTable}, {@link ResourceMethodInvokers} and {@link
+ * ResolvedBeans} a {@link JaxRsExtension} deferred computing until
+ * they were first needed.
+ *
+ * <p>An {@link Application} is <em>activated</em> the first time one
+ * of those beans is looked up for it, or the first time a request
+ * arrives for it at an {@link HttpServerBinding}.  The work for
+ * {@link Application}s that are never activated is never done, so
+ * the {@linkplain #getDeferredClassCount() classes of those not yet
+ * activated} are a measure of the startup time and memory saved so
+ * far, and the {@linkplain #getActivationDuration() activation
+ * duration} is the part of that work that was done after all.</p>
+ *
+ * <p>A {@link JaxRsExtension} makes exactly one {@link
+ * LazyApplicationReport} available as a {@link Singleton}-scoped
+ * bean when so configured.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see JaxRsExtension#LAZY_APPLICATIONS_PROPERTY_NAME
+ */
+public final class LazyApplicationReport {
+
+  private final AtomicInteger applicationCount;
+
+  private final AtomicInteger activatedApplicationCount;
+
+  private final AtomicInteger deferredClassCount;
+
+  private final AtomicLong activationNanos;
+
+  LazyApplicationReport() {
+    super();
+    this.applicationCount = new AtomicInteger();
+    this.activatedApplicationCount = new AtomicInteger();
+    this.deferredClassCount = new AtomicInteger();
+    this.activationNanos = new AtomicLong();
+  }
+
+  final void deferred(final int classCount) {
+    this.applicationCount.incrementAndGet();
+    this.deferredClassCount.addAndGet(classCount);
+  }
+
+  final void activated(final int classCount, final long nanos) {
+    this.activatedApplicationCount.incrementAndGet();
+    this.deferredClassCount.addAndGet(-classCount);
+    this.activationNanos.addAndGet(nanos);
+  }
+
+  /**
+   * Returns the number of {@link Application}s, synthetic or
+   * otherwise, whose derived state was deferred at startup.
+   *
+   * @return the number of deferred {@link Application}s; never
+   * negative
+   */
+  public final int getApplicationCount() {
+    return this.applicationCount.get();
+  }
+
+  /**
+   * Returns the number of deferred {@link Application}s that have
+   * since been activated.
+   *
+   * @return the number of activated {@link Application}s; never
+   * negative
+   */
+  public final int getActivatedApplicationCount() {
+    return this.activatedApplicationCount.get();
+  }
+
+  /**
+   * Returns the total number of classes belonging to deferred {@link
+   * Application}s that have not yet been activated.
+   *
+   * @return the number of classes whose derived state has not been
+   * computed; never negative
+   */
+  public final int getDeferredClassCount() {
+    return this.deferredClassCount.get();
+  }
+
+  /**
+   * Returns how long activating {@link Application}s has taken so
+   * far, all told.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return a non-{@code null}, non-negative {@link Duration}
+   */
+  public final Duration getActivationDuration() {
+    return Duration.ofNanos(this.activationNanos.get());
+  }
+
+  /**
+   * Returns a non-{@code null} {@link String} representation of this
+   * {@link LazyApplicationReport}.
+   *
+   * @return a non-{@code null} {@link String}
+   */
+  @Override
+  public final String toString() {
+    return "Lazy applications: " + this.getActivatedApplicationCount() + " of " + this.getApplicationCount() +
+      " activated in " + this.getActivationDuration() + "; " + this.getDeferredClassCount() + " classes still deferred";
+  }
+
+}
@@ -0,0 +1,98 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.lang.reflect.Method;
+
+import javax.annotation.Priority;
+
+import javax.inject.Inject;
+
+import javax.interceptor.AroundInvoke;
+import javax.interceptor.Interceptor;
+import javax.interceptor.InvocationContext;
+
+/**
+ * An {@link Interceptor} that records the invocations of the resource
+ * methods of {@link Metered} beans in the {@link
+ * ResourceMethodMetrics} bean.
+ *
+ * <p>It runs inside the {@link DispatchInterceptor}, so the latency
+ * it records for a {@link Dispatched} resource method is that of the
+ * method itself, not that of handing it to an {@link
+ * java.util.concurrent.Executor}.  For a resource method that returns
+ * a {@link java.util.concurrent.CompletionStage}, it is the time
+ * taken to return it.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see Metered
+ *
+ * @see ResourceMethodMetrics
+ */
+@Interceptor
+@Metered
+@Priority(Interceptor.Priority.LIBRARY_BEFORE + 10)
+public class MetricsInterceptor {
+
+  private final ResourceMethodMetrics metrics;
+
+  /**
+   * Creates a new {@link MetricsInterceptor}.
+   *
+   * @param metrics the {@link ResourceMethodMetrics} to record
+   * invocations in; must not be {@code null}
+   */
+  @Inject
+  public MetricsInterceptor(final ResourceMethodMetrics metrics) {
+    super();
+    this.metrics = metrics;
+  }
+
+  /**
+   * Proceeds with the supplied {@link InvocationContext} and, if it
+   * represents the invocation of a resource method, records how long
+   * it took and whether it threw an exception.
+   *
+   * @param invocationContext the {@link InvocationContext}; must not
+   * be {@code null}
+   *
+   * @return the result of the invocation, which may be {@code null}
+   *
+   * @exception Exception if the intercepted method throws an {@link
+   * Exception}
+   */
+  @AroundInvoke
+  public Object record(final InvocationContext invocationContext) throws Exception {
+    final Method method = invocationContext.getMethod();
+    final ResourceMethodMetrics.Entry entry = method == null ? null : this.metrics.entry(method);
+    if (entry == null) {
+      return invocationContext.proceed();
+    }
+    final long start = System.nanoTime();
+    boolean error = true;
+    try {
+      final Object returnValue = invocationContext.proceed();
+      error = false;
+      return returnValue;
+    } finally {
+      entry.record(System.nanoTime() - start, error);
+    }
+  }
+
+}
@@ -0,0 +1,548 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.lang.invoke.MethodType;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.Priority;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.Produces;
+
+import javax.ws.rs.core.MediaType;
+
+import javax.ws.rs.ext.ExceptionMapper;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.ParamConverterProvider;
+
+/**
+ * An immutable table of the {@link MessageBodyReader}, {@link
+ * MessageBodyWriter}, {@link ExceptionMapper} and {@link
+ * ParamConverterProvider} classes of an {@link
+ * javax.ws.rs.core.Application}, analyzed once, at container startup
+ * time, so that choosing a provider for a given Java type does not
+ * require examining every provider on every request.
+ *
+ * <p>The candidates for a given Java type are computed once per type
+ * and cached.  They are ordered first by the distance, in the type
+ * hierarchy, between the given type and the type each candidate
+ * handles, then by {@link Priority} (lower values first, {@link
+ * Priorities#USER} if absent), then by media type specificity (more
+ * specific first).  A runtime still needs to consult {@link
+ * Entry#isCompatible(MediaType)} and the candidates'
+ * {@code isReadable}, {@code isWriteable} or equivalent methods, in
+ * order, which approximates, but does not replace, the selection
+ * algorithms described in chapter 4 of the Jakarta RESTful Web
+ * Services specification.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see JaxRsExtension#PROVIDER_TABLES_PROPERTY_NAME
+ */
+public final class ProviderTable {
+
+  private static final List<MediaType> WILDCARD = Collections.singletonList(MediaType.WILDCARD_TYPE);
+
+  private static final Comparator<Entry> entryComparator =
+    Comparator.comparingInt(Entry::getPriority).thenComparingInt(Entry::getSpecificity);
+
+  private final Candidates messageBodyReaders;
+
+  private final Candidates messageBodyWriters;
+
+  private final Candidates exceptionMappers;
+
+  private final List<Entry> paramConverterProviders;
+
+  private ProviderTable(final Collection<? extends Class<?>> classes) {
+    super();
+    final List<Entry> readers = new ArrayList<>();
+    final List<Entry> writers = new ArrayList<>();
+    final List<Entry> mappers = new ArrayList<>();
+    final List<Entry> paramConverterProviders = new ArrayList<>();
+    if (classes != null) {
+      for (final Class<?> c : classes) {
+        if (c != null && !c.isInterface() && !Modifier.isAbstract(c.getModifiers())) {
+          if (MessageBodyReader.class.isAssignableFrom(c)) {
+            readers.add(new Entry(c, MessageBodyReader.class, mediaTypes(c.getAnnotation(Consumes.class))));
+          }
+          if (MessageBodyWriter.class.isAssignableFrom(c)) {
+            writers.add(new Entry(c, MessageBodyWriter.class, mediaTypes(c.getAnnotation(Produces.class))));
+          }
+          if (ExceptionMapper.class.isAssignableFrom(c)) {
+            mappers.add(new Entry(c, ExceptionMapper.class, WILDCARD));
+          }
+          if (ParamConverterProvider.class.isAssignableFrom(c)) {
+            paramConverterProviders.add(new Entry(c, ParamConverterProvider.class, WILDCARD));
+          }
+        }
+      }
+    }
+    this.messageBodyReaders = new Candidates(readers);
+    this.messageBodyWriters = new Candidates(writers);
+    this.exceptionMappers = new Candidates(mappers);
+    Collections.sort(paramConverterProviders, entryComparator);
+    this.paramConverterProviders = unmodifiableList(paramConverterProviders);
+  }
+
+  /**
+   * Returns an unmodifiable {@link List} of {@link Entry} instances
+   * describing the {@link MessageBodyReader}s that may be able to
+   * read the supplied type, in order of preference.
+   *
+   * <p>This method never returns {@code null}.  After the first call
+   * for a given type, it does not allocate.</p>
+   *
+   * @param type the type to be read; must not be {@code null}
+   *
+   * @return a non-{@code null}, unmodifiable {@link List} of {@link
+   * Entry} instances
+   *
+   * @exception NullPointerException if {@code type} is {@code null}
+   */
+  public final List<Entry> getMessageBodyReaders(final Class<?> type) {
+    return this.messageBodyReaders.get(type);
+  }
+
+  /**
+   * Returns an unmodifiable {@link List} of {@link Entry} instances
+   * describing the {@link MessageBodyWriter}s that may be able to
+   * write the supplied type, in order of preference.
+   *
+   * <p>This method never returns {@code null}.  After the first call
+   * for a given type, it does not allocate.</p>
+   *
+   * @param type the type to be written; must not be {@code null}
+   *
+   * @return a non-{@code null}, unmodifiable {@link List} of {@link
+   * Entry} instances
+   *
+   * @exception NullPointerException if {@code type} is {@code null}
+   */
+  public final List<Entry> getMessageBodyWriters(final Class<?> type) {
+    return this.messageBodyWriters.get(type);
+  }
+
+  /**
+   * Returns an unmodifiable {@link List} of {@link Entry} instances
+   * describing the {@link ExceptionMapper}s that may be able to map
+   * the supplied {@link Throwable} type, in order of preference.
+   *
+   * <p>This method never returns {@code null}.  After the first call
+   * for a given type, it does not allocate.</p>
+   *
+   * @param type the {@link Throwable} type to be mapped; must not be
+   * {@code null}
+   *
+   * @return a non-{@code null}, unmodifiable {@link List} of {@link
+   * Entry} instances
+   *
+   * @exception NullPointerException if {@code type} is {@code null}
+   */
+  public final List<Entry> getExceptionMappers(final Class<? extends Throwable> type) {
+    return this.exceptionMappers.get(type);
+  }
+
+  /**
+   * Returns an unmodifiable {@link List} of {@link Entry} instances
+   * describing all {@link ParamConverterProvider}s, in order of
+   * {@link Priority}.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return a non-{@code null}, unmodifiable {@link List} of {@link
+   * Entry} instances
+   */
+  public final List<Entry> getParamConverterProviders() {
+    return this.paramConverterProviders;
+  }
+
+  /**
+   * Returns a new {@link ProviderTable} describing the provider
+   * classes among the supplied classes.
+   *
+   * <p>Classes that are not {@link MessageBodyReader}s, {@link
+   * MessageBodyWriter}s, {@link ExceptionMapper}s or {@link
+   * ParamConverterProvider}s are ignored.</p>
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @param classes the resource and provider classes of an {@link
+   * javax.ws.rs.core.Application}; may be {@code null}
+   *
+   * @return a new, non-{@code null} {@link ProviderTable}
+   */
+  static final ProviderTable of(final Collection<? extends Class<?>> classes) {
+    return new ProviderTable(classes);
+  }
+
+  private static final List<MediaType> mediaTypes(final Consumes consumes) {
+    return consumes == null ? WILDCARD : mediaTypes(consumes.value());
+  }
+
+  private static final List<MediaType> mediaTypes(final Produces produces) {
+    return produces == null ? WILDCARD : mediaTypes(produces.value());
+  }
+
+  static final List<MediaType> mediaTypes(final String[] values) {
+    // MediaType#valueOf(String) needs a RuntimeDelegate, i.e. a
+    // Jakarta RESTful Web Services implementation, which may not be
+    // present, so parse the type and subtype here.  Parameters are
+    // not relevant to provider selection.
+    final List<MediaType> returnValue = new ArrayList<>();
+    for (final String value : values) {
+      for (String mediaType : value.split(",")) {
+        final int semicolonIndex = mediaType.indexOf(';');
+        if (semicolonIndex >= 0) {
+          mediaType = mediaType.substring(0, semicolonIndex);
+        }
+        mediaType = mediaType.trim();
+        if (!mediaType.isEmpty()) {
+          final int slashIndex = mediaType.indexOf('/');
+          if (slashIndex < 0) {
+            returnValue.add(new MediaType(mediaType, MediaType.MEDIA_TYPE_WILDCARD));
+          } else {
+            returnValue.add(new MediaType(mediaType.substring(0, slashIndex).trim(),
+                                          mediaType.substring(slashIndex + 1).trim()));
+          }
+        }
+      }
+    }
+    return returnValue.isEmpty() ? WILDCARD : unmodifiableList(returnValue);
+  }
+
+  private static final <T> List<T> unmodifiableList(final List<T> list) {
+    return list.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(new ArrayList<>(list));
+  }
+
+  private static final Class<?> getTypeArgument(final Class<?> c, final Class<?> genericInterface) {
+    final Type type = resolve(c, genericInterface, new HashMap<>());
+    if (type instanceof Class) {
+      return (Class<?>)type;
+    } else if (type instanceof ParameterizedType) {
+      return (Class<?>)((ParameterizedType)type).getRawType();
+    } else if (type instanceof GenericArrayType) {
+      final Type componentType = ((GenericArrayType)type).getGenericComponentType();
+      if (componentType instanceof Class) {
+        return Array.newInstance((Class<?>)componentType, 0).getClass();
+      }
+    }
+    return Object.class;
+  }
+
+  private static final Type resolve(final Class<?> c,
+                                    final Class<?> genericInterface,
+                                    final Map<TypeVariable<?>, Type> bindings) {
+    final List<Type> supertypes = new ArrayList<>(Arrays.asList(c.getGenericInterfaces()));
+    final Type superclass = c.getGenericSuperclass();
+    if (superclass != null) {
+      supertypes.add(superclass);
+    }
+    for (final Type supertype : supertypes) {
+      final Class<?> rawSupertype;
+      if (supertype instanceof ParameterizedType) {
+        final ParameterizedType parameterizedSupertype = (ParameterizedType)supertype;
+        rawSupertype = (Class<?>)parameterizedSupertype.getRawType();
+        final Type[] actualTypeArguments = parameterizedSupertype.getActualTypeArguments();
+        if (rawSupertype == genericInterface) {
+          return substitute(actualTypeArguments[0], bindings);
+        }
+        final TypeVariable<?>[] typeParameters = rawSupertype.getTypeParameters();
+        final Map<TypeVariable<?>, Type> supertypeBindings = new HashMap<>();
+        for (int i = 0; i < typeParameters.length; i++) {
+          supertypeBindings.put(typeParameters[i], substitute(actualTypeArguments[i], bindings));
+        }
+        final Type returnValue = resolve(rawSupertype, genericInterface, supertypeBindings);
+        if (returnValue != null) {
+          return returnValue;
+        }
+      } else if (supertype instanceof Class) {
+        rawSupertype = (Class<?>)supertype;
+        if (rawSupertype == genericInterface) {
+          // Raw implementation.
+          return Object.class;
+        }
+        if (genericInterface.isAssignableFrom(rawSupertype)) {
+          final Type returnValue = resolve(rawSupertype, genericInterface, Collections.emptyMap());
+          if (returnValue != null) {
+            return returnValue;
+          }
+        }
+      }
+    }
+    return null;
+  }
+
+  private static final Type substitute(final Type type, final Map<TypeVariable<?>, Type> bindings) {
+    if (type instanceof TypeVariable) {
+      final Type bound = bindings.get(type);
+      return bound == null ? Object.class : bound;
+    }
+    return type;
+  }
+
+  /**
+   * An immutable description of a provider class in its capacity as
+   * one of {@link MessageBodyReader}, {@link MessageBodyWriter},
+   * {@link ExceptionMapper} or {@link ParamConverterProvider}.
+   *
+   * @author <a href="https://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   */
+  public static final class Entry {
+
+    private final Class<?> providerClass;
+
+    private final Class<?> providerInterface;
+
+    private final Class<?> handledType;
+
+    private final List<MediaType> mediaTypes;
+
+    private final int priority;
+
+    private final int specificity;
+
+    private Entry(final Class<?> providerClass, final Class<?> providerInterface, final List<MediaType> mediaTypes) {
+      super();
+      this.providerClass = Objects.requireNonNull(providerClass);
+      this.providerInterface = Objects.requireNonNull(providerInterface);
+      this.handledType =
+        providerInterface == ParamConverterProvider.class ? Object.class : getTypeArgument(providerClass, providerInterface);
+      this.mediaTypes = mediaTypes;
+      final Priority priority = providerClass.getAnnotation(Priority.class);
+      this.priority = priority == null ? Priorities.USER : priority.value();
+      int specificity = 2;
+      for (final MediaType mediaType : mediaTypes) {
+        final int s = mediaType.isWildcardType() ? 2 : mediaType.isWildcardSubtype() ? 1 : 0;
+        if (s < specificity) {
+          specificity = s;
+        }
+      }
+      this.specificity = specificity;
+    }
+
+    /**
+     * Returns the provider class this {@link Entry} describes.
+     *
+     * <p>This method never returns {@code null}.</p>
+     *
+     * @return the non-{@code null} provider class
+     */
+    public final Class<?> getProviderClass() {
+      return this.providerClass;
+    }
+
+    /**
+     * Returns the provider interface, such as {@link
+     * MessageBodyReader}, in whose capacity this {@link Entry}
+     * describes its {@linkplain #getProviderClass() provider class}.
+     *
+     * <p>This method never returns {@code null}.</p>
+     *
+     * @return the non-{@code null} provider interface
+     */
+    public final Class<?> getProviderInterface() {
+      return this.providerInterface;
+    }
+
+    /**
+     * Returns the type the {@linkplain #getProviderClass() provider
+     * class} handles, i.e. the (raw) type argument it supplies to its
+     * {@linkplain #getProviderInterface() provider interface}, or
+     * {@link Object Object.class} if it cannot be determined.
+     *
+     * <p>This method never returns {@code null}.</p>
+     *
+     * @return the non-{@code null} handled type
+     */
+    public final Class<?> getHandledType() {
+      return this.handledType;
+    }
+
+    /**
+     * Returns an unmodifiable {@link List} of the media types the
+     * {@linkplain #getProviderClass() provider class} declares, via
+     * {@link Consumes} or {@link Produces} as appropriate, or a
+     * {@link List} containing only {@link MediaType#WILDCARD_TYPE}.
+     *
+     * <p>This method never returns {@code null}.</p>
+     *
+     * @return a non-{@code null}, unmodifiable, non-empty {@link
+     * List} of {@link MediaType}s
+     */
+    public final List<MediaType> getMediaTypes() {
+      return this.mediaTypes;
+    }
+
+    /**
+     * Returns the {@link Priority} of the {@linkplain
+     * #getProviderClass() provider class}, or {@link
+     * Priorities#USER} if it has none.
+     *
+     * @return the priority
+     */
+    public final int getPriority() {
+      return this.priority;
+    }
+
+    private final int getSpecificity() {
+      return this.specificity;
+    }
+
+    /**
+     * Returns {@code true} if any of the {@linkplain #getMediaTypes()
+     * media types} of this {@link Entry} is {@linkplain
+     * MediaType#isCompatible(MediaType) compatible} with the supplied
+     * {@link MediaType}.
+     *
+     * <p>This method does not allocate.</p>
+     *
+     * @param mediaType the {@link MediaType} to test; may be {@code
+     * null}, in which case it is treated as {@link
+     * MediaType#WILDCARD_TYPE}
+     *
+     * @return {@code true} if this {@link Entry} is compatible with
+     * the supplied {@link MediaType}
+     */
+    public final boolean isCompatible(final MediaType mediaType) {
+      if (mediaType == null) {
+        return true;
+      }
+      for (int i = 0; i < this.mediaTypes.size(); i++) {
+        if (this.mediaTypes.get(i).isCompatible(mediaType)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /**
+     * Returns a non-{@code null} {@link String} representation of
+     * this {@link Entry}.
+     *
+     * @return a non-{@code null} {@link String}
+     */
+    @Override
+    public final String toString() {
+      return this.providerClass.getName() + " (" + this.providerInterface.getSimpleName() + "<" +
+        this.handledType.getName() + ">)";
+    }
+
+  }
+
+  /**
+   * The candidate {@link Entry}s for each Java type, computed on
+   * demand.
+   *
+   * <p>The cache is an ordinary map owned by its {@link
+   * ProviderTable}, not a {@link ClassValue}: values of the latter
+   * live as long as the classes they are keyed by, and so would keep
+   * this table, and the class loaders of its providers, reachable
+   * after the container that created it has shut down.</p>
+   */
+  private static final class Candidates {
+
+    private final Map<Class<?>, List<Entry>> entriesByHandledType;
+
+    private final Map<Class<?>, List<Entry>> cache;
+
+    private Candidates(final Collection<? extends Entry> entries) {
+      super();
+      this.cache = new ConcurrentHashMap<>();
+      final Map<Class<?>, List<Entry>> entriesByHandledType = new HashMap<>();
+      for (final Entry entry : entries) {
+        entriesByHandledType.computeIfAbsent(entry.getHandledType(), k -> new ArrayList<>()).add(entry);
+      }
+      for (final List<Entry> list : entriesByHandledType.values()) {
+        Collections.sort(list, entryComparator);
+      }
+      this.entriesByHandledType = entriesByHandledType;
+    }
+
+    private final List<Entry> get(final Class<?> type) {
+      List<Entry> returnValue = this.cache.get(type);
+      if (returnValue == null) {
+        returnValue = this.cache.computeIfAbsent(type, this::computeValue);
+      }
+      return returnValue;
+    }
+
+    private final List<Entry> computeValue(final Class<?> type) {
+      if (this.entriesByHandledType.isEmpty()) {
+        return Collections.emptyList();
+      }
+      // Breadth-first walk of the type hierarchy, so that nearer
+      // supertypes come first.  Object is always last.
+      final List<Entry> returnValue = new ArrayList<>();
+      final Set<Class<?>> seen = new HashSet<>();
+      final Deque<Class<?>> queue = new ArrayDeque<>();
+      queue.add(type.isPrimitive() ? box(type) : type);
+      while (!queue.isEmpty()) {
+        final Class<?> c = queue.removeFirst();
+        if (c != Object.class && seen.add(c)) {
+          final List<Entry> entries = this.entriesByHandledType.get(c);
+          if (entries != null) {
+            returnValue.addAll(entries);
+          }
+          final Class<?> superclass = c.getSuperclass();
+          if (superclass != null) {
+            queue.add(superclass);
+          }
+          queue.addAll(Arrays.asList(c.getInterfaces()));
+        }
+      }
+      final List<Entry> entries = this.entriesByHandledType.get(Object.class);
+      if (entries != null) {
+        returnValue.addAll(entries);
+      }
+      return unmodifiableList(returnValue);
+    }
+
+    private static final Class<?> box(final Class<?> primitiveType) {
+      return MethodType.methodType(primitiveType).wrap().returnType();
+    }
+
+  }
+
+}
@@ -0,0 +1,227 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.inject.Singleton;
+
+import javax.ws.rs.core.Application;
+
+/**
+ * An immutable record of what changed, as far as a {@link
+ * JaxRsExtension} is concerned, since the previous container startup
+ * that wrote the same {@linkplain
+ * JaxRsExtension#DISCOVERY_SNAPSHOT_PROPERTY_NAME discovery
+ * snapshot}.
+ *
+ * <p>A class is <em>changed</em> if its class file differs from the
+ * one recorded last time.  An {@link Application}, synthetic or
+ * otherwise, is <em>affected</em> if it is new, if it is gone, if its
+ * set of classes differs, or if any of its classes changed.</p>
+ *
+ * <p>A {@link JaxRsExtension} makes exactly one {@link
+ * RedeployReport} available as a {@link Singleton}-scoped bean when
+ * so configured.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see JaxRsExtension#DISCOVERY_SNAPSHOT_PROPERTY_NAME
+ */
+public final class RedeployReport {
+
+  private final boolean initial;
+
+  private final Set<String> addedClassNames;
+
+  private final Set<String> removedClassNames;
+
+  private final Set<String> changedClassNames;
+
+  private final int applicationCount;
+
+  private final int affectedApplicationCount;
+
+  private final int reusedApplicationCount;
+
+  RedeployReport(final DiscoverySnapshot previous, final DiscoverySnapshot current, final int reusedApplicationCount) {
+    super();
+    this.initial = previous.getHashes().isEmpty() && previous.getApplications().isEmpty();
+    final Map<String, String> previousHashes = previous.getHashes();
+    final Map<String, String> currentHashes = current.getHashes();
+    final Set<String> addedClassNames = new TreeSet<>(currentHashes.keySet());
+    addedClassNames.removeAll(previousHashes.keySet());
+    final Set<String> removedClassNames = new TreeSet<>(previousHashes.keySet());
+    removedClassNames.removeAll(currentHashes.keySet());
+    final Set<String> changedClassNames = new TreeSet<>();
+    for (final Map.Entry<String, String> entry : currentHashes.entrySet()) {
+      final String previousHash = previousHashes.get(entry.getKey());
+      if (previousHash != null && (!previousHash.equals(entry.getValue()) || "?".equals(previousHash))) {
+        changedClassNames.add(entry.getKey());
+      }
+    }
+    this.addedClassNames = Collections.unmodifiableSet(addedClassNames);
+    this.removedClassNames = Collections.unmodifiableSet(removedClassNames);
+    this.changedClassNames = Collections.unmodifiableSet(changedClassNames);
+    final Set<String> applicationKeys = current.getApplications().keySet();
+    int affectedApplicationCount = 0;
+    for (final String applicationKey : applicationKeys) {
+      if (current.isAffected(previous, applicationKey)) {
+        affectedApplicationCount++;
+      }
+    }
+    for (final String applicationKey : previous.getApplications().keySet()) {
+      if (!applicationKeys.contains(applicationKey)) {
+        affectedApplicationCount++;
+      }
+    }
+    this.applicationCount = applicationKeys.size();
+    this.affectedApplicationCount = affectedApplicationCount;
+    this.reusedApplicationCount = reusedApplicationCount;
+  }
+
+  /**
+   * Returns {@code true} if there was no previous discovery snapshot
+   * to compare with, in which case every class is {@linkplain
+   * #getAddedClassNames() added}.
+   *
+   * @return {@code true} if this is the first startup to write the
+   * discovery snapshot
+   */
+  public final boolean isInitial() {
+    return this.initial;
+  }
+
+  /**
+   * Returns an unmodifiable, sorted {@link Set} of the names of
+   * classes belonging to an {@link Application} now that did not
+   * belong to one last time.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return a non-{@code null}, unmodifiable {@link Set} of class
+   * names
+   */
+  public final Set<String> getAddedClassNames() {
+    return this.addedClassNames;
+  }
+
+  /**
+   * Returns an unmodifiable, sorted {@link Set} of the names of
+   * classes that belonged to an {@link Application} last time and
+   * belong to none now.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return a non-{@code null}, unmodifiable {@link Set} of class
+   * names
+   */
+  public final Set<String> getRemovedClassNames() {
+    return this.removedClassNames;
+  }
+
+  /**
+   * Returns an unmodifiable, sorted {@link Set} of the names of
+   * classes whose class files changed since last time.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return a non-{@code null}, unmodifiable {@link Set} of class
+   * names
+   */
+  public final Set<String> getChangedClassNames() {
+    return this.changedClassNames;
+  }
+
+  /**
+   * Returns the number of {@link Application}s, synthetic or
+   * otherwise, found during this startup.
+   *
+   * @return the number of {@link Application}s; never negative
+   */
+  public final int getApplicationCount() {
+    return this.applicationCount;
+  }
+
+  /**
+   * Returns the number of {@link Application}s, synthetic or
+   * otherwise, that were added, removed or changed since last time.
+   *
+   * @return the number of affected {@link Application}s; never
+   * negative
+   */
+  public final int getAffectedApplicationCount() {
+    return this.affectedApplicationCount;
+  }
+
+  /**
+   * Returns the number of {@link Application}s whose {@link
+   * RouteTable}s, {@link ProviderTable}s and {@link
+   * ResourceMethodInvokers} were reused from a previous startup of a
+   * container in the same virtual machine rather than recomputed.
+   *
+   * <p>Reuse requires the very same {@link Class} objects, so
+   * redeploys that reload classes with a new {@link ClassLoader}
+   * recompute them.</p>
+   *
+   * @return the number of {@link Application}s whose derived state
+   * was reused; never negative
+   */
+  public final int getReusedApplicationCount() {
+    return this.reusedApplicationCount;
+  }
+
+  /**
+   * Returns a non-{@code null} {@link String} representation of this
+   * {@link RedeployReport}.
+   *
+   * @return a non-{@code null} {@link String}
+   */
+  @Override
+  public final String toString() {
+    final StringBuilder sb = new StringBuilder();
+    if (this.initial) {
+      sb.append("Initial deployment: ")
+        .append(this.applicationCount)
+        .append(" applications, ")
+        .append(this.addedClassNames.size())
+        .append(" classes");
+    } else {
+      sb.append(this.affectedApplicationCount)
+        .append(" of ")
+        .append(this.applicationCount)
+        .append(" applications affected; ")
+        .append(this.reusedApplicationCount)
+        .append(" reused");
+      if (!this.addedClassNames.isEmpty()) {
+        sb.append(System.lineSeparator()).append("Added: ").append(this.addedClassNames);
+      }
+      if (!this.removedClassNames.isEmpty()) {
+        sb.append(System.lineSeparator()).append("Removed: ").append(this.removedClassNames);
+      }
+      if (!this.changedClassNames.isEmpty()) {
+        sb.append(System.lineSeparator()).append("Changed: ").append(this.changedClassNames);
+      }
+    }
+    return sb.toString();
+  }
+
+}
@@ -0,0 +1,170 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.util.Objects;
+
+import javax.enterprise.context.RequestScoped;
+
+import javax.enterprise.context.control.ActivateRequestContext;
+import javax.enterprise.context.control.RequestContextController;
+
+import javax.enterprise.inject.Instance;
+
+import javax.enterprise.inject.spi.BeanManager;
+
+/**
+ * Activates and deactivates the {@linkplain RequestScoped request
+ * context} around resource method invocations by way of the
+ * container's {@link RequestContextController}, much as the {@link
+ * ActivateRequestContext} interceptor does, but without requiring an
+ * intercepted method.
+ *
+ * <p>Each {@link #activate()} call acquires its own {@link
+ * RequestContextController}, which is destroyed when the resulting
+ * {@link Activation} is {@linkplain Activation#close() closed}.  The
+ * CDI specification does not promise that a {@link
+ * RequestContextController} may be reused, or used by more than one
+ * thread, so none is.</p>
+ *
+ * <p>When a request context is already active on the current thread,
+ * {@link #activate()} leaves it alone, and {@linkplain
+ * Activation#close() closing} the resulting {@link Activation} does
+ * nothing.  Otherwise closing it deactivates the request context,
+ * which destroys every request-scoped bean instance created during
+ * the request at once.</p>
+ *
+ * <p>No {@link RequestContextActivator} bean is added to the
+ * container; those who need one create it.  Instances of this class
+ * are safe for concurrent use by multiple threads.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see #activate()
+ *
+ * @see RequestContextController
+ */
+public final class RequestContextActivator {
+
+  private static final Activation NO_OP = () -> {};
+
+  private final Instance<RequestContextController> requestContextControllers;
+
+  /**
+   * Creates a new {@link RequestContextActivator}.
+   *
+   * @param beanManager the {@link BeanManager} whose container
+   * supplies {@link RequestContextController}s; must not be {@code
+   * null}
+   *
+   * @exception NullPointerException if {@code beanManager} is {@code
+   * null}
+   */
+  public RequestContextActivator(final BeanManager beanManager) {
+    this(beanManager.createInstance().select(RequestContextController.class));
+  }
+
+  RequestContextActivator(final Instance<RequestContextController> requestContextControllers) {
+    super();
+    this.requestContextControllers = Objects.requireNonNull(requestContextControllers);
+  }
+
+  /**
+   * Activates the request context on the current thread, if it is not
+   * already active, and returns an {@link Activation} that must be
+   * {@linkplain Activation#close() closed} on the same thread when
+   * the request is over.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * <p>Typical usage:</p>
+   *
+   * <blockquote><pre>try (RequestContextActivator.Activation activation = activator.activate()) {
+   *   // invoke the resource method
+   * }</pre></blockquote>
+   *
+   * @return a non-{@code null} {@link Activation}
+   */
+  public final Activation activate() {
+    final RequestContextController requestContextController = this.requestContextControllers.get();
+    final boolean activated;
+    try {
+      activated = requestContextController.activate();
+    } catch (final RuntimeException | Error throwable) {
+      this.requestContextControllers.destroy(requestContextController);
+      throw throwable;
+    }
+    if (!activated) {
+      // The request context was already active; whoever activated it
+      // will deactivate it.
+      this.requestContextControllers.destroy(requestContextController);
+      return NO_OP;
+    }
+    return new ControllerActivation(requestContextController);
+  }
+
+  /**
+   * An {@link AutoCloseable} representing the activation of a request
+   * context by a {@link RequestContextActivator}.
+   *
+   * @author <a href="https://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   *
+   * @see RequestContextActivator#activate()
+   */
+  @FunctionalInterface
+  public interface Activation extends AutoCloseable {
+
+    /**
+     * Deactivates the request context, if it was activated by the
+     * {@link RequestContextActivator#activate()} call that returned
+     * this {@link Activation}, destroying the request-scoped bean
+     * instances created within it.
+     *
+     * <p>Implementations of this method must be idempotent.</p>
+     */
+    @Override
+    public void close();
+
+  }
+
+  private final class ControllerActivation implements Activation {
+
+    private RequestContextController requestContextController;
+
+    private ControllerActivation(final RequestContextController requestContextController) {
+      super();
+      this.requestContextController = requestContextController;
+    }
+
+    @Override
+    public final void close() {
+      final RequestContextController requestContextController = this.requestContextController;
+      if (requestContextController != null) {
+        this.requestContextController = null;
+        try {
+          requestContextController.deactivate();
+        } finally {
+          requestContextControllers.destroy(requestContextController);
+        }
+      }
+    }
+
+  }
+
+}
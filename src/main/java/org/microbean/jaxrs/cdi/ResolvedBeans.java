@@ -0,0 +1,284 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.lang.annotation.Annotation;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.enterprise.inject.AmbiguousResolutionException;
+import javax.enterprise.inject.Any;
+import javax.enterprise.inject.Default;
+
+import javax.enterprise.inject.spi.Bean;
+import javax.enterprise.inject.spi.BeanManager;
+
+import javax.inject.Named;
+
+import javax.ws.rs.core.Application;
+
+/**
+ * An immutable, array-backed map from each resource class and
+ * provider class of an {@link Application} to the {@link Bean} that
+ * the {@link BeanManager} resolves for it, so that runtimes do not
+ * need to call {@link BeanManager#getBeans(java.lang.reflect.Type,
+ * Annotation...)} and {@link BeanManager#resolve(Set)} on every
+ * request.
+ *
+ * <p>A {@link ResolvedBeans} is empty until the container has
+ * validated the deployment, and never changes after that.  Its
+ * lookup methods do not allocate.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see JaxRsExtension#RESOLVED_BEANS_PROPERTY_NAME
+ */
+public final class ResolvedBeans {
+
+  private static final Logger logger = Logger.getLogger(ResolvedBeans.class.getName());
+
+  private static final Class<?>[] EMPTY_CLASSES = new Class<?>[0];
+
+  private volatile Table table;
+
+  /**
+   * Creates a new, empty {@link ResolvedBeans}.
+   */
+  ResolvedBeans() {
+    super();
+    this.table = new Table(EMPTY_CLASSES, new Bean<?>[0], null);
+  }
+
+  /**
+   * Returns the {@link Bean} resolved for the supplied resource or
+   * provider class, or {@code null} if there is no such {@link Bean}.
+   *
+   * @param <T> the type of the class
+   *
+   * @param c the resource or provider class; may be {@code null} in
+   * which case {@code null} will be returned
+   *
+   * @return a {@link Bean}, or {@code null}
+   */
+  @SuppressWarnings("unchecked")
+  public final <T> Bean<T> getBean(final Class<T> c) {
+    final Table table = this.table;
+    final int index = table.indexOf(c);
+    return index < 0 ? null : (Bean<T>)table.beans[index];
+  }
+
+  /**
+   * Returns the qualifiers of the {@link Bean} resolved for the
+   * supplied resource or provider class, or {@code null} if there is
+   * no such {@link Bean}.
+   *
+   * @param c the resource or provider class; may be {@code null} in
+   * which case {@code null} will be returned
+   *
+   * @return an unmodifiable {@link Set} of qualifier annotations, or
+   * {@code null}
+   */
+  public final Set<Annotation> getQualifiers(final Class<?> c) {
+    final Table table = this.table;
+    final int index = table.indexOf(c);
+    return index < 0 ? null : table.qualifiers[index];
+  }
+
+  /**
+   * Resolves a {@link Bean} for each of the supplied classes and
+   * makes the results available from this {@link ResolvedBeans}.
+   *
+   * <p>This method must only be called once, during or after {@code
+   * AfterDeploymentValidation}.</p>
+   *
+   * @param beanManager the {@link BeanManager} to use; must not be
+   * {@code null}
+   *
+   * @param classes the resource and provider classes of an {@link
+   * Application}; must not be {@code null}
+   *
+   * @param applicationQualifiers the qualifiers of the {@link
+   * Application}, which the {@link JaxRsExtension} gave to the beans
+   * it added for those of its classes that were not already beans;
+   * must not be {@code null}
+   *
+   * @param claimedQualifiers the declared qualifiers of the beans
+   * that were already beans and that the {@link Application} claimed,
+   * indexed by class; must not be {@code null}
+   *
+   * @exception NullPointerException if any parameter is {@code null}
+   */
+  final void resolve(final BeanManager beanManager,
+                     final Collection<? extends Class<?>> classes,
+                     final Set<? extends Annotation> applicationQualifiers,
+                     final Map<? extends Class<?>, ? extends Set<? extends Annotation>> claimedQualifiers) {
+    Objects.requireNonNull(beanManager);
+    final int capacity = Integer.highestOneBit(Math.max(1, classes.size()) * 2 - 1) << 1;
+    final Class<?>[] keys = new Class<?>[capacity];
+    final Bean<?>[] beans = new Bean<?>[capacity];
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    final Set<Annotation>[] qualifiers = new Set[capacity];
+    final Table table = new Table(keys, beans, qualifiers);
+    final Set<Annotation> addedQualifiers = getSignificantQualifiers(applicationQualifiers);
+    for (final Class<?> c : classes) {
+      final Set<? extends Annotation> declaredQualifiers = claimedQualifiers.get(c);
+      final Bean<?> bean;
+      if (declaredQualifiers == null) {
+        bean = resolve(beanManager, c, false, addedQualifiers);
+      } else {
+        bean = resolve(beanManager, c, true, getSignificantQualifiers(declaredQualifiers));
+      }
+      if (bean != null) {
+        final int index = table.slotOf(c);
+        if (keys[index] == null) {
+          keys[index] = c;
+          beans[index] = bean;
+          qualifiers[index] = Collections.unmodifiableSet(new HashSet<>(bean.getQualifiers()));
+        }
+      }
+    }
+    this.table = table;
+  }
+
+  private static final Bean<?> resolve(final BeanManager beanManager,
+                                       final Class<?> c,
+                                       final boolean claimed,
+                                       final Set<Annotation> requiredQualifiers) {
+    // The same class may be a bean several times over: once as
+    // discovered, claimed by the first Application to return it, and
+    // once more for each other Application, added by the extension
+    // with that Application's qualifiers.  Subclasses of it may be
+    // beans too.  Only consider beans of exactly this class, of the
+    // right provenance (the bean class of a bean added by the
+    // extension is the extension's class), bearing exactly the
+    // qualifiers the bean was given.
+    final Set<Bean<?>> beans = new HashSet<>();
+    for (final Bean<?> bean : beanManager.getBeans(c, Any.Literal.INSTANCE)) {
+      if ((bean.getBeanClass() == c) == claimed &&
+          isExactly(bean, c) &&
+          getSignificantQualifiers(bean.getQualifiers()).equals(requiredQualifiers)) {
+        beans.add(bean);
+      }
+    }
+    try {
+      return beanManager.resolve(beans);
+    } catch (final AmbiguousResolutionException ambiguousResolutionException) {
+      if (logger.isLoggable(Level.WARNING)) {
+        logger.logp(Level.WARNING, ResolvedBeans.class.getName(), "resolve",
+                    "Not resolving a bean for " + c + " with qualifiers " + requiredQualifiers + "; candidates: " + beans,
+                    ambiguousResolutionException);
+      }
+      return null;
+    }
+  }
+
+  private static final boolean isExactly(final Bean<?> bean, final Class<?> c) {
+    for (final Type type : bean.getTypes()) {
+      final Class<?> typeClass;
+      if (type instanceof Class) {
+        typeClass = (Class<?>)type;
+      } else if (type instanceof ParameterizedType) {
+        typeClass = (Class<?>)((ParameterizedType)type).getRawType();
+      } else {
+        continue;
+      }
+      if (typeClass != c && c.isAssignableFrom(typeClass)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static final Set<Annotation> getSignificantQualifiers(final Set<? extends Annotation> qualifiers) {
+    // These are added, removed or implied by the container or the
+    // extension, and do not tell one Application's beans from
+    // another's.
+    final Set<Annotation> returnValue = new HashSet<>();
+    for (final Annotation qualifier : qualifiers) {
+      final Class<? extends Annotation> annotationType = qualifier.annotationType();
+      if (annotationType != Any.class &&
+          annotationType != Default.class &&
+          annotationType != Named.class &&
+          annotationType != JaxRsExtension.ResourceClass.class &&
+          annotationType != JaxRsExtension.Synthetic.class) {
+        returnValue.add(qualifier);
+      }
+    }
+    return returnValue;
+  }
+
+  private static final class Table {
+
+    private final Class<?>[] keys;
+
+    private final Bean<?>[] beans;
+
+    private final Set<Annotation>[] qualifiers;
+
+    private final int mask;
+
+    private Table(final Class<?>[] keys, final Bean<?>[] beans, final Set<Annotation>[] qualifiers) {
+      super();
+      this.keys = keys;
+      this.beans = beans;
+      this.qualifiers = qualifiers;
+      this.mask = keys.length - 1;
+    }
+
+    private final int indexOf(final Class<?> c) {
+      if (c != null && this.keys.length > 0) {
+        int index = hash(c) & this.mask;
+        Class<?> key;
+        while ((key = this.keys[index]) != null) {
+          if (key == c) {
+            return index;
+          }
+          index = (index + 1) & this.mask;
+        }
+      }
+      return -1;
+    }
+
+    private final int slotOf(final Class<?> c) {
+      int index = hash(c) & this.mask;
+      Class<?> key;
+      while ((key = this.keys[index]) != null && key != c) {
+        index = (index + 1) & this.mask;
+      }
+      return index;
+    }
+
+    private static final int hash(final Class<?> c) {
+      final int h = System.identityHashCode(c);
+      return h ^ (h >>> 16);
+    }
+
+  }
+
+}
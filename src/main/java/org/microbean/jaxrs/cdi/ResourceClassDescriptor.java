@@ -0,0 +1,311 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.lang.annotation.Annotation;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.Path;
+
+/**
+ * An immutable, cached description of the resource methods,
+ * sub-resource methods and sub-resource locators of a class.
+ *
+ * <p>Descriptors are computed at most once per {@link Class} and
+ * cached with a {@link ClassValue}, as is the answer to the question
+ * of whether a given annotation type is a request method
+ * designator.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ */
+final class ResourceClassDescriptor {
+
+  private static final String NOT_A_REQUEST_METHOD_DESIGNATOR = "";
+
+  private static final ClassValue<String> requestMethodDesignators = new ClassValue<String>() {
+      @Override
+      protected final String computeValue(final Class<?> annotationType) {
+        final HttpMethod httpMethod = annotationType.getAnnotation(HttpMethod.class);
+        return httpMethod == null ? NOT_A_REQUEST_METHOD_DESIGNATOR : httpMethod.value();
+      }
+    };
+
+  private static final ClassValue<ResourceClassDescriptor> descriptors = new ClassValue<ResourceClassDescriptor>() {
+      @Override
+      protected final ResourceClassDescriptor computeValue(final Class<?> c) {
+        return new ResourceClassDescriptor(c);
+      }
+    };
+
+  private final Class<?> resourceClass;
+
+  private final String path;
+
+  private final List<ResourceMethod> resourceMethods;
+
+  private ResourceClassDescriptor(final Class<?> resourceClass) {
+    super();
+    this.resourceClass = Objects.requireNonNull(resourceClass);
+    final Path path = resourceClass.getAnnotation(Path.class);
+    this.path = path == null ? null : path.value();
+    final List<ResourceMethod> resourceMethods = new ArrayList<>();
+    for (final Method method : resourceClass.getMethods()) {
+      if (!method.isBridge() && !method.isSynthetic() && !Modifier.isStatic(method.getModifiers())) {
+        final ResourceMethod resourceMethod = ResourceMethod.of(method);
+        if (resourceMethod != null) {
+          resourceMethods.add(resourceMethod);
+        }
+      }
+    }
+    this.resourceMethods = resourceMethods.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(resourceMethods);
+  }
+
+  /**
+   * Returns the class this {@link ResourceClassDescriptor} describes.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return the non-{@code null} described class
+   */
+  final Class<?> getResourceClass() {
+    return this.resourceClass;
+  }
+
+  /**
+   * Returns the value of the {@link Path} annotation on the
+   * {@linkplain #getResourceClass() described class}, or {@code null}
+   * if it is not so annotated.
+   *
+   * @return the class-level {@link Path} template, or {@code null}
+   */
+  final String getPath() {
+    return this.path;
+  }
+
+  /**
+   * Returns an unmodifiable {@link List} of the {@link
+   * ResourceMethod}s of the {@linkplain #getResourceClass() described
+   * class}.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return a non-{@code null}, unmodifiable {@link List} of {@link
+   * ResourceMethod}s
+   */
+  final List<ResourceMethod> getResourceMethods() {
+    return this.resourceMethods;
+  }
+
+  /**
+   * Returns the (cached) {@link ResourceClassDescriptor} describing
+   * the supplied {@link Class}.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @param c the {@link Class} to describe; must not be {@code null}
+   *
+   * @return a non-{@code null} {@link ResourceClassDescriptor}
+   *
+   * @exception NullPointerException if {@code c} is {@code null}
+   */
+  static final ResourceClassDescriptor of(final Class<?> c) {
+    return descriptors.get(c);
+  }
+
+  /**
+   * Returns the HTTP method designated by the supplied annotation
+   * type, or {@code null} if the annotation type is not a request
+   * method designator.
+   *
+   * @param annotationType the annotation type to test; must not be
+   * {@code null}
+   *
+   * @return the HTTP method designated by the annotation type, or
+   * {@code null}
+   *
+   * @exception NullPointerException if {@code annotationType} is
+   * {@code null}
+   */
+  static final String getRequestMethodDesignator(final Class<? extends Annotation> annotationType) {
+    final String returnValue = requestMethodDesignators.get(annotationType);
+    return returnValue == NOT_A_REQUEST_METHOD_DESIGNATOR ? null : returnValue;
+  }
+
+  /**
+   * Returns {@code true} if the supplied annotation type is a request
+   * method designator.
+   *
+   * @param annotationType the annotation type to test; must not be
+   * {@code null}
+   *
+   * @return {@code true} if the supplied annotation type is a request
+   * method designator
+   *
+   * @exception NullPointerException if {@code annotationType} is
+   * {@code null}
+   */
+  static final boolean isRequestMethodDesignator(final Class<? extends Annotation> annotationType) {
+    return requestMethodDesignators.get(annotationType) != NOT_A_REQUEST_METHOD_DESIGNATOR;
+  }
+
+  /**
+   * Returns a {@link ResourceMethod} describing the supplied {@link
+   * Method}, taking into account any JAX-RS annotations it inherits
+   * from a superclass or interface method, or {@code null} if it is
+   * neither a resource method, a sub-resource method nor a
+   * sub-resource locator.
+   *
+   * @param method the {@link Method} to describe; must not be {@code
+   * null}
+   *
+   * @return a {@link ResourceMethod}, or {@code null}
+   *
+   * @exception NullPointerException if {@code method} is {@code
+   * null}
+   */
+  static final ResourceMethod getResourceMethod(final Method method) {
+    return ResourceMethod.of(method);
+  }
+
+  /**
+   * An immutable description of a resource method, sub-resource
+   * method or sub-resource locator.
+   *
+   * @author <a href="https://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   */
+  static final class ResourceMethod {
+
+    private final Method method;
+
+    private final String httpMethod;
+
+    private final String path;
+
+    private ResourceMethod(final Method method, final String httpMethod, final String path) {
+      super();
+      this.method = method;
+      this.httpMethod = httpMethod;
+      this.path = path;
+    }
+
+    /**
+     * Returns the {@link Method} described by this {@link
+     * ResourceMethod}.
+     *
+     * <p>This method never returns {@code null}.</p>
+     *
+     * @return the non-{@code null} {@link Method}
+     */
+    final Method getMethod() {
+      return this.method;
+    }
+
+    /**
+     * Returns the HTTP method designated by the {@linkplain
+     * #getMethod() method}, or {@code null} if it is a sub-resource
+     * locator.
+     *
+     * @return the HTTP method, or {@code null}
+     */
+    final String getHttpMethod() {
+      return this.httpMethod;
+    }
+
+    /**
+     * Returns the value of the {@link Path} annotation on the
+     * {@linkplain #getMethod() method}, or {@code null} if it is not
+     * so annotated.
+     *
+     * @return the method-level {@link Path} template, or {@code null}
+     */
+    final String getPath() {
+      return this.path;
+    }
+
+    /**
+     * Returns {@code true} if this {@link ResourceMethod} describes a
+     * sub-resource locator.
+     *
+     * @return {@code true} if this {@link ResourceMethod} describes a
+     * sub-resource locator
+     */
+    final boolean isSubResourceLocator() {
+      return this.httpMethod == null;
+    }
+
+    private static final ResourceMethod of(final Method method) {
+      // Section 3.6: JAX-RS annotations on a method are inherited
+      // from the corresponding superclass or interface method only
+      // if the method itself bears none.
+      ResourceMethod returnValue = describe(method);
+      if (returnValue == null) {
+        final Class<?> declaringClass = method.getDeclaringClass();
+        returnValue = describeInherited(method, declaringClass.getSuperclass());
+        if (returnValue == null) {
+          for (final Class<?> iface : declaringClass.getInterfaces()) {
+            returnValue = describeInherited(method, iface);
+            if (returnValue != null) {
+              break;
+            }
+          }
+        }
+      }
+      return returnValue;
+    }
+
+    private static final ResourceMethod describeInherited(final Method method, final Class<?> c) {
+      if (c == null || c == Object.class) {
+        return null;
+      }
+      final Method inherited;
+      try {
+        inherited = c.getMethod(method.getName(), method.getParameterTypes());
+      } catch (final NoSuchMethodException notInherited) {
+        return null;
+      }
+      final ResourceMethod description = of(inherited);
+      return description == null ? null : new ResourceMethod(method, description.httpMethod, description.path);
+    }
+
+    private static final ResourceMethod describe(final Method method) {
+      final Path path = method.getAnnotation(Path.class);
+      String httpMethod = null;
+      for (final Annotation annotation : method.getAnnotations()) {
+        httpMethod = getRequestMethodDesignator(annotation.annotationType());
+        if (httpMethod != null) {
+          break;
+        }
+      }
+      if (path == null && httpMethod == null) {
+        return null;
+      }
+      return new ResourceMethod(method, httpMethod, path == null ? null : path.value());
+    }
+
+  }
+
+}
@@ -0,0 +1,292 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+import java.lang.reflect.Method;
+
+import java.util.Objects;
+
+/**
+ * An immutable invoker of a single resource method, sub-resource
+ * method or sub-resource locator, built once, at container startup
+ * time, that does not use {@link Method#invoke(Object, Object...)}.
+ *
+ * <p>Non-{@code void} methods of public classes with up to three
+ * parameters, whose classes are all visible to the class loader that
+ * loaded this class, are invoked through a class spun by the {@link
+ * LambdaMetafactory}, which the JIT compiler can inline like any
+ * other call.  All other methods are invoked through a {@link
+ * MethodHandle}.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see ResourceMethodInvokers
+ */
+public final class ResourceMethodInvoker {
+
+  private final Method method;
+
+  private final Invocation invocation;
+
+  /**
+   * Creates a new {@link ResourceMethodInvoker}.
+   *
+   * @param method the public, non-static {@link Method} to invoke;
+   * must not be {@code null}
+   *
+   * @exception NullPointerException if {@code method} is {@code null}
+   *
+   * @exception IllegalAccessException if a {@link MethodHandle} for
+   * {@code method} could not be created
+   */
+  ResourceMethodInvoker(final Method method) throws IllegalAccessException {
+    super();
+    this.method = Objects.requireNonNull(method);
+    MethodHandle methodHandle;
+    boolean publiclyAccessible;
+    try {
+      methodHandle = MethodHandles.publicLookup().unreflect(method);
+      publiclyAccessible = true;
+    } catch (final IllegalAccessException nonPublicClass) {
+      // The method is public, but its declaring class is not.
+      // Suppress access checks on a copy so that the (shared) Method
+      // supplied by the caller is left alone.
+      final Method copy;
+      try {
+        copy = method.getDeclaringClass().getMethod(method.getName(), method.getParameterTypes());
+      } catch (final NoSuchMethodException noSuchMethodException) {
+        nonPublicClass.addSuppressed(noSuchMethodException);
+        throw nonPublicClass;
+      }
+      try {
+        copy.setAccessible(true);
+      } catch (final RuntimeException inaccessible) {
+        nonPublicClass.addSuppressed(inaccessible);
+        throw nonPublicClass;
+      }
+      methodHandle = MethodHandles.lookup().unreflect(copy);
+      publiclyAccessible = false;
+    }
+    final int parameterCount = method.getParameterCount();
+    Invocation invocation = null;
+    if (publiclyAccessible &&
+        parameterCount < 4 &&
+        method.getReturnType() != void.class &&
+        isVisible(method.getDeclaringClass()) &&
+        isVisible(method.getReturnType()) &&
+        isVisible(method.getParameterTypes())) {
+      invocation = spin(methodHandle, parameterCount);
+    }
+    if (invocation == null) {
+      // (R, P...)T -> (Object, Object...)Object -> (Object, Object[])Object
+      final MethodHandle spreader = methodHandle.asType(MethodType.genericMethodType(parameterCount + 1))
+        .asSpreader(Object[].class, parameterCount);
+      invocation = (r, a) -> (Object)spreader.invokeExact(r, a);
+    }
+    this.invocation = invocation;
+  }
+
+  /**
+   * Returns the {@link Method} this {@link ResourceMethodInvoker}
+   * invokes.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return the non-{@code null} {@link Method} this {@link
+   * ResourceMethodInvoker} invokes
+   */
+  public final Method getMethod() {
+    return this.method;
+  }
+
+  /**
+   * Invokes the {@linkplain #getMethod() method} on the supplied
+   * resource with the supplied arguments and returns its result,
+   * which will be {@code null} if the method's return type is {@code
+   * void}.
+   *
+   * <p>Unlike {@link Method#invoke(Object, Object...)}, this method
+   * does not wrap exceptions thrown by the resource method in an
+   * {@link java.lang.reflect.InvocationTargetException}; they are
+   * thrown as-is.</p>
+   *
+   * @param resource the resource on which to invoke the method; must
+   * not be {@code null}
+   *
+   * @param arguments the arguments; must be of the number and types
+   * the method declares; may be {@code null} only if the method has
+   * no parameters
+   *
+   * @return the result of the invocation, boxed if necessary, or
+   * {@code null}
+   *
+   * @exception NullPointerException if {@code resource} is {@code
+   * null}, or if a primitive argument is {@code null}
+   *
+   * @exception ClassCastException if {@code resource} or one of the
+   * {@code arguments} is of the wrong type
+   *
+   * @exception IllegalArgumentException if there are the wrong number
+   * of arguments
+   *
+   * @exception Throwable if the resource method throws it
+   */
+  public final Object invoke(final Object resource, final Object... arguments) throws Throwable {
+    return this.invocation.invoke(Objects.requireNonNull(resource), arguments);
+  }
+
+  /**
+   * Returns a non-{@code null} {@link String} representation of this
+   * {@link ResourceMethodInvoker}.
+   *
+   * @return a non-{@code null} {@link String}
+   */
+  @Override
+  public final String toString() {
+    return this.method.toString();
+  }
+
+  private static final Invocation spin(final MethodHandle methodHandle, final int parameterCount) {
+    final Class<?> functionalInterface;
+    switch (parameterCount) {
+    case 0:
+      functionalInterface = Invocation0.class;
+      break;
+    case 1:
+      functionalInterface = Invocation1.class;
+      break;
+    case 2:
+      functionalInterface = Invocation2.class;
+      break;
+    case 3:
+      functionalInterface = Invocation3.class;
+      break;
+    default:
+      throw new IllegalArgumentException("parameterCount: " + parameterCount);
+    }
+    final Object function;
+    try {
+      function = LambdaMetafactory.metafactory(MethodHandles.lookup(),
+                                               "invoke",
+                                               MethodType.methodType(functionalInterface),
+                                               MethodType.genericMethodType(parameterCount + 1),
+                                               methodHandle,
+                                               methodHandle.type().wrap())
+        .getTarget()
+        .invoke();
+    } catch (final Throwable notSpinnable) {
+      // Fall back to a MethodHandle.
+      return null;
+    }
+    switch (parameterCount) {
+    case 0:
+      final Invocation0 f0 = (Invocation0)function;
+      return (r, a) -> {
+        checkArity(a, 0);
+        return f0.invoke(r);
+      };
+    case 1:
+      final Invocation1 f1 = (Invocation1)function;
+      return (r, a) -> {
+        checkArity(a, 1);
+        return f1.invoke(r, a[0]);
+      };
+    case 2:
+      final Invocation2 f2 = (Invocation2)function;
+      return (r, a) -> {
+        checkArity(a, 2);
+        return f2.invoke(r, a[0], a[1]);
+      };
+    default:
+      final Invocation3 f3 = (Invocation3)function;
+      return (r, a) -> {
+        checkArity(a, 3);
+        return f3.invoke(r, a[0], a[1], a[2]);
+      };
+    }
+  }
+
+  private static final boolean isVisible(final Class<?>... classes) {
+    // A class spun by the LambdaMetafactory links against the classes
+    // it uses as if it were this class.
+    final ClassLoader classLoader = ResourceMethodInvoker.class.getClassLoader();
+    for (Class<?> c : classes) {
+      while (c.isArray()) {
+        c = c.getComponentType();
+      }
+      if (!c.isPrimitive()) {
+        try {
+          if (Class.forName(c.getName(), false, classLoader) != c) {
+            return false;
+          }
+        } catch (final ClassNotFoundException notVisible) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private static final void checkArity(final Object[] arguments, final int arity) {
+    if (arguments == null ? arity != 0 : arguments.length != arity) {
+      throw new IllegalArgumentException("expected " + arity + " arguments; got " +
+                                         (arguments == null ? 0 : arguments.length));
+    }
+  }
+
+  @FunctionalInterface
+  private interface Invocation {
+
+    Object invoke(final Object resource, final Object[] arguments) throws Throwable;
+
+  }
+
+  @FunctionalInterface
+  interface Invocation0 {
+
+    Object invoke(final Object resource);
+
+  }
+
+  @FunctionalInterface
+  interface Invocation1 {
+
+    Object invoke(final Object resource, final Object a0);
+
+  }
+
+  @FunctionalInterface
+  interface Invocation2 {
+
+    Object invoke(final Object resource, final Object a0, final Object a1);
+
+  }
+
+  @FunctionalInterface
+  interface Invocation3 {
+
+    Object invoke(final Object resource, final Object a0, final Object a1, final Object a2);
+
+  }
+
+}
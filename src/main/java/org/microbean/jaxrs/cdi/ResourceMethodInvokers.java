@@ -0,0 +1,129 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.lang.reflect.Method;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An immutable registry of {@link ResourceMethodInvoker}s for the
+ * resource methods, sub-resource methods and sub-resource locators
+ * of a set of resource classes, indexed by resource class and {@link
+ * Method}.
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see JaxRsExtension#RESOURCE_METHOD_INVOKERS_PROPERTY_NAME
+ */
+public final class ResourceMethodInvokers {
+
+  private final Map<Class<?>, Map<Method, ResourceMethodInvoker>> invokers;
+
+  private ResourceMethodInvokers(final Map<Class<?>, Map<Method, ResourceMethodInvoker>> invokers) {
+    super();
+    this.invokers = invokers;
+  }
+
+  /**
+   * Returns an unmodifiable {@link Map} of {@link
+   * ResourceMethodInvoker}s for the resource methods, sub-resource
+   * methods and sub-resource locators of the supplied resource class,
+   * indexed by {@link Method}.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @param resourceClass the resource class; may be {@code null} in
+   * which case an empty {@link Map} will be returned
+   *
+   * @return a non-{@code null}, unmodifiable {@link Map} of {@link
+   * ResourceMethodInvoker}s
+   */
+  public final Map<Method, ResourceMethodInvoker> getInvokers(final Class<?> resourceClass) {
+    final Map<Method, ResourceMethodInvoker> returnValue = this.invokers.get(resourceClass);
+    return returnValue == null ? Collections.emptyMap() : returnValue;
+  }
+
+  /**
+   * Returns the {@link ResourceMethodInvoker} for the supplied {@link
+   * Method} as it applies to the supplied resource class, or {@code
+   * null} if there is no such {@link ResourceMethodInvoker}.
+   *
+   * <p>The resource class matters because a {@link Method} may be
+   * declared by a superclass or interface of the resource class that
+   * is itself not a resource class.</p>
+   *
+   * @param resourceClass the resource class; may be {@code null} in
+   * which case {@code null} will be returned
+   *
+   * @param method the {@link Method}; may be {@code null} in which
+   * case {@code null} will be returned
+   *
+   * @return a {@link ResourceMethodInvoker}, or {@code null}
+   */
+  public final ResourceMethodInvoker getInvoker(final Class<?> resourceClass, final Method method) {
+    return this.getInvokers(resourceClass).get(method);
+  }
+
+  /**
+   * Returns a new {@link ResourceMethodInvokers} holding a {@link
+   * ResourceMethodInvoker} for every resource method, sub-resource
+   * method and sub-resource locator of each of the supplied classes.
+   *
+   * <p>Classes without such methods, such as provider classes, are
+   * ignored.</p>
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @param classes the resource and provider classes of an {@link
+   * javax.ws.rs.core.Application}; may be {@code null}
+   *
+   * @return a new, non-{@code null} {@link ResourceMethodInvokers}
+   *
+   * @exception IllegalArgumentException if a resource method could
+   * not be made invocable
+   */
+  static final ResourceMethodInvokers of(final Collection<? extends Class<?>> classes) {
+    final Map<Class<?>, Map<Method, ResourceMethodInvoker>> invokers = new HashMap<>();
+    if (classes != null) {
+      for (final Class<?> c : classes) {
+        if (c != null) {
+          final Collection<ResourceClassDescriptor.ResourceMethod> resourceMethods =
+            ResourceClassDescriptor.of(c).getResourceMethods();
+          if (!resourceMethods.isEmpty()) {
+            final Map<Method, ResourceMethodInvoker> map = new HashMap<>();
+            for (final ResourceClassDescriptor.ResourceMethod resourceMethod : resourceMethods) {
+              final Method method = resourceMethod.getMethod();
+              try {
+                map.put(method, new ResourceMethodInvoker(method));
+              } catch (final IllegalAccessException illegalAccessException) {
+                throw new IllegalArgumentException(method.toString(), illegalAccessException);
+              }
+            }
+            invokers.put(c, Collections.unmodifiableMap(map));
+          }
+        }
+      }
+    }
+    return new ResourceMethodInvokers(invokers);
+  }
+
+}
@@ -0,0 +1,399 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.lang.reflect.Method;
+
+import java.time.Duration;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.inject.Singleton;
+
+/**
+ * Invocation counts, error counts and latency histograms for each
+ * resource method invoked through a {@link Metered} bean.
+ *
+ * <p>Recording an invocation does not lock and, once a resource
+ * method has been invoked once, does not allocate.  Each count is a
+ * {@link LongAdder}, and each histogram is a fixed array of them, one
+ * per log-linear bucket: four buckets per power of two of
+ * nanoseconds, from one microsecond to just over a minute.</p>
+ *
+ * <p>A {@link JaxRsExtension} makes exactly one {@link
+ * ResourceMethodMetrics} available as a {@link Singleton}-scoped bean
+ * when so configured.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see JaxRsExtension#RESOURCE_METHOD_METRICS_PROPERTY_NAME
+ *
+ * @see MetricsInterceptor
+ */
+public final class ResourceMethodMetrics implements ResourceMethodMetricsMXBean {
+
+  // Durations below 2^MIN_EXPONENT nanoseconds fall into bucket 0;
+  // durations of 2^MAX_EXPONENT nanoseconds or more fall into the
+  // last bucket.
+  private static final int MIN_EXPONENT = 10;
+
+  private static final int MAX_EXPONENT = 36;
+
+  private static final int SUB_BUCKET_BITS = 2;
+
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  /**
+   * The number of buckets in each {@linkplain Entry#getHistogram()
+   * histogram}.
+   */
+  public static final int BUCKET_COUNT = 1 + (MAX_EXPONENT - MIN_EXPONENT) * SUB_BUCKETS + 1;
+
+  private static final Entry NOT_A_RESOURCE_METHOD = new Entry(null);
+
+  private final Map<Method, Entry> entries;
+
+  ResourceMethodMetrics() {
+    super();
+    this.entries = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Returns the {@link Entry} for the supplied {@link Method}, creating
+   * it if necessary, or {@code null} if the supplied {@link Method}
+   * is not a resource method.
+   *
+   * @param method the {@link Method}; must not be {@code null}
+   *
+   * @return an {@link Entry}, or {@code null}
+   *
+   * @exception NullPointerException if {@code method} is {@code
+   * null}
+   */
+  final Entry entry(final Method method) {
+    Entry entry = this.entries.get(method);
+    if (entry == null) {
+      entry = this.entries.computeIfAbsent(method, m -> isResourceMethod(m) ? new Entry(m) : NOT_A_RESOURCE_METHOD);
+    }
+    return entry == NOT_A_RESOURCE_METHOD ? null : entry;
+  }
+
+  /**
+   * Returns the {@link Entry} for the supplied resource method, or
+   * {@code null} if it has never been invoked.
+   *
+   * @param method the resource method; may be {@code null} in which
+   * case {@code null} will be returned
+   *
+   * @return an {@link Entry}, or {@code null}
+   */
+  public final Entry getEntry(final Method method) {
+    final Entry entry = method == null ? null : this.entries.get(method);
+    return entry == NOT_A_RESOURCE_METHOD ? null : entry;
+  }
+
+  /**
+   * Returns an unmodifiable snapshot of the resource methods that
+   * have been invoked so far.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return a non-{@code null}, unmodifiable {@link Set} of {@link
+   * Method}s
+   */
+  public final Set<Method> getMethods() {
+    final Set<Method> returnValue = new HashSet<>();
+    for (final Entry entry : this.entries.values()) {
+      if (entry != NOT_A_RESOURCE_METHOD) {
+        returnValue.add(entry.method);
+      }
+    }
+    return Collections.unmodifiableSet(returnValue);
+  }
+
+  @Override
+  public final Map<String, Long> getInvocationCounts() {
+    final Map<String, Long> returnValue = new LinkedHashMap<>();
+    for (final Entry entry : this.entries.values()) {
+      if (entry != NOT_A_RESOURCE_METHOD) {
+        returnValue.put(entry.name, entry.getInvocationCount());
+      }
+    }
+    return returnValue;
+  }
+
+  @Override
+  public final Map<String, Long> getErrorCounts() {
+    final Map<String, Long> returnValue = new LinkedHashMap<>();
+    for (final Entry entry : this.entries.values()) {
+      if (entry != NOT_A_RESOURCE_METHOD) {
+        returnValue.put(entry.name, entry.getErrorCount());
+      }
+    }
+    return returnValue;
+  }
+
+  @Override
+  public final Map<String, Long> getP99Nanos() {
+    final Map<String, Long> returnValue = new LinkedHashMap<>();
+    for (final Entry entry : this.entries.values()) {
+      if (entry != NOT_A_RESOURCE_METHOD) {
+        returnValue.put(entry.name, entry.getPercentile(0.99).toNanos());
+      }
+    }
+    return returnValue;
+  }
+
+  /**
+   * Returns the index of the histogram bucket into which the supplied
+   * duration falls.
+   *
+   * @param nanos a duration in nanoseconds
+   *
+   * @return a bucket index, greater than or equal to {@code 0} and
+   * less than {@link #BUCKET_COUNT}
+   */
+  static final int bucketOf(final long nanos) {
+    if (nanos < (1L << MIN_EXPONENT)) {
+      return 0;
+    }
+    final int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+    if (exponent >= MAX_EXPONENT) {
+      return BUCKET_COUNT - 1;
+    }
+    final int subBucket = (int)(nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return 1 + (exponent - MIN_EXPONENT) * SUB_BUCKETS + subBucket;
+  }
+
+  /**
+   * Returns the exclusive upper bound, in nanoseconds, of the
+   * durations recorded in the histogram bucket with the supplied
+   * index, or {@link Long#MAX_VALUE} for the last bucket.
+   *
+   * @param bucket the index of a histogram bucket; must be greater
+   * than or equal to {@code 0} and less than {@link #BUCKET_COUNT}
+   *
+   * @return the exclusive upper bound of the bucket, in nanoseconds
+   *
+   * @exception IndexOutOfBoundsException if {@code bucket} is out of
+   * range
+   */
+  public static final long getBucketUpperBound(final int bucket) {
+    if (bucket < 0 || bucket >= BUCKET_COUNT) {
+      throw new IndexOutOfBoundsException(String.valueOf(bucket));
+    } else if (bucket == 0) {
+      return 1L << MIN_EXPONENT;
+    } else if (bucket == BUCKET_COUNT - 1) {
+      return Long.MAX_VALUE;
+    }
+    final int exponent = MIN_EXPONENT + (bucket - 1) / SUB_BUCKETS;
+    final int subBucket = (bucket - 1) % SUB_BUCKETS;
+    return (1L << exponent) + ((subBucket + 1L) << (exponent - SUB_BUCKET_BITS));
+  }
+
+  private static final boolean isResourceMethod(final Method method) {
+    // The request method designator may be inherited from an
+    // overridden or implemented method.
+    final ResourceClassDescriptor.ResourceMethod resourceMethod = ResourceClassDescriptor.getResourceMethod(method);
+    return resourceMethod != null && !resourceMethod.isSubResourceLocator();
+  }
+
+  /**
+   * The metrics recorded for a single resource method.
+   *
+   * @author <a href="https://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   */
+  public static final class Entry {
+
+    private final Method method;
+
+    private final String name;
+
+    private final LongAdder invocations;
+
+    private final LongAdder errors;
+
+    private final LongAdder totalNanos;
+
+    private final LongAdder[] histogram;
+
+    private Entry(final Method method) {
+      super();
+      this.method = method;
+      this.name = method == null ? null : getName(method);
+      this.invocations = new LongAdder();
+      this.errors = new LongAdder();
+      this.totalNanos = new LongAdder();
+      this.histogram = new LongAdder[BUCKET_COUNT];
+      for (int i = 0; i < this.histogram.length; i++) {
+        this.histogram[i] = new LongAdder();
+      }
+    }
+
+    private static final String getName(final Method method) {
+      // Include the parameter types so that overloads are told apart.
+      final StringBuilder sb = new StringBuilder(method.getDeclaringClass().getName()).append('#').append(method.getName()).append('(');
+      final Class<?>[] parameterTypes = method.getParameterTypes();
+      for (int i = 0; i < parameterTypes.length; i++) {
+        if (i > 0) {
+          sb.append(',');
+        }
+        sb.append(parameterTypes[i].getTypeName());
+      }
+      return sb.append(')').toString();
+    }
+
+    /**
+     * Records a single invocation of the resource method.
+     *
+     * @param nanos how long the invocation took, in nanoseconds
+     *
+     * @param error whether the invocation threw an exception
+     */
+    final void record(final long nanos, final boolean error) {
+      this.invocations.increment();
+      if (error) {
+        this.errors.increment();
+      }
+      this.totalNanos.add(nanos);
+      this.histogram[bucketOf(nanos)].increment();
+    }
+
+    /**
+     * Returns the resource method.
+     *
+     * <p>This method never returns {@code null}.</p>
+     *
+     * @return the non-{@code null} resource method
+     */
+    public final Method getMethod() {
+      return this.method;
+    }
+
+    /**
+     * Returns the number of times the resource method has been
+     * invoked.
+     *
+     * @return the number of invocations; never negative
+     */
+    public final long getInvocationCount() {
+      return this.invocations.sum();
+    }
+
+    /**
+     * Returns the number of times the resource method has thrown an
+     * exception.
+     *
+     * @return the number of errors; never negative
+     */
+    public final long getErrorCount() {
+      return this.errors.sum();
+    }
+
+    /**
+     * Returns the total time spent in the resource method.
+     *
+     * <p>This method never returns {@code null}.</p>
+     *
+     * @return a non-{@code null}, non-negative {@link Duration}
+     */
+    public final Duration getTotalDuration() {
+      return Duration.ofNanos(this.totalNanos.sum());
+    }
+
+    /**
+     * Returns a snapshot of the latency histogram of the resource
+     * method, whose elements are the number of invocations that fell
+     * into the bucket with that index.
+     *
+     * <p>This method never returns {@code null}.</p>
+     *
+     * @return a new, non-{@code null} array of {@link #BUCKET_COUNT}
+     * counts
+     *
+     * @see ResourceMethodMetrics#getBucketUpperBound(int)
+     */
+    public final long[] getHistogram() {
+      final long[] returnValue = new long[this.histogram.length];
+      for (int i = 0; i < returnValue.length; i++) {
+        returnValue[i] = this.histogram[i].sum();
+      }
+      return returnValue;
+    }
+
+    /**
+     * Returns an upper bound on the supplied percentile of the
+     * latencies of the resource method, accurate to within the width
+     * of a histogram bucket.
+     *
+     * <p>This method never returns {@code null}.</p>
+     *
+     * @param percentile a number greater than {@code 0.0} and less
+     * than or equal to {@code 1.0}
+     *
+     * @return a non-{@code null} {@link Duration}; {@link
+     * Duration#ZERO} if there have been no invocations
+     *
+     * @exception IllegalArgumentException if {@code percentile} is
+     * out of range
+     */
+    public final Duration getPercentile(final double percentile) {
+      if (percentile <= 0.0 || percentile > 1.0) {
+        throw new IllegalArgumentException("percentile: " + percentile);
+      }
+      final long[] histogram = this.getHistogram();
+      long total = 0L;
+      for (final long count : histogram) {
+        total += count;
+      }
+      if (total > 0L) {
+        final long rank = (long)Math.ceil(percentile * total);
+        long seen = 0L;
+        for (int i = 0; i < histogram.length; i++) {
+          seen += histogram[i];
+          if (seen >= rank) {
+            return Duration.ofNanos(getBucketUpperBound(i));
+          }
+        }
+      }
+      return Duration.ZERO;
+    }
+
+    /**
+     * Returns a non-{@code null} {@link String} representation of
+     * this {@link Entry}.
+     *
+     * @return a non-{@code null} {@link String}
+     */
+    @Override
+    public final String toString() {
+      return this.name + ": " + this.getInvocationCount() + " invocations, " + this.getErrorCount() + " errors";
+    }
+
+  }
+
+}
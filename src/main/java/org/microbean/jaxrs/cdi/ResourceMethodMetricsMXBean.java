@@ -0,0 +1,62 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.util.Map;
+
+/**
+ * The JMX management interface of {@link ResourceMethodMetrics}.
+ *
+ * <p>Each {@link Map} returned by an implementation of this
+ * interface is keyed by the name of a resource method, in the form
+ * <code><em>className</em>#<em>methodName</em>(<em>parameterTypes</em>)</code>,
+ * such as {@code com.example.Greetings#greet(java.lang.String,int)},
+ * so overloaded resource methods are represented separately.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see ResourceMethodMetrics
+ *
+ * @see JaxRsExtension#RESOURCE_METHOD_METRICS_JMX_PROPERTY_NAME
+ */
+public interface ResourceMethodMetricsMXBean {
+
+  /**
+   * Returns the number of invocations of each resource method.
+   *
+   * @return a non-{@code null} {@link Map}
+   */
+  Map<String, Long> getInvocationCounts();
+
+  /**
+   * Returns the number of invocations of each resource method that
+   * threw an exception.
+   *
+   * @return a non-{@code null} {@link Map}
+   */
+  Map<String, Long> getErrorCounts();
+
+  /**
+   * Returns an upper bound on the 99th percentile latency, in
+   * nanoseconds, of each resource method.
+   *
+   * @return a non-{@code null} {@link Map}
+   */
+  Map<String, Long> getP99Nanos();
+
+}
@@ -0,0 +1,653 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.io.InputStream;
+import java.io.Reader;
+
+import java.lang.annotation.Annotation;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.enterprise.context.ConversationScoped;
+import javax.enterprise.context.RequestScoped;
+import javax.enterprise.context.SessionScoped;
+
+import javax.enterprise.inject.AmbiguousResolutionException;
+
+import javax.enterprise.inject.spi.Bean;
+import javax.enterprise.inject.spi.BeanManager;
+import javax.enterprise.inject.spi.InjectionPoint;
+
+import javax.inject.Singleton;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.HttpMethod;
+
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+
+/**
+ * A bounded cache of the results of {@link Cacheable} {@link GET}
+ * resource methods, keyed by bean class, resource method and
+ * arguments, whose entries expire after their method's {@linkplain Cacheable#maxAge()
+ * maximum age}.
+ *
+ * <p>The cache is bounded by an estimate of the memory its results
+ * occupy: a {@link CharSequence} weighs two bytes per character and
+ * a {@code byte[]} one byte per element, plus fixed overheads; any
+ * other result weighs a nominal {@value #NOMINAL_WEIGHT} bytes.  When
+ * the total exceeds the {@linkplain #getMaximumWeight() maximum},
+ * entries that have not been read since the last eviction pass are
+ * evicted first.  Reading an entry does not lock.</p>
+ *
+ * <p>When several threads miss on the same key at once, only one of
+ * them invokes the resource method; the others wait for its
+ * result.</p>
+ *
+ * <p>Results of type {@link Response}, {@link CompletionStage},
+ * {@link InputStream}, {@link Reader} and {@link StreamingOutput} are
+ * never cached, since they cannot safely be returned more than once.
+ * Other results are not copied: every caller is handed the same
+ * object, so they must be immutable, or at least never modified once
+ * returned.</p>
+ *
+ * <p>Results must not depend on request state that is not reflected
+ * in the resource method's arguments.  This cannot be enforced in
+ * general, but a resource method is never cached if any of its
+ * parameters is annotated with {@link Context}, since {@link
+ * javax.ws.rs.core.SecurityContext}, {@link
+ * javax.ws.rs.core.HttpHeaders}, {@link javax.ws.rs.core.UriInfo} and
+ * the like are shared proxies that compare equal across requests.  For
+ * the same reason no resource method of a bean is cached if the bean
+ * has a field or method annotated with {@link Context}, or an
+ * injection point that resolves to a {@link RequestScoped}, {@link
+ * SessionScoped} or {@link ConversationScoped} bean.  A warning is
+ * logged once for each refused method or bean.</p>
+ *
+ * <p>A {@link JaxRsExtension} makes exactly one {@link ResponseCache}
+ * available as a {@link Singleton}-scoped bean when so
+ * configured.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see JaxRsExtension#RESPONSE_CACHE_PROPERTY_NAME
+ *
+ * @see ResponseCacheInterceptor
+ */
+public final class ResponseCache {
+
+  /**
+   * The weight, in bytes, of a result whose size this {@link
+   * ResponseCache} cannot estimate.
+   */
+  public static final long NOMINAL_WEIGHT = 64L;
+
+  private static final long ENTRY_OVERHEAD = 96L;
+
+  private static final Object NULL = new Object();
+
+  private static final Object UNCACHEABLE = new Object();
+
+  private static final long NOT_CACHEABLE = -1L;
+
+  private static final Logger logger = Logger.getLogger(ResponseCache.class.getName());
+
+  private final long maximumWeight;
+
+  private final Map<Bean<?>, Boolean> acceptedBeans;
+
+  private final Map<Class<?>, Map<Method, Long>> maxAges;
+
+  private final Map<Key, Entry> entries;
+
+  private final AtomicLong weight;
+
+  private final LongAdder hits;
+
+  private final LongAdder misses;
+
+  private final LongAdder evictions;
+
+  private final Object evictionLock;
+
+  /**
+   * Creates a new {@link ResponseCache}.
+   *
+   * @param maximumWeight the approximate maximum number of bytes the
+   * cached results may occupy; must be positive
+   *
+   * @exception IllegalArgumentException if {@code maximumWeight} is
+   * not positive
+   */
+  ResponseCache(final long maximumWeight) {
+    super();
+    if (maximumWeight <= 0L) {
+      throw new IllegalArgumentException("maximumWeight: " + maximumWeight);
+    }
+    this.maximumWeight = maximumWeight;
+    this.acceptedBeans = new ConcurrentHashMap<>();
+    this.maxAges = new ConcurrentHashMap<>();
+    this.entries = new ConcurrentHashMap<>();
+    this.weight = new AtomicLong();
+    this.hits = new LongAdder();
+    this.misses = new LongAdder();
+    this.evictions = new LongAdder();
+    this.evictionLock = new Object();
+  }
+
+  /**
+   * Returns the approximate maximum number of bytes the cached
+   * results may occupy.
+   *
+   * @return the maximum weight
+   */
+  public final long getMaximumWeight() {
+    return this.maximumWeight;
+  }
+
+  /**
+   * Returns the approximate number of bytes the cached results
+   * currently occupy.
+   *
+   * @return the current weight
+   */
+  public final long getWeight() {
+    return this.weight.get();
+  }
+
+  /**
+   * Returns the number of entries currently cached, including those
+   * that have expired but have not yet been removed.
+   *
+   * @return the number of entries
+   */
+  public final int size() {
+    return this.entries.size();
+  }
+
+  /**
+   * Returns the number of invocations that were served from this
+   * {@link ResponseCache}.
+   *
+   * @return the number of hits
+   */
+  public final long getHitCount() {
+    return this.hits.sum();
+  }
+
+  /**
+   * Returns the number of invocations of {@link Cacheable} resource
+   * methods that could not be served from this {@link ResponseCache}.
+   *
+   * @return the number of misses
+   */
+  public final long getMissCount() {
+    return this.misses.sum();
+  }
+
+  /**
+   * Returns the number of entries evicted to keep this {@link
+   * ResponseCache} within its {@linkplain #getMaximumWeight() maximum
+   * weight}.
+   *
+   * @return the number of evictions
+   */
+  public final long getEvictionCount() {
+    return this.evictions.sum();
+  }
+
+  /**
+   * Removes all cached results of the supplied resource method.
+   *
+   * @param method the resource method; may be {@code null} in which
+   * case no action is taken
+   */
+  public final void invalidate(final Method method) {
+    if (method != null) {
+      final Iterator<Entry> iterator = this.entries.values().iterator();
+      while (iterator.hasNext()) {
+        final Entry entry = iterator.next();
+        if (entry.key.method.equals(method)) {
+          this.remove(entry);
+        }
+      }
+    }
+  }
+
+  /**
+   * Removes all cached results.
+   */
+  public final void invalidateAll() {
+    for (final Entry entry : this.entries.values()) {
+      this.remove(entry);
+    }
+  }
+
+  /**
+   * Returns {@code true} if the resource methods of the supplied
+   * {@link Bean} may be cached at all, i.e. if neither it nor the
+   * supplied class has any means of reaching per-request state other
+   * than its resource methods' arguments.
+   *
+   * <p>The first time this method returns {@code false} for a given
+   * {@link Bean} it logs a warning saying why.</p>
+   *
+   * @param bean the {@link Bean} whose resource methods are invoked;
+   * must not be {@code null}
+   *
+   * @param beanClass the class of the {@link Bean}'s instances; must
+   * not be {@code null}
+   *
+   * @param beanManager the {@link BeanManager} used to resolve the
+   * {@link Bean}'s injection points; must not be {@code null}
+   *
+   * @return {@code true} if the resource methods of the supplied
+   * {@link Bean} may be cached
+   *
+   * @exception NullPointerException if any parameter is {@code null}
+   */
+  final boolean accepts(final Bean<?> bean, final Class<?> beanClass, final BeanManager beanManager) {
+    Boolean accepted = this.acceptedBeans.get(bean);
+    if (accepted == null) {
+      accepted = this.acceptedBeans.computeIfAbsent(bean, b -> {
+          final String reason = getRejectionReason(b, beanClass, beanManager);
+          if (reason == null) {
+            return Boolean.TRUE;
+          }
+          if (logger.isLoggable(Level.WARNING)) {
+            logger.logp(Level.WARNING, ResponseCache.class.getName(), "accepts",
+                        "Not caching the resource methods of " + beanClass.getName() + ": " + reason);
+          }
+          return Boolean.FALSE;
+        });
+    }
+    return accepted.booleanValue();
+  }
+
+  /**
+   * Returns the cached result of invoking the supplied resource
+   * method with the supplied arguments, or the result of calling the
+   * supplied {@link Invocation} if there is no such result, caching
+   * it if possible.
+   *
+   * @param beanClass the class of the instance on which the resource
+   * method is invoked, whose {@link Cacheable} annotation, if any,
+   * applies when the method has none; must not be {@code null}
+   *
+   * @param method the resource method; must not be {@code null}
+   *
+   * @param arguments the arguments; may be {@code null}
+   *
+   * @param invocation the {@link Invocation} that actually invokes
+   * the resource method; must not be {@code null}
+   *
+   * @return the result, which may be {@code null}
+   *
+   * @exception NullPointerException if {@code beanClass}, {@code
+   * method} or {@code invocation} is {@code null}
+   *
+   * @exception Exception if {@code invocation} throws an {@link
+   * Exception}
+   */
+  final Object get(final Class<?> beanClass,
+                   final Method method,
+                   final Object[] arguments,
+                   final Invocation invocation) throws Exception {
+    final long maxAgeNanos = this.getMaxAgeNanos(beanClass, method);
+    if (maxAgeNanos == NOT_CACHEABLE) {
+      return invocation.proceed();
+    }
+    final Key key = new Key(beanClass, method, arguments == null ? new Object[0] : arguments.clone());
+    while (true) {
+      Entry entry = this.entries.get(key);
+      if (entry != null) {
+        if (entry.isExpired(System.nanoTime())) {
+          this.remove(entry);
+          continue;
+        }
+        final Object value = entry.await();
+        if (value == UNCACHEABLE) {
+          // Another thread got there first with a result that could
+          // not be cached, or with an exception.
+          this.misses.increment();
+          return invocation.proceed();
+        }
+        entry.referenced = true;
+        this.hits.increment();
+        return value == NULL ? null : value;
+      }
+      entry = new Entry(key, System.nanoTime() + maxAgeNanos);
+      if (this.entries.putIfAbsent(key, entry) != null) {
+        continue;
+      }
+      this.misses.increment();
+      final Object value;
+      try {
+        value = invocation.proceed();
+      } catch (final Exception | Error throwable) {
+        this.entries.remove(key, entry);
+        entry.future.complete(UNCACHEABLE);
+        throw throwable;
+      }
+      if (isCacheable(value)) {
+        final long weight = ENTRY_OVERHEAD + weigh(value);
+        entry.weight.set(weight);
+        this.weight.addAndGet(weight);
+        if (this.entries.get(key) != entry) {
+          // Invalidated while the resource method ran; whichever of
+          // remove() and this takes the weight back subtracts it.
+          this.weight.addAndGet(-entry.weight.getAndSet(0L));
+        }
+        entry.future.complete(value == null ? NULL : value);
+        if (this.weight.get() > this.maximumWeight) {
+          this.evict();
+        }
+      } else {
+        this.entries.remove(key, entry);
+        entry.future.complete(UNCACHEABLE);
+      }
+      return value;
+    }
+  }
+
+  private final long getMaxAgeNanos(final Class<?> beanClass, final Method method) {
+    Map<Method, Long> maxAges = this.maxAges.get(beanClass);
+    if (maxAges == null) {
+      maxAges = this.maxAges.computeIfAbsent(beanClass, c -> new ConcurrentHashMap<>());
+    }
+    Long maxAge = maxAges.get(method);
+    if (maxAge == null) {
+      maxAge = maxAges.computeIfAbsent(method, m -> {
+          // @GET may be inherited from an overridden or implemented
+          // method.
+          final ResourceClassDescriptor.ResourceMethod resourceMethod = ResourceClassDescriptor.getResourceMethod(m);
+          if (resourceMethod == null || !HttpMethod.GET.equals(resourceMethod.getHttpMethod())) {
+            return NOT_CACHEABLE;
+          }
+          if (hasContextParameter(m)) {
+            if (logger.isLoggable(Level.WARNING)) {
+              logger.logp(Level.WARNING, ResponseCache.class.getName(), "getMaxAgeNanos",
+                          "Not caching " + m + ": it has a @Context parameter");
+            }
+            return NOT_CACHEABLE;
+          }
+          // The bean class, not the method's declaring class, so that
+          // a subclass's @Cacheable applies to inherited methods.
+          // @Cacheable is @Inherited, so container-generated
+          // subclasses of the bean class see it too.
+          Cacheable cacheable = m.getAnnotation(Cacheable.class);
+          if (cacheable == null) {
+            cacheable = beanClass.getAnnotation(Cacheable.class);
+          }
+          final long seconds = cacheable == null ? Cacheable.Literal.INSTANCE.maxAge() : cacheable.maxAge();
+          return seconds > 0L ? TimeUnit.SECONDS.toNanos(seconds) : NOT_CACHEABLE;
+        });
+    }
+    return maxAge.longValue();
+  }
+
+  private final boolean remove(final Entry entry) {
+    if (this.entries.remove(entry.key, entry)) {
+      this.weight.addAndGet(-entry.weight.getAndSet(0L));
+      return true;
+    }
+    return false;
+  }
+
+  private final void evict() {
+    synchronized (this.evictionLock) {
+      final long now = System.nanoTime();
+      // A second-chance (CLOCK) sweep: expired and unreferenced
+      // entries go; referenced ones lose their reference bit and are
+      // reconsidered on the next pass.
+      for (int pass = 0; pass < 2 && this.weight.get() > this.maximumWeight; pass++) {
+        final Iterator<Entry> iterator = this.entries.values().iterator();
+        while (iterator.hasNext() && this.weight.get() > this.maximumWeight) {
+          final Entry entry = iterator.next();
+          if (entry.future.isDone()) {
+            if (entry.referenced && !entry.isExpired(now)) {
+              entry.referenced = false;
+            } else if (this.remove(entry)) {
+              this.evictions.increment();
+            }
+          }
+        }
+      }
+    }
+  }
+
+  private static final boolean hasContextParameter(final Method method) {
+    for (final Annotation[] parameterAnnotations : method.getParameterAnnotations()) {
+      for (final Annotation parameterAnnotation : parameterAnnotations) {
+        if (parameterAnnotation.annotationType() == Context.class) {
+          return true;
+        }
+      }
+    }
+    // Parameter annotations are inherited along with the method's
+    // JAX-RS annotations; err on the side of not caching.
+    final Class<?> declaringClass = method.getDeclaringClass();
+    if (hasContextParameter(method, declaringClass.getSuperclass())) {
+      return true;
+    }
+    for (final Class<?> iface : declaringClass.getInterfaces()) {
+      if (hasContextParameter(method, iface)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static final boolean hasContextParameter(final Method method, final Class<?> c) {
+    if (c == null || c == Object.class) {
+      return false;
+    }
+    final Method inherited;
+    try {
+      inherited = c.getMethod(method.getName(), method.getParameterTypes());
+    } catch (final NoSuchMethodException notInherited) {
+      return false;
+    }
+    return hasContextParameter(inherited);
+  }
+
+  private static final String getRejectionReason(final Bean<?> bean, final Class<?> beanClass, final BeanManager beanManager) {
+    for (Class<?> c = beanClass; c != null && c != Object.class; c = c.getSuperclass()) {
+      for (final Field field : c.getDeclaredFields()) {
+        if (field.isAnnotationPresent(Context.class)) {
+          return "field " + field.getName() + " is annotated with @Context";
+        }
+      }
+      for (final Method method : c.getDeclaredMethods()) {
+        if (method.isAnnotationPresent(Context.class)) {
+          return "method " + method.getName() + " is annotated with @Context";
+        }
+      }
+    }
+    for (final InjectionPoint injectionPoint : bean.getInjectionPoints()) {
+      final Type type = injectionPoint.getType();
+      final Type rawType = type instanceof ParameterizedType ? ((ParameterizedType)type).getRawType() : type;
+      if (rawType == InjectionPoint.class) {
+        continue;
+      }
+      final Set<Annotation> qualifiers = injectionPoint.getQualifiers();
+      final Bean<?> dependency;
+      try {
+        dependency = beanManager.resolve(beanManager.getBeans(type, qualifiers.toArray(new Annotation[qualifiers.size()])));
+      } catch (final AmbiguousResolutionException ambiguousResolutionException) {
+        continue;
+      }
+      if (dependency != null) {
+        final Class<? extends Annotation> scope = dependency.getScope();
+        if (scope == RequestScoped.class || scope == SessionScoped.class || scope == ConversationScoped.class) {
+          return "injection point of type " + type.getTypeName() + " resolves to a @" + scope.getSimpleName() + " bean";
+        }
+      }
+    }
+    return null;
+  }
+
+  private static final boolean isCacheable(final Object value) {
+    return
+      !(value instanceof Response) &&
+      !(value instanceof CompletionStage) &&
+      !(value instanceof InputStream) &&
+      !(value instanceof Reader) &&
+      !(value instanceof StreamingOutput);
+  }
+
+  private static final long weigh(final Object value) {
+    if (value instanceof CharSequence) {
+      return 40L + 2L * ((CharSequence)value).length();
+    } else if (value instanceof byte[]) {
+      return 16L + ((byte[])value).length;
+    }
+    return NOMINAL_WEIGHT;
+  }
+
+  /**
+   * An invocation of a resource method.
+   *
+   * @author <a href="https://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   */
+  @FunctionalInterface
+  static interface Invocation {
+
+    /**
+     * Invokes the resource method and returns its result.
+     *
+     * @return the result, which may be {@code null}
+     *
+     * @exception Exception if the resource method throws an {@link
+     * Exception}
+     */
+    Object proceed() throws Exception;
+
+  }
+
+  private static final class Key {
+
+    private final Class<?> beanClass;
+
+    private final Method method;
+
+    private final Object[] arguments;
+
+    private final int hashCode;
+
+    private Key(final Class<?> beanClass, final Method method, final Object[] arguments) {
+      super();
+      this.beanClass = beanClass;
+      this.method = method;
+      this.arguments = arguments;
+      this.hashCode = 31 * (31 * beanClass.hashCode() + method.hashCode()) + Arrays.deepHashCode(arguments);
+    }
+
+    @Override
+    public final int hashCode() {
+      return this.hashCode;
+    }
+
+    @Override
+    public final boolean equals(final Object other) {
+      if (other == this) {
+        return true;
+      } else if (other instanceof Key) {
+        final Key her = (Key)other;
+        return
+          this.hashCode == her.hashCode &&
+          this.beanClass == her.beanClass &&
+          this.method.equals(her.method) &&
+          Arrays.deepEquals(this.arguments, her.arguments);
+      } else {
+        return false;
+      }
+    }
+
+  }
+
+  private static final class Entry {
+
+    private final Key key;
+
+    private final long expiresAt;
+
+    private final CompletableFuture<Object> future;
+
+    private final AtomicLong weight;
+
+    private volatile boolean referenced;
+
+    private Entry(final Key key, final long expiresAt) {
+      super();
+      this.key = key;
+      this.expiresAt = expiresAt;
+      this.future = new CompletableFuture<>();
+      this.weight = new AtomicLong();
+    }
+
+    private final boolean isExpired(final long now) {
+      return now - this.expiresAt >= 0L;
+    }
+
+    private final Object await() {
+      boolean interrupted = false;
+      try {
+        while (true) {
+          try {
+            return this.future.get();
+          } catch (final InterruptedException interruptedException) {
+            interrupted = true;
+          } catch (final ExecutionException executionException) {
+            // The future is never completed exceptionally.
+            throw new AssertionError(executionException.getMessage(), executionException);
+          }
+        }
+      } finally {
+        if (interrupted) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,113 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.lang.reflect.Method;
+
+import javax.annotation.Priority;
+
+import javax.enterprise.inject.Intercepted;
+
+import javax.enterprise.inject.spi.Bean;
+import javax.enterprise.inject.spi.BeanManager;
+
+import javax.inject.Inject;
+
+import javax.interceptor.AroundInvoke;
+import javax.interceptor.Interceptor;
+import javax.interceptor.InvocationContext;
+
+/**
+ * An {@link Interceptor} that serves the results of the {@link
+ * javax.ws.rs.GET} resource methods of {@link Cacheable} beans from
+ * the {@link ResponseCache} bean.
+ *
+ * <p>It runs inside the {@link DispatchInterceptor} and outside the
+ * {@link MetricsInterceptor}, so cache hits are not recorded as
+ * resource method invocations.</p>
+ *
+ * <p>Invocations on beans the {@link ResponseCache} does not
+ * {@linkplain ResponseCache#accepts(Bean, Class, BeanManager) accept},
+ * because they can reach per-request state, always proceed.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see Cacheable
+ *
+ * @see ResponseCache
+ */
+@Cacheable
+@Interceptor
+@Priority(Interceptor.Priority.LIBRARY_BEFORE + 5)
+public class ResponseCacheInterceptor {
+
+  private final ResponseCache responseCache;
+
+  private final Bean<?> bean;
+
+  private final BeanManager beanManager;
+
+  /**
+   * Creates a new {@link ResponseCacheInterceptor}.
+   *
+   * @param responseCache the {@link ResponseCache} to use; must not
+   * be {@code null}
+   *
+   * @param bean the intercepted {@link Bean}; must not be {@code
+   * null}
+   *
+   * @param beanManager the {@link BeanManager} used to resolve the
+   * intercepted {@link Bean}'s injection points; must not be {@code
+   * null}
+   */
+  @Inject
+  public ResponseCacheInterceptor(final ResponseCache responseCache,
+                                  @Intercepted final Bean<?> bean,
+                                  final BeanManager beanManager) {
+    super();
+    this.responseCache = responseCache;
+    this.bean = bean;
+    this.beanManager = beanManager;
+  }
+
+  /**
+   * Returns the cached result of the invocation the supplied {@link
+   * InvocationContext} represents, if there is one, or proceeds with
+   * it and caches its result if possible.
+   *
+   * @param invocationContext the {@link InvocationContext}; must not
+   * be {@code null}
+   *
+   * @return the result of the invocation, which may be {@code null}
+   *
+   * @exception Exception if the intercepted method throws an {@link
+   * Exception}
+   */
+  @AroundInvoke
+  public Object cache(final InvocationContext invocationContext) throws Exception {
+    final Method method = invocationContext.getMethod();
+    final Object target = invocationContext.getTarget();
+    // Beans added by a JaxRsExtension report it as their bean class,
+    // so use the target's.
+    if (method == null || target == null || !this.responseCache.accepts(this.bean, target.getClass(), this.beanManager)) {
+      return invocationContext.proceed();
+    }
+    return this.responseCache.get(target.getClass(), method, invocationContext.getParameters(), invocationContext::proceed);
+  }
+
+}
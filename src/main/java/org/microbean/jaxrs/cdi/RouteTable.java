@@ -0,0 +1,498 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.lang.reflect.Method;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+import javax.ws.rs.Path;
+
+/**
+ * An immutable, precompiled table of the {@link Route}s formed by the
+ * {@link Path} templates and request method designators of a set of
+ * root resource classes, suitable for matching request paths without
+ * regular expressions.
+ *
+ * <p>Templates are split into segments and arranged into a prefix
+ * tree.  A segment is either a literal or a single template parameter
+ * without a regular expression (such as {@code {id}}).  Matching a
+ * path takes time proportional to its length and allocates nothing.
+ * Literal segments take precedence over template parameters at every
+ * level, and resource methods take precedence over sub-resource
+ * locators, which approximates, but does not replace, the
+ * request-matching algorithm described in section 3.7 of the Jakarta
+ * RESTful Web Services specification.</p>
+ *
+ * <p>Templates that cannot be represented this way (those with
+ * template parameters that declare regular expressions, or that mix
+ * literals and template parameters in a single segment) are not
+ * indexed; they are made available from the {@link
+ * #getUnindexedRoutes()} method so that a runtime can fall back to
+ * matching them itself.</p>
+ *
+ * <p>Paths supplied to the {@link #match(CharSequence, String)}
+ * method are relative to the {@link javax.ws.rs.ApplicationPath} of
+ * the {@link javax.ws.rs.core.Application} this {@link RouteTable}
+ * belongs to and must be encoded in the same way as the templates
+ * themselves.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see JaxRsExtension#ROUTE_TABLES_PROPERTY_NAME
+ */
+public final class RouteTable {
+
+  private final Node root;
+
+  private final List<Route> routes;
+
+  private final List<Route> unindexedRoutes;
+
+  /**
+   * Creates a new {@link RouteTable}.
+   *
+   * @param routes the {@link Route}s to index; must not be {@code
+   * null}
+   *
+   * @exception NullPointerException if {@code routes} is {@code null}
+   */
+  RouteTable(final Collection<? extends Route> routes) {
+    super();
+    final MutableNode root = new MutableNode();
+    final List<Route> indexedRoutes = new ArrayList<>();
+    final List<Route> unindexedRoutes = new ArrayList<>();
+    for (final Route route : routes) {
+      if (root.add(route, segments(route.getTemplate()), 0)) {
+        indexedRoutes.add(route);
+      } else {
+        unindexedRoutes.add(route);
+      }
+    }
+    this.root = root.toNode();
+    this.routes = Collections.unmodifiableList(indexedRoutes);
+    this.unindexedRoutes = Collections.unmodifiableList(unindexedRoutes);
+  }
+
+  /**
+   * Returns an unmodifiable {@link List} of all {@link Route}s that
+   * this {@link RouteTable} can {@linkplain #match(CharSequence,
+   * String) match}.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return a non-{@code null}, unmodifiable {@link List} of {@link
+   * Route}s
+   */
+  public final List<Route> getRoutes() {
+    return this.routes;
+  }
+
+  /**
+   * Returns an unmodifiable {@link List} of all {@link Route}s whose
+   * templates could not be indexed and hence will never be returned
+   * by the {@link #match(CharSequence, String)} method.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return a non-{@code null}, unmodifiable {@link List} of {@link
+   * Route}s
+   */
+  public final List<Route> getUnindexedRoutes() {
+    return this.unindexedRoutes;
+  }
+
+  /**
+   * Returns the {@link Route} that best matches the supplied path and
+   * HTTP method, or {@code null} if there is no such {@link Route}.
+   *
+   * <p>If the returned {@link Route} {@linkplain
+   * Route#isSubResourceLocator() is a sub-resource locator}, then the
+   * path matched only a prefix of the supplied {@code path}.</p>
+   *
+   * <p>This method does not allocate.</p>
+   *
+   * @param path the path to match, relative to the application path;
+   * must not be {@code null}; leading and trailing {@code /}
+   * characters are ignored
+   *
+   * @param httpMethod the HTTP method, such as {@code GET}; must not
+   * be {@code null}
+   *
+   * @return the matching {@link Route}, or {@code null}
+   *
+   * @exception NullPointerException if either parameter is {@code
+   * null}
+   */
+  public final Route match(final CharSequence path, final String httpMethod) {
+    Objects.requireNonNull(httpMethod);
+    int start = 0;
+    int end = path.length();
+    while (start < end && path.charAt(start) == '/') {
+      ++start;
+    }
+    while (end > start && path.charAt(end - 1) == '/') {
+      --end;
+    }
+    return match(this.root, path, start, end, httpMethod);
+  }
+
+  private static final Route match(final Node node,
+                                   final CharSequence path,
+                                   final int start,
+                                   final int end,
+                                   final String httpMethod) {
+    if (start >= end) {
+      final Route[] routes = node.routes;
+      for (final Route route : routes) {
+        if (httpMethod.equals(route.getHttpMethod())) {
+          return route;
+        }
+      }
+      return node.locator;
+    }
+    int segmentEnd = start;
+    while (segmentEnd < end && path.charAt(segmentEnd) != '/') {
+      ++segmentEnd;
+    }
+    final int next = segmentEnd < end ? segmentEnd + 1 : segmentEnd;
+    final int literalIndex = node.indexOfLiteral(path, start, segmentEnd);
+    Route returnValue = null;
+    if (literalIndex >= 0) {
+      returnValue = match(node.literalChildren[literalIndex], path, next, end, httpMethod);
+    }
+    if (returnValue == null && node.parameterChild != null && segmentEnd > start) {
+      returnValue = match(node.parameterChild, path, next, end, httpMethod);
+    }
+    if (returnValue == null) {
+      returnValue = node.locator;
+    }
+    return returnValue;
+  }
+
+  /**
+   * Returns a new {@link RouteTable} that indexes the {@link Route}s
+   * formed by the supplied classes.
+   *
+   * <p>Classes that are not annotated with {@link Path} are
+   * ignored.</p>
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @param classes the resource and provider classes of an {@link
+   * javax.ws.rs.core.Application}; may be {@code null}
+   *
+   * @return a new, non-{@code null} {@link RouteTable}
+   */
+  static final RouteTable of(final Collection<? extends Class<?>> classes) {
+    final List<Route> routes = new ArrayList<>();
+    if (classes != null) {
+      for (final Class<?> c : classes) {
+        if (c != null) {
+          final ResourceClassDescriptor descriptor = ResourceClassDescriptor.of(c);
+          final String classPath = descriptor.getPath();
+          if (classPath != null) {
+            for (final ResourceClassDescriptor.ResourceMethod resourceMethod : descriptor.getResourceMethods()) {
+              final String methodPath = resourceMethod.getPath();
+              final String template = methodPath == null ? classPath : classPath + "/" + methodPath;
+              routes.add(new Route(c, resourceMethod.getMethod(), resourceMethod.getHttpMethod(), template));
+            }
+          }
+        }
+      }
+    }
+    return new RouteTable(routes);
+  }
+
+  private static final List<String> segments(final String template) {
+    final List<String> returnValue = new ArrayList<>();
+    if (template != null) {
+      for (final String segment : template.split("/")) {
+        if (!segment.isEmpty()) {
+          returnValue.add(segment);
+        }
+      }
+    }
+    return returnValue;
+  }
+
+  private static final boolean isSimpleTemplateParameter(final String segment) {
+    final int length = segment.length();
+    return
+      length > 2 &&
+      segment.charAt(0) == '{' &&
+      segment.charAt(length - 1) == '}' &&
+      segment.indexOf('{', 1) < 0 &&
+      segment.indexOf('}') == length - 1 &&
+      segment.indexOf(':') < 0;
+  }
+
+  private static final int compare(final String literal, final CharSequence path, final int start, final int end) {
+    final int literalLength = literal.length();
+    final int segmentLength = end - start;
+    final int length = Math.min(literalLength, segmentLength);
+    for (int i = 0; i < length; i++) {
+      final int difference = literal.charAt(i) - path.charAt(start + i);
+      if (difference != 0) {
+        return difference;
+      }
+    }
+    return literalLength - segmentLength;
+  }
+
+  /**
+   * A description of a resource method or sub-resource locator
+   * together with the full {@link Path} template that leads to it.
+   *
+   * @author <a href="https://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   */
+  public static final class Route {
+
+    private final Class<?> resourceClass;
+
+    private final Method method;
+
+    private final String httpMethod;
+
+    private final String template;
+
+    /**
+     * Creates a new {@link Route}.
+     *
+     * @param resourceClass the root resource class; must not be
+     * {@code null}
+     *
+     * @param method the resource method or sub-resource locator;
+     * must not be {@code null}
+     *
+     * @param httpMethod the HTTP method designated by the {@code
+     * method}, or {@code null} if the {@code method} is a
+     * sub-resource locator
+     *
+     * @param template the full {@link Path} template, relative to the
+     * application path; must not be {@code null}
+     *
+     * @exception NullPointerException if {@code resourceClass}, {@code
+     * method} or {@code template} is {@code null}
+     */
+    Route(final Class<?> resourceClass, final Method method, final String httpMethod, final String template) {
+      super();
+      this.resourceClass = Objects.requireNonNull(resourceClass);
+      this.method = Objects.requireNonNull(method);
+      this.httpMethod = httpMethod;
+      this.template = Objects.requireNonNull(template);
+    }
+
+    /**
+     * Returns the root resource class this {@link Route} belongs to.
+     *
+     * <p>This method never returns {@code null}.</p>
+     *
+     * @return the non-{@code null} root resource class
+     */
+    public final Class<?> getResourceClass() {
+      return this.resourceClass;
+    }
+
+    /**
+     * Returns the resource method or sub-resource locator this {@link
+     * Route} leads to.
+     *
+     * <p>This method never returns {@code null}.</p>
+     *
+     * @return the non-{@code null} {@link Method}
+     */
+    public final Method getMethod() {
+      return this.method;
+    }
+
+    /**
+     * Returns the HTTP method designated by the {@linkplain
+     * #getMethod() method}, or {@code null} if this {@link Route}
+     * {@linkplain #isSubResourceLocator() leads to a sub-resource
+     * locator}.
+     *
+     * @return the HTTP method, or {@code null}
+     */
+    public final String getHttpMethod() {
+      return this.httpMethod;
+    }
+
+    /**
+     * Returns the full {@link Path} template, relative to the
+     * application path, of this {@link Route}.
+     *
+     * <p>This method never returns {@code null}.</p>
+     *
+     * @return the non-{@code null} template
+     */
+    public final String getTemplate() {
+      return this.template;
+    }
+
+    /**
+     * Returns {@code true} if this {@link Route} leads to a
+     * sub-resource locator.
+     *
+     * @return {@code true} if this {@link Route} leads to a
+     * sub-resource locator
+     */
+    public final boolean isSubResourceLocator() {
+      return this.httpMethod == null;
+    }
+
+    /**
+     * Returns a {@link String} representation of this {@link Route}.
+     *
+     * <p>This method never returns {@code null}.</p>
+     *
+     * @return a non-{@code null} {@link String}
+     */
+    @Override
+    public final String toString() {
+      return (this.httpMethod == null ? "*" : this.httpMethod) + " " + this.template + " -> " + this.method;
+    }
+
+  }
+
+  private static final class Node {
+
+    private static final Node[] EMPTY_NODES = new Node[0];
+
+    private static final Route[] EMPTY_ROUTES = new Route[0];
+
+    private final String[] literals;
+
+    private final Node[] literalChildren;
+
+    private final Node parameterChild;
+
+    private final Route[] routes;
+
+    private final Route locator;
+
+    private Node(final String[] literals,
+                 final Node[] literalChildren,
+                 final Node parameterChild,
+                 final Route[] routes,
+                 final Route locator) {
+      super();
+      this.literals = literals;
+      this.literalChildren = literalChildren;
+      this.parameterChild = parameterChild;
+      this.routes = routes;
+      this.locator = locator;
+    }
+
+    private final int indexOfLiteral(final CharSequence path, final int start, final int end) {
+      int low = 0;
+      int high = this.literals.length - 1;
+      while (low <= high) {
+        final int middle = (low + high) >>> 1;
+        final int comparison = compare(this.literals[middle], path, start, end);
+        if (comparison < 0) {
+          low = middle + 1;
+        } else if (comparison > 0) {
+          high = middle - 1;
+        } else {
+          return middle;
+        }
+      }
+      return -1;
+    }
+
+  }
+
+  private static final class MutableNode {
+
+    private final Map<String, MutableNode> literalChildren;
+
+    private MutableNode parameterChild;
+
+    private final List<Route> routes;
+
+    private Route locator;
+
+    private MutableNode() {
+      super();
+      this.literalChildren = new TreeMap<>();
+      this.routes = new ArrayList<>();
+    }
+
+    private final boolean add(final Route route, final List<String> segments, final int index) {
+      if (index >= segments.size()) {
+        if (route.isSubResourceLocator()) {
+          if (this.locator == null) {
+            this.locator = route;
+          }
+        } else {
+          this.routes.add(route);
+        }
+        return true;
+      }
+      final String segment = segments.get(index);
+      final MutableNode child;
+      if (isSimpleTemplateParameter(segment)) {
+        if (this.parameterChild == null) {
+          this.parameterChild = new MutableNode();
+        }
+        child = this.parameterChild;
+      } else if (segment.indexOf('{') >= 0) {
+        return false;
+      } else {
+        child = this.literalChildren.computeIfAbsent(segment, s -> new MutableNode());
+      }
+      return child.add(route, segments, index + 1);
+    }
+
+    private final Node toNode() {
+      final int size = this.literalChildren.size();
+      final String[] literals;
+      final Node[] children;
+      if (size == 0) {
+        literals = new String[0];
+        children = Node.EMPTY_NODES;
+      } else {
+        literals = new String[size];
+        children = new Node[size];
+        int i = 0;
+        // TreeMap iteration order is the natural (UTF-16 code unit)
+        // order of String, which is what compare() relies upon.
+        for (final Map.Entry<String, MutableNode> entry : this.literalChildren.entrySet()) {
+          literals[i] = entry.getKey();
+          children[i] = entry.getValue().toNode();
+          ++i;
+        }
+      }
+      return new Node(literals,
+                      children,
+                      this.parameterChild == null ? null : this.parameterChild.toNode(),
+                      this.routes.isEmpty() ? Node.EMPTY_ROUTES : this.routes.toArray(new Route[this.routes.size()]),
+                      this.locator);
+    }
+
+  }
+
+}
@@ -0,0 +1,104 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javax.enterprise.context.Dependent;
+
+import javax.inject.Singleton;
+
+/**
+ * An immutable record of which resource classes a {@link
+ * JaxRsExtension} {@linkplain
+ * JaxRsExtension#PROMOTE_STATELESS_RESOURCES_PROPERTY_NAME promoted}
+ * from {@link Dependent} to {@link Singleton} scope, and of which it
+ * did not promote, and why.
+ *
+ * <p>When promotion is enabled, a {@link JaxRsExtension} makes
+ * exactly one {@link SingletonPromotionReport} available as a {@link
+ * Singleton}-scoped bean.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see JaxRsExtension#PROMOTE_STATELESS_RESOURCES_PROPERTY_NAME
+ */
+public final class SingletonPromotionReport {
+
+  private final Set<Class<?>> promotedClasses;
+
+  private final Map<Class<?>, String> rejectedClasses;
+
+  SingletonPromotionReport(final Set<? extends Class<?>> promotedClasses,
+                           final Map<? extends Class<?>, ? extends String> rejectedClasses) {
+    super();
+    if (promotedClasses == null || promotedClasses.isEmpty()) {
+      this.promotedClasses = Collections.emptySet();
+    } else {
+      this.promotedClasses = Collections.unmodifiableSet(new HashSet<>(promotedClasses));
+    }
+    if (rejectedClasses == null || rejectedClasses.isEmpty()) {
+      this.rejectedClasses = Collections.emptyMap();
+    } else {
+      this.rejectedClasses = Collections.unmodifiableMap(new HashMap<>(rejectedClasses));
+    }
+  }
+
+  /**
+   * Returns an unmodifiable {@link Set} of the resource classes that
+   * were promoted to {@link Singleton} scope.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return a non-{@code null}, unmodifiable {@link Set} of promoted
+   * classes
+   */
+  public final Set<Class<?>> getPromotedClasses() {
+    return this.promotedClasses;
+  }
+
+  /**
+   * Returns an unmodifiable {@link Map} of the resource classes that
+   * were considered for promotion but were left {@link Dependent},
+   * indexed by class, whose values describe why.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return a non-{@code null}, unmodifiable {@link Map} of rejected
+   * classes and the reasons they were rejected
+   */
+  public final Map<Class<?>, String> getRejectedClasses() {
+    return this.rejectedClasses;
+  }
+
+  /**
+   * Returns a non-{@code null} {@link String} representation of this
+   * {@link SingletonPromotionReport}.
+   *
+   * @return a non-{@code null} {@link String}
+   */
+  @Override
+  public final String toString() {
+    return "promoted: " + this.promotedClasses + "; rejected: " + this.rejectedClasses;
+  }
+
+}
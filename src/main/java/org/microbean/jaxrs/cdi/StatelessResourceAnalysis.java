@@ -0,0 +1,275 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.lang.annotation.Annotation;
+
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import javax.enterprise.event.Event;
+
+import javax.enterprise.inject.AmbiguousResolutionException;
+import javax.enterprise.inject.Instance;
+
+import javax.enterprise.inject.spi.Annotated;
+import javax.enterprise.inject.spi.AnnotatedCallable;
+import javax.enterprise.inject.spi.AnnotatedConstructor;
+import javax.enterprise.inject.spi.AnnotatedField;
+import javax.enterprise.inject.spi.AnnotatedMethod;
+import javax.enterprise.inject.spi.AnnotatedParameter;
+import javax.enterprise.inject.spi.AnnotatedType;
+import javax.enterprise.inject.spi.Bean;
+import javax.enterprise.inject.spi.BeanManager;
+import javax.enterprise.inject.spi.InjectionPoint;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import javax.ws.rs.BeanParam;
+import javax.ws.rs.CookieParam;
+import javax.ws.rs.FormParam;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.MatrixParam;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.QueryParam;
+
+/**
+ * Decides whether a resource class is stateless, and so may safely
+ * be a {@link Singleton} instead of {@code Dependent}.
+ *
+ * <p>A resource class is considered stateless if all of the
+ * following are true:</p>
+ *
+ * <ul>
+ *
+ * <li>It is concrete.</li>
+ *
+ * <li>All of its instance fields, including inherited ones, are
+ * either injected or {@code final}.  A {@code final} field must be of
+ * a primitive, wrapper, {@link String}, enum or other known-immutable
+ * type, or of the type of one of the parameters of its {@link
+ * Inject}-annotated constructor, which are subject to the rule
+ * below.  A {@code final} field of any other type, such as a
+ * collection or an array, may be modified through, so it
+ * disqualifies the class.</li>
+ *
+ * <li>None of its fields, methods or constructor parameters bear a
+ * per-request parameter annotation such as {@link PathParam} or
+ * {@link QueryParam}.</li>
+ *
+ * <li>Every one of its injection points is of a type such as {@link
+ * Instance} or {@link Provider} that is safe to hold onto, or
+ * resolves to a bean that is normal-scoped or {@link
+ * Singleton}-scoped.</li>
+ *
+ * </ul>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see JaxRsExtension#PROMOTE_STATELESS_RESOURCES_PROPERTY_NAME
+ */
+final class StatelessResourceAnalysis {
+
+  private static final Class<?>[] perRequestParameterAnnotationTypes = {
+    BeanParam.class,
+    CookieParam.class,
+    FormParam.class,
+    HeaderParam.class,
+    MatrixParam.class,
+    PathParam.class,
+    QueryParam.class
+  };
+
+  private static final Class<?>[] immutableTypes = {
+    BigDecimal.class,
+    BigInteger.class,
+    Boolean.class,
+    Byte.class,
+    Character.class,
+    Class.class,
+    Double.class,
+    Float.class,
+    Integer.class,
+    Long.class,
+    Short.class,
+    String.class,
+    UUID.class
+  };
+
+  private static final Class<?>[] holdableTypes = {
+    BeanManager.class,
+    Event.class,
+    Instance.class,
+    Provider.class
+  };
+
+  private StatelessResourceAnalysis() {
+    super();
+  }
+
+  /**
+   * Returns a description of why the supplied {@link AnnotatedType}
+   * is not stateless, or {@code null} if it is.
+   *
+   * <p>This method must only be called during or after {@code
+   * AfterBeanDiscovery}.</p>
+   *
+   * @param type the {@link AnnotatedType} to analyze; must not be
+   * {@code null}
+   *
+   * @param beanManager the {@link BeanManager} used to resolve
+   * injection points; must not be {@code null}
+   *
+   * @return a reason for rejection, or {@code null} if the supplied
+   * {@link AnnotatedType} is stateless
+   *
+   * @exception NullPointerException if either parameter is {@code
+   * null}
+   */
+  static final <T> String getRejectionReason(final AnnotatedType<T> type, final BeanManager beanManager) {
+    final Class<T> javaClass = type.getJavaClass();
+    if (javaClass.isInterface() || Modifier.isAbstract(javaClass.getModifiers())) {
+      return "abstract";
+    }
+    // Final fields may hold what the constructor was injected with;
+    // the constructor's injection points are checked below.
+    final Set<Type> constructorInjectedTypes = new HashSet<>();
+    for (final AnnotatedConstructor<T> constructor : type.getConstructors()) {
+      if (constructor.isAnnotationPresent(Inject.class)) {
+        for (final AnnotatedParameter<T> parameter : constructor.getParameters()) {
+          constructorInjectedTypes.add(parameter.getBaseType());
+        }
+      }
+    }
+    for (final AnnotatedField<? super T> field : type.getFields()) {
+      if (!field.isStatic()) {
+        final String name = field.getJavaMember().getName();
+        if (bearsPerRequestParameterAnnotation(field)) {
+          return "field " + name + " is a per-request parameter";
+        } else if (field.isAnnotationPresent(Inject.class)) {
+          final String reason = getRejectionReason(beanManager.createInjectionPoint(field), beanManager);
+          if (reason != null) {
+            return "field " + name + ": " + reason;
+          }
+        } else if (!Modifier.isFinal(field.getJavaMember().getModifiers())) {
+          return "field " + name + " is not final";
+        } else if (!isImmutable(field.getJavaMember().getType()) && !constructorInjectedTypes.contains(field.getBaseType())) {
+          return "final field " + name + " is of type " + field.getBaseType().getTypeName() + ", which may be mutable";
+        }
+      }
+    }
+    for (final AnnotatedMethod<? super T> method : type.getMethods()) {
+      if (!method.isStatic()) {
+        if (bearsPerRequestParameterAnnotation(method)) {
+          return "method " + method.getJavaMember().getName() + " is a per-request parameter";
+        } else if (method.isAnnotationPresent(Inject.class)) {
+          final String reason = getInjectionPointRejectionReason(method, beanManager);
+          if (reason != null) {
+            return "method " + method.getJavaMember().getName() + ": " + reason;
+          }
+        }
+      }
+    }
+    for (final AnnotatedConstructor<T> constructor : type.getConstructors()) {
+      for (final AnnotatedParameter<T> parameter : constructor.getParameters()) {
+        if (bearsPerRequestParameterAnnotation(parameter)) {
+          return "constructor parameter " + parameter.getPosition() + " is a per-request parameter";
+        }
+      }
+      if (constructor.isAnnotationPresent(Inject.class)) {
+        final String reason = getInjectionPointRejectionReason(constructor, beanManager);
+        if (reason != null) {
+          return "constructor: " + reason;
+        }
+      }
+    }
+    return null;
+  }
+
+  private static final <X> String getInjectionPointRejectionReason(final AnnotatedCallable<X> callable,
+                                                                   final BeanManager beanManager) {
+    for (final AnnotatedParameter<X> parameter : callable.getParameters()) {
+      final String reason = getRejectionReason(beanManager.createInjectionPoint(parameter), beanManager);
+      if (reason != null) {
+        return "parameter " + parameter.getPosition() + ": " + reason;
+      }
+    }
+    return null;
+  }
+
+  private static final String getRejectionReason(final InjectionPoint injectionPoint, final BeanManager beanManager) {
+    final Type type = injectionPoint.getType();
+    final Type rawType = type instanceof ParameterizedType ? ((ParameterizedType)type).getRawType() : type;
+    if (rawType == InjectionPoint.class) {
+      return "InjectionPoint is only meaningful to dependent objects";
+    }
+    for (final Class<?> holdableType : holdableTypes) {
+      if (rawType == holdableType) {
+        return null;
+      }
+    }
+    final Set<Annotation> qualifiers = injectionPoint.getQualifiers();
+    final Bean<?> bean;
+    try {
+      bean = beanManager.resolve(beanManager.getBeans(type, qualifiers.toArray(new Annotation[qualifiers.size()])));
+    } catch (final AmbiguousResolutionException ambiguousResolutionException) {
+      return "ambiguous injection point of type " + type.getTypeName();
+    }
+    if (bean == null) {
+      return "unresolvable injection point of type " + type.getTypeName();
+    }
+    final Class<? extends Annotation> scope = bean.getScope();
+    if (scope != Singleton.class && !beanManager.isNormalScope(scope)) {
+      return "injection point of type " + type.getTypeName() + " resolves to a @" + scope.getSimpleName() + " bean";
+    }
+    return null;
+  }
+
+  private static final boolean isImmutable(final Class<?> c) {
+    if (c.isPrimitive() || c.isEnum()) {
+      return true;
+    }
+    for (final Class<?> immutableType : immutableTypes) {
+      if (c == immutableType) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static final boolean bearsPerRequestParameterAnnotation(final Annotated annotated) {
+    for (final Class<?> annotationType : perRequestParameterAnnotationTypes) {
+      if (annotated.isAnnotationPresent((Class<? extends Annotation>)annotationType)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+}
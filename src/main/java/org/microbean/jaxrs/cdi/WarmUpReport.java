@@ -0,0 +1,133 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.time.Duration;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.Initialized;
+
+import javax.inject.Singleton;
+
+/**
+ * A record of the eager creation of resource and provider beans
+ * performed by a {@link JaxRsExtension} when the application context
+ * is {@linkplain Initialized initialized}.
+ *
+ * <p>A {@link JaxRsExtension} makes exactly one {@link WarmUpReport}
+ * available as a {@link Singleton}-scoped bean when so configured.
+ * It is {@linkplain #isComplete() complete} once the event
+ * qualified with {@link Initialized @Initialized(ApplicationScoped.class)}
+ * has been observed by the {@link JaxRsExtension}.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see JaxRsExtension#WARM_UP_PROPERTY_NAME
+ *
+ * @see ApplicationScoped
+ */
+public final class WarmUpReport {
+
+  private volatile boolean complete;
+
+  private volatile int beanCount;
+
+  private volatile int failureCount;
+
+  private volatile long invocationCount;
+
+  private volatile long nanos;
+
+  WarmUpReport() {
+    super();
+  }
+
+  final void complete(final int beanCount, final int failureCount, final long invocationCount, final long nanos) {
+    this.beanCount = beanCount;
+    this.failureCount = failureCount;
+    this.invocationCount = invocationCount;
+    this.nanos = nanos;
+    this.complete = true;
+  }
+
+  /**
+   * Returns {@code true} if warm-up has finished.
+   *
+   * @return {@code true} if warm-up has finished; {@code false}
+   * otherwise
+   */
+  public final boolean isComplete() {
+    return this.complete;
+  }
+
+  /**
+   * Returns the number of beans that were created.
+   *
+   * @return the number of beans that were created; never negative
+   */
+  public final int getBeanCount() {
+    return this.beanCount;
+  }
+
+  /**
+   * Returns the number of beans that could not be created.
+   *
+   * @return the number of beans that could not be created; never
+   * negative
+   */
+  public final int getFailureCount() {
+    return this.failureCount;
+  }
+
+  /**
+   * Returns the total number of no-op invocations made on the
+   * contextual references of the beans that were created.
+   *
+   * @return the number of no-op invocations; never negative
+   */
+  public final long getInvocationCount() {
+    return this.invocationCount;
+  }
+
+  /**
+   * Returns how long warm-up took.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return a non-{@code null}, non-negative {@link Duration}
+   */
+  public final Duration getDuration() {
+    return Duration.ofNanos(this.nanos);
+  }
+
+  /**
+   * Returns a non-{@code null} {@link String} representation of this
+   * {@link WarmUpReport}.
+   *
+   * @return a non-{@code null} {@link String}
+   */
+  @Override
+  public final String toString() {
+    if (!this.complete) {
+      return "Warm-up not complete";
+    }
+    return "Warm-up: " + this.beanCount + " beans (" + this.failureCount + " failures), " +
+      this.invocationCount + " invocations in " + this.getDuration();
+  }
+
+}
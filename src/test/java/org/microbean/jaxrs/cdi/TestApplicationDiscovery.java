@@ -28,15 +28,25 @@ import javax.enterprise.inject.se.SeContainerInitializer;
 
 import javax.enterprise.inject.spi.BeanManager;
 
+import javax.inject.Named;
+
+import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 
 import javax.ws.rs.core.Application;
+import javax.ws.rs.core.Response;
+
+import javax.ws.rs.ext.ExceptionMapper;
+import javax.ws.rs.ext.Provider;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @ApplicationScoped
 public class TestApplicationDiscovery {
@@ -61,6 +71,14 @@ public class TestApplicationDiscovery {
 
     // Add a "free-floating" resource classe.
     initializer.addBeanClasses(UnclaimedResource.class);
+
+    // Add a resource class that is not a root resource class.
+    initializer.addBeanClasses(SubResource.class);
+
+    // Add a provider class that will end up in the synthetic
+    // Application alongside UnclaimedResource, and one whose
+    // qualifiers match no unclaimed resource class.
+    initializer.addBeanClasses(UnclaimedProvider.class, OrphanedProvider.class);
     
     this.container = initializer.initialize();
   }
@@ -75,9 +93,24 @@ public class TestApplicationDiscovery {
 
   private static final void onStartup(@Observes @Initialized(ApplicationScoped.class) final Object event,
                                       final MyApplication myApplication,
-                                      final JaxRsExtension.SyntheticApplication syntheticApplication) {
+                                      final JaxRsExtension.SyntheticApplication syntheticApplication,
+                                      final BeanManager beanManager,
+                                      final BootReport bootReport) {
     assertNotNull(myApplication);
     assertNotNull(syntheticApplication);
+    assertTrue(syntheticApplication.getClasses().contains(UnclaimedResource.class));
+    assertTrue(syntheticApplication.getClasses().contains(UnclaimedProvider.class));
+    assertFalse(syntheticApplication.getClasses().contains(OrphanedProvider.class));
+    assertFalse(syntheticApplication.getClasses().contains(SubResource.class));
+    assertFalse(beanManager.getBeans(SubResource.class, JaxRsExtension.ResourceClass.Literal.INSTANCE).isEmpty());
+    assertNotNull(bootReport);
+    assertEquals(6L, bootReport.getClassCount(BootReport.Phase.TYPE_DISCOVERY));
+    assertEquals(4L, bootReport.getClassCount(BootReport.Phase.BEAN_ATTRIBUTES));
+    assertEquals(1L, bootReport.getClassCount(BootReport.Phase.APPLICATION_INSTANTIATION));
+    assertEquals(2L, bootReport.getClassCount(BootReport.Phase.SYNTHETIC_APPLICATIONS));
+    assertEquals(1, bootReport.getOrphanedProviderClasses().size());
+    assertTrue(bootReport.getOrphanedProviderClasses().contains(OrphanedProvider.class));
+    assertFalse(bootReport.getTotalDuration().isNegative());
   }
 
   @Test
@@ -121,5 +154,35 @@ public class TestApplicationDiscovery {
     }
     
   }
+
+  @Provider
+  private static final class UnclaimedProvider implements ExceptionMapper<IllegalStateException> {
+
+    @Override
+    public Response toResponse(final IllegalStateException exception) {
+      return null;
+    }
+
+  }
+
+  @Named("orphan")
+  @Provider
+  private static final class OrphanedProvider implements ExceptionMapper<IllegalArgumentException> {
+
+    @Override
+    public Response toResponse(final IllegalArgumentException exception) {
+      return null;
+    }
+
+  }
+
+  private static final class SubResource {
+
+    @GET
+    public String get() {
+      return "sub";
+    }
+
+  }
   
 }
@@ -0,0 +1,170 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.net.InetSocketAddress;
+import java.net.URL;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.enterprise.inject.Any;
+
+import javax.enterprise.inject.se.SeContainer;
+import javax.enterprise.inject.se.SeContainerInitializer;
+
+import javax.enterprise.inject.spi.BeanManager;
+
+import javax.ws.rs.ApplicationPath;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+
+import javax.ws.rs.core.Application;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TestApplicationMounting {
+
+  private static final String[] DERIVED_STATE_PROPERTY_NAMES = {
+    JaxRsExtension.ROUTE_TABLES_PROPERTY_NAME,
+    JaxRsExtension.PROVIDER_TABLES_PROPERTY_NAME,
+    JaxRsExtension.RESOLVED_BEANS_PROPERTY_NAME,
+    JaxRsExtension.RESOURCE_METHOD_INVOKERS_PROPERTY_NAME
+  };
+
+  private SeContainer container;
+
+  public TestApplicationMounting() {
+    super();
+  }
+
+  private final void startContainer(final boolean derivedState) {
+    System.setProperty(JaxRsExtension.HTTP_SERVER_PORT_PROPERTY_NAME, "0");
+    if (derivedState) {
+      for (final String propertyName : DERIVED_STATE_PROPERTY_NAMES) {
+        System.setProperty(propertyName, "true");
+      }
+    }
+    final SeContainerInitializer initializer = SeContainerInitializer.newInstance();
+    initializer.disableDiscovery();
+    initializer.addExtensions(new JaxRsExtension());
+    // MyApplication and the SyntheticApplication made for
+    // UnclaimedResource both bear @Default.
+    initializer.addBeanClasses(MyApplication.class, UnclaimedResource.class);
+    this.container = initializer.initialize();
+  }
+
+  @AfterEach
+  public void stopContainer() throws Exception {
+    System.clearProperty(JaxRsExtension.HTTP_SERVER_PORT_PROPERTY_NAME);
+    for (final String propertyName : DERIVED_STATE_PROPERTY_NAMES) {
+      System.clearProperty(propertyName);
+    }
+    if (this.container != null) {
+      this.container.close();
+      this.container = null;
+    }
+  }
+
+  @Test
+  public void testApplicationAndSyntheticApplicationAreBothMounted() throws IOException {
+    this.startContainer(false);
+    this.assertMounted();
+  }
+
+  @Test
+  public void testDerivedStateIsUsedWhenMounting() throws IOException {
+    this.startContainer(true);
+    final BeanManager beanManager = this.container.getBeanManager();
+    assertEquals(2, beanManager.getBeans(RouteTable.class, Any.Literal.INSTANCE).size());
+    assertEquals(1, beanManager.getBeans(RouteTable.class, JaxRsExtension.Synthetic.Literal.INSTANCE).size());
+    this.assertMounted();
+  }
+
+  private final void assertMounted() throws IOException {
+    final HttpServerBinding binding = this.container.getBeanManager().getExtension(JaxRsExtension.class).getHttpServerBinding();
+    assertEquals(new HashSet<>(Arrays.asList("/api", "/")), binding.getContextPaths());
+    assertEquals("explicit", this.get(binding, "/api/explicit"));
+    assertEquals("unclaimed", this.get(binding, "/unclaimed"));
+  }
+
+  private final String get(final HttpServerBinding binding, final String path) throws IOException {
+    final InetSocketAddress address = binding.getAddress();
+    try (final InputStream inputStream = new URL("http", address.getHostString(), address.getPort(), path).openStream()) {
+      final StringBuilder sb = new StringBuilder();
+      final byte[] buffer = new byte[256];
+      int read;
+      while ((read = inputStream.read(buffer)) >= 0) {
+        sb.append(new String(buffer, 0, read, StandardCharsets.UTF_8));
+      }
+      return sb.toString();
+    }
+  }
+
+  @ApplicationPath("/api")
+  private static final class MyApplication extends Application {
+
+    private MyApplication() {
+      super();
+    }
+
+    @Override
+    public Set<Class<?>> getClasses() {
+      return Collections.singleton(ExplicitResource.class);
+    }
+
+  }
+
+  @Path("explicit")
+  private static final class ExplicitResource {
+
+    private ExplicitResource() {
+      super();
+    }
+
+    @GET
+    public String get() {
+      return "explicit";
+    }
+
+  }
+
+  @Path("unclaimed")
+  public static class UnclaimedResource {
+
+    public UnclaimedResource() {
+      super();
+    }
+
+    @GET
+    public String get() {
+      return "unclaimed";
+    }
+
+  }
+
+}
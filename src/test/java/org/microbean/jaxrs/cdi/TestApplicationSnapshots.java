@@ -0,0 +1,195 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.net.InetSocketAddress;
+import java.net.URL;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.enterprise.inject.se.SeContainer;
+import javax.enterprise.inject.se.SeContainerInitializer;
+
+import javax.ws.rs.ApplicationPath;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+
+import javax.ws.rs.core.Application;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class TestApplicationSnapshots {
+
+  private static final AtomicInteger constructions = new AtomicInteger();
+
+  private SeContainer container;
+
+  public TestApplicationSnapshots() {
+    super();
+  }
+
+  @BeforeEach
+  public void startContainer() throws Exception {
+    this.stopContainer();
+    constructions.set(0);
+    System.setProperty(JaxRsExtension.SNAPSHOT_APPLICATIONS_PROPERTY_NAME, "true");
+    System.setProperty(JaxRsExtension.ROUTE_TABLES_PROPERTY_NAME, "true");
+    System.setProperty(JaxRsExtension.HTTP_SERVER_PORT_PROPERTY_NAME, "0");
+    final SeContainerInitializer initializer = SeContainerInitializer.newInstance();
+    initializer.disableDiscovery();
+    initializer.addExtensions(new JaxRsExtension());
+    initializer.addBeanClasses(ExpensiveApplication.class, DiscoveredResource.class);
+    this.container = initializer.initialize();
+  }
+
+  @AfterEach
+  public void stopContainer() throws Exception {
+    System.clearProperty(JaxRsExtension.SNAPSHOT_APPLICATIONS_PROPERTY_NAME);
+    System.clearProperty(JaxRsExtension.ROUTE_TABLES_PROPERTY_NAME);
+    System.clearProperty(JaxRsExtension.HTTP_SERVER_PORT_PROPERTY_NAME);
+    if (this.container != null) {
+      this.container.close();
+      this.container = null;
+    }
+  }
+
+  @Test
+  public void testApplicationIsConstructedOnlyOnce() {
+    final ApplicationSnapshot snapshot = this.container.select(ApplicationSnapshot.class).get();
+    assertNotNull(snapshot);
+    assertEquals(ExpensiveApplication.class, snapshot.getApplicationClass());
+    assertEquals("/expensive", snapshot.getApplicationPath().value());
+    assertEquals(Collections.singletonMap("a", "b"), snapshot.getProperties());
+    assertEquals(2, snapshot.getSingletons().size());
+    final SingletonResource singletonResource =
+      this.container.select(SingletonResource.class, JaxRsExtension.ResourceClass.Literal.INSTANCE).get();
+    assertSame(ExpensiveApplication.singletonResource, singletonResource);
+    assertEquals(1, constructions.get());
+  }
+
+  @Test
+  public void testSingletonClassesArePartOfTheApplication() throws IOException {
+    // DiscoveredResource is an ordinary bean, is returned by
+    // getClasses() and has an instance returned by getSingletons();
+    // that instance is the one, unambiguous bean for it.
+    final DiscoveredResource discoveredResource =
+      this.container.select(DiscoveredResource.class, JaxRsExtension.ResourceClass.Literal.INSTANCE).get();
+    assertSame(ExpensiveApplication.discoveredResource, discoveredResource);
+
+    final RouteTable routeTable = this.container.select(RouteTable.class).get();
+    assertNotNull(routeTable.match("/singleton", "GET"));
+    assertNotNull(routeTable.match("/discovered", "GET"));
+
+    assertEquals("singleton", this.get("/expensive/singleton"));
+    assertEquals("discovered", this.get("/expensive/discovered"));
+    assertEquals(1, constructions.get());
+  }
+
+  private final String get(final String path) throws IOException {
+    final InetSocketAddress address =
+      this.container.getBeanManager().getExtension(JaxRsExtension.class).getHttpServerBinding().getAddress();
+    try (final InputStream inputStream = new URL("http", address.getHostString(), address.getPort(), path).openStream()) {
+      final StringBuilder sb = new StringBuilder();
+      final byte[] buffer = new byte[256];
+      int read;
+      while ((read = inputStream.read(buffer)) >= 0) {
+        sb.append(new String(buffer, 0, read, StandardCharsets.UTF_8));
+      }
+      return sb.toString();
+    }
+  }
+
+  @ApplicationPath("/expensive")
+  private static final class ExpensiveApplication extends Application {
+
+    private static volatile SingletonResource singletonResource;
+
+    private static volatile DiscoveredResource discoveredResource;
+
+    private final Set<Object> singletons;
+
+    private ExpensiveApplication() {
+      super();
+      constructions.incrementAndGet();
+      singletonResource = new SingletonResource();
+      discoveredResource = new DiscoveredResource();
+      this.singletons = new HashSet<>(Arrays.asList(singletonResource, discoveredResource));
+    }
+
+    @Override
+    public Set<Class<?>> getClasses() {
+      return Collections.singleton(DiscoveredResource.class);
+    }
+
+    @Override
+    public Set<Object> getSingletons() {
+      return this.singletons;
+    }
+
+    @Override
+    public Map<String, Object> getProperties() {
+      return Collections.singletonMap("a", "b");
+    }
+
+  }
+
+  @Path("singleton")
+  private static final class SingletonResource {
+
+    private SingletonResource() {
+      super();
+    }
+
+    @GET
+    public String get() {
+      return "singleton";
+    }
+
+  }
+
+  @Path("discovered")
+  public static class DiscoveredResource {
+
+    public DiscoveredResource() {
+      super();
+    }
+
+    @GET
+    public String get() {
+      return "discovered";
+    }
+
+  }
+
+}
@@ -0,0 +1,204 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import java.nio.charset.StandardCharsets;
+
+import java.nio.file.Files;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.enterprise.inject.Any;
+
+import javax.enterprise.inject.se.SeContainer;
+import javax.enterprise.inject.se.SeContainerInitializer;
+
+import javax.enterprise.inject.spi.BeanManager;
+
+import javax.ws.rs.ApplicationPath;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+
+import javax.ws.rs.core.Application;
+
+import javax.ws.rs.ext.ContextResolver;
+import javax.ws.rs.ext.Provider;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestBuildTimeIndex {
+
+  private java.nio.file.Path directory;
+
+  private ClassLoader oldContextClassLoader;
+
+  private URLClassLoader indexClassLoader;
+
+  public TestBuildTimeIndex() {
+    super();
+  }
+
+  @BeforeEach
+  public void installIndex() throws Exception {
+    this.directory = Files.createTempDirectory("TestBuildTimeIndex");
+    final java.nio.file.Path indexFile = this.directory.resolve(JaxRsIndex.RESOURCE_NAME);
+    Files.createDirectories(indexFile.getParent());
+    Files.write(indexFile,
+                ("# written by hand\n" +
+                 "A " + IndexedApplication.class.getName() + "\n" +
+                 "R " + IndexedResource.class.getName() + "\n" +
+                 "R " + UnclaimedResource.class.getName() + "\n" +
+                 "P " + IndexedProvider.class.getName() + "\n" +
+                 "R " + Stale.class.getName() + "\n" +
+                 "R com.example.Missing\n").getBytes(StandardCharsets.UTF_8));
+    this.indexClassLoader = new URLClassLoader(new URL[] { this.directory.toUri().toURL() }, TestBuildTimeIndex.class.getClassLoader());
+    this.oldContextClassLoader = Thread.currentThread().getContextClassLoader();
+    Thread.currentThread().setContextClassLoader(this.indexClassLoader);
+    System.setProperty(JaxRsExtension.BUILD_TIME_INDEX_PROPERTY_NAME, "true");
+  }
+
+  @AfterEach
+  public void uninstallIndex() throws Exception {
+    System.clearProperty(JaxRsExtension.BUILD_TIME_INDEX_PROPERTY_NAME);
+    Thread.currentThread().setContextClassLoader(this.oldContextClassLoader);
+    this.indexClassLoader.close();
+    Files.delete(this.directory.resolve(JaxRsIndex.RESOURCE_NAME));
+    Files.delete(this.directory.resolve(JaxRsIndex.RESOURCE_NAME).getParent());
+    Files.delete(this.directory);
+  }
+
+  @Test
+  public void testUndiscoveredClassesAreAdded() {
+    // Weld SE needs at least one bean class when discovery is
+    // disabled.
+    try (final SeContainer container = start(Plain.class)) {
+      final BeanManager beanManager = container.getBeanManager();
+      assertEquals(1, beanManager.getBeans(IndexedApplication.class, Any.Literal.INSTANCE).size());
+      assertEquals(1, beanManager.getBeans(IndexedResource.class, JaxRsExtension.ResourceClass.Literal.INSTANCE).size());
+      assertEquals(1, beanManager.getBeans(IndexedProvider.class, Any.Literal.INSTANCE).size());
+      // Not claimed by IndexedApplication, so it ends up in a
+      // synthetic Application.
+      assertEquals(1, beanManager.getBeans(UnclaimedResource.class, JaxRsExtension.ResourceClass.Literal.INSTANCE).size());
+      assertEquals(1, beanManager.getBeans(JaxRsExtension.SyntheticApplication.class, Any.Literal.INSTANCE).size());
+      // A stale entry is not turned into a bean.
+      assertTrue(beanManager.getBeans(Stale.class, Any.Literal.INSTANCE).isEmpty());
+    }
+  }
+
+  @Test
+  public void testDiscoveredClassesAreNotAddedAgain() {
+    try (final SeContainer container = start(IndexedApplication.class, IndexedResource.class, UnclaimedResource.class)) {
+      final BeanManager beanManager = container.getBeanManager();
+      assertEquals(1, beanManager.getBeans(IndexedApplication.class, Any.Literal.INSTANCE).size());
+      assertEquals(1, beanManager.getBeans(IndexedResource.class, Any.Literal.INSTANCE).size());
+      assertEquals(1, beanManager.getBeans(UnclaimedResource.class, Any.Literal.INSTANCE).size());
+      assertEquals(1, beanManager.getBeans(IndexedProvider.class, Any.Literal.INSTANCE).size());
+    }
+  }
+
+  private static final SeContainer start(final Class<?>... beanClasses) {
+    final SeContainerInitializer initializer = SeContainerInitializer.newInstance();
+    initializer.disableDiscovery();
+    initializer.addExtensions(new JaxRsExtension());
+    initializer.addBeanClasses(beanClasses);
+    return initializer.initialize();
+  }
+
+  @ApplicationPath("/indexed")
+  public static class IndexedApplication extends Application {
+
+    public IndexedApplication() {
+      super();
+    }
+
+    @Override
+    public Set<Class<?>> getClasses() {
+      return new HashSet<>(Arrays.asList(IndexedResource.class, IndexedProvider.class));
+    }
+
+  }
+
+  @Path("indexed")
+  public static class IndexedResource {
+
+    public IndexedResource() {
+      super();
+    }
+
+    @GET
+    public String get() {
+      return "indexed";
+    }
+
+  }
+
+  @Path("unclaimed")
+  public static class UnclaimedResource {
+
+    public UnclaimedResource() {
+      super();
+    }
+
+    @GET
+    public String get() {
+      return "unclaimed";
+    }
+
+  }
+
+  @Provider
+  public static class IndexedProvider implements ContextResolver<String> {
+
+    public IndexedProvider() {
+      super();
+    }
+
+    @Override
+    public String getContext(final Class<?> type) {
+      return "indexed";
+    }
+
+  }
+
+  public static class Plain {
+
+    public Plain() {
+      super();
+    }
+
+  }
+
+  // Indexed as a root resource class once, but no longer one.
+  public static class Stale {
+
+    public Stale() {
+      super();
+    }
+
+  }
+
+}
@@ -0,0 +1,139 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.lang.annotation.Annotation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.enterprise.inject.se.SeContainer;
+import javax.enterprise.inject.se.SeContainerInitializer;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestCompactState {
+
+  private JaxRsExtension extension;
+
+  private SeContainer container;
+
+  public TestCompactState() {
+    super();
+  }
+
+  @BeforeEach
+  public void startContainer() throws Exception {
+    this.stopContainer();
+    this.extension = new JaxRsExtension();
+    final SeContainerInitializer initializer = SeContainerInitializer.newInstance();
+    initializer.disableDiscovery();
+    initializer.addExtensions(this.extension);
+    initializer.addBeanClasses(Hello.class, Goodbye.class);
+    this.container = initializer.initialize();
+  }
+
+  @AfterEach
+  public void stopContainer() throws Exception {
+    if (this.container != null) {
+      this.container.close();
+      this.container = null;
+    }
+  }
+
+  @Test
+  public void testImmutableArraySet() {
+    for (final int size : new int[] { 0, 1, 8, 9, 1000 }) {
+      final List<Integer> list = new ArrayList<>();
+      for (int i = size - 1; i >= 0; i--) {
+        list.add(i);
+      }
+      list.addAll(list); // duplicates are discarded
+      final Set<Integer> set = ImmutableArraySet.of(list);
+      final Set<Integer> hashSet = new HashSet<>(list);
+      assertEquals(hashSet, set);
+      assertEquals(set, hashSet);
+      assertEquals(hashSet.hashCode(), set.hashCode());
+      assertEquals(list.subList(0, size), new ArrayList<>(set));
+      for (int i = 0; i < size; i++) {
+        assertTrue(set.contains(i));
+      }
+      assertFalse(set.contains(size));
+      assertFalse(set.contains(null));
+      assertFalse(set.contains("0"));
+      assertSame(set, ImmutableArraySet.of(set));
+      assertThrows(UnsupportedOperationException.class, () -> set.add(size));
+    }
+    assertThrows(NullPointerException.class, () -> ImmutableArraySet.of(Arrays.asList("a", null)));
+  }
+
+  @Test
+  public void testStateIsCompactedAfterDeployment() {
+    final Set<Set<Annotation>> allQualifiers = this.extension.getAllApplicationQualifiers();
+    assertEquals(1, allQualifiers.size());
+    final Set<Annotation> qualifiers = allQualifiers.iterator().next();
+    assertTrue(qualifiers instanceof ImmutableArraySet);
+
+    final JaxRsExtension.SyntheticApplication application =
+      this.container.select(JaxRsExtension.SyntheticApplication.class).get();
+    assertTrue(application.getClasses() instanceof ImmutableArraySet);
+    assertEquals(new HashSet<>(Arrays.asList(Hello.class, Goodbye.class)), application.getClasses());
+  }
+
+  @Path("hello")
+  public static final class Hello {
+
+    public Hello() {
+      super();
+    }
+
+    @GET
+    public String get() {
+      return "hello";
+    }
+
+  }
+
+  @Path("goodbye")
+  public static final class Goodbye {
+
+    public Goodbye() {
+      super();
+    }
+
+    @GET
+    public String get() {
+      return "goodbye";
+    }
+
+  }
+
+}
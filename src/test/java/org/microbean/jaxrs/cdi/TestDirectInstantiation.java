@@ -0,0 +1,246 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+
+import javax.enterprise.context.ApplicationScoped;
+
+import javax.enterprise.inject.se.SeContainer;
+import javax.enterprise.inject.se.SeContainerInitializer;
+
+import javax.enterprise.inject.spi.BeanManager;
+
+import javax.inject.Inject;
+
+import javax.interceptor.AroundInvoke;
+import javax.interceptor.InvocationContext;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+
+import javax.ws.rs.core.Application;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestDirectInstantiation {
+
+  private SeContainer container;
+
+  public TestDirectInstantiation() {
+    super();
+  }
+
+  @BeforeEach
+  public void startContainer() throws Exception {
+    this.stopContainer();
+    System.setProperty(JaxRsExtension.DIRECT_INSTANTIATION_PROPERTY_NAME, "true");
+    final SeContainerInitializer initializer = SeContainerInitializer.newInstance();
+    initializer.disableDiscovery();
+    initializer.addExtensions(new JaxRsExtension());
+    initializer.addBeanClasses(MyApplication.class, Greeter.class);
+    this.container = initializer.initialize();
+  }
+
+  @AfterEach
+  public void stopContainer() throws Exception {
+    System.clearProperty(JaxRsExtension.DIRECT_INSTANTIATION_PROPERTY_NAME);
+    if (this.container != null) {
+      this.container.close();
+      this.container = null;
+    }
+  }
+
+  @Test
+  public void testSupplierFor() {
+    final BeanManager beanManager = this.container.getBeanManager();
+    final Supplier<PlainResource> plain =
+      DirectInstantiation.supplierFor(beanManager.createAnnotatedType(PlainResource.class), beanManager);
+    assertNotNull(plain);
+    assertNotSame(plain.get(), plain.get());
+    final Supplier<HiddenResource> hidden =
+      DirectInstantiation.supplierFor(beanManager.createAnnotatedType(HiddenResource.class), beanManager);
+    assertTrue(hidden.get() instanceof HiddenResource);
+    assertNull(DirectInstantiation.supplierFor(beanManager.createAnnotatedType(InjectingResource.class), beanManager));
+    assertNull(DirectInstantiation.supplierFor(beanManager.createAnnotatedType(CallbackResource.class), beanManager));
+    assertNull(DirectInstantiation.supplierFor(beanManager.createAnnotatedType(SelfInterceptingResource.class), beanManager));
+    assertNull(DirectInstantiation.supplierFor(beanManager.createAnnotatedType(ResourceInjectingResource.class), beanManager));
+  }
+
+  @Test
+  public void testBeans() {
+    for (final Class<?> c : Arrays.asList(PlainResource.class, HiddenResource.class)) {
+      final Object first = this.container.select(c, JaxRsExtension.ResourceClass.Literal.INSTANCE).get();
+      final Object second = this.container.select(c, JaxRsExtension.ResourceClass.Literal.INSTANCE).get();
+      assertTrue(c.isInstance(first));
+      assertNotSame(first, second);
+    }
+    final InjectingResource injectingResource =
+      this.container.select(InjectingResource.class, JaxRsExtension.ResourceClass.Literal.INSTANCE).get();
+    assertEquals("hello", injectingResource.get());
+    final CallbackResource callbackResource =
+      this.container.select(CallbackResource.class, JaxRsExtension.ResourceClass.Literal.INSTANCE).get();
+    assertEquals("constructed", callbackResource.get());
+  }
+
+  private static final class MyApplication extends Application {
+
+    private MyApplication() {
+      super();
+    }
+
+    @Override
+    public Set<Class<?>> getClasses() {
+      return new HashSet<>(Arrays.asList(PlainResource.class,
+                                         HiddenResource.class,
+                                         InjectingResource.class,
+                                         CallbackResource.class));
+    }
+
+  }
+
+  @ApplicationScoped
+  public static class Greeter {
+
+    public Greeter() {
+      super();
+    }
+
+    public String greet() {
+      return "hello";
+    }
+
+  }
+
+  @Path("plain")
+  public static class PlainResource {
+
+    public PlainResource() {
+      super();
+    }
+
+    @GET
+    public String get() {
+      return "plain";
+    }
+
+  }
+
+  @Path("hidden")
+  private static final class HiddenResource {
+
+    private HiddenResource() {
+      super();
+    }
+
+    @GET
+    public String get() {
+      return "hidden";
+    }
+
+  }
+
+  @Path("injecting")
+  public static class InjectingResource {
+
+    @Inject
+    private Greeter greeter;
+
+    public InjectingResource() {
+      super();
+    }
+
+    @GET
+    public String get() {
+      return this.greeter.greet();
+    }
+
+  }
+
+  @Path("callback")
+  public static class CallbackResource {
+
+    private String state;
+
+    public CallbackResource() {
+      super();
+    }
+
+    @PostConstruct
+    private void postConstruct() {
+      this.state = "constructed";
+    }
+
+    @GET
+    public String get() {
+      return this.state;
+    }
+
+  }
+
+  @Path("selfIntercepting")
+  public static class SelfInterceptingResource {
+
+    public SelfInterceptingResource() {
+      super();
+    }
+
+    @AroundInvoke
+    private Object aroundInvoke(final InvocationContext invocationContext) throws Exception {
+      return invocationContext.proceed();
+    }
+
+    @GET
+    public String get() {
+      return "selfIntercepting";
+    }
+
+  }
+
+  @Path("resourceInjecting")
+  public static class ResourceInjectingResource {
+
+    @Resource(name = "greeting")
+    private String greeting;
+
+    public ResourceInjectingResource() {
+      super();
+    }
+
+    @GET
+    public String get() {
+      return this.greeting;
+    }
+
+  }
+
+}
@@ -0,0 +1,232 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.util.Collections;
+import java.util.Set;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.RequestScoped;
+
+import javax.enterprise.inject.Disposes;
+import javax.enterprise.inject.Produces;
+
+import javax.enterprise.inject.se.SeContainer;
+import javax.enterprise.inject.se.SeContainerInitializer;
+
+import javax.inject.Inject;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+
+import javax.ws.rs.core.Application;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestDispatchInterceptor {
+
+  private SeContainer container;
+
+  public TestDispatchInterceptor() {
+    super();
+  }
+
+  @BeforeEach
+  public void startContainer() throws Exception {
+    this.stopContainer();
+    Worker.pending = new CompletableFuture<>();
+    RequestState.destroyed = new CountDownLatch(1);
+    final SeContainerInitializer initializer = SeContainerInitializer.newInstance();
+    initializer.disableDiscovery();
+    initializer.addExtensions(new JaxRsExtension());
+    initializer.addBeanClasses(MyApplication.class, Worker.class, RequestState.class, ExecutorProducer.class);
+    this.container = initializer.initialize();
+  }
+
+  @AfterEach
+  public void stopContainer() throws Exception {
+    if (this.container != null) {
+      this.container.close();
+      this.container = null;
+    }
+  }
+
+  @Test
+  public void testDispatch() throws Exception {
+    final Worker worker = this.container.select(Worker.class, JaxRsExtension.ResourceClass.Literal.INSTANCE).get();
+
+    // Dispatched resource methods returning a CompletionStage run on
+    // the DispatchExecutor-qualified Executor, with a request context.
+    assertEquals("dispatch:true", worker.work().toCompletableFuture().get(10L, TimeUnit.SECONDS));
+
+    // Failures are reported through the CompletionStage.
+    final ExecutionException executionException =
+      assertThrows(ExecutionException.class, () -> worker.fail().get(10L, TimeUnit.SECONDS));
+    assertTrue(executionException.getCause() instanceof IllegalStateException);
+
+    // Other resource methods run on the calling thread, even if they
+    // return a CompletionStage.
+    assertEquals(Thread.currentThread().getName(), worker.name());
+    assertEquals(Thread.currentThread().getName(), worker.undispatched().toCompletableFuture().get(10L, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testRequestContextOutlivesMethod() throws Exception {
+    final Worker worker = this.container.select(Worker.class, JaxRsExtension.ResourceClass.Literal.INSTANCE).get();
+    final CompletableFuture<String> result = worker.pending().toCompletableFuture();
+    final CompletableFuture<String> pending = Worker.pending.get(10L, TimeUnit.SECONDS);
+    // The method has returned, but its stage has not completed, so
+    // its request-scoped beans are still alive.
+    assertFalse(RequestState.destroyed.await(100L, TimeUnit.MILLISECONDS));
+    // The single dispatching thread is not held while the stage is
+    // pending.
+    assertEquals("dispatch", worker.thread().toCompletableFuture().get(10L, TimeUnit.SECONDS));
+    pending.complete("done");
+    assertEquals("done", result.get(10L, TimeUnit.SECONDS));
+    assertTrue(RequestState.destroyed.await(10L, TimeUnit.SECONDS));
+  }
+
+  private static final class MyApplication extends Application {
+
+    private MyApplication() {
+      super();
+    }
+
+    @Override
+    public Set<Class<?>> getClasses() {
+      return Collections.singleton(Worker.class);
+    }
+
+  }
+
+  @Path("work")
+  public static class Worker {
+
+    private static volatile CompletableFuture<CompletableFuture<String>> pending;
+
+    @Inject
+    private RequestState requestState;
+
+    public Worker() {
+      super();
+    }
+
+    @Dispatched
+    @GET
+    public CompletionStage<String> work() {
+      return CompletableFuture.completedFuture(Thread.currentThread().getName() + ":" + this.requestState.isActive());
+    }
+
+    @Dispatched
+    @GET
+    @Path("fail")
+    public CompletableFuture<String> fail() {
+      throw new IllegalStateException();
+    }
+
+    @Dispatched
+    @GET
+    @Path("pending")
+    public CompletionStage<String> pending() {
+      this.requestState.isActive();
+      final CompletableFuture<String> returnValue = new CompletableFuture<>();
+      pending.complete(returnValue);
+      return returnValue;
+    }
+
+    @Dispatched
+    @GET
+    @Path("thread")
+    public CompletionStage<String> thread() {
+      return CompletableFuture.completedFuture(Thread.currentThread().getName());
+    }
+
+    @GET
+    @Path("undispatched")
+    public CompletionStage<String> undispatched() {
+      return CompletableFuture.completedFuture(Thread.currentThread().getName());
+    }
+
+    @GET
+    @Path("name")
+    public String name() {
+      return Thread.currentThread().getName();
+    }
+
+  }
+
+  @RequestScoped
+  public static class RequestState {
+
+    private static volatile CountDownLatch destroyed;
+
+    public RequestState() {
+      super();
+    }
+
+    @PreDestroy
+    private void destroy() {
+      if (this.isActive()) {
+        destroyed.countDown();
+      }
+    }
+
+    public boolean isActive() {
+      return true;
+    }
+
+  }
+
+  @ApplicationScoped
+  public static class ExecutorProducer {
+
+    public ExecutorProducer() {
+      super();
+    }
+
+    @Produces
+    @ApplicationScoped
+    @DispatchExecutor
+    private static ExecutorService produceExecutor() {
+      return Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "dispatch"));
+    }
+
+    private static void disposeExecutor(@Disposes @DispatchExecutor final ExecutorService executor) {
+      executor.shutdown();
+    }
+
+  }
+
+}
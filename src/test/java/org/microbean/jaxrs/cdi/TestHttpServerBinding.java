@@ -0,0 +1,325 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+import java.lang.annotation.Annotation;
+
+import java.lang.reflect.Type;
+
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.enterprise.inject.se.SeContainer;
+import javax.enterprise.inject.se.SeContainerInitializer;
+
+import javax.ws.rs.ApplicationPath;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+
+import javax.ws.rs.core.Application;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.StreamingOutput;
+
+import javax.ws.rs.ext.MessageBodyWriter;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestHttpServerBinding {
+
+  private SeContainer container;
+
+  private HttpServerBinding binding;
+
+  public TestHttpServerBinding() {
+    super();
+  }
+
+  @BeforeEach
+  public void startContainer() throws Exception {
+    this.stopContainer();
+    Greetings.pending = new CompletableFuture<>();
+    Greetings.invoked = new CountDownLatch(1);
+    System.setProperty(JaxRsExtension.HTTP_SERVER_PORT_PROPERTY_NAME, "0");
+    final SeContainerInitializer initializer = SeContainerInitializer.newInstance();
+    initializer.disableDiscovery();
+    initializer.addExtensions(new JaxRsExtension());
+    initializer.addBeanClasses(MyApplication.class);
+    this.container = initializer.initialize();
+    this.binding = this.container.getBeanManager().getExtension(JaxRsExtension.class).getHttpServerBinding();
+  }
+
+  @AfterEach
+  public void stopContainer() throws Exception {
+    System.clearProperty(JaxRsExtension.HTTP_SERVER_PORT_PROPERTY_NAME);
+    System.clearProperty(JaxRsExtension.HTTP_SERVER_THREADS_PROPERTY_NAME);
+    if (this.container != null) {
+      this.container.close();
+      this.container = null;
+    }
+  }
+
+  @Test
+  public void testHttpServerBinding() throws IOException {
+    assertNotNull(this.binding);
+    assertEquals(Collections.singleton("/api"), this.binding.getContextPaths());
+
+    assertEquals("200 text/plain;charset=UTF-8 Hello, World Wide!", this.request("GET", "/api/greetings/World%20Wide", null));
+    assertEquals("200 text/plain;charset=UTF-8 Hello, you?", this.request("GET", "/api/greetings/you/?punctuation=%3F", null));
+    assertEquals("200 text/x-greeting Greeting[3]", this.request("GET", "/api/greetings/count/2", null));
+    assertEquals("200 text/plain;charset=UTF-8 ECHO", this.request("POST", "/api/greetings", "echo"));
+    assertEquals("200 text/plain;charset=UTF-8 later", this.request("GET", "/api/greetings/later", null));
+    assertEquals("204", this.request("GET", "/api/greetings/nothing", null));
+    assertEquals("404", this.request("GET", "/api/greetings/count/two", null));
+    assertEquals("404", this.request("GET", "/api/nowhere", null));
+    assertEquals("404", this.request("GET", "/apiary/greetings/you", null));
+    assertEquals("404", this.request("DELETE", "/api/greetings", null));
+    assertEquals("500", this.request("GET", "/api/greetings/fail", null));
+
+    final InetSocketAddress address = this.binding.getAddress();
+    this.container.close();
+    this.container = null;
+    // The server stops with the container.
+    assertThrows(IOException.class,
+                 () -> new URL("http", address.getHostString(), address.getPort(), "/api/greetings/you").openStream().close());
+  }
+
+  @Test
+  public void testStreaming() throws IOException {
+    final InetSocketAddress address = this.binding.getAddress();
+    final HttpURLConnection connection =
+      (HttpURLConnection)new URL("http", address.getHostString(), address.getPort(), "/api/greetings/export/100000").openConnection();
+    assertEquals(200, connection.getResponseCode());
+    assertEquals("application/octet-stream", connection.getContentType());
+    // Too big to buffer, so it is streamed in chunks.
+    assertEquals("chunked", connection.getHeaderField("Transfer-Encoding"));
+    assertEquals(-1, connection.getContentLength());
+    int lines = 0;
+    try (final BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        assertEquals("line " + lines, line);
+        lines++;
+      }
+    }
+    assertEquals(100000, lines);
+  }
+
+  @Test
+  public void testPendingCompletionStage() throws Exception {
+    System.setProperty(JaxRsExtension.HTTP_SERVER_THREADS_PROPERTY_NAME, "1");
+    this.startContainer();
+    final CompletableFuture<String> pendingResponse = CompletableFuture.supplyAsync(() -> {
+        try {
+          return this.request("GET", "/api/greetings/pending", null);
+        } catch (final IOException ioException) {
+          throw new UncheckedIOException(ioException);
+        }
+      });
+    assertTrue(Greetings.invoked.await(10L, TimeUnit.SECONDS));
+    // The server's only thread is not held by the pending response.
+    assertEquals("200 text/plain;charset=UTF-8 Hello, you!", this.request("GET", "/api/greetings/you", null));
+    assertFalse(pendingResponse.isDone());
+    Greetings.pending.complete("pending");
+    assertEquals("200 text/plain;charset=UTF-8 pending", pendingResponse.get(10L, TimeUnit.SECONDS));
+  }
+
+  private final String request(final String method, final String path, final String body) throws IOException {
+    final InetSocketAddress address = this.binding.getAddress();
+    final HttpURLConnection connection =
+      (HttpURLConnection)new URL("http", address.getHostString(), address.getPort(), path).openConnection();
+    connection.setRequestMethod(method);
+    connection.setReadTimeout(10000);
+    connection.setRequestProperty("X-Suffix", "!");
+    if (body != null) {
+      connection.setDoOutput(true);
+      try (final OutputStream outputStream = connection.getOutputStream()) {
+        outputStream.write(body.getBytes(StandardCharsets.UTF_8));
+      }
+    }
+    final int status = connection.getResponseCode();
+    if (status != 200) {
+      connection.disconnect();
+      return String.valueOf(status);
+    }
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (final InputStream inputStream = connection.getInputStream()) {
+      final byte[] buffer = new byte[4096];
+      int read;
+      while ((read = inputStream.read(buffer)) >= 0) {
+        bytes.write(buffer, 0, read);
+      }
+    }
+    return status + " " + connection.getContentType() + " " + new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  @ApplicationPath("/api/*")
+  private static final class MyApplication extends Application {
+
+    private MyApplication() {
+      super();
+    }
+
+    @Override
+    public Set<Class<?>> getClasses() {
+      return new HashSet<>(Arrays.asList(Greetings.class, GreetingWriter.class));
+    }
+
+  }
+
+  @Path("greetings")
+  private static final class Greetings {
+
+    private static volatile CompletableFuture<String> pending;
+
+    private static volatile CountDownLatch invoked;
+
+    private Greetings() {
+      super();
+    }
+
+    @GET
+    @Path("{name}")
+    public String greet(@PathParam("name") final String name,
+                        @QueryParam("punctuation") @DefaultValue("") final String punctuation,
+                        @HeaderParam("X-Suffix") final String suffix) {
+      return "Hello, " + name + (punctuation.isEmpty() ? suffix : punctuation);
+    }
+
+    @GET
+    @Path("count/{n}")
+    public Greeting count(@PathParam("n") final int n) {
+      return new Greeting(n + 1);
+    }
+
+    @POST
+    public String echo(final String body) {
+      return body.toUpperCase();
+    }
+
+    @GET
+    @Path("later")
+    public CompletionStage<String> later() {
+      return CompletableFuture.completedFuture("later");
+    }
+
+    @GET
+    @Path("pending")
+    public CompletionStage<String> pending() {
+      invoked.countDown();
+      return pending;
+    }
+
+    @GET
+    @Path("export/{n}")
+    public StreamingOutput export(@PathParam("n") final int n) {
+      return outputStream -> {
+        for (int i = 0; i < n; i++) {
+          outputStream.write(("line " + i + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+      };
+    }
+
+    @GET
+    @Path("nothing")
+    public void nothing() {
+
+    }
+
+    @GET
+    @Path("fail")
+    public String fail() {
+      throw new IllegalStateException("fail");
+    }
+
+  }
+
+  private static final class Greeting {
+
+    private final int count;
+
+    private Greeting(final int count) {
+      super();
+      this.count = count;
+    }
+
+  }
+
+  @Produces("text/x-greeting")
+  private static final class GreetingWriter implements MessageBodyWriter<Greeting> {
+
+    private GreetingWriter() {
+      super();
+    }
+
+    @Override
+    public boolean isWriteable(final Class<?> type,
+                               final Type genericType,
+                               final Annotation[] annotations,
+                               final MediaType mediaType) {
+      return true;
+    }
+
+    @Override
+    public void writeTo(final Greeting greeting,
+                        final Class<?> type,
+                        final Type genericType,
+                        final Annotation[] annotations,
+                        final MediaType mediaType,
+                        final MultivaluedMap<String, Object> httpHeaders,
+                        final OutputStream entityStream) throws IOException {
+      entityStream.write(("Greeting[" + greeting.count + "]").getBytes(StandardCharsets.UTF_8));
+    }
+
+  }
+
+}
@@ -0,0 +1,202 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import java.nio.charset.StandardCharsets;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestJaxRsIndexProcessor {
+
+  public TestJaxRsIndexProcessor() {
+    super();
+  }
+
+  @Test
+  public void testIndex() throws IOException, URISyntaxException {
+    final Path outputDirectory = process();
+    assertTrue(Files.isRegularFile(outputDirectory.resolve(JaxRsIndex.RESOURCE_NAME)));
+    assertFalse(Files.exists(outputDirectory.resolve(JaxRsIndexProcessor.REFLECT_CONFIG_RESOURCE_NAME)));
+
+    try (final URLClassLoader classLoader = new URLClassLoader(new URL[] { outputDirectory.toUri().toURL() }, null)) {
+      final JaxRsIndex index = JaxRsIndex.load(classLoader);
+      assertEquals(new HashSet<>(Arrays.asList("com.example.Greeting", "com.example.Greeting$Nested")),
+                   index.getResourceClassNames());
+      assertEquals(Collections.singleton("com.example.GreetingProvider"), index.getProviderClassNames());
+      assertEquals(Collections.singleton("com.example.GreetingApplication"), index.getApplicationClassNames());
+    }
+  }
+
+  @Test
+  public void testIncrementalIndex() throws IOException, URISyntaxException {
+    final Path outputDirectory = Files.createTempDirectory(this.getClass().getSimpleName());
+    compile(outputDirectory, sources());
+    // Recompile only a new resource class and an Application class
+    // that has lost its @ApplicationPath annotation.
+    compile(outputDirectory,
+            Arrays.asList(new Source("com.example.Farewell",
+                                     "package com.example;\n" +
+                                     "@javax.ws.rs.Path(\"farewell\")\n" +
+                                     "public class Farewell { }\n"),
+                          new Source("com.example.GreetingApplication",
+                                     "package com.example;\n" +
+                                     "public class GreetingApplication extends javax.ws.rs.core.Application { }\n")));
+    try (final URLClassLoader classLoader = new URLClassLoader(new URL[] { outputDirectory.toUri().toURL() }, null)) {
+      final JaxRsIndex index = JaxRsIndex.load(classLoader);
+      assertEquals(new HashSet<>(Arrays.asList("com.example.Farewell", "com.example.Greeting", "com.example.Greeting$Nested")),
+                   index.getResourceClassNames());
+      assertEquals(Collections.singleton("com.example.GreetingProvider"), index.getProviderClassNames());
+      assertEquals(Collections.emptySet(), index.getApplicationClassNames());
+    }
+  }
+
+  @Test
+  public void testReflectConfig() throws IOException, URISyntaxException {
+    final Path outputDirectory = process("-A" + JaxRsIndexProcessor.NATIVE_IMAGE_OPTION + "=true");
+    final Path reflectConfig = outputDirectory.resolve(JaxRsIndexProcessor.REFLECT_CONFIG_RESOURCE_NAME);
+    assertTrue(Files.isRegularFile(reflectConfig));
+    assertEquals(Arrays.asList("com.example.Greeting",
+                               "com.example.Greeting$Nested",
+                               "com.example.GreetingApplication",
+                               "com.example.GreetingProvider"),
+                 names(new String(Files.readAllBytes(reflectConfig), StandardCharsets.UTF_8)));
+  }
+
+  @Test
+  public void testBundledReflectConfig() throws IOException, ClassNotFoundException {
+    // Every class this project registers for reflection must exist.
+    final String resourceName = "META-INF/native-image/org.microbean/microbean-jaxrs-cdi/reflect-config.json";
+    try (final InputStream inputStream = JaxRsExtension.class.getClassLoader().getResourceAsStream(resourceName)) {
+      assertNotNull(inputStream);
+      final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      final byte[] buffer = new byte[4096];
+      int read;
+      while ((read = inputStream.read(buffer)) >= 0) {
+        bytes.write(buffer, 0, read);
+      }
+      final List<String> names = names(new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+      assertTrue(names.contains(JaxRsExtension.ResourceClass.Literal.class.getName()));
+      for (final String name : names) {
+        Class.forName(name, false, JaxRsExtension.class.getClassLoader());
+      }
+    }
+  }
+
+  private static final List<String> names(final String reflectConfig) {
+    final List<String> returnValue = new ArrayList<>();
+    final Matcher matcher = Pattern.compile("\"name\": \"([^\"]+)\"").matcher(reflectConfig);
+    while (matcher.find()) {
+      returnValue.add(matcher.group(1));
+    }
+    return returnValue;
+  }
+
+  private final Path process(final String... options) throws IOException, URISyntaxException {
+    final Path outputDirectory = Files.createTempDirectory(this.getClass().getSimpleName());
+    final List<String> arguments = new ArrayList<>();
+    arguments.add("-proc:only");
+    arguments.addAll(Arrays.asList(options));
+    compile(outputDirectory, sources(), arguments.toArray(new String[arguments.size()]));
+    return outputDirectory;
+  }
+
+  private static final List<JavaFileObject> sources() {
+    return
+      Arrays.asList(new Source("com.example.Greeting",
+                               "package com.example;\n" +
+                               "@javax.ws.rs.Path(\"greeting\")\n" +
+                               "public class Greeting {\n" +
+                               "  @javax.ws.rs.GET public String get() { return \"hello\"; }\n" +
+                               "  @javax.ws.rs.Path(\"nested\")\n" +
+                               "  public static class Nested { }\n" +
+                               "}\n"),
+                    new Source("com.example.GreetingProvider",
+                               "package com.example;\n" +
+                               "@javax.ws.rs.ext.Provider\n" +
+                               "public class GreetingProvider { }\n"),
+                    new Source("com.example.GreetingApplication",
+                               "package com.example;\n" +
+                               "@javax.ws.rs.ApplicationPath(\"/greetings\")\n" +
+                               "public class GreetingApplication extends javax.ws.rs.core.Application { }\n"));
+  }
+
+  private static final void compile(final Path outputDirectory,
+                                    final List<JavaFileObject> sources,
+                                    final String... options)
+    throws URISyntaxException {
+    final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    assertNotNull(compiler);
+    final String classpath =
+      new File(javax.ws.rs.Path.class.getProtectionDomain().getCodeSource().getLocation().toURI()).toString() +
+      File.pathSeparator + outputDirectory;
+    final List<String> arguments =
+      new ArrayList<>(Arrays.asList("-d", outputDirectory.toString(), "-classpath", classpath));
+    arguments.addAll(Arrays.asList(options));
+    final JavaCompiler.CompilationTask task = compiler.getTask(null, null, null, arguments, null, sources);
+    task.setProcessors(Collections.singleton(new JaxRsIndexProcessor()));
+    assertTrue(task.call());
+  }
+
+  private static final class Source extends SimpleJavaFileObject {
+
+    private final String content;
+
+    private Source(final String className, final String content) {
+      super(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+      this.content = content;
+    }
+
+    @Override
+    public final CharSequence getCharContent(final boolean ignoreEncodingErrors) {
+      return this.content;
+    }
+
+  }
+
+}
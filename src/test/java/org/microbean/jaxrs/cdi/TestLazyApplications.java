@@ -0,0 +1,193 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.Collections;
+import java.util.Set;
+
+import javax.enterprise.inject.se.SeContainer;
+import javax.enterprise.inject.se.SeContainerInitializer;
+
+import javax.enterprise.util.AnnotationLiteral;
+
+import javax.inject.Qualifier;
+
+import javax.ws.rs.ApplicationPath;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+
+import javax.ws.rs.core.Application;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.ElementType.PARAMETER;
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class TestLazyApplications {
+
+  private SeContainer container;
+
+  public TestLazyApplications() {
+    super();
+  }
+
+  @BeforeEach
+  public void startContainer() throws Exception {
+    this.stopContainer();
+    System.setProperty(JaxRsExtension.LAZY_APPLICATIONS_PROPERTY_NAME, "true");
+    System.setProperty(JaxRsExtension.ROUTE_TABLES_PROPERTY_NAME, "true");
+    System.setProperty(JaxRsExtension.RESOLVED_BEANS_PROPERTY_NAME, "true");
+    System.setProperty(JaxRsExtension.HTTP_SERVER_PORT_PROPERTY_NAME, "0");
+    final SeContainerInitializer initializer = SeContainerInitializer.newInstance();
+    initializer.disableDiscovery();
+    initializer.addExtensions(new JaxRsExtension());
+    initializer.addBeanClasses(MyApplication.class, Orders.class);
+    this.container = initializer.initialize();
+  }
+
+  @AfterEach
+  public void stopContainer() throws Exception {
+    System.clearProperty(JaxRsExtension.LAZY_APPLICATIONS_PROPERTY_NAME);
+    System.clearProperty(JaxRsExtension.ROUTE_TABLES_PROPERTY_NAME);
+    System.clearProperty(JaxRsExtension.RESOLVED_BEANS_PROPERTY_NAME);
+    System.clearProperty(JaxRsExtension.HTTP_SERVER_PORT_PROPERTY_NAME);
+    if (this.container != null) {
+      this.container.close();
+      this.container = null;
+    }
+  }
+
+  @Test
+  public void testLazyApplications() throws IOException {
+    final LazyApplicationReport report = this.container.select(LazyApplicationReport.class).get();
+    assertEquals(2, report.getApplicationCount());
+    assertEquals(0, report.getActivatedApplicationCount());
+    assertEquals(2, report.getDeferredClassCount());
+
+    // Looking up one of an Application's derived beans activates it.
+    final RouteTable routeTable = this.container.select(RouteTable.class, Export.Literal.INSTANCE).get();
+    assertNotNull(routeTable.match("/orders", "GET"));
+    assertNotNull(this.container.select(ResolvedBeans.class, Export.Literal.INSTANCE).get().getBean(Orders.class));
+    assertEquals(1, report.getActivatedApplicationCount());
+    assertEquals(1, report.getDeferredClassCount());
+    assertSame(routeTable, this.container.select(RouteTable.class, Export.Literal.INSTANCE).get());
+
+    // So does the first request to an Application served over HTTP.
+    final HttpServerBinding binding = this.container.getBeanManager().getExtension(JaxRsExtension.class).getHttpServerBinding();
+    assertEquals("items", this.get(binding, "/api/items"));
+    assertEquals("items", this.get(binding, "/api/items"));
+    assertEquals(2, report.getActivatedApplicationCount());
+    assertEquals(0, report.getDeferredClassCount());
+  }
+
+  private final String get(final HttpServerBinding binding, final String path) throws IOException {
+    final InetSocketAddress address = binding.getAddress();
+    final HttpURLConnection connection =
+      (HttpURLConnection)new URL("http", address.getHostString(), address.getPort(), path).openConnection();
+    assertEquals(200, connection.getResponseCode());
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (final InputStream inputStream = connection.getInputStream()) {
+      final byte[] buffer = new byte[4096];
+      int read;
+      while ((read = inputStream.read(buffer)) >= 0) {
+        bytes.write(buffer, 0, read);
+      }
+    }
+    return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  @ApplicationPath("/api")
+  private static final class MyApplication extends Application {
+
+    private MyApplication() {
+      super();
+    }
+
+    @Override
+    public Set<Class<?>> getClasses() {
+      return Collections.singleton(Items.class);
+    }
+
+  }
+
+  @Path("items")
+  public static class Items {
+
+    public Items() {
+      super();
+    }
+
+    @GET
+    public String list() {
+      return "items";
+    }
+
+  }
+
+  @Export
+  @Path("orders")
+  public static class Orders {
+
+    public Orders() {
+      super();
+    }
+
+    @GET
+    public String list() {
+      return "orders";
+    }
+
+  }
+
+  @Qualifier
+  @Retention(RUNTIME)
+  @Target({ FIELD, METHOD, PARAMETER, TYPE })
+  public @interface Export {
+
+    public static final class Literal extends AnnotationLiteral<Export> implements Export {
+
+      private static final long serialVersionUID = 1L;
+
+      public static final Export INSTANCE = new Literal();
+
+    }
+
+  }
+
+}
@@ -0,0 +1,181 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import java.util.Collections;
+import java.util.Set;
+
+import javax.enterprise.inject.se.SeContainer;
+import javax.enterprise.inject.se.SeContainerInitializer;
+
+import javax.enterprise.util.AnnotationLiteral;
+
+import javax.inject.Qualifier;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+
+import javax.ws.rs.core.Application;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.ElementType.PARAMETER;
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class TestParallelApplicationAnalysis {
+
+  private SeContainer container;
+
+  public TestParallelApplicationAnalysis() {
+    super();
+  }
+
+  @BeforeEach
+  public void startContainer() throws Exception {
+    this.stopContainer();
+    System.setProperty(JaxRsExtension.PARALLEL_APPLICATION_ANALYSIS_PROPERTY_NAME, "true");
+    System.setProperty(JaxRsExtension.ROUTE_TABLES_PROPERTY_NAME, "true");
+    final SeContainerInitializer initializer = SeContainerInitializer.newInstance();
+    initializer.disableDiscovery();
+    initializer.addExtensions(new JaxRsExtension());
+    initializer.addBeanClasses(FirstApplication.class, SecondApplication.class);
+    this.container = initializer.initialize();
+  }
+
+  @AfterEach
+  public void stopContainer() throws Exception {
+    System.clearProperty(JaxRsExtension.PARALLEL_APPLICATION_ANALYSIS_PROPERTY_NAME);
+    System.clearProperty(JaxRsExtension.ROUTE_TABLES_PROPERTY_NAME);
+    if (this.container != null) {
+      this.container.close();
+      this.container = null;
+    }
+  }
+
+  @Test
+  public void testParallelApplicationAnalysis() {
+    final RouteTable first = this.container.select(RouteTable.class, First.Literal.INSTANCE).get();
+    assertEquals(FirstResource.class, first.match("/first", "GET").getResourceClass());
+    assertNull(first.match("/second", "GET"));
+
+    final RouteTable second = this.container.select(RouteTable.class, Second.Literal.INSTANCE).get();
+    assertEquals(SecondResource.class, second.match("/second", "GET").getResourceClass());
+    assertNull(second.match("/first", "GET"));
+
+    assertNotNull(this.container.select(FirstResource.class, First.Literal.INSTANCE).get());
+    assertNotNull(this.container.select(SecondResource.class, Second.Literal.INSTANCE).get());
+  }
+
+  @First
+  private static final class FirstApplication extends Application {
+
+    private FirstApplication() {
+      super();
+    }
+
+    @Override
+    public Set<Class<?>> getClasses() {
+      return Collections.singleton(FirstResource.class);
+    }
+
+  }
+
+  @Second
+  private static final class SecondApplication extends Application {
+
+    private SecondApplication() {
+      super();
+    }
+
+    @Override
+    public Set<Class<?>> getClasses() {
+      return Collections.singleton(SecondResource.class);
+    }
+
+  }
+
+  @Path("first")
+  public static final class FirstResource {
+
+    public FirstResource() {
+      super();
+    }
+
+    @GET
+    public String get() {
+      return "first";
+    }
+
+  }
+
+  @Path("second")
+  public static final class SecondResource {
+
+    public SecondResource() {
+      super();
+    }
+
+    @GET
+    public String get() {
+      return "second";
+    }
+
+  }
+
+  @Qualifier
+  @Retention(RUNTIME)
+  @Target({ FIELD, METHOD, PARAMETER, TYPE })
+  public @interface First {
+
+    public static final class Literal extends AnnotationLiteral<First> implements First {
+
+      private static final long serialVersionUID = 1L;
+
+      public static final First INSTANCE = new Literal();
+
+    }
+
+  }
+
+  @Qualifier
+  @Retention(RUNTIME)
+  @Target({ FIELD, METHOD, PARAMETER, TYPE })
+  public @interface Second {
+
+    public static final class Literal extends AnnotationLiteral<Second> implements Second {
+
+      private static final long serialVersionUID = 1L;
+
+      public static final Second INSTANCE = new Literal();
+
+    }
+
+  }
+
+}
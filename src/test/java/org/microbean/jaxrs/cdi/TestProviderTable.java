@@ -0,0 +1,166 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.lang.annotation.Annotation;
+
+import java.lang.reflect.Type;
+
+import java.util.Arrays;
+import java.util.List;
+
+import javax.annotation.Priority;
+
+import javax.ws.rs.Consumes;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+
+import javax.ws.rs.ext.ExceptionMapper;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.ParamConverter;
+import javax.ws.rs.ext.ParamConverterProvider;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestProviderTable {
+
+  public TestProviderTable() {
+    super();
+  }
+
+  @Test
+  public void testProviderTable() {
+    final ProviderTable providerTable =
+      ProviderTable.of(Arrays.asList(StringReader.class,
+                                     CharSequenceReader.class,
+                                     ObjectReader.class,
+                                     IOExceptionMapper.class,
+                                     ThrowableMapper.class,
+                                     LowPriorityParamConverterProvider.class,
+                                     HighPriorityParamConverterProvider.class,
+                                     String.class));
+
+    final List<ProviderTable.Entry> readers = providerTable.getMessageBodyReaders(String.class);
+    assertEquals(3, readers.size());
+    assertEquals(StringReader.class, readers.get(0).getProviderClass());
+    assertEquals(String.class, readers.get(0).getHandledType());
+    assertEquals(CharSequenceReader.class, readers.get(1).getProviderClass());
+    assertEquals(ObjectReader.class, readers.get(2).getProviderClass());
+    assertEquals(Object.class, readers.get(2).getHandledType());
+    assertSame(readers, providerTable.getMessageBodyReaders(String.class));
+
+    assertTrue(readers.get(0).isCompatible(MediaType.TEXT_PLAIN_TYPE));
+    assertFalse(readers.get(0).isCompatible(MediaType.APPLICATION_JSON_TYPE));
+    assertTrue(readers.get(2).isCompatible(MediaType.APPLICATION_JSON_TYPE));
+
+    assertEquals(1, providerTable.getMessageBodyReaders(Integer.class).size());
+    assertEquals(1, providerTable.getMessageBodyReaders(int.class).size());
+    assertTrue(providerTable.getMessageBodyWriters(String.class).isEmpty());
+
+    final List<ProviderTable.Entry> mappers = providerTable.getExceptionMappers(FileNotFoundException.class);
+    assertEquals(2, mappers.size());
+    assertEquals(IOExceptionMapper.class, mappers.get(0).getProviderClass());
+    assertEquals(ThrowableMapper.class, mappers.get(1).getProviderClass());
+    assertEquals(1, providerTable.getExceptionMappers(RuntimeException.class).size());
+
+    final List<ProviderTable.Entry> paramConverterProviders = providerTable.getParamConverterProviders();
+    assertEquals(2, paramConverterProviders.size());
+    assertEquals(HighPriorityParamConverterProvider.class, paramConverterProviders.get(0).getProviderClass());
+  }
+
+  @Consumes({ "text/plain; charset=UTF-8", "text/html" })
+  private static final class StringReader extends AbstractReader<String> {
+
+  }
+
+  @Priority(1)
+  private static final class CharSequenceReader extends AbstractReader<CharSequence> {
+
+  }
+
+  private static final class ObjectReader extends AbstractReader<Object> {
+
+  }
+
+  private abstract static class AbstractReader<T> implements MessageBodyReader<T> {
+
+    @Override
+    public boolean isReadable(final Class<?> type,
+                              final Type genericType,
+                              final Annotation[] annotations,
+                              final MediaType mediaType) {
+      return true;
+    }
+
+    @Override
+    public T readFrom(final Class<T> type,
+                      final Type genericType,
+                      final Annotation[] annotations,
+                      final MediaType mediaType,
+                      final MultivaluedMap<String, String> httpHeaders,
+                      final InputStream entityStream) {
+      return null;
+    }
+
+  }
+
+  private static final class IOExceptionMapper implements ExceptionMapper<IOException> {
+
+    @Override
+    public Response toResponse(final IOException exception) {
+      return null;
+    }
+
+  }
+
+  private static final class ThrowableMapper implements ExceptionMapper<Throwable> {
+
+    @Override
+    public Response toResponse(final Throwable exception) {
+      return null;
+    }
+
+  }
+
+  private static class LowPriorityParamConverterProvider implements ParamConverterProvider {
+
+    @Override
+    public <T> ParamConverter<T> getConverter(final Class<T> rawType,
+                                              final Type genericType,
+                                              final Annotation[] annotations) {
+      return null;
+    }
+
+  }
+
+  @Priority(10)
+  private static final class HighPriorityParamConverterProvider extends LowPriorityParamConverterProvider {
+
+  }
+
+}
@@ -0,0 +1,163 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.nio.charset.StandardCharsets;
+
+import java.nio.file.Files;
+
+import java.util.Collections;
+import java.util.Set;
+
+import javax.enterprise.inject.literal.NamedLiteral;
+
+import javax.enterprise.inject.se.SeContainer;
+import javax.enterprise.inject.se.SeContainerInitializer;
+
+import javax.inject.Named;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+
+import javax.ws.rs.core.Application;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestRedeployReport {
+
+  private java.nio.file.Path snapshotPath;
+
+  public TestRedeployReport() {
+    super();
+  }
+
+  @BeforeEach
+  public void setSystemProperties() throws Exception {
+    this.snapshotPath = Files.createTempDirectory("TestRedeployReport").resolve("discovery.snapshot");
+    System.setProperty(JaxRsExtension.DISCOVERY_SNAPSHOT_PROPERTY_NAME, this.snapshotPath.toString());
+    System.setProperty(JaxRsExtension.ROUTE_TABLES_PROPERTY_NAME, "true");
+  }
+
+  @AfterEach
+  public void clearSystemProperties() throws Exception {
+    System.clearProperty(JaxRsExtension.DISCOVERY_SNAPSHOT_PROPERTY_NAME);
+    System.clearProperty(JaxRsExtension.ROUTE_TABLES_PROPERTY_NAME);
+    Files.deleteIfExists(this.snapshotPath);
+    Files.deleteIfExists(this.snapshotPath.getParent());
+  }
+
+  @Test
+  public void testRedeployReport() throws Exception {
+    RouteTable firstRouteTable;
+    try (final SeContainer container = start()) {
+      final RedeployReport report = container.select(RedeployReport.class).get();
+      assertTrue(report.isInitial());
+      assertEquals(2, report.getApplicationCount());
+      assertTrue(report.getAddedClassNames().contains(Items.class.getName()));
+      assertTrue(report.getAddedClassNames().contains(Orders.class.getName()));
+      assertEquals(0, report.getReusedApplicationCount());
+      firstRouteTable = container.select(RouteTable.class, NamedLiteral.of("orders")).get();
+    }
+    assertTrue(Files.exists(this.snapshotPath));
+
+    // Nothing changed: nothing is affected, and the same Class
+    // objects mean that derived state is reused.
+    try (final SeContainer container = start()) {
+      final RedeployReport report = container.select(RedeployReport.class).get();
+      assertFalse(report.isInitial());
+      assertEquals(0, report.getAffectedApplicationCount());
+      assertTrue(report.getAddedClassNames().isEmpty());
+      assertTrue(report.getRemovedClassNames().isEmpty());
+      assertTrue(report.getChangedClassNames().isEmpty());
+      assertEquals(2, report.getReusedApplicationCount());
+      assertSame(firstRouteTable, container.select(RouteTable.class, NamedLiteral.of("orders")).get());
+    }
+
+    // Pretend that Items was recompiled differently and that a class
+    // has since been deleted.
+    final String hash = DiscoverySnapshot.hash(Items.class);
+    final String snapshot = new String(Files.readAllBytes(this.snapshotPath), StandardCharsets.UTF_8);
+    assertTrue(snapshot.contains("H " + hash + " " + Items.class.getName()));
+    Files.write(this.snapshotPath,
+                (snapshot.replace("H " + hash + " ", "H 0 ") + "H 1 com.example.Gone\n").getBytes(StandardCharsets.UTF_8));
+    try (final SeContainer container = start()) {
+      final RedeployReport report = container.select(RedeployReport.class).get();
+      assertEquals(1, report.getAffectedApplicationCount());
+      assertEquals(Collections.singleton(Items.class.getName()), report.getChangedClassNames());
+      assertEquals(Collections.singleton("com.example.Gone"), report.getRemovedClassNames());
+      assertTrue(report.getAddedClassNames().isEmpty());
+    }
+  }
+
+  private static final SeContainer start() {
+    final SeContainerInitializer initializer = SeContainerInitializer.newInstance();
+    initializer.disableDiscovery();
+    initializer.addExtensions(new JaxRsExtension());
+    initializer.addBeanClasses(MyApplication.class, Orders.class);
+    return initializer.initialize();
+  }
+
+  private static final class MyApplication extends Application {
+
+    private MyApplication() {
+      super();
+    }
+
+    @Override
+    public Set<Class<?>> getClasses() {
+      return Collections.singleton(Items.class);
+    }
+
+  }
+
+  @Path("items")
+  public static class Items {
+
+    public Items() {
+      super();
+    }
+
+    @GET
+    public String list() {
+      return "items";
+    }
+
+  }
+
+  @Named("orders")
+  @Path("orders")
+  public static class Orders {
+
+    public Orders() {
+      super();
+    }
+
+    @GET
+    public String list() {
+      return "orders";
+    }
+
+  }
+
+}
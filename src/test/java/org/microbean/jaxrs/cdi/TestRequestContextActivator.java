@@ -0,0 +1,152 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PreDestroy;
+
+import javax.enterprise.context.ContextNotActiveException;
+import javax.enterprise.context.RequestScoped;
+
+import javax.enterprise.inject.se.SeContainer;
+import javax.enterprise.inject.se.SeContainerInitializer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestRequestContextActivator {
+
+  private static final AtomicInteger destroyed = new AtomicInteger();
+
+  private SeContainer container;
+
+  public TestRequestContextActivator() {
+    super();
+  }
+
+  @BeforeEach
+  public void startContainer() throws Exception {
+    this.stopContainer();
+    destroyed.set(0);
+    final SeContainerInitializer initializer = SeContainerInitializer.newInstance();
+    initializer.disableDiscovery();
+    initializer.addExtensions(new JaxRsExtension());
+    initializer.addBeanClasses(Counter.class);
+    this.container = initializer.initialize();
+  }
+
+  @AfterEach
+  public void stopContainer() throws Exception {
+    if (this.container != null) {
+      this.container.close();
+      this.container = null;
+    }
+  }
+
+  @Test
+  public void testRequestContextActivator() {
+    final RequestContextActivator activator = new RequestContextActivator(this.container.getBeanManager());
+    final Counter counter = this.container.select(Counter.class).get();
+    assertThrows(ContextNotActiveException.class, counter::increment);
+
+    for (int i = 0; i < 3; i++) {
+      final RequestContextActivator.Activation activation = activator.activate();
+      try {
+        assertEquals(1, counter.increment());
+        assertEquals(2, counter.increment());
+
+        // Nested activations leave the outer request context alone.
+        final RequestContextActivator.Activation nestedActivation = activator.activate();
+        assertEquals(3, counter.increment());
+        nestedActivation.close();
+        assertEquals(4, counter.increment());
+      } finally {
+        activation.close();
+        activation.close();
+      }
+      assertEquals(i + 1, destroyed.get());
+      assertThrows(ContextNotActiveException.class, counter::increment);
+    }
+  }
+
+  @Test
+  public void testNoBean() {
+    assertFalse(this.container.select(RequestContextActivator.class).isResolvable());
+  }
+
+  @Test
+  public void testConcurrentActivations() throws Exception {
+    final RequestContextActivator activator = new RequestContextActivator(this.container.getBeanManager());
+    final Counter counter = this.container.select(Counter.class).get();
+    final int threads = 4;
+    final ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      final Future<?>[] futures = new Future<?>[threads];
+      for (int i = 0; i < threads; i++) {
+        futures[i] = executor.submit(() -> {
+            for (int j = 0; j < 1000; j++) {
+              final RequestContextActivator.Activation activation = activator.activate();
+              try {
+                assertEquals(1, counter.increment());
+              } finally {
+                activation.close();
+              }
+            }
+            return null;
+          });
+      }
+      for (final Future<?> future : futures) {
+        future.get(10L, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertEquals(threads * 1000, destroyed.get());
+  }
+
+  @RequestScoped
+  public static class Counter {
+
+    private int count;
+
+    public Counter() {
+      super();
+    }
+
+    public int increment() {
+      return ++this.count;
+    }
+
+    @PreDestroy
+    private void destroy() {
+      destroyed.incrementAndGet();
+    }
+
+  }
+
+}
@@ -0,0 +1,221 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.enterprise.inject.se.SeContainer;
+import javax.enterprise.inject.se.SeContainerInitializer;
+
+import javax.enterprise.inject.spi.Bean;
+import javax.enterprise.inject.spi.BeanManager;
+
+import javax.enterprise.util.AnnotationLiteral;
+
+import javax.inject.Qualifier;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+
+import javax.ws.rs.core.Application;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.ElementType.PARAMETER;
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestResolvedBeans {
+
+  private SeContainer container;
+
+  public TestResolvedBeans() {
+    super();
+  }
+
+  @BeforeEach
+  public void startContainer() throws Exception {
+    this.startContainer(MyApplication.class, BeanResource.class);
+  }
+
+  private final void startContainer(final Class<?>... beanClasses) throws Exception {
+    this.stopContainer();
+    System.setProperty(JaxRsExtension.RESOLVED_BEANS_PROPERTY_NAME, "true");
+    final SeContainerInitializer initializer = SeContainerInitializer.newInstance();
+    initializer.disableDiscovery();
+    initializer.addExtensions(new JaxRsExtension());
+    initializer.addBeanClasses(beanClasses);
+    this.container = initializer.initialize();
+  }
+
+  @AfterEach
+  public void stopContainer() throws Exception {
+    System.clearProperty(JaxRsExtension.RESOLVED_BEANS_PROPERTY_NAME);
+    if (this.container != null) {
+      this.container.close();
+      this.container = null;
+    }
+  }
+
+  @Test
+  public void testResolvedBeans() {
+    final ResolvedBeans resolvedBeans = this.container.select(ResolvedBeans.class).get();
+    final BeanManager beanManager = this.container.getBeanManager();
+    for (final Class<?> c : Arrays.asList(BeanResource.class, NonBeanResource.class)) {
+      final Bean<?> bean = resolvedBeans.getBean(c);
+      assertSame(beanManager.resolve(beanManager.getBeans(c, JaxRsExtension.ResourceClass.Literal.INSTANCE)), bean);
+      assertEquals(bean.getQualifiers(), resolvedBeans.getQualifiers(c));
+      assertTrue(resolvedBeans.getQualifiers(c).contains(JaxRsExtension.ResourceClass.Literal.INSTANCE));
+    }
+    assertNull(resolvedBeans.getBean(String.class));
+    assertNull(resolvedBeans.getQualifiers(null));
+  }
+
+  @Test
+  public void testSameClassInSeveralApplications() throws Exception {
+    this.startContainer(SharedApplication.class, OtherApplication.class, BeanResource.class);
+
+    // Each Application's ResolvedBeans picks out the bean created for
+    // that Application, and not one created for another Application
+    // or one of a subclass.
+    final ResolvedBeans resolvedBeans = this.container.select(ResolvedBeans.class).get();
+    final ResolvedBeans otherResolvedBeans = this.container.select(ResolvedBeans.class, Other.Literal.INSTANCE).get();
+    for (final Class<?> c : Arrays.asList(BeanResource.class, NonBeanResource.class)) {
+      final Bean<?> bean = resolvedBeans.getBean(c);
+      assertNotNull(bean);
+      assertFalse(bean.getQualifiers().contains(Other.Literal.INSTANCE));
+      assertFalse(bean.getTypes().contains(SubResource.class));
+      final Bean<?> otherBean = otherResolvedBeans.getBean(c);
+      assertNotNull(otherBean);
+      assertNotSame(bean, otherBean);
+    }
+    // NonBeanResource was never discovered, so each Application got a
+    // bean of its own bearing its qualifiers.
+    assertTrue(otherResolvedBeans.getBean(NonBeanResource.class).getQualifiers().contains(Other.Literal.INSTANCE));
+    assertTrue(resolvedBeans.getBean(SubResource.class).getTypes().contains(SubResource.class));
+  }
+
+  private static final class MyApplication extends Application {
+
+    private MyApplication() {
+      super();
+    }
+
+    @Override
+    public Set<Class<?>> getClasses() {
+      return new HashSet<>(Arrays.asList(BeanResource.class, NonBeanResource.class));
+    }
+
+  }
+
+  private static final class SharedApplication extends Application {
+
+    private SharedApplication() {
+      super();
+    }
+
+    @Override
+    public Set<Class<?>> getClasses() {
+      return new HashSet<>(Arrays.asList(BeanResource.class, NonBeanResource.class, SubResource.class));
+    }
+
+  }
+
+  @Other
+  private static final class OtherApplication extends Application {
+
+    private OtherApplication() {
+      super();
+    }
+
+    @Override
+    public Set<Class<?>> getClasses() {
+      return new HashSet<>(Arrays.asList(BeanResource.class, NonBeanResource.class));
+    }
+
+  }
+
+  @Path("bean")
+  private static final class BeanResource {
+
+    private BeanResource() {
+      super();
+    }
+
+    @GET
+    public String get() {
+      return "bean";
+    }
+
+  }
+
+  @Path("nonBean")
+  public static class NonBeanResource {
+
+    public NonBeanResource() {
+      super();
+    }
+
+    @GET
+    public String get() {
+      return "nonBean";
+    }
+
+  }
+
+  @Path("sub")
+  public static final class SubResource extends NonBeanResource {
+
+    public SubResource() {
+      super();
+    }
+
+  }
+
+  @Qualifier
+  @Retention(RUNTIME)
+  @Target({ FIELD, METHOD, PARAMETER, TYPE })
+  public @interface Other {
+
+    public static final class Literal extends AnnotationLiteral<Other> implements Other {
+
+      private static final long serialVersionUID = 1L;
+
+      public static final Other INSTANCE = new Literal();
+
+    }
+
+  }
+
+}
@@ -0,0 +1,108 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.util.Arrays;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestResourceMethodInvokers {
+
+  public TestResourceMethodInvokers() {
+    super();
+  }
+
+  @Test
+  public void testInvoke() throws Throwable {
+    final ResourceMethodInvokers invokers =
+      ResourceMethodInvokers.of(Arrays.asList(Items.class, HiddenItems.class, String.class));
+    assertEquals(4, invokers.getInvokers(Items.class).size());
+    assertTrue(invokers.getInvokers(String.class).isEmpty());
+
+    final Items items = new Items();
+    assertEquals("all", invokers.getInvoker(Items.class, Items.class.getMethod("list")).invoke(items));
+    assertEquals("42", invokers.getInvoker(Items.class, Items.class.getMethod("get", String.class)).invoke(items, "42"));
+    assertEquals(3, invokers.getInvoker(Items.class, Items.class.getMethod("count", int.class)).invoke(items, 2));
+    final ResourceMethodInvoker fail = invokers.getInvoker(Items.class, Items.class.getMethod("fail"));
+    assertNull(invokers.getInvoker(Items.class, Object.class.getMethod("toString")));
+
+    // Exceptions are not wrapped.
+    assertThrows(UnsupportedOperationException.class, () -> fail.invoke(items));
+    assertThrows(IllegalArgumentException.class,
+                 () -> invokers.getInvoker(Items.class, Items.class.getMethod("list")).invoke(items, "extra"));
+
+    // Methods of non-public classes are invoked through a MethodHandle.
+    assertEquals("hidden",
+                 invokers.getInvoker(HiddenItems.class, HiddenItems.class.getMethod("list")).invoke(new HiddenItems()));
+  }
+
+  @Path("items")
+  public static final class Items {
+
+    public Items() {
+      super();
+    }
+
+    @GET
+    public String list() {
+      return "all";
+    }
+
+    @GET
+    @Path("{id}")
+    public String get(@PathParam("id") final String id) {
+      return id;
+    }
+
+    @GET
+    @Path("count/{n}")
+    public int count(@PathParam("n") final int n) {
+      return n + 1;
+    }
+
+    @POST
+    public void fail() {
+      throw new UnsupportedOperationException();
+    }
+
+  }
+
+  @Path("hidden")
+  private static final class HiddenItems {
+
+    private HiddenItems() {
+      super();
+    }
+
+    @GET
+    public String list() {
+      return "hidden";
+    }
+
+  }
+
+}
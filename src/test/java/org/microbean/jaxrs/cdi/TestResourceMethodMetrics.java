@@ -0,0 +1,204 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.lang.management.ManagementFactory;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.enterprise.inject.se.SeContainer;
+import javax.enterprise.inject.se.SeContainerInitializer;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+
+import javax.ws.rs.core.Application;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestResourceMethodMetrics {
+
+  private SeContainer container;
+
+  public TestResourceMethodMetrics() {
+    super();
+  }
+
+  @BeforeEach
+  public void startContainer() throws Exception {
+    this.stopContainer();
+    System.setProperty(JaxRsExtension.RESOURCE_METHOD_METRICS_PROPERTY_NAME, "true");
+    System.setProperty(JaxRsExtension.RESOURCE_METHOD_METRICS_JMX_PROPERTY_NAME, "true");
+    final SeContainerInitializer initializer = SeContainerInitializer.newInstance();
+    initializer.disableDiscovery();
+    initializer.addExtensions(new JaxRsExtension());
+    initializer.addBeanClasses(MyApplication.class, BeanResource.class);
+    this.container = initializer.initialize();
+  }
+
+  @AfterEach
+  public void stopContainer() throws Exception {
+    System.clearProperty(JaxRsExtension.RESOURCE_METHOD_METRICS_PROPERTY_NAME);
+    System.clearProperty(JaxRsExtension.RESOURCE_METHOD_METRICS_JMX_PROPERTY_NAME);
+    if (this.container != null) {
+      this.container.close();
+      this.container = null;
+    }
+  }
+
+  @Test
+  public void testResourceMethodMetrics() throws Exception {
+    final BeanResource beanResource =
+      this.container.select(BeanResource.class, JaxRsExtension.ResourceClass.Literal.INSTANCE).get();
+    final NonBeanResource nonBeanResource =
+      this.container.select(NonBeanResource.class, JaxRsExtension.ResourceClass.Literal.INSTANCE).get();
+    for (int i = 0; i < 3; i++) {
+      assertEquals("bean", beanResource.get());
+      assertEquals("helper", beanResource.helper());
+    }
+    assertEquals("bean 7", beanResource.get(7));
+    // ping() is a resource method only by way of the Pingable
+    // interface.
+    assertEquals("pong", beanResource.ping());
+    assertThrows(IllegalStateException.class, nonBeanResource::fail);
+
+    final ResourceMethodMetrics metrics = this.container.select(ResourceMethodMetrics.class).get();
+    assertEquals(new HashSet<>(Arrays.asList(BeanResource.class.getMethod("get"),
+                                             BeanResource.class.getMethod("get", int.class),
+                                             BeanResource.class.getMethod("ping"),
+                                             NonBeanResource.class.getMethod("fail"))),
+                 metrics.getMethods());
+    assertNull(metrics.getEntry(BeanResource.class.getMethod("helper")));
+
+    final ResourceMethodMetrics.Entry get = metrics.getEntry(BeanResource.class.getMethod("get"));
+    assertEquals(3L, get.getInvocationCount());
+    assertEquals(0L, get.getErrorCount());
+    assertEquals(3L, Arrays.stream(get.getHistogram()).sum());
+    assertFalse(get.getPercentile(0.5).compareTo(get.getPercentile(1.0)) > 0);
+
+    final ResourceMethodMetrics.Entry fail = metrics.getEntry(NonBeanResource.class.getMethod("fail"));
+    assertEquals(1L, fail.getInvocationCount());
+    assertEquals(1L, fail.getErrorCount());
+
+    final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+    final ObjectName objectName = new ObjectName("org.microbean.jaxrs.cdi:type=ResourceMethodMetrics");
+    final TabularData invocationCounts = (TabularData)mBeanServer.getAttribute(objectName, "InvocationCounts");
+    // Overloads of get() are reported separately.
+    assertEquals(4, invocationCounts.size());
+    assertEquals(3L, invocationCounts.get(new Object[] { BeanResource.class.getName() + "#get()" }).get("value"));
+    assertEquals(1L, invocationCounts.get(new Object[] { BeanResource.class.getName() + "#get(int)" }).get("value"));
+    this.stopContainer();
+    assertFalse(mBeanServer.isRegistered(objectName));
+  }
+
+  @Test
+  public void testBuckets() {
+    // One underflow bucket, four per power of two from 2^10 to 2^36
+    // nanoseconds, and one overflow bucket.
+    assertEquals(106, ResourceMethodMetrics.BUCKET_COUNT);
+    assertEquals(0, ResourceMethodMetrics.bucketOf(0L));
+    assertEquals(ResourceMethodMetrics.BUCKET_COUNT - 1, ResourceMethodMetrics.bucketOf(Long.MAX_VALUE));
+    long previousUpperBound = 0L;
+    for (int bucket = 0; bucket < ResourceMethodMetrics.BUCKET_COUNT; bucket++) {
+      final long upperBound = ResourceMethodMetrics.getBucketUpperBound(bucket);
+      assertTrue(upperBound > previousUpperBound);
+      assertEquals(bucket, ResourceMethodMetrics.bucketOf(previousUpperBound));
+      assertEquals(bucket, ResourceMethodMetrics.bucketOf(upperBound - 1L));
+      previousUpperBound = upperBound;
+    }
+  }
+
+  private static final class MyApplication extends Application {
+
+    private MyApplication() {
+      super();
+    }
+
+    @Override
+    public Set<Class<?>> getClasses() {
+      return new HashSet<>(Arrays.asList(BeanResource.class, NonBeanResource.class));
+    }
+
+  }
+
+  public static interface Pingable {
+
+    @GET
+    @Path("ping")
+    public String ping();
+
+  }
+
+  @Path("bean")
+  public static class BeanResource implements Pingable {
+
+    public BeanResource() {
+      super();
+    }
+
+    @GET
+    public String get() {
+      return "bean";
+    }
+
+    @GET
+    @Path("{n}")
+    public String get(@PathParam("n") final int n) {
+      return "bean " + n;
+    }
+
+    public String helper() {
+      return "helper";
+    }
+
+    @Override
+    public String ping() {
+      return "pong";
+    }
+
+  }
+
+  @Path("nonBean")
+  public static class NonBeanResource {
+
+    public NonBeanResource() {
+      super();
+    }
+
+    @GET
+    public String fail() {
+      throw new IllegalStateException();
+    }
+
+  }
+
+}
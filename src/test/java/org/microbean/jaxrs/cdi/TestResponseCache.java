@@ -0,0 +1,332 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.lang.reflect.Method;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.enterprise.context.RequestScoped;
+
+import javax.enterprise.inject.se.SeContainer;
+import javax.enterprise.inject.se.SeContainerInitializer;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.QueryParam;
+
+import javax.ws.rs.core.Application;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+
+import javax.inject.Inject;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestResponseCache {
+
+  private SeContainer container;
+
+  public TestResponseCache() {
+    super();
+  }
+
+  @BeforeEach
+  public void startContainer() throws Exception {
+    this.stopContainer();
+    System.setProperty(JaxRsExtension.RESPONSE_CACHE_PROPERTY_NAME, "true");
+    final SeContainerInitializer initializer = SeContainerInitializer.newInstance();
+    initializer.disableDiscovery();
+    initializer.addExtensions(new JaxRsExtension());
+    initializer.addBeanClasses(MyApplication.class, Caller.class);
+    this.container = initializer.initialize();
+  }
+
+  @AfterEach
+  public void stopContainer() throws Exception {
+    System.clearProperty(JaxRsExtension.RESPONSE_CACHE_PROPERTY_NAME);
+    if (this.container != null) {
+      this.container.close();
+      this.container = null;
+    }
+  }
+
+  @Test
+  public void testResponseCache() throws Exception {
+    final Rendering rendering =
+      this.container.select(Rendering.class, JaxRsExtension.ResourceClass.Literal.INSTANCE).get();
+    final ResponseCache responseCache = this.container.select(ResponseCache.class).get();
+
+    assertEquals("a:1", rendering.render("a"));
+    assertEquals("a:1", rendering.render("a"));
+    assertEquals("b:2", rendering.render("b"));
+    assertEquals("a:1", rendering.render("a"));
+    assertNull(rendering.nothing());
+    assertNull(rendering.nothing());
+    assertEquals(1, rendering.nothingCount.get());
+    assertEquals(3L, responseCache.getHitCount());
+    assertEquals(3L, responseCache.getMissCount());
+    assertEquals(3, responseCache.size());
+
+    // POST methods, and exceptions, are never cached.
+    assertEquals(1, rendering.update());
+    assertEquals(2, rendering.update());
+    assertThrows(IllegalStateException.class, rendering::fail);
+    assertThrows(IllegalStateException.class, rendering::fail);
+
+    responseCache.invalidate(Rendering.class.getMethod("render", String.class));
+    assertEquals("a:3", rendering.render("a"));
+    responseCache.invalidateAll();
+    assertEquals(0, responseCache.size());
+    assertEquals(0L, responseCache.getWeight());
+  }
+
+  @Test
+  public void testInheritedGet() throws Exception {
+    final Rendering rendering =
+      this.container.select(Rendering.class, JaxRsExtension.ResourceClass.Literal.INSTANCE).get();
+    // lookup(String) is a GET method only by way of the Lookup
+    // interface.
+    assertEquals("x:1", rendering.lookup("x"));
+    assertEquals("x:1", rendering.lookup("x"));
+    assertEquals(1L, this.container.select(ResponseCache.class).get().getHitCount());
+  }
+
+  @Test
+  public void testContextParameterIsNotCached() throws Exception {
+    final Rendering rendering =
+      this.container.select(Rendering.class, JaxRsExtension.ResourceClass.Literal.INSTANCE).get();
+    assertEquals("1", rendering.headers(null));
+    assertEquals("2", rendering.headers(null));
+    assertEquals(0L, this.container.select(ResponseCache.class).get().getHitCount());
+  }
+
+  @Test
+  public void testRequestScopedDependencyIsNotCached() throws Exception {
+    final PerCaller perCaller =
+      this.container.select(PerCaller.class, JaxRsExtension.ResourceClass.Literal.INSTANCE).get();
+    assertEquals(1, perCaller.get());
+    assertEquals(2, perCaller.get());
+    assertEquals(0L, this.container.select(ResponseCache.class).get().getHitCount());
+  }
+
+  @Test
+  public void testBeanClassMaxAge() throws Exception {
+    final SubRendering subRendering =
+      this.container.select(SubRendering.class, JaxRsExtension.ResourceClass.Literal.INSTANCE).get();
+    // get() is declared by a class whose @Cacheable disables caching,
+    // but the bean class's own @Cacheable applies.
+    assertEquals(1, subRendering.get());
+    assertEquals(1, subRendering.get());
+    assertEquals(1L, this.container.select(ResponseCache.class).get().getHitCount());
+  }
+
+  @Test
+  public void testEviction() throws Exception {
+    final Method method = Rendering.class.getMethod("render", String.class);
+    final ResponseCache responseCache = new ResponseCache(2048L);
+    final AtomicInteger invocations = new AtomicInteger();
+    for (int i = 0; i < 100; i++) {
+      final String argument = String.valueOf(i);
+      responseCache.get(Rendering.class, method, new Object[] { argument }, () -> {
+          invocations.incrementAndGet();
+          return new String(new char[200]);
+        });
+      assertTrue(responseCache.getWeight() <= responseCache.getMaximumWeight());
+    }
+    assertEquals(100, invocations.get());
+    assertTrue(responseCache.getEvictionCount() > 0L);
+    assertEquals(100L - responseCache.getEvictionCount(), responseCache.size());
+  }
+
+  @Test
+  public void testConcurrentMisses() throws Exception {
+    final Method method = Rendering.class.getMethod("render", String.class);
+    final ResponseCache responseCache = new ResponseCache(1024L * 1024L);
+    final AtomicInteger invocations = new AtomicInteger();
+    final CountDownLatch latch = new CountDownLatch(1);
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      final Future<?>[] futures = new Future<?>[8];
+      for (int i = 0; i < futures.length; i++) {
+        futures[i] = executor.submit(() -> responseCache.get(Rendering.class, method, new Object[] { "x" }, () -> {
+              invocations.incrementAndGet();
+              latch.await();
+              return "x";
+            }));
+      }
+      Thread.sleep(100L);
+      latch.countDown();
+      for (final Future<?> future : futures) {
+        assertEquals("x", future.get(10L, TimeUnit.SECONDS));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertEquals(1, invocations.get());
+  }
+
+  private static final class MyApplication extends Application {
+
+    private MyApplication() {
+      super();
+    }
+
+    @Override
+    public Set<Class<?>> getClasses() {
+      return new HashSet<>(Arrays.asList(Rendering.class, PerCaller.class, SubRendering.class));
+    }
+
+  }
+
+  public static interface Lookup {
+
+    @GET
+    @Path("lookup")
+    public String lookup(@QueryParam("name") final String name);
+
+  }
+
+  @Cacheable
+  @Path("rendering")
+  public static class Rendering implements Lookup {
+
+    private final AtomicInteger count = new AtomicInteger();
+
+    private final AtomicInteger nothingCount = new AtomicInteger();
+
+    private final AtomicInteger updateCount = new AtomicInteger();
+
+    private final AtomicInteger lookupCount = new AtomicInteger();
+
+    private final AtomicInteger headersCount = new AtomicInteger();
+
+    public Rendering() {
+      super();
+    }
+
+    @GET
+    public String render(@QueryParam("name") final String name) {
+      return name + ":" + this.count.incrementAndGet();
+    }
+
+    @GET
+    @Path("nothing")
+    @Cacheable(maxAge = 3600L)
+    public String nothing() {
+      this.nothingCount.incrementAndGet();
+      return null;
+    }
+
+    @Override
+    public String lookup(final String name) {
+      return name + ":" + this.lookupCount.incrementAndGet();
+    }
+
+    @POST
+    public int update() {
+      return this.updateCount.incrementAndGet();
+    }
+
+    @GET
+    @Path("fail")
+    public String fail() {
+      throw new IllegalStateException();
+    }
+
+    @GET
+    @Path("headers")
+    public String headers(@Context final HttpHeaders headers) {
+      return String.valueOf(this.headersCount.incrementAndGet());
+    }
+
+  }
+
+  @RequestScoped
+  public static class Caller {
+
+    public Caller() {
+      super();
+    }
+
+  }
+
+  @Cacheable
+  @Path("per-caller")
+  public static class PerCaller {
+
+    private final AtomicInteger count = new AtomicInteger();
+
+    @Inject
+    private Caller caller;
+
+    public PerCaller() {
+      super();
+    }
+
+    @GET
+    public int get() {
+      return this.count.incrementAndGet();
+    }
+
+  }
+
+  @Cacheable(maxAge = 0L)
+  public static class BaseRendering {
+
+    private final AtomicInteger count = new AtomicInteger();
+
+    public BaseRendering() {
+      super();
+    }
+
+    @GET
+    public int get() {
+      return this.count.incrementAndGet();
+    }
+
+  }
+
+  @Cacheable(maxAge = 3600L)
+  @Path("sub-rendering")
+  public static class SubRendering extends BaseRendering {
+
+    public SubRendering() {
+      super();
+    }
+
+  }
+
+}
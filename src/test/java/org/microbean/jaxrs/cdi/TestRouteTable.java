@@ -0,0 +1,106 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.util.Arrays;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestRouteTable {
+
+  public TestRouteTable() {
+    super();
+  }
+
+  @Test
+  public void testMatch() throws ReflectiveOperationException {
+    final RouteTable routeTable = RouteTable.of(Arrays.asList(Users.class, Status.class, String.class));
+    assertEquals(1, routeTable.getUnindexedRoutes().size());
+
+    assertEquals(Users.class.getMethod("list"), routeTable.match("/users", "GET").getMethod());
+    assertEquals(Users.class.getMethod("create"), routeTable.match("users/", "POST").getMethod());
+    assertEquals(Users.class.getMethod("me"), routeTable.match("users/me", "GET").getMethod());
+    assertEquals(Users.class.getMethod("get", String.class), routeTable.match("users/42", "GET").getMethod());
+    assertEquals(Status.class.getMethod("get"), routeTable.match("", "GET").getMethod());
+    assertNull(routeTable.match("users/42", "DELETE"));
+    assertNull(routeTable.match("nothing", "GET"));
+
+    final RouteTable.Route locator = routeTable.match("users/42/friends/7", "GET");
+    assertNotNull(locator);
+    assertTrue(locator.isSubResourceLocator());
+    assertEquals(Users.class.getMethod("friends", String.class), locator.getMethod());
+  }
+
+  @Path("users")
+  public static final class Users {
+
+    @GET
+    public String list() {
+      return "";
+    }
+
+    @POST
+    public void create() {
+
+    }
+
+    @GET
+    @Path("me")
+    public String me() {
+      return "";
+    }
+
+    @GET
+    @Path("{id}")
+    public String get(@PathParam("id") final String id) {
+      return id;
+    }
+
+    @GET
+    @Path("{id: [0-9]+}/avatar")
+    public String avatar(@PathParam("id") final String id) {
+      return id;
+    }
+
+    @Path("{id}/friends")
+    public Object friends(@PathParam("id") final String id) {
+      return null;
+    }
+
+  }
+
+  @Path("/")
+  public static final class Status {
+
+    @GET
+    public String get() {
+      return "";
+    }
+
+  }
+
+}
@@ -0,0 +1,254 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.Dependent;
+
+import javax.enterprise.inject.se.SeContainer;
+import javax.enterprise.inject.se.SeContainerInitializer;
+
+import javax.enterprise.inject.spi.Bean;
+import javax.enterprise.inject.spi.BeanManager;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.QueryParam;
+
+import javax.ws.rs.core.Application;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestSingletonPromotion {
+
+  private SeContainer container;
+
+  public TestSingletonPromotion() {
+    super();
+  }
+
+  @BeforeEach
+  public void startContainer() throws Exception {
+    this.stopContainer();
+    System.setProperty(JaxRsExtension.PROMOTE_STATELESS_RESOURCES_PROPERTY_NAME, "true");
+    final SeContainerInitializer initializer = SeContainerInitializer.newInstance();
+    initializer.disableDiscovery();
+    initializer.addExtensions(new JaxRsExtension());
+    initializer.addBeanClasses(MyApplication.class, Greeter.class, Counter.class);
+    this.container = initializer.initialize();
+  }
+
+  @AfterEach
+  public void stopContainer() throws Exception {
+    System.clearProperty(JaxRsExtension.PROMOTE_STATELESS_RESOURCES_PROPERTY_NAME);
+    if (this.container != null) {
+      this.container.close();
+      this.container = null;
+    }
+  }
+
+  @Test
+  public void testPromotion() {
+    final SingletonPromotionReport report = this.container.select(SingletonPromotionReport.class).get();
+    assertEquals(new HashSet<>(Arrays.asList(StatelessResource.class,
+                                             ConstructorInjectedResource.class)),
+                 report.getPromotedClasses());
+    assertEquals(new HashSet<>(Arrays.asList(StatefulResource.class,
+                                             QueryParameterResource.class,
+                                             DependentInjectingResource.class,
+                                             MutableFinalFieldResource.class)),
+                 report.getRejectedClasses().keySet());
+    assertTrue(report.getRejectedClasses().get(StatefulResource.class).contains("not final"));
+    assertTrue(report.getRejectedClasses().get(MutableFinalFieldResource.class).contains("final field names"));
+
+    final BeanManager beanManager = this.container.getBeanManager();
+    assertEquals(Singleton.class, scopeOf(beanManager, StatelessResource.class));
+    assertEquals(Dependent.class, scopeOf(beanManager, StatefulResource.class));
+    assertEquals(Dependent.class, scopeOf(beanManager, QueryParameterResource.class));
+    assertEquals(Dependent.class, scopeOf(beanManager, DependentInjectingResource.class));
+    assertEquals(Dependent.class, scopeOf(beanManager, MutableFinalFieldResource.class));
+    assertEquals(Singleton.class, scopeOf(beanManager, ConstructorInjectedResource.class));
+  }
+
+  private static final Class<?> scopeOf(final BeanManager beanManager, final Class<?> c) {
+    final Bean<?> bean = beanManager.resolve(beanManager.getBeans(c, JaxRsExtension.ResourceClass.Literal.INSTANCE));
+    return bean.getScope();
+  }
+
+  private static final class MyApplication extends Application {
+
+    private MyApplication() {
+      super();
+    }
+
+    @Override
+    public Set<Class<?>> getClasses() {
+      return new HashSet<>(Arrays.asList(StatelessResource.class,
+                                         StatefulResource.class,
+                                         QueryParameterResource.class,
+                                         DependentInjectingResource.class,
+                                         MutableFinalFieldResource.class,
+                                         ConstructorInjectedResource.class));
+    }
+
+  }
+
+  @ApplicationScoped
+  static class Greeter {
+
+    Greeter() {
+      super();
+    }
+
+    String greet() {
+      return "hello";
+    }
+
+  }
+
+  @Dependent
+  static class Counter {
+
+    private int count;
+
+    Counter() {
+      super();
+    }
+
+  }
+
+  @Path("stateless")
+  public static final class StatelessResource {
+
+    private final String prefix;
+
+    @Inject
+    private Greeter greeter;
+
+    public StatelessResource() {
+      super();
+      this.prefix = "> ";
+    }
+
+    @GET
+    public String get() {
+      return this.prefix + this.greeter.greet();
+    }
+
+  }
+
+  @Path("stateful")
+  public static final class StatefulResource {
+
+    private int hits;
+
+    public StatefulResource() {
+      super();
+    }
+
+    @GET
+    public String get() {
+      return String.valueOf(++this.hits);
+    }
+
+  }
+
+  @Path("query")
+  public static final class QueryParameterResource {
+
+    @QueryParam("q")
+    private String q;
+
+    public QueryParameterResource() {
+      super();
+    }
+
+    @GET
+    public String get() {
+      return this.q;
+    }
+
+  }
+
+  @Path("dependent")
+  public static final class DependentInjectingResource {
+
+    @Inject
+    private Counter counter;
+
+    public DependentInjectingResource() {
+      super();
+    }
+
+    @GET
+    public String get() {
+      return String.valueOf(this.counter.count);
+    }
+
+  }
+
+  @Path("mutable")
+  public static final class MutableFinalFieldResource {
+
+    private final List<String> names;
+
+    public MutableFinalFieldResource() {
+      super();
+      this.names = new ArrayList<>();
+    }
+
+    @GET
+    public String get() {
+      this.names.add("x");
+      return String.valueOf(this.names.size());
+    }
+
+  }
+
+  @Path("constructor")
+  public static final class ConstructorInjectedResource {
+
+    private final Greeter greeter;
+
+    @Inject
+    public ConstructorInjectedResource(final Greeter greeter) {
+      super();
+      this.greeter = greeter;
+    }
+
+    @GET
+    public String get() {
+      return this.greeter.greet();
+    }
+
+  }
+
+}
@@ -0,0 +1,175 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2020 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.jaxrs.cdi;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.RequestScoped;
+
+import javax.enterprise.inject.se.SeContainer;
+import javax.enterprise.inject.se.SeContainerInitializer;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+
+import javax.ws.rs.core.Application;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestWarmUp {
+
+  private static final AtomicInteger applicationScopedInstances = new AtomicInteger();
+
+  private static final AtomicInteger requestScopedInstances = new AtomicInteger();
+
+  private static final AtomicInteger dependentInstances = new AtomicInteger();
+
+  private SeContainer container;
+
+  public TestWarmUp() {
+    super();
+  }
+
+  @BeforeEach
+  public void startContainer() throws Exception {
+    this.stopContainer();
+    applicationScopedInstances.set(0);
+    requestScopedInstances.set(0);
+    dependentInstances.set(0);
+    System.setProperty(JaxRsExtension.WARM_UP_PROPERTY_NAME, "true");
+    System.setProperty(JaxRsExtension.WARM_UP_ITERATIONS_PROPERTY_NAME, "5");
+    final SeContainerInitializer initializer = SeContainerInitializer.newInstance();
+    initializer.disableDiscovery();
+    initializer.addExtensions(new JaxRsExtension());
+    initializer.addBeanClasses(MyApplication.class,
+                               ApplicationScopedResource.class,
+                               RequestScopedResource.class,
+                               DependentResource.class);
+    this.container = initializer.initialize();
+  }
+
+  @AfterEach
+  public void stopContainer() throws Exception {
+    System.clearProperty(JaxRsExtension.WARM_UP_PROPERTY_NAME);
+    System.clearProperty(JaxRsExtension.WARM_UP_ITERATIONS_PROPERTY_NAME);
+    if (this.container != null) {
+      this.container.close();
+      this.container = null;
+    }
+  }
+
+  @Test
+  public void testWarmUp() {
+    assertEquals(1, applicationScopedInstances.get());
+    assertEquals(1, requestScopedInstances.get());
+    assertEquals(0, dependentInstances.get());
+
+    final WarmUpReport report = this.container.select(WarmUpReport.class).get();
+    assertTrue(report.isComplete());
+    assertEquals(2, report.getBeanCount());
+    assertEquals(0, report.getFailureCount());
+    assertEquals(10L, report.getInvocationCount());
+    assertTrue(report.getDuration().toNanos() > 0L);
+  }
+
+  private static final class MyApplication extends Application {
+
+    private MyApplication() {
+      super();
+    }
+
+    @Override
+    public Set<Class<?>> getClasses() {
+      return new HashSet<>(Arrays.asList(ApplicationScopedResource.class,
+                                         RequestScopedResource.class,
+                                         DependentResource.class));
+    }
+
+  }
+
+  @ApplicationScoped
+  @Path("application")
+  public static class ApplicationScopedResource {
+
+    public ApplicationScopedResource() {
+      super();
+    }
+
+    @PostConstruct
+    private void postConstruct() {
+      applicationScopedInstances.incrementAndGet();
+    }
+
+    @GET
+    public String get() {
+      return "application";
+    }
+
+  }
+
+  @RequestScoped
+  @Path("request")
+  public static class RequestScopedResource {
+
+    public RequestScopedResource() {
+      super();
+    }
+
+    @PostConstruct
+    private void postConstruct() {
+      requestScopedInstances.incrementAndGet();
+    }
+
+    @GET
+    public String get() {
+      return "request";
+    }
+
+  }
+
+  @Path("dependent")
+  public static class DependentResource {
+
+    public DependentResource() {
+      super();
+    }
+
+    @PostConstruct
+    private void postConstruct() {
+      dependentInstances.incrementAndGet();
+    }
+
+    @GET
+    public String get() {
+      return "dependent";
+    }
+
+  }
+
+}